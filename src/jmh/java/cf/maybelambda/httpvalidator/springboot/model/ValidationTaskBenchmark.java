@@ -0,0 +1,76 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.StubHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+
+/**
+ * Throughput of the validation of a response, for each kind of check on the body, across body sizes.
+ * <p>
+ * The bodies are JSON documents with the expected content at the end, so every check has to go through the whole
+ * body before passing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationTaskBenchmark {
+    private static final String URL = "https://example.com/api/items";
+
+    @Param({"1024", "65536", "1048576"})
+    public int bodySize;
+
+    private HttpSendOutcomeWrapper res;
+    private ValidationTask containsTask;
+    private ValidationTask jsonPathTask;
+    private ValidationTask regexTask;
+
+    @Setup
+    public void setUp() {
+        StringBuilder body = new StringBuilder("{\"items\": [");
+        for (int i = 0; body.length() < this.bodySize; i++) {
+            body.append(i == 0 ? "" : ", ").append("{\"id\": ").append(i).append(", \"name\": \"item-").append(i).append("\"}");
+        }
+        body.append("], \"status\": \"ok\"}");
+        HttpRequest req = HttpRequest.newBuilder(URI.create(URL)).build();
+        this.res = new HttpSendOutcomeWrapper(new StubHttpResponse(req, 200, body.toString()), 1_000_000, 2_000_000);
+
+        JsonNode nullBody = JsonMapper.builder().build().nullNode();
+        this.containsTask = new ValidationTask(GET, URL, List.of(), nullBody, 200, "\"status\": \"ok\"");
+        this.jsonPathTask = new ValidationTask(GET, URL, List.of(), nullBody, 200, "", new ResponseAssertions(
+            List.of(new JsonPathAssertion("$.status", JsonPathAssertion.Kind.EQUALS, "ok", 0, 0)),
+            null, List.of(), null, null));
+        this.regexTask = new ValidationTask(GET, URL, List.of(), nullBody, 200, "", new ResponseAssertions(
+            List.of(), null, List.of(), null, new RegexAssertion("\"status\":\\s*\"ok\"")));
+    }
+
+    @Benchmark
+    public ValidationFailure validateContains() { return this.containsTask.validate(this.res); }
+
+    @Benchmark
+    public ValidationFailure validateJsonPath() { return this.jsonPathTask.validate(this.res); }
+
+    @Benchmark
+    public ValidationFailure validateRegex() { return this.regexTask.validate(this.res); }
+}
@@ -0,0 +1,39 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import org.springframework.core.env.Environment;
+
+/**
+ * Wires the stores of the validation results outside of the application context, for the benchmarks of other
+ * packages.
+ */
+public final class ResultsStores {
+    private ResultsStores() {}
+
+    /**
+     * Creates a results log, which is disabled unless its directory is set in the environment.
+     *
+     * @param env the environment
+     * @return the log
+     */
+    public static ResultsLog newLog(Environment env) {
+        ResultsLog log = new ResultsLog();
+        log.setEnv(env);
+
+        return log;
+    }
+
+    /**
+     * Creates an empty results index, filled from a results log.
+     *
+     * @param env the environment
+     * @param log the results log
+     * @return the index
+     */
+    public static ResultsIndex newIndex(Environment env, ResultsLog log) {
+        ResultsIndex index = new ResultsIndex();
+        index.setEnv(env);
+        index.setResultsLog(log);
+
+        return index;
+    }
+}
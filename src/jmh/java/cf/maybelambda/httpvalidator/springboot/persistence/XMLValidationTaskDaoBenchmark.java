@@ -0,0 +1,159 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.NOPLogger;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.DATAFILE_MAXSIZE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.DATAFILE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.SNAPSHOT_SUFFIX;
+
+/**
+ * Throughput of reading the data file, from 100 to 100k tasks: the first read of the XML, which is parsed, validated
+ * and saved as a binary snapshot, the read of an unchanged data file from its snapshot, and the upload of a new data
+ * file, which is validated while being written.
+ * <p>
+ * Each read uses a new DAO, created before the measured call, as the tasks are kept in memory once read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XMLValidationTaskDaoBenchmark {
+
+    /**
+     * The data file, shared by every benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class DataFile {
+        @Param({"100", "10000", "100000"})
+        public int taskCount;
+
+        private Path dir;
+        private Path datafile;
+        private byte[] content;
+        private MockEnvironment env;
+
+        @Setup
+        public void setUp() throws Exception {
+            StringBuilder xml = new StringBuilder("<validations>\n");
+            for (int i = 0; i < this.taskCount; i++) {
+                xml.append("<validation id=\"").append(i).append("\">");
+                String url = "https://host-" + (i % 50) + ".example.com/api/items/" + i;
+                if (i % 4 == 0) {
+                    xml.append("<url method=\"1\">").append(url).append("</url>")
+                        .append("<header>Content-Type|application/json</header>")
+                        .append("<reqbody>{\"id\": ").append(i).append("}</reqbody>");
+                } else {
+                    xml.append("<url method=\"0\">").append(url).append("</url>")
+                        .append("<header>Accept|application/json</header>");
+                }
+                xml.append("<response statuscode=\"200\">\"status\": \"ok\"</response>")
+                    .append("<jsonpath path=\"$.status\">ok</jsonpath></validation>\n");
+            }
+            xml.append("</validations>\n");
+            this.content = xml.toString().getBytes(StandardCharsets.UTF_8);
+            this.dir = Files.createTempDirectory("dao-benchmark");
+            this.datafile = this.dir.resolve("validations.xml");
+            Files.write(this.datafile, this.content);
+            this.env = new MockEnvironment()
+                .withProperty(DATAFILE_PROPERTY, this.datafile.toString())
+                .withProperty(DATAFILE_MAXSIZE_PROPERTY, String.valueOf(2L * this.content.length));
+        }
+
+        @TearDown
+        public void tearDown() throws Exception {
+            FileSystemUtils.deleteRecursively(this.dir);
+        }
+
+        XMLValidationTaskDao newDao() throws Exception {
+            XMLValidationTaskDao dao = new XMLValidationTaskDao();
+            dao.setLogger(NOPLogger.NOP_LOGGER);
+            dao.setObjectMapper(JsonMapper.builder().build());
+            dao.setEnv(this.env);
+
+            return dao;
+        }
+
+        Path snapshotPath() { return Path.of(this.datafile + SNAPSHOT_SUFFIX); }
+    }
+
+    /**
+     * A new DAO for each read of the XML, without a snapshot to read instead.
+     */
+    @State(Scope.Thread)
+    public static class XmlLoad {
+        private XMLValidationTaskDao dao;
+
+        @Setup(Level.Invocation)
+        public void setUp(DataFile f) throws Exception {
+            Files.deleteIfExists(f.snapshotPath());
+            this.dao = f.newDao();
+        }
+    }
+
+    /**
+     * A new DAO for each read of the snapshot, which is written once.
+     */
+    @State(Scope.Thread)
+    public static class SnapshotLoad {
+        private XMLValidationTaskDao dao;
+
+        @Setup
+        public void writeSnapshot(DataFile f) throws Exception {
+            f.newDao().getAll();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp(DataFile f) throws Exception {
+            this.dao = f.newDao();
+        }
+    }
+
+    /**
+     * The upload of the content of the data file.
+     */
+    @State(Scope.Thread)
+    public static class Upload {
+        private XMLValidationTaskDao dao;
+        private MockMultipartFile file;
+
+        @Setup
+        public void setUp(DataFile f) throws Exception {
+            this.dao = f.newDao();
+            this.file = new MockMultipartFile("file", "validations.xml", "text/xml", f.content);
+        }
+    }
+
+    @Benchmark
+    public List<ValidationTask> getAllFromXml(XmlLoad s) throws Exception { return s.dao.getAll(); }
+
+    @Benchmark
+    public List<ValidationTask> getAllFromSnapshot(SnapshotLoad s) throws Exception { return s.dao.getAll(); }
+
+    @Benchmark
+    public void updateDataFile(Upload s) throws Exception { s.dao.updateDataFile(s.file); }
+}
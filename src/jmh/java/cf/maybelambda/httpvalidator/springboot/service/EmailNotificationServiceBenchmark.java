@@ -0,0 +1,56 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_MSG;
+
+/**
+ * Throughput of building the body of the failure notification, from a few failures to a run where most tasks fail.
+ * <p>
+ * One failure in ten is a network error; the rest are status code mismatches with a body longer than the part
+ * included in the notification.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailNotificationServiceBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int failureCount;
+
+    private EmailNotificationService service;
+    private List<String[]> failures;
+
+    @Setup
+    public void setUp() {
+        this.service = new EmailNotificationService("apiKey");
+        String body = "{\"error\": \"" + "x".repeat(2000) + "\"}";
+        this.failures = new ArrayList<>(this.failureCount);
+        for (int i = 0; i < this.failureCount; i++) {
+            String task = "https://host-" + (i % 50) + ".example.com [Task #" + i + "]";
+            this.failures.add(i % 10 == 0
+                ? new String[]{task, String.valueOf(NET_ERR_CODE), NET_ERR_MSG, null}
+                : new String[]{task, "500", body, "STATUS_CODE: Unexpected status code"});
+        }
+    }
+
+    @Benchmark
+    public String buildMailBody() { return this.service.buildMailBody(this.failures); }
+}
@@ -0,0 +1,200 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsStores;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.StubHttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.helpers.NOPLogger;
+import org.springframework.mock.env.MockEnvironment;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.ConnectException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.HEADER_KEY_VALUE_DELIMITER;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
+
+/**
+ * Throughput of the stages of a run that do not depend on the network, for a page of tasks: building the requests,
+ * sending them to a client that answers at once and validating the responses, and recording the outcomes.
+ * <p>
+ * One task in four is a POST with a JSON body and one in ten fails.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationServiceBenchmark {
+    private static final String OK_BODY = "{\"status\": \"ok\"}";
+
+    @Param({"100", "10000"})
+    public int taskCount;
+
+    private ValidationService service;
+    private MockEnvironment env;
+    private List<ValidationTask> tasks;
+    private TaskSource.TaskSet taskSet;
+    private List<TaskOutcome> outcomes;
+    private LatencyHistograms latencies;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = JsonMapper.builder().build();
+        this.env = new MockEnvironment();
+        this.service = new ValidationService();
+        this.service.setLogger(NOPLogger.NOP_LOGGER);
+        this.service.setEnv(this.env);
+        this.service.setObjectMapper(mapper);
+        this.service.setClient(new StubHttpClient());
+        this.service.setEngineMetrics(new EngineMetrics());
+        SloTracker sloTracker = new SloTracker();
+        sloTracker.setEnv(this.env);
+        this.service.setSloTracker(sloTracker);
+
+        this.tasks = new ArrayList<>(this.taskCount);
+        this.outcomes = new ArrayList<>(this.taskCount);
+        for (int i = 0; i < this.taskCount; i++) {
+            String url = "https://host-" + (i % 50) + ".example.com/api/items/" + i;
+            List<String> headers = List.of("Accept" + HEADER_KEY_VALUE_DELIMITER + "application/json",
+                "X-Request-Id" + HEADER_KEY_VALUE_DELIMITER + i);
+            boolean post = i % 4 == 0;
+            ValidationTask task = new ValidationTask(post ? POST : GET, url, headers,
+                post ? mapper.createObjectNode().put("id", i).put("name", "item-" + i) : mapper.nullNode(),
+                200, "\"status\": \"ok\"");
+            this.tasks.add(task);
+
+            HttpSendOutcomeWrapper res = i % 10 == 9
+                ? new HttpSendOutcomeWrapper(new ConnectException("Connection refused"))
+                : new HttpSendOutcomeWrapper(new StubHttpResponse(HttpRequest.newBuilder(URI.create(url)).build(), 200, OK_BODY),
+                    1_000_000, 2_000_000);
+            ValidationFailure failure = i % 10 == 9 ? new ValidationFailure(FailureClass.NETWORK, "Network error") : null;
+            this.outcomes.add(new TaskOutcome(res, failure));
+        }
+        this.taskSet = TaskSource.TaskSet.of(this.tasks);
+    }
+
+    /**
+     * Starts every iteration with empty results, as they are kept in memory for the retention period.
+     */
+    @Setup(Level.Iteration)
+    public void resetResults() {
+        ResultsLog log = ResultsStores.newLog(this.env);
+        this.service.setResultsLog(log);
+        this.service.setResultsIndex(ResultsStores.newIndex(this.env, log));
+        this.latencies = new LatencyHistograms();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.service.shutdown();
+    }
+
+    @Benchmark
+    public List<HttpRequest> buildRequests() { return this.service.buildRequests(this.tasks); }
+
+    @Benchmark
+    public List<?> buildAndExecuteRequests() throws Exception {
+        return this.service.buildAndExecuteRequests(this.tasks, ValidationService.newStageMetrics());
+    }
+
+    /**
+     * Records the outcomes of the page. Once the first invocation has seen the tasks, the memory allocated per
+     * operation ({@code gc.alloc.rate.norm}) should only be that of the list of failures, of the outcomes kept by
+     * the results index and of the text of the failure count of the tasks that failed more than 99 runs in a row,
+     * which the failing tasks of this page soon do. The service logs to a logger that discards every line, so the
+     * event the logging backend creates for each line when INFO is enabled (about 150 bytes with Logback) is not
+     * included; the service itself allocates nothing per task to log it or to build its failure record.
+     */
+    @Benchmark
+    public List<String[]> recordResults() {
+        List<String[]> failures = new ArrayList<>();
+        this.service.recordResults(this.taskSet, this.tasks, this.outcomes, 0, new int[3], failures, this.latencies);
+
+        return failures;
+    }
+
+    /**
+     * Client that answers every request at once with a successful response, without going through the network.
+     */
+    private static class StubHttpClient extends HttpClient {
+        @Override
+        public Optional<CookieHandler> cookieHandler() { return Optional.empty(); }
+
+        @Override
+        public Optional<Duration> connectTimeout() { return Optional.empty(); }
+
+        @Override
+        public Redirect followRedirects() { return Redirect.NEVER; }
+
+        @Override
+        public Optional<ProxySelector> proxy() { return Optional.empty(); }
+
+        @Override
+        public SSLContext sslContext() { return null; }
+
+        @Override
+        public SSLParameters sslParameters() { return null; }
+
+        @Override
+        public Optional<Authenticator> authenticator() { return Optional.empty(); }
+
+        @Override
+        public Version version() { return Version.HTTP_1_1; }
+
+        @Override
+        public Optional<Executor> executor() { return Optional.empty(); }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> HttpResponse<T> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+            return (HttpResponse<T>) new StubHttpResponse(req, 200, OK_BODY);
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+            return CompletableFuture.completedFuture(this.send(req, handler));
+        }
+
+        @Override
+        public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest req, HttpResponse.BodyHandler<T> handler,
+                                                                HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            return this.sendAsync(req, handler);
+        }
+    }
+}
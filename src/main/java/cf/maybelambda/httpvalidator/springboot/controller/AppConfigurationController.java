@@ -1,6 +1,7 @@
 package cf.maybelambda.httpvalidator.springboot.controller;
 
 import cf.maybelambda.httpvalidator.springboot.HTTPValidatorWebApp;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
 import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
 import cf.maybelambda.httpvalidator.springboot.service.ValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,11 +31,14 @@ public class AppConfigurationController {
     public static final String INVALID_CRON_EXPRESSION_ERROR_MSG = "Invalid Cron Expression";
     public static final String INVALID_DATA_FILE_ERROR_MSG = "Invalid Data File";
     public static final String UPD_DATA_FILE_ERROR_MSG = "Error updating Data File";
+    public static final String NOT_EDITABLE_ERROR_MSG = "Validation Tasks are not read from the XML Data File";
 
     @Autowired
     private ValidationService valServ;
     @Autowired
     private XMLValidationTaskDao dao;
+    @Autowired
+    private TaskSource taskSource;
 
     /**
      * Updates the validator run schedule based on the provided cron expression.
@@ -63,6 +67,7 @@ public class AppConfigurationController {
 
     /**
      * Updates the validator data file with the contents from the provided multipart file.
+     * Returns conflict status with error message when the tasks are not read from the XML data file.
      * Returns internal server error status with error message for data file update failure (IO error).
      * Returns bad request status with error message for invalid data file.
      *
@@ -75,14 +80,20 @@ public class AppConfigurationController {
         res = ResponseEntity.ok(null);
         Map<String, String> resBody = new HashMap<>();
 
-        try {
-            this.dao.updateDataFile(file);
-        } catch (IOException e) {
-            resBody.put(ERROR_VALUE.toLowerCase(), UPD_DATA_FILE_ERROR_MSG);
-            res = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resBody);
-        } catch (Exception e) {
-            resBody.put(ERROR_VALUE.toLowerCase(), INVALID_DATA_FILE_ERROR_MSG);
-            res = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resBody);
+        // Uploads would otherwise be accepted without changing the tasks that are run
+        if (!this.taskSource.isEditable()) {
+            resBody.put(ERROR_VALUE.toLowerCase(), NOT_EDITABLE_ERROR_MSG);
+            res = ResponseEntity.status(HttpStatus.CONFLICT).body(resBody);
+        } else {
+            try {
+                this.dao.updateDataFile(file);
+            } catch (IOException e) {
+                resBody.put(ERROR_VALUE.toLowerCase(), UPD_DATA_FILE_ERROR_MSG);
+                res = ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(resBody);
+            } catch (Exception e) {
+                resBody.put(ERROR_VALUE.toLowerCase(), INVALID_DATA_FILE_ERROR_MSG);
+                res = ResponseEntity.status(HttpStatus.BAD_REQUEST).body(resBody);
+            }
         }
 
         return res;
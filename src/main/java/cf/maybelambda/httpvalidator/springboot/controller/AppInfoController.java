@@ -1,17 +1,35 @@
 package cf.maybelambda.httpvalidator.springboot.controller;
 
-import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
 import cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService;
+import cf.maybelambda.httpvalidator.springboot.service.EngineMetrics;
 import cf.maybelambda.httpvalidator.springboot.service.EventListenerService;
+import cf.maybelambda.httpvalidator.springboot.service.LatencyHistograms;
+import cf.maybelambda.httpvalidator.springboot.service.RunProfiler;
+import cf.maybelambda.httpvalidator.springboot.service.RunSummary;
+import cf.maybelambda.httpvalidator.springboot.service.RunTrace;
+import cf.maybelambda.httpvalidator.springboot.service.RunTracer;
+import cf.maybelambda.httpvalidator.springboot.service.SloTracker;
 import cf.maybelambda.httpvalidator.springboot.service.ValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,19 +47,39 @@ public class AppInfoController {
     public static final String NO_LASTRUN_DATA_ERROR_MSG = "No validation tasks have been completed yet";
     public static final String STATUS_ENDPOINT = "/api/status";
     public static final String LAST_RUN_ENDPOINT = "/api/validator/lastrun";
+    public static final String RUNS_ENDPOINT = "/api/validator/runs";
+    public static final String RESULTS_ENDPOINT = "/api/validator/results";
+    public static final String SLO_ENDPOINT = "/api/validator/slo";
+    public static final String LATENCY_ENDPOINT = "/api/validator/latency";
+    public static final String METRICS_ENDPOINT = "/api/metrics";
+    public static final String PROFILE_ENDPOINT = "/api/validator/profile";
+    public static final String NO_PROFILE_ERROR_MSG = "No run has been profiled yet";
+    public static final String TRACE_ENDPOINT = "/api/validator/trace";
+    public static final String NO_TRACE_ERROR_MSG = "No run has been traced yet";
+    public static final String INVALID_TRACE_FORMAT_ERROR_MSG = "Invalid trace format";
+    public static final String INVALID_QUERY_ERROR_MSG = "Invalid results query";
+    static final int MAX_RESULTS_PAGE_SIZE = 1000;
     public static final String ERROR_VALUE = "ERROR";
     static final String OK_VALUE = "OK";
     public static final String DATAFILE_STATUS_KEY = "datafile_status";
     public static final String CONFIG_STATUS_KEY = "config_status";
 
     @Autowired
-    private XMLValidationTaskDao dao;
+    private TaskSource taskSource;
     @Autowired
     private EmailNotificationService mailServ;
     @Autowired
     private ValidationService valServ;
     @Autowired
     private EventListenerService eventServ;
+    @Autowired
+    private ResultsIndex resultsIndex;
+    @Autowired
+    private EngineMetrics metrics;
+    @Autowired
+    private RunProfiler profiler;
+    @Autowired
+    private RunTracer tracer;
 
     /**
      * Retrieves the current status of the web application.
@@ -55,7 +93,7 @@ public class AppInfoController {
 
         res.put(START_TIME_KEY, eventServ.getStartDateTime());
 
-        res.put(DATAFILE_STATUS_KEY, this.dao.isDataFileStatusOk() ? OK_VALUE : ERROR_VALUE);
+        res.put(DATAFILE_STATUS_KEY, this.taskSource.isDataFileStatusOk() ? OK_VALUE : ERROR_VALUE);
 
         res.put(
             CONFIG_STATUS_KEY,
@@ -84,4 +122,154 @@ public class AppInfoController {
 
         return res;
     }
+
+    /**
+     * Retrieves the information about the last runs of the validation service, kept in memory since the app started.
+     * Body: a list with the same data as the last run endpoint for each run, from the most recent one to the oldest.
+     *
+     * @return ResponseEntity containing the information of each run, empty if no run has been completed yet.
+     */
+    @GetMapping(RUNS_ENDPOINT)
+    public ResponseEntity<List<Map<String, String>>> informRunHistory() {
+        return ResponseEntity.ok(this.valServ.getRunHistory().stream().map(RunSummary::toInfoMap).toList());
+    }
+
+    /**
+     * Retrieves the percentiles (50th, 90th, 99th and maximum) of the request latencies of each task and host, in
+     * the last run and since the app started. Latencies include the time requests waited for the concurrency limit.
+     * Body: the percentiles of each task and host for the last run and cumulatively.
+     *
+     * @return ResponseEntity containing the percentiles, empty if no run has been completed yet.
+     */
+    @GetMapping(LATENCY_ENDPOINT)
+    public ResponseEntity<Map<String, LatencyHistograms.Report>> informLatencies() {
+        return ResponseEntity.ok(this.valServ.getLatencyReport());
+    }
+
+    /**
+     * Exposes the metrics of the validation engine in the Prometheus text exposition format, to be scraped by
+     * Prometheus or any compatible collector.
+     * Body: the current value of every series.
+     *
+     * @return ResponseEntity containing the exposition as plain text.
+     */
+    @GetMapping(METRICS_ENDPOINT)
+    public ResponseEntity<String> informMetrics() {
+        return ResponseEntity.ok().header(HttpHeaders.CONTENT_TYPE, EngineMetrics.CONTENT_TYPE).body(this.metrics.scrape());
+    }
+
+    /**
+     * Retrieves the rolling availability (ratio of successful runs) and response time percentiles of each task over
+     * the last hour, day, week and month.
+     * Body: a list with the counters of each window of each task, by task key.
+     *
+     * @return ResponseEntity containing the counters of each task, empty if no task has been run yet.
+     */
+    @GetMapping(SLO_ENDPOINT)
+    public ResponseEntity<List<SloTracker.TaskSlo>> informTaskSlos() {
+        return ResponseEntity.ok(this.valServ.getTaskSlos());
+    }
+
+    /**
+     * Retrieves a page of the outcomes of past task runs that match the given criteria, from the most recent one.
+     * Outcomes are kept for the retention period of the results log. Criteria not given match every outcome.
+     * Body: the number of matching outcomes and the outcomes of the page.
+     * Returns bad request status with error message for invalid times or paging parameters.
+     *
+     * @param task The key of the task: its id in the data file, or the key derived from its content if it has none.
+     * @param host The host of the task URL.
+     * @param status The status code of the response.
+     * @param failed Whether the task failed.
+     * @param from The time of the oldest outcome, as an ISO-8601 instant.
+     * @param to The time after the newest outcome, as an ISO-8601 instant.
+     * @param offset The number of matching outcomes to skip.
+     * @param limit The maximum number of outcomes to return, up to {@value #MAX_RESULTS_PAGE_SIZE}.
+     * @return ResponseEntity containing the page of outcomes or error message.
+     */
+    @GetMapping(RESULTS_ENDPOINT)
+    public ResponseEntity<?> queryResults(@RequestParam(required = false) Long task,
+                                          @RequestParam(required = false) String host,
+                                          @RequestParam(required = false) Integer status,
+                                          @RequestParam(required = false) Boolean failed,
+                                          @RequestParam(required = false) String from,
+                                          @RequestParam(required = false) String to,
+                                          @RequestParam(defaultValue = "0") int offset,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        try {
+            long fromMillis = from == null ? 0 : Instant.parse(from).toEpochMilli();
+            long toMillis = to == null ? Long.MAX_VALUE : Instant.parse(to).toEpochMilli();
+            if (offset < 0 || limit <= 0 || limit > MAX_RESULTS_PAGE_SIZE) {
+                throw new IllegalArgumentException();
+            }
+            ResultsIndex.Query q = new ResultsIndex.Query(task, host, status, failed, fromMillis, toMillis);
+
+            return ResponseEntity.ok(this.resultsIndex.query(q, offset, limit));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            Map<String, String> res = new HashMap<>();
+            res.put(ERROR_VALUE.toLowerCase(), INVALID_QUERY_ERROR_MSG);
+
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
+
+    /**
+     * Requests a Java Flight Recorder profile of the next run of validation tasks, including the events of the run,
+     * its requests and validations, data file reloads and notifications.
+     *
+     * @return ResponseEntity with accepted status; the profile is available from the same endpoint after the run.
+     */
+    @PostMapping(PROFILE_ENDPOINT)
+    public ResponseEntity<Void> requestProfile() {
+        this.profiler.requestNextRun();
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Retrieves the Java Flight Recorder profile of the last profiled run, to be opened with JDK Mission Control or
+     * the jfr tool.
+     * Returns not found status with error message if no run has been profiled yet.
+     *
+     * @return ResponseEntity containing the recording file or error message.
+     */
+    @GetMapping(PROFILE_ENDPOINT)
+    public ResponseEntity<?> informProfile() {
+        Path dump = this.profiler.getLastDump();
+        if (dump == null || !Files.exists(dump)) {
+            Map<String, String> res = new HashMap<>();
+            res.put(ERROR_VALUE.toLowerCase(), NO_PROFILE_ERROR_MSG);
+
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(res);
+        }
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + dump.getFileName() + "\"")
+            .body(new FileSystemResource(dump));
+    }
+
+    /**
+     * Retrieves the timeline of the last traced run: one span per task, split into the wait for the concurrency limit,
+     * the request until the first byte, the body, the wait for validation and the validation.
+     * Returns not found status with error message if no run has been traced yet, and bad request status with error
+     * message for an unknown format.
+     *
+     * @param format {@value RunTracer#CHROME_FORMAT} for the Chrome trace event format (the default) or
+     *               {@value RunTracer#OTLP_FORMAT} for OpenTelemetry OTLP/JSON.
+     * @return ResponseEntity containing the trace or error message.
+     */
+    @GetMapping(TRACE_ENDPOINT)
+    public ResponseEntity<?> informTrace(@RequestParam(defaultValue = RunTracer.CHROME_FORMAT) String format) {
+        RunTrace trace = this.tracer.getLastTrace();
+        Map<String, String> res = new HashMap<>();
+        if (trace == null) {
+            res.put(ERROR_VALUE.toLowerCase(), NO_TRACE_ERROR_MSG);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(res);
+        }
+        try {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(this.tracer.toJson(trace, format));
+        } catch (IllegalArgumentException e) {
+            res.put(ERROR_VALUE.toLowerCase(), INVALID_TRACE_FORMAT_ERROR_MSG);
+            return ResponseEntity.badRequest().body(res);
+        }
+    }
 }
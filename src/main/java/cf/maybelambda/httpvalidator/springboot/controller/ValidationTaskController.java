@@ -0,0 +1,211 @@
+package cf.maybelambda.httpvalidator.springboot.controller;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.NOT_EDITABLE_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.ERROR_VALUE;
+
+/**
+ * Controller for looking up and changing individual validation tasks without reading or replacing the whole data file.
+ * Tasks are looked up through the task source, which uses the indexes of the task store when it is selected.
+ * Every request is rejected with conflict status when the tasks are not read from the XML data file.
+ */
+@RestController
+@CrossOrigin
+public class ValidationTaskController {
+    public static final String TASKS_ENDPOINT = "/api/validator/tasks";
+    public static final String TASK_ENDPOINT = TASKS_ENDPOINT + "/{id}";
+    public static final String TASK_ID_KEY = "id";
+    public static final String TASK_HOST_PARAM = "host";
+    public static final String INVALID_TASK_ERROR_MSG = "Invalid Validation Task";
+    public static final String TASK_NOT_FOUND_ERROR_MSG = "Validation Task not found";
+    public static final String UPD_TASK_ERROR_MSG = "Error updating Validation Task";
+    public static final String READ_TASK_ERROR_MSG = "Error reading Validation Tasks";
+
+    @Autowired
+    private XMLValidationTaskDao dao;
+    @Autowired
+    private TaskSource taskSource;
+
+    /**
+     * Gets a validation task as a validation element.
+     * Returns not found status with error message when there is no task with the given id.
+     * Returns internal server error status with error message when the tasks cannot be read.
+     *
+     * @param id The id of the task.
+     * @return ResponseEntity with the validation element of the task by id, or indicating the failure.
+     */
+    @GetMapping(TASK_ENDPOINT)
+    public ResponseEntity<Map<String, String>> getTask(@PathVariable int id) {
+        ResponseEntity<Map<String, String>> res;
+        Map<String, String> resBody = new HashMap<>();
+
+        if (!this.taskSource.isEditable()) {
+            res = this.error(HttpStatus.CONFLICT, NOT_EDITABLE_ERROR_MSG);
+        } else {
+            try {
+                Optional<ValidationTask> task = this.taskSource.findById(id);
+                if (task.isPresent()) {
+                    resBody.put(String.valueOf(id), this.dao.toXml(id, task.get()));
+                    res = ResponseEntity.ok(resBody);
+                } else {
+                    res = this.error(HttpStatus.NOT_FOUND, TASK_NOT_FOUND_ERROR_MSG);
+                }
+            } catch (Exception e) {
+                res = this.error(HttpStatus.INTERNAL_SERVER_ERROR, READ_TASK_ERROR_MSG);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets the validation tasks whose URL has the given host as validation elements.
+     * Returns internal server error status with error message when the tasks cannot be read.
+     *
+     * @param host The host, case-insensitive.
+     * @return ResponseEntity with the validation elements of the tasks by id, or indicating the failure.
+     */
+    @GetMapping(value = TASKS_ENDPOINT, params = TASK_HOST_PARAM)
+    public ResponseEntity<Map<String, String>> getTasksByHost(@RequestParam(TASK_HOST_PARAM) String host) {
+        ResponseEntity<Map<String, String>> res;
+        Map<String, String> resBody = new LinkedHashMap<>();
+
+        if (!this.taskSource.isEditable()) {
+            res = this.error(HttpStatus.CONFLICT, NOT_EDITABLE_ERROR_MSG);
+        } else {
+            try {
+                for (Map.Entry<Integer, ValidationTask> e : this.taskSource.findByHost(host).entrySet()) {
+                    resBody.put(String.valueOf(e.getKey()), this.dao.toXml(e.getKey(), e.getValue()));
+                }
+                res = ResponseEntity.ok(resBody);
+            } catch (Exception e) {
+                res = this.error(HttpStatus.INTERNAL_SERVER_ERROR, READ_TASK_ERROR_MSG);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Adds a validation task.
+     * Returns bad request status with error message for an invalid task or an id already in use.
+     * Returns internal server error status with error message when the task cannot be stored (IO error).
+     *
+     * @param xml The validation element of the new task.
+     * @return ResponseEntity with the id of the new task, or indicating the failure.
+     */
+    @PostMapping(value = TASKS_ENDPOINT, consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<Map<String, String>> addTask(@RequestBody String xml) {
+        ResponseEntity<Map<String, String>> res;
+        Map<String, String> resBody = new HashMap<>();
+
+        if (!this.taskSource.isEditable()) {
+            res = this.error(HttpStatus.CONFLICT, NOT_EDITABLE_ERROR_MSG);
+        } else {
+            try {
+                resBody.put(TASK_ID_KEY, String.valueOf(this.dao.addTask(xml)));
+                res = ResponseEntity.status(HttpStatus.CREATED).body(resBody);
+            } catch (IOException e) {
+                res = this.error(HttpStatus.INTERNAL_SERVER_ERROR, UPD_TASK_ERROR_MSG);
+            } catch (Exception e) {
+                res = this.error(HttpStatus.BAD_REQUEST, INVALID_TASK_ERROR_MSG);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Replaces the elements of a validation task present in the received validation element.
+     * Returns not found status with error message when there is no task with the given id.
+     * Returns bad request status with error message for an invalid patch or resulting task.
+     * Returns internal server error status with error message when the task cannot be stored (IO error).
+     *
+     * @param id The id of the task.
+     * @param xml A validation element with the elements to replace.
+     * @return ResponseEntity indicating success or failure of the update operation.
+     */
+    @PatchMapping(value = TASK_ENDPOINT, consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE})
+    public ResponseEntity<Map<String, String>> updateTask(@PathVariable int id, @RequestBody String xml) {
+        ResponseEntity<Map<String, String>> res;
+
+        if (!this.taskSource.isEditable()) {
+            res = this.error(HttpStatus.CONFLICT, NOT_EDITABLE_ERROR_MSG);
+        } else {
+            try {
+                // Tasks that do not exist are found through the index of the source, without parsing the patch
+                res = this.taskSource.findById(id).isPresent() && this.dao.updateTask(id, xml)
+                    ? ResponseEntity.ok(null) : this.error(HttpStatus.NOT_FOUND, TASK_NOT_FOUND_ERROR_MSG);
+            } catch (IOException e) {
+                res = this.error(HttpStatus.INTERNAL_SERVER_ERROR, UPD_TASK_ERROR_MSG);
+            } catch (Exception e) {
+                res = this.error(HttpStatus.BAD_REQUEST, INVALID_TASK_ERROR_MSG);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Removes a validation task.
+     * Returns not found status with error message when there is no task with the given id.
+     * Returns internal server error status with error message when the data file cannot be read or the removal
+     * cannot be stored.
+     *
+     * @param id The id of the task.
+     * @return ResponseEntity indicating success or failure of the removal.
+     */
+    @DeleteMapping(TASK_ENDPOINT)
+    public ResponseEntity<Map<String, String>> deleteTask(@PathVariable int id) {
+        ResponseEntity<Map<String, String>> res;
+
+        if (!this.taskSource.isEditable()) {
+            res = this.error(HttpStatus.CONFLICT, NOT_EDITABLE_ERROR_MSG);
+        } else {
+            try {
+                res = this.taskSource.findById(id).isPresent() && this.dao.deleteTask(id)
+                    ? ResponseEntity.noContent().build() : this.error(HttpStatus.NOT_FOUND, TASK_NOT_FOUND_ERROR_MSG);
+            } catch (Exception e) {
+                res = this.error(HttpStatus.INTERNAL_SERVER_ERROR, UPD_TASK_ERROR_MSG);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Builds an error response.
+     *
+     * @param status The status of the response.
+     * @param msg The error message.
+     * @return The response.
+     */
+    private ResponseEntity<Map<String, String>> error(HttpStatus status, String msg) {
+        Map<String, String> resBody = new HashMap<>();
+        resBody.put(ERROR_VALUE.toLowerCase(), msg);
+
+        return ResponseEntity.status(status).body(resBody);
+    }
+}
@@ -0,0 +1,17 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+/**
+ * Categories of validation failures, from the most to the least severe.
+ */
+public enum FailureClass {
+    /** The request could not be completed (unreachable server, refused connection, timeout). */
+    NETWORK,
+    /** The response status code is not the expected one. */
+    STATUS_CODE,
+    /** The response body is missing or does not match the expected content. */
+    CONTENT,
+    /** A required response header is missing or has an unexpected value. */
+    HEADER,
+    /** The response is correct but it took longer than allowed. */
+    LATENCY
+}
@@ -0,0 +1,55 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import java.net.http.HttpHeaders;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents a header that must be present in the response and, optionally, a substring of its value.
+ */
+public record HeaderAssertion(String name, String value) {
+    /**
+     * Separator between the name and the expected value in the textual form of the assertion.
+     */
+    public static final String NAME_VALUE_DELIMITER = "|";
+
+    /**
+     * Constructor for HeaderAssertion.
+     *
+     * @param name The name of the header (case-insensitive).
+     * @param value The substring expected in one of the values of the header, or null if only its presence is checked.
+     * @throws NullPointerException if name is null.
+     */
+    public HeaderAssertion {
+        requireNonNull(name);
+    }
+
+    /**
+     * Creates an assertion from its textual form, either {@code Name} or {@code Name|value}.
+     *
+     * @param spec The textual form of the assertion.
+     * @return The new assertion.
+     */
+    public static HeaderAssertion parse(String spec) {
+        int i = spec.indexOf(NAME_VALUE_DELIMITER);
+        return i < 0 ? new HeaderAssertion(spec, null) : new HeaderAssertion(spec.substring(0, i), spec.substring(i + 1));
+    }
+
+    /**
+     * Checks whether the headers of a response satisfy this assertion.
+     *
+     * @param headers The headers of the HTTP response.
+     * @return {@code true} if the header is present and, when a value is expected, one of its values contains it.
+     */
+    public boolean isSatisfiedBy(HttpHeaders headers) {
+        return isNull(this.value)
+            ? headers.firstValue(this.name).isPresent()
+            : headers.allValues(this.name).stream().anyMatch(v -> v.contains(this.value));
+    }
+
+    @Override
+    public String toString() {
+        return isNull(this.value) ? this.name : this.name + NAME_VALUE_DELIMITER + this.value;
+    }
+}
@@ -0,0 +1,109 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import cf.maybelambda.httpvalidator.springboot.util.JsonLeafReader;
+import tools.jackson.core.JacksonException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents an assertion that a JSON response body is equal to an expected JSON document, regardless of
+ * formatting and, optionally, of the order of the properties of its objects. The order of array elements is
+ * always significant.
+ * <p>
+ * The expected document is canonicalized once, when the assertion is created, into its sequence of leaves
+ * (see {@link JsonLeafReader}). Responses are then compared leaf by leaf while they are being parsed, and the
+ * comparison stops at the first difference.
+ */
+public final class JsonDocumentAssertion {
+    private final String expected;
+    private final boolean ignoreKeyOrder;
+    private final String[] paths;
+    private final String[] values;
+    // Leaf positions by path, only used when the order of properties is not significant
+    private final Map<String, Integer> positions;
+
+    /**
+     * Constructor for JsonDocumentAssertion. Canonicalizes the expected document.
+     *
+     * @param expected The expected JSON document.
+     * @param ignoreKeyOrder Whether documents with the same properties in a different order are considered equal.
+     * @throws NullPointerException if expected is null.
+     * @throws JacksonException if expected is not well-formed JSON.
+     */
+    public JsonDocumentAssertion(String expected, boolean ignoreKeyOrder) throws JacksonException {
+        this.expected = requireNonNull(expected);
+        this.ignoreKeyOrder = ignoreKeyOrder;
+
+        List<String> paths = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        try (JsonLeafReader reader = new JsonLeafReader(expected)) {
+            while (reader.next()) {
+                paths.add(reader.path());
+                values.add(reader.value());
+            }
+        }
+        this.paths = paths.toArray(String[]::new);
+        this.values = values.toArray(String[]::new);
+
+        this.positions = new HashMap<>();
+        if (ignoreKeyOrder) {
+            for (int i = 0; i < this.paths.length; i++) {
+                this.positions.put(this.paths[i], i);
+            }
+        }
+    }
+
+    /**
+     * Compares a JSON document with the expected one.
+     *
+     * @param body The JSON document to compare.
+     * @return A description of the first difference found, including its location, or {@code null} if the
+     * documents are equal.
+     */
+    public String findMismatch(String body) {
+        BitSet seen = new BitSet(this.paths.length);
+        int count = 0;
+        try (JsonLeafReader reader = new JsonLeafReader(body)) {
+            while (reader.next()) {
+                String path = reader.path();
+                Integer pos = this.ignoreKeyOrder ? this.positions.get(path) : Integer.valueOf(count);
+                if (pos == null || pos >= this.paths.length || seen.get(pos) || !this.paths[pos].equals(path)) {
+                    return "Unexpected value at " + path;
+                }
+                if (!this.values[pos].equals(reader.value())) {
+                    return "Different value at " + path;
+                }
+                seen.set(pos);
+                count++;
+            }
+        } catch (JacksonException e) {
+            return "Response body is not valid JSON";
+        }
+
+        int missing = seen.nextClearBit(0);
+        return missing < this.paths.length ? "Missing value at " + this.paths[missing] : null;
+    }
+
+    public String expected() { return this.expected; }
+
+    public boolean ignoreKeyOrder() { return this.ignoreKeyOrder; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JsonDocumentAssertion that)) return false;
+        return this.ignoreKeyOrder == that.ignoreKeyOrder && Objects.equals(this.expected, that.expected);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(expected, ignoreKeyOrder);
+    }
+}
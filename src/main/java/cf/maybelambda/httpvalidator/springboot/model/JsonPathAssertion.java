@@ -0,0 +1,182 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents an assertion about a single location of a JSON response body, e.g. {@code $.data[0].id}.
+ * <p>
+ * The path is compiled into its individual steps when the assertion is created, so that it can be matched
+ * against the location of each token while the response body is being streamed.
+ * Supported path syntax: a leading {@code $} followed by any number of {@code .name} and {@code [index]} steps.
+ */
+public final class JsonPathAssertion {
+    /**
+     * Kinds of checks that can be performed on the value located at the path.
+     */
+    public enum Kind {
+        /** The value must be a scalar whose textual representation is equal to the expected one. */
+        EQUALS,
+        /** A value (of any type, including null) must be present at the path. */
+        EXISTS,
+        /** The value must be an array with a number of elements within [min, max]. */
+        SIZE
+    }
+
+    private static final String ROOT = "$";
+    private final String path;
+    private final Kind kind;
+    private final String expected;
+    private final int min;
+    private final int max;
+    private final String[] names;
+    private final int[] indexes;
+
+    /**
+     * Constructor for JsonPathAssertion. Compiles the path into its steps.
+     *
+     * @param path The location of the value in the JSON document.
+     * @param kind The kind of check to perform.
+     * @param expected The expected textual value (only used by {@link Kind#EQUALS}).
+     * @param min The minimum number of array elements (only used by {@link Kind#SIZE}).
+     * @param max The maximum number of array elements (only used by {@link Kind#SIZE}).
+     * @throws NullPointerException if path, kind or expected are null.
+     * @throws IllegalArgumentException if the path is not valid or min is greater than max.
+     */
+    public JsonPathAssertion(String path, Kind kind, String expected, int min, int max) {
+        this.path = requireNonNull(path);
+        this.kind = requireNonNull(kind);
+        this.expected = requireNonNull(expected);
+        if (min < 0 || min > max) {
+            throw new IllegalArgumentException("Invalid size range: [" + min + ", " + max + "]");
+        }
+        this.min = min;
+        this.max = max;
+
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        compile(path, names, indexes);
+        this.names = names.toArray(String[]::new);
+        this.indexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Splits the path into its steps. Each step is either an object property (name) or an array element (index).
+     * Name steps are stored with an index of -1 and index steps with a null name.
+     */
+    private static void compile(String path, List<String> names, List<Integer> indexes) {
+        if (!path.startsWith(ROOT)) {
+            throw new IllegalArgumentException("JSON path must start with '" + ROOT + "': " + path);
+        }
+        int i = ROOT.length();
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') end++;
+                if (end == i + 1) throw new IllegalArgumentException("Empty property name in JSON path: " + path);
+                names.add(path.substring(i + 1, end));
+                indexes.add(-1);
+                i = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) throw new IllegalArgumentException("Unclosed index in JSON path: " + path);
+                try {
+                    int idx = Integer.parseInt(path.substring(i + 1, end));
+                    if (idx < 0) throw new IllegalArgumentException("Negative index in JSON path: " + path);
+                    names.add(null);
+                    indexes.add(idx);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid index in JSON path: " + path, e);
+                }
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' in JSON path: " + path);
+            }
+        }
+    }
+
+    /**
+     * Number of steps in the compiled path; the root has depth 0.
+     *
+     * @return The depth of the location targeted by this assertion.
+     */
+    public int depth() { return this.names.length; }
+
+    /**
+     * Checks whether the given step of the path matches a location in the document.
+     *
+     * @param step Position of the step in the path (0-based).
+     * @param name Property name at that level of the document or null when inside an array.
+     * @param index Element index at that level of the document or -1 when inside an object.
+     * @return {@code true} if the step targets the same property or element.
+     */
+    public boolean stepMatches(int step, String name, int index) {
+        return this.names[step] == null ? this.indexes[step] == index : this.names[step].equals(name);
+    }
+
+    /**
+     * Checks whether a textual scalar value satisfies this assertion.
+     *
+     * @param value Textual representation of the scalar found at the path.
+     * @return {@code true} if the value is accepted.
+     */
+    public boolean acceptsScalar(String value) {
+        return switch (this.kind) {
+            case EXISTS -> true;
+            case EQUALS -> this.expected.equals(value);
+            case SIZE -> false;
+        };
+    }
+
+    /**
+     * Checks whether an array size satisfies this assertion.
+     *
+     * @param size Number of elements of the array found at the path.
+     * @return {@code true} if the size is within the expected range.
+     */
+    public boolean acceptsSize(int size) { return this.min <= size && size <= this.max; }
+
+    public String path() { return this.path; }
+
+    public Kind kind() { return this.kind; }
+
+    public String expected() { return this.expected; }
+
+    public int min() { return this.min; }
+
+    public int max() { return this.max; }
+
+    /**
+     * Human-readable description of this assertion, used in logs and notifications.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        return switch (this.kind) {
+            case EXISTS -> this.path + " exists";
+            case EQUALS -> this.path + " == " + this.expected;
+            case SIZE -> this.path + " size in [" + this.min + ", " + this.max + "]";
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof JsonPathAssertion that)) return false;
+        return this.kind == that.kind &&
+            this.min == that.min &&
+            this.max == that.max &&
+            Objects.equals(this.path, that.path) &&
+            Objects.equals(this.expected, that.expected);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, kind, expected, min, max);
+    }
+}
@@ -0,0 +1,43 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the maximum response times allowed for a validation task, in milliseconds.
+ * A value of 0 means that the corresponding time is not limited.
+ */
+public record LatencySla(long maxFirstByteMillis, long maxTotalMillis) {
+
+    /**
+     * Constructor for LatencySla. Ensures that the limits are not negative.
+     *
+     * @param maxFirstByteMillis Maximum time until the response status and headers are received.
+     * @param maxTotalMillis Maximum time until the whole response body is received.
+     * @throws IllegalArgumentException if any limit is negative.
+     */
+    public LatencySla {
+        if (maxFirstByteMillis < 0 || maxTotalMillis < 0) {
+            throw new IllegalArgumentException("Latency limits cannot be negative");
+        }
+    }
+
+    /**
+     * Checks the measured times of a response against the limits.
+     *
+     * @param firstByteNanos Time elapsed from sending the request until the response headers were received.
+     * @param totalNanos Time elapsed from sending the request until the whole response was received.
+     * @return A description of the exceeded limit, or {@code null} if the response was fast enough.
+     */
+    public String findBreach(long firstByteNanos, long totalNanos) {
+        String res = null;
+        long firstByte = TimeUnit.NANOSECONDS.toMillis(firstByteNanos);
+        long total = TimeUnit.NANOSECONDS.toMillis(totalNanos);
+        if (this.maxFirstByteMillis > 0 && firstByte > this.maxFirstByteMillis) {
+            res = "Time to first byte of " + firstByte + " ms exceeds the limit of " + this.maxFirstByteMillis + " ms";
+        } else if (this.maxTotalMillis > 0 && total > this.maxTotalMillis) {
+            res = "Total response time of " + total + " ms exceeds the limit of " + this.maxTotalMillis + " ms";
+        }
+
+        return res;
+    }
+}
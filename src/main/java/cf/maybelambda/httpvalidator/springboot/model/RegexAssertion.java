@@ -0,0 +1,87 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import cf.maybelambda.httpvalidator.springboot.util.BoundedCharSequence;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents an assertion that a regular expression matches some part of the response body.
+ * <p>
+ * The expression is compiled once, when the assertion is created. Matching runs over a view of the body limited to
+ * {@link #MAX_INPUT_CHARS} characters and {@link #MATCH_STEP_BUDGET} character reads, so that a pattern with
+ * catastrophic backtracking fails the task instead of tying up the validation run.
+ */
+public final class RegexAssertion {
+    /**
+     * Maximum number of characters of the response body the expression is matched against.
+     */
+    public static final int MAX_INPUT_CHARS = 1 << 20;
+    /**
+     * Maximum number of character reads of a single match, several times what a linear scan of the largest input needs.
+     */
+    public static final long MATCH_STEP_BUDGET = 20L * MAX_INPUT_CHARS;
+    private final Pattern pattern;
+
+    /**
+     * Constructor for RegexAssertion. Compiles the expression.
+     *
+     * @param regex The regular expression, in {@link Pattern} syntax.
+     * @throws NullPointerException if regex is null.
+     * @throws PatternSyntaxException if regex is not a valid expression.
+     */
+    public RegexAssertion(String regex) throws PatternSyntaxException {
+        this.pattern = Pattern.compile(requireNonNull(regex));
+    }
+
+    /**
+     * Looks for a match of the expression in a response body.
+     *
+     * @param body The body of the HTTP response.
+     * @return A description of the failure, or {@code null} if the expression matches.
+     */
+    public String findMismatch(String body) {
+        return this.findMismatch(body, MATCH_STEP_BUDGET);
+    }
+
+    /**
+     * Looks for a match of the expression in a response body, with the given step budget.
+     *
+     * @param body The body of the HTTP response.
+     * @param budget The maximum number of character reads.
+     * @return A description of the failure, or {@code null} if the expression matches.
+     */
+    String findMismatch(String body, long budget) {
+        String res;
+        try {
+            boolean found = this.pattern.matcher(new BoundedCharSequence(body, MAX_INPUT_CHARS, budget)).find();
+            res = found ? null : "Pattern not found in response body: " + this.pattern;
+        } catch (BoundedCharSequence.BudgetExceededException | StackOverflowError e) {
+            res = "Pattern matching aborted for exceeding its budget of " + budget + " steps: " + this.pattern;
+        }
+
+        return res;
+    }
+
+    public String regex() { return this.pattern.pattern(); }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RegexAssertion that)) return false;
+        return Objects.equals(this.regex(), that.regex());
+    }
+
+    @Override
+    public int hashCode() {
+        return this.regex().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return this.pattern.pattern();
+    }
+}
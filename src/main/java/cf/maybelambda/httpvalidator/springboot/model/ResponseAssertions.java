@@ -0,0 +1,78 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import cf.maybelambda.httpvalidator.springboot.util.JsonPathStreamEvaluator;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Groups the optional checks of a validation task that go beyond the expected status code and body substring.
+ */
+public record ResponseAssertions(List<JsonPathAssertion> jsonPaths, JsonDocumentAssertion jsonBody,
+                                 List<HeaderAssertion> headers, LatencySla latency, RegexAssertion bodyRegex) {
+    /**
+     * Instance with no additional checks.
+     */
+    public static final ResponseAssertions NONE = new ResponseAssertions(List.of(), null, List.of(), null, null);
+
+    /**
+     * Constructor for ResponseAssertions.
+     *
+     * @param jsonPaths The assertions on locations of a JSON response body.
+     * @param jsonBody The expected JSON response body, or null if the body is not compared as a whole.
+     * @param headers The assertions on the headers of the response.
+     * @param latency The maximum response times, or null if they are not limited.
+     * @param bodyRegex The regular expression the response body has to match, or null if there is none.
+     * @throws NullPointerException if jsonPaths or headers are null.
+     */
+    public ResponseAssertions {
+        jsonPaths = List.copyOf(requireNonNull(jsonPaths));
+        headers = List.copyOf(requireNonNull(headers));
+    }
+
+    /**
+     * Checks the response body against every assertion.
+     *
+     * @param body The body of the HTTP response.
+     * @return A description of the first assertion that does not hold, or {@code null} if all of them hold.
+     */
+    public String findFailure(String body) {
+        String res = nonNull(this.bodyRegex) ? this.bodyRegex.findMismatch(body) : null;
+        if (res == null && nonNull(this.jsonBody)) {
+            res = this.jsonBody.findMismatch(body);
+        }
+        if (res == null) {
+            JsonPathAssertion failed = JsonPathStreamEvaluator.findFailure(body, this.jsonPaths);
+            res = failed == null ? null : "JSON path assertion failed: " + failed;
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks the response headers against every header assertion.
+     *
+     * @param headers The headers of the HTTP response.
+     * @return A description of the first assertion that does not hold, or {@code null} if all of them hold.
+     */
+    public String findHeaderFailure(HttpHeaders headers) {
+        for (HeaderAssertion h : this.headers) {
+            if (!h.isSatisfiedBy(headers)) return "Expected response header not found: " + h;
+        }
+        return null;
+    }
+
+    /**
+     * Checks the measured response times against the latency limits.
+     *
+     * @param firstByteNanos Time elapsed from sending the request until the response headers were received.
+     * @param totalNanos Time elapsed from sending the request until the whole response was received.
+     * @return A description of the exceeded limit, or {@code null} if there are no limits or none was exceeded.
+     */
+    public String findLatencyBreach(long firstByteNanos, long totalNanos) {
+        return nonNull(this.latency) ? this.latency.findBreach(firstByteNanos, totalNanos) : null;
+    }
+}
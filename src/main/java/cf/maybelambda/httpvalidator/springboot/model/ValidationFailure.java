@@ -0,0 +1,26 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Represents the outcome of a validation task that did not pass: the kind of problem and a description of it.
+ */
+public record ValidationFailure(FailureClass failureClass, String description) {
+
+    /**
+     * Constructor for ValidationFailure. Ensures that none of the parameters are null.
+     *
+     * @param failureClass The category of the failure.
+     * @param description A human-readable description of the unmet criteria.
+     * @throws NullPointerException if any argument is null.
+     */
+    public ValidationFailure {
+        requireNonNull(failureClass);
+        requireNonNull(description);
+    }
+
+    @Override
+    public String toString() {
+        return this.failureClass + ": " + this.description;
+    }
+}
@@ -1,18 +1,25 @@
 package cf.maybelambda.httpvalidator.springboot.model;
 
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
 import tools.jackson.databind.JsonNode;
 
 import javax.swing.text.html.FormSubmitEvent.MethodType;
 import java.util.List;
 import java.util.Objects;
 
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_MSG;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static java.util.Objects.requireNonNull;
 
 /**
  * Represents a validation task with HTTP request details and expected response criteria.
  */
-public record ValidationTask(MethodType reqMethod, String reqURL, List<String> reqHeaders, JsonNode reqBody, int validStatusCode, String validBody) {
+public record ValidationTask(MethodType reqMethod, String reqURL, List<String> reqHeaders, JsonNode reqBody, int validStatusCode, String validBody, ResponseAssertions assertions) {
+    static final String NO_BODY_MSG = "Response body not available";
+    static final String STATUS_CODE_MISMATCH_MSG = "Unexpected status code";
+    static final String BODY_MISMATCH_MSG = "Expected content not found in response body";
 
     /**
      * Constructor for ValidationTask. Ensures that none of the parameters are null.
@@ -23,6 +30,7 @@ public record ValidationTask(MethodType reqMethod, String reqURL, List<String> r
      * @param reqBody The JSON body for a POST request.
      * @param validStatusCode The expected status code for a valid response.
      * @param validBody The expected substring in the response body for a valid response.
+     * @param assertions Additional checks on the response.
      * @throws NullPointerException if any argument is null.
      */
     public ValidationTask {
@@ -31,31 +39,93 @@ public record ValidationTask(MethodType reqMethod, String reqURL, List<String> r
         requireNonNull(reqHeaders);
         requireNonNull(reqBody);
         requireNonNull(validBody);
+        requireNonNull(assertions);
+    }
+
+    /**
+     * Constructor for ValidationTask without additional response checks.
+     *
+     * @see #ValidationTask(MethodType, String, List, JsonNode, int, String, ResponseAssertions)
+     */
+    public ValidationTask(MethodType reqMethod, String reqURL, List<String> reqHeaders, JsonNode reqBody, int validStatusCode, String validBody) {
+        this(reqMethod, reqURL, reqHeaders, reqBody, validStatusCode, validBody, ResponseAssertions.NONE);
     }
 
     /**
      * Checks if the response status code and body match the expected criteria.
-     * <p>
-     * This method validates the response by comparing the status code and checking if the response body
-     * contains the expected substring.
      *
      * @param statusCode The status code of the HTTP response.
      * @param body The body of the HTTP response.
-     * @return {@code true} if the status code matches and the body contains the expected substring, {@code false} otherwise.
+     * @return {@code true} if the status code matches, the body contains the expected substring and all
+     * assertions hold, {@code false} otherwise.
+     * @see #findFailure(int, String)
      */
     public boolean isValid(int statusCode, String body) {
-        boolean res = false;
-        if (nonNull(body)) {
-            res = this.validStatusCode == statusCode && body.contains(this.validBody);
+        return this.findFailure(statusCode, body) == null;
+    }
+
+    /**
+     * Looks for the first expected criteria not met by the response.
+     * <p>
+     * This method validates the response by comparing the status code, checking if the response body
+     * contains the expected substring and evaluating any additional assertions on the body.
+     *
+     * @param statusCode The status code of the HTTP response.
+     * @param body The body of the HTTP response.
+     * @return A description of the first unmet criteria, or {@code null} if the response is valid.
+     */
+    public String findFailure(int statusCode, String body) {
+        String res;
+        if (isNull(body)) {
+            res = NO_BODY_MSG;
+        } else if (this.validStatusCode != statusCode) {
+            res = STATUS_CODE_MISMATCH_MSG;
+        } else if (!body.contains(this.validBody)) {
+            res = BODY_MISMATCH_MSG;
+        } else {
+            res = this.assertions.findFailure(body);
         }
+
         return res;
     }
 
+    /**
+     * Validates the outcome of the HTTP request built from this task.
+     * <p>
+     * Problems are reported in order of severity: network errors first, then the status code and content of the
+     * response, then its headers and finally its latency. So a response with the expected content that took too
+     * long to arrive is reported as a {@link FailureClass#LATENCY} failure.
+     *
+     * @param res The outcome of the HTTP request.
+     * @return The failure found, or {@code null} if the response is valid.
+     */
+    public ValidationFailure validate(HttpSendOutcomeWrapper res) {
+        if (res.getStatusCode() == NET_ERR_CODE) {
+            return new ValidationFailure(FailureClass.NETWORK, NET_ERR_MSG);
+        }
+        if (!res.isWholeResponse()) {
+            return new ValidationFailure(FailureClass.CONTENT, NO_BODY_MSG);
+        }
+
+        ValidationFailure failure = null;
+        String msg = this.findFailure(res.getStatusCode(), res.getBody());
+        if (nonNull(msg)) {
+            FailureClass fc = this.validStatusCode == res.getStatusCode() ? FailureClass.CONTENT : FailureClass.STATUS_CODE;
+            failure = new ValidationFailure(fc, msg);
+        } else if (nonNull(msg = this.assertions.findHeaderFailure(res.getHeaders()))) {
+            failure = new ValidationFailure(FailureClass.HEADER, msg);
+        } else if (nonNull(msg = this.assertions.findLatencyBreach(res.getFirstByteNanos(), res.getTotalNanos()))) {
+            failure = new ValidationFailure(FailureClass.LATENCY, msg);
+        }
+
+        return failure;
+    }
+
     /**
      * Compares this ValidationTask to the specified object for equality.
      * <p>
      * The comparison is based on the request method, request URL, request headers, request body,
-     * valid status code, and valid response body.
+     * valid status code, valid response body and additional assertions.
      *
      * @param o The object to compare with this ValidationTask.
      * @return {@code true} if the specified object is equal to this ValidationTask; {@code false} otherwise.
@@ -69,11 +139,12 @@ public record ValidationTask(MethodType reqMethod, String reqURL, List<String> r
             Objects.equals(this.reqHeaders, that.reqHeaders) &&
             Objects.equals(this.reqBody, that.reqBody) &&
             this.validStatusCode == that.validStatusCode &&
-            Objects.equals(this.validBody, that.validBody);
+            Objects.equals(this.validBody, that.validBody) &&
+            Objects.equals(this.assertions, that.assertions);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(reqMethod, reqURL, reqHeaders, reqBody, validStatusCode, validBody);
+        return Objects.hash(reqMethod, reqURL, reqHeaders, reqBody, validStatusCode, validBody, assertions);
     }
 }
@@ -0,0 +1,390 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.util.UrlHosts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLErrorHandler.parseInputOrThrow;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Indexed copy of the validation tasks in a single file, for task sets too large to be handled comfortably as a
+ * whole in memory.
+ * <p>
+ * The file holds the tasks in data file order, each one preceded by its key, id and host, and is read through a memory
+ * mapping. Only the position of every task is kept in memory, indexed by id and by host, so single tasks, the tasks of
+ * a host and pages of tasks are decoded on demand without loading the rest. A rebuild maps a new file, so runs paging
+ * over the previous one are not affected.
+ * <p>
+ * The XML data file remains the format used to define and edit tasks: the store is rebuilt from it whenever it is
+ * modified, which includes uploads and the changes made through the task endpoints once they are compacted. Until
+ * then, lookups by id and by host see those changes over the tasks of the store, while runs page over the store as
+ * built.
+ * Used instead of reading the XML data file directly when the {@value TaskSource#SOURCE_PROPERTY} property is
+ * {@value TaskSource#STORE_SOURCE}, with the store kept in the file set in the {@value #STORE_FILE_PROPERTY} property.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = TaskSource.SOURCE_PROPERTY, havingValue = TaskSource.STORE_SOURCE)
+public class IndexedTaskStore implements TaskSource {
+    static final String STORE_FILE_PROPERTY = "datafile.store";
+    static final int MAGIC = 0x48564953; // "HVIS"
+    static final int VERSION = 3;
+    private static Logger logger = LoggerFactory.getLogger(IndexedTaskStore.class);
+    private final Object rebuildLock = new Object();
+    private volatile State state = State.EMPTY;
+
+    @Autowired
+    private XMLValidationTaskDao xmlDao;
+    @Autowired
+    private Environment env;
+    @Autowired
+    private ObjectMapper mapper;
+
+    /**
+     * Position of a task in the store file.
+     *
+     * @param key The key of the task, as returned by {@link TaskSet#keyOf}.
+     * @param id The id of the task in the XML data file.
+     * @param offset The offset of the encoded task.
+     * @param length The length of the encoded task.
+     */
+    record Location(long key, int id, int offset, int length) {}
+
+    /**
+     * The mapped store file along with its indexes. Replaced as a whole when the store is rebuilt, so readers never
+     * see a partially rebuilt store.
+     *
+     * @param content The content of the store file.
+     * @param records The location of every task, in data file order.
+     * @param byId The location of every task by id.
+     * @param byHost The location of the tasks by the host of their URL, in data file order.
+     * @param sourceLastModifiedTime The modification time of the data file the store was built from.
+     */
+    private record State(ByteBuffer content, List<Location> records, Map<Integer, Location> byId,
+                         Map<String, List<Location>> byHost, long sourceLastModifiedTime) {
+        static final State EMPTY = new State(ByteBuffer.allocate(0), List.of(), Map.of(), Map.of(), Long.MIN_VALUE);
+    }
+
+    /**
+     * Retrieves the path of the store file from the environment properties.
+     *
+     * @return The path of the store file.
+     */
+    Path getStoreFilePath() { return Path.of(requireNonNull(this.env.getProperty(STORE_FILE_PROPERTY))); }
+
+    /**
+     * Retrieves all validation tasks.
+     *
+     * @return A list of validation tasks, in data file order.
+     * @throws XMLParseException if the data file is invalid or the store cannot be built.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public List<ValidationTask> getAll() throws XMLParseException, FileNotFoundException {
+        State current = this.current();
+        return this.decode(current, current.records());
+    }
+
+    /**
+     * Retrieves the current validation tasks as a set that keeps reading the current store file even if it is rebuilt
+     * meanwhile, decoding only the tasks of the pages requested.
+     *
+     * @return The task set, in data file order.
+     * @throws XMLParseException if the data file is invalid or the store cannot be built.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public TaskSet getTaskSet() throws XMLParseException, FileNotFoundException {
+        State current = this.current();
+        return new TaskSet() {
+            @Override
+            public int size() { return current.records().size(); }
+
+            @Override
+            public List<ValidationTask> getPage(int offset, int limit) throws XMLParseException {
+                int from = Math.min(offset, current.records().size());
+                return IndexedTaskStore.this.decode(current,
+                    current.records().subList(from, from + Math.min(limit, current.records().size() - from)));
+            }
+
+            @Override
+            public long keyOf(int position) { return current.records().get(position).key(); }
+        };
+    }
+
+    /**
+     * Retrieves a validation task by id through the index of the store, or the journal of the XML data file if the
+     * task changed since the store was built.
+     *
+     * @param id The id of the task.
+     * @return The task, or empty if there is no task with the given id.
+     * @throws XMLParseException if the data file is invalid or the store cannot be built.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public Optional<ValidationTask> findById(int id) throws XMLParseException, FileNotFoundException {
+        State current = this.current();
+        Map<Integer, ValidationTask> changes = this.xmlDao.getChangedTasks();
+        if (changes.containsKey(id)) {
+            return Optional.ofNullable(changes.get(id));
+        }
+        Location l = current.byId().get(id);
+
+        return isNull(l) ? Optional.empty() : Optional.of(this.decode(current, List.of(l)).getFirst());
+    }
+
+    /**
+     * Retrieves the validation tasks whose URL has the given host through the index of the store, along with the
+     * tasks of the host changed since the store was built.
+     *
+     * @param host The host, case-insensitive.
+     * @return The tasks by id, in data file order followed by the changed ones.
+     * @throws XMLParseException if the data file is invalid or the store cannot be built.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public Map<Integer, ValidationTask> findByHost(String host) throws XMLParseException, FileNotFoundException {
+        State current = this.current();
+        Map<Integer, ValidationTask> changes = this.xmlDao.getChangedTasks();
+        String h = host.toLowerCase(Locale.ROOT);
+        List<Location> locations = new ArrayList<>();
+        for (Location l : current.byHost().getOrDefault(h, List.of())) {
+            if (!changes.containsKey(l.id())) {
+                locations.add(l);
+            }
+        }
+        List<ValidationTask> tasks = this.decode(current, locations);
+        Map<Integer, ValidationTask> res = new LinkedHashMap<>();
+        for (int i = 0; i < locations.size(); i++) {
+            res.put(locations.get(i).id(), tasks.get(i));
+        }
+        for (Map.Entry<Integer, ValidationTask> e : changes.entrySet()) {
+            if (nonNull(e.getValue()) && h.equals(UrlHosts.hostOf(e.getValue().reqURL()))) {
+                res.put(e.getKey(), e.getValue());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks if the XML data file the store is built from exists and is readable.
+     *
+     * @return True if the data file exists and is readable, false otherwise.
+     */
+    @Override
+    public boolean isDataFileStatusOk() {
+        return this.xmlDao.isDataFileStatusOk();
+    }
+
+    /**
+     * Checks whether the tasks are defined by the XML data file, which is always the case for the store, rebuilt from it.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isEditable() {
+        return true;
+    }
+
+    /**
+     * Gets the current state of the store, rebuilding it first if the data file was modified since it was built.
+     * The store file is opened again the first time, so it is only rebuilt on startup if the data file changed.
+     *
+     * @return The current state.
+     * @throws XMLParseException if the data file is invalid or the store cannot be built.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    private State current() throws XMLParseException, FileNotFoundException {
+        State current = this.state;
+        if (this.xmlDao.getDataFileLastModifiedTime() > current.sourceLastModifiedTime()) {
+            synchronized (this.rebuildLock) {
+                current = this.state;
+                if (current == State.EMPTY) {
+                    current = this.open();
+                }
+                long lastModifiedTime = this.xmlDao.getDataFileLastModifiedTime();
+                if (lastModifiedTime == 0) {
+                    throw new FileNotFoundException("Data file not found: " + this.xmlDao.getDataFilePath());
+                }
+                if (lastModifiedTime > current.sourceLastModifiedTime()) {
+                    List<Integer> ids = new ArrayList<>();
+                    TaskSet tasks = this.xmlDao.getTaskSet(ids);
+                    current = parseInputOrThrow(t -> this.rebuild(t, ids, lastModifiedTime), tasks, logger, "Failed to build task store");
+                }
+                this.state = current;
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Opens the existing store file. A missing, outdated or damaged file is logged and left to be rebuilt.
+     *
+     * @return The state of the store file, or the empty state if it cannot be used.
+     */
+    private State open() {
+        Path path = this.getStoreFilePath();
+        if (Files.isRegularFile(path)) {
+            try {
+                return this.map(path);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Ignoring unreadable task store", e);
+            }
+        }
+
+        return State.EMPTY;
+    }
+
+    /**
+     * Replaces the store file with the given tasks and opens it.
+     * The file is written next to its final location and then moved.
+     *
+     * @param tasks The tasks, in data file order.
+     * @param ids The id of each task, in the same order.
+     * @param sourceLastModifiedTime The modification time of the data file the tasks come from.
+     * @return The state of the new store file.
+     * @throws IOException if the store file cannot be written.
+     * @throws XMLParseException if the tasks cannot be read.
+     */
+    State rebuild(TaskSet tasks, List<Integer> ids, long sourceLastModifiedTime) throws IOException, XMLParseException {
+        Path path = this.getStoreFilePath();
+        Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+        TaskCodec codec = new TaskCodec(this.mapper);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(sourceLastModifiedTime);
+                out.writeInt(tasks.size());
+                ByteArrayOutputStream task = new ByteArrayOutputStream();
+                List<ValidationTask> all = tasks.getPage(0, tasks.size());
+                for (int i = 0; i < all.size(); i++) {
+                    task.reset();
+                    codec.write(new DataOutputStream(task), all.get(i));
+                    out.writeLong(tasks.keyOf(i));
+                    out.writeInt(ids.get(i));
+                    TaskCodec.writeString(out, UrlHosts.hostOf(all.get(i).reqURL()));
+                    out.writeInt(task.size());
+                    task.writeTo(out);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        return this.map(path);
+    }
+
+    /**
+     * Maps a store file and builds its indexes, reading only the key, id and host of every task.
+     *
+     * @param path The store file.
+     * @return The state of the store file.
+     * @throws IOException if the file cannot be read, belongs to another version or is damaged.
+     */
+    private State map(Path path) throws IOException {
+        ByteBuffer content;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            content = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        try {
+            if (content.getInt() != MAGIC || content.getInt() != VERSION) {
+                throw new IOException("Unsupported task store format: " + path);
+            }
+            long sourceLastModifiedTime = content.getLong();
+            int count = content.getInt();
+            List<Location> records = new ArrayList<>(count);
+            Map<Integer, Location> byId = new HashMap<>();
+            Map<String, List<Location>> byHost = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                long key = content.getLong();
+                int id = content.getInt();
+                String host = TaskCodec.readString(content);
+                int length = content.getInt();
+                Location l = new Location(key, id, content.position(), length);
+                content.position(content.position() + length);
+                records.add(l);
+                byId.put(id, l);
+                byHost.computeIfAbsent(host, h -> new ArrayList<>()).add(l);
+            }
+
+            return new State(content, List.copyOf(records), byId, byHost, sourceLastModifiedTime);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt task store: " + path, e);
+        }
+    }
+
+    /**
+     * Decodes the tasks at the given locations of the store file.
+     *
+     * @param state The state of the store.
+     * @param locations The locations.
+     * @return The tasks, in the same order as the locations.
+     * @throws XMLParseException if the store file is damaged.
+     */
+    private List<ValidationTask> decode(State state, List<Location> locations) throws XMLParseException {
+        TaskCodec codec = new TaskCodec(this.mapper);
+        return parseInputOrThrow(ls -> {
+            List<ValidationTask> tasks = new ArrayList<>(ls.size());
+            for (Location l : ls) {
+                tasks.add(codec.read(state.content().slice(l.offset(), l.length())));
+            }
+            return tasks;
+        }, locations, logger, "Corrupt task store");
+    }
+
+    /**
+     * Sets the XML data file DAO. Used for testing purposes.
+     *
+     * @param xmlDao The XML data file DAO.
+     */
+    void setXmlDao(XMLValidationTaskDao xmlDao) { this.xmlDao = xmlDao; }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+
+    /**
+     * Sets the object mapper; for testing purposes.
+     *
+     * @param mapper The ObjectMapper to set.
+     */
+    void setObjectMapper(ObjectMapper mapper) { this.mapper = mapper; }
+}
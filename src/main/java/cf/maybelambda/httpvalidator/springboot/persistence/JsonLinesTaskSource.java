@@ -0,0 +1,332 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.management.modelmbean.XMLParseException;
+import javax.swing.text.html.FormSubmitEvent.MethodType;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLErrorHandler.parseInputOrThrow;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_IGNORE_ORDER_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_MAX_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_MIN_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_OP_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_FIRST_BYTE_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TOTAL_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_BODY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_METHOD_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_REGEX;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_SC_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.URL_TAG;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads validation tasks from a JSON Lines file: one JSON object per line, each defining a task.
+ * <p>
+ * Objects use the names of the elements and attributes of the XML data file, for instance
+ * {@code {"method": 0, "url": "https://example.com", "header": ["Accept|text/html"], "statuscode": 200,
+ * "response": "Example"}}. {@code reqbody} and {@code jsonbody} take JSON values, {@code jsonpath} a list of objects
+ * with the attributes of the jsonpath element and its expected value in {@code value}, and {@code latency} an object
+ * with the attributes of the latency element. Blank lines are ignored.
+ * <p>
+ * Used instead of the XML data file when the {@value TaskSource#SOURCE_PROPERTY} property is
+ * {@value TaskSource#JSONL_SOURCE}, reading the file set in the {@value #JSONL_DATAFILE_PROPERTY} property. Lines are
+ * parsed with the streaming API, and large files are split at line boundaries and parsed in parallel.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = TaskSource.SOURCE_PROPERTY, havingValue = TaskSource.JSONL_SOURCE)
+public class JsonLinesTaskSource implements TaskSource {
+    static final String JSONL_DATAFILE_PROPERTY = "datafile.jsonl";
+    static final String JSON_PATH_VALUE_KEY = "value";
+    // Smallest part of the file parsed by a single thread, so that small files are not split
+    static final int MIN_CHUNK_BYTES = 64 * 1024;
+    private static Logger logger = LoggerFactory.getLogger(JsonLinesTaskSource.class);
+    private volatile Snapshot snapshot = new Snapshot(null, Long.MIN_VALUE);
+
+    @Autowired
+    private Environment env;
+    @Autowired
+    private ObjectMapper mapper;
+
+    /**
+     * The tasks last read from the file, along with the modification time of the file at that moment.
+     */
+    private record Snapshot(List<ValidationTask> tasks, long lastModifiedTime) {}
+
+    /**
+     * Retrieves the path of the JSON Lines file from the environment properties.
+     *
+     * @return The path of the file.
+     */
+    Path getDataFilePath() { return Path.of(requireNonNull(this.env.getProperty(JSONL_DATAFILE_PROPERTY))); }
+
+    /**
+     * Retrieves all validation tasks; from the file if it was modified since the last time it was read, or from
+     * memory otherwise.
+     *
+     * @return A list of validation tasks, in file order.
+     * @throws XMLParseException if any line is not a valid task.
+     * @throws FileNotFoundException if the file is not found.
+     */
+    @Override
+    public List<ValidationTask> getAll() throws XMLParseException, FileNotFoundException {
+        Snapshot current = this.snapshot;
+        long lastModifiedTime = (new File(this.getDataFilePath().toUri())).lastModified();
+        if (lastModifiedTime > current.lastModifiedTime()) {
+            byte[] content = parseInputOrThrow(in -> {
+                try (in) {
+                    return in.readAllBytes();
+                }
+            }, new FileInputStream(this.getDataFilePath().toFile()), logger, "Failed to read JSON Lines data file");
+            current = new Snapshot(this.parse(content), lastModifiedTime);
+            this.snapshot = current;
+        }
+
+        return current.tasks();
+    }
+
+    /**
+     * Checks if the JSON Lines file exists and is readable.
+     *
+     * @return True if the file exists and is readable, false otherwise.
+     */
+    @Override
+    public boolean isDataFileStatusOk() {
+        Path path = this.getDataFilePath();
+        return Files.isRegularFile(path) && Files.isReadable(path);
+    }
+
+    /**
+     * Builds the tasks defined in the content of a JSON Lines file, parsing its parts in parallel.
+     * Equal parts of different tasks are shared.
+     *
+     * @param content The content of the file, in UTF-8.
+     * @return The tasks, in file order.
+     * @throws XMLParseException if any line is not a valid task.
+     */
+    List<ValidationTask> parse(byte[] content) throws XMLParseException {
+        int[] bounds = splitAtLines(content, Runtime.getRuntime().availableProcessors());
+        TaskInterner interner = new TaskInterner();
+
+        return parseInputOrThrow(c -> IntStream.range(0, bounds.length - 1).parallel()
+            .mapToObj(i -> this.parseLines(c, bounds[i], bounds[i + 1]))
+            .flatMap(List::stream)
+            .map(interner::intern)
+            .toList(), content, logger, "Invalid task encountered in JSON Lines data file");
+    }
+
+    /**
+     * Divides content into at most the given number of parts of similar size, each one ending after a line break.
+     *
+     * @param content The content.
+     * @param parts The maximum number of parts.
+     * @return The offsets where each part starts, followed by the length of the content.
+     */
+    static int[] splitAtLines(byte[] content, int parts) {
+        int n = Math.max(1, Math.min(parts, content.length / MIN_CHUNK_BYTES));
+        List<Integer> bounds = new ArrayList<>(List.of(0));
+        for (int i = 1; i < n; i++) {
+            int pos = (int) ((long) content.length * i / n);
+            while (pos < content.length && content[pos - 1] != '\n') {
+                pos++;
+            }
+            if (pos > bounds.getLast() && pos < content.length) {
+                bounds.add(pos);
+            }
+        }
+        bounds.add(content.length);
+
+        return bounds.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Builds the tasks defined in the lines of part of a JSON Lines file.
+     *
+     * @param content The content of the file.
+     * @param start The offset of the first line of the part.
+     * @param end The offset after the last line of the part.
+     * @return The tasks, in file order.
+     * @throws IllegalArgumentException if any line is not a valid task.
+     */
+    private List<ValidationTask> parseLines(byte[] content, int start, int end) {
+        List<ValidationTask> tasks = new ArrayList<>();
+        int lineStart = start;
+        while (lineStart < end) {
+            int lineEnd = lineStart;
+            while (lineEnd < end && content[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (!isBlank(content, lineStart, lineEnd)) {
+                try (JsonParser p = this.mapper.createParser(content, lineStart, lineEnd - lineStart)) {
+                    tasks.add(this.parseTask(p));
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid task in line starting at byte " + lineStart + ": " + e.getMessage(), e);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        return tasks;
+    }
+
+    private static boolean isBlank(byte[] content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(content[i])) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Builds a Validation Task from a JSON object.
+     *
+     * @param p A parser positioned before the object, which has to be the only content left.
+     * @return The new validation task.
+     * @throws IllegalArgumentException if the object is not a valid task.
+     * @throws tools.jackson.core.JacksonException if the content is not valid JSON.
+     */
+    ValidationTask parseTask(JsonParser p) {
+        MethodType method = null;
+        String url = null;
+        List<String> headers = new ArrayList<>();
+        JsonNode reqBody = this.mapper.nullNode();
+        Integer statusCode = null;
+        String resBody = "";
+        String mode = "";
+        List<JsonPathAssertion> jsonPaths = new ArrayList<>();
+        String jsonBody = null;
+        boolean ignoreOrder = false;
+        List<HeaderAssertion> resHeaders = new ArrayList<>();
+        LatencySla latency = null;
+
+        expect(p.nextToken(), JsonToken.START_OBJECT);
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case REQ_METHOD_ATTR -> method = MethodType.values()[p.getIntValue()];
+                case URL_TAG -> url = p.getString();
+                case HEADER_TAG -> {
+                    for (String h : this.readStrings(p)) {
+                        if (h.indexOf('|') < 1) throw new IllegalArgumentException("Invalid header: " + h);
+                        headers.add(h);
+                    }
+                }
+                case REQ_BODY_TAG -> reqBody = p.readValueAsTree();
+                case RES_SC_ATTR -> statusCode = p.getIntValue();
+                case RES_TAG -> resBody = p.getString();
+                case RES_MODE_ATTR -> mode = p.getString();
+                case JSON_BODY_TAG -> jsonBody = this.mapper.writeValueAsString(p.<JsonNode>readValueAsTree());
+                case JSON_BODY_IGNORE_ORDER_ATTR -> ignoreOrder = p.getBooleanValue();
+                case JSON_PATH_TAG -> {
+                    expect(p.currentToken(), JsonToken.START_ARRAY);
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        jsonPaths.add(this.createJsonPathAssertion(p.readValueAsTree()));
+                    }
+                }
+                case RES_HEADER_TAG -> this.readStrings(p).forEach(h -> resHeaders.add(HeaderAssertion.parse(h)));
+                case LATENCY_TAG -> {
+                    JsonNode l = p.readValueAsTree();
+                    latency = new LatencySla(l.path(LATENCY_FIRST_BYTE_ATTR).asLong(0), l.path(LATENCY_TOTAL_ATTR).asLong(0));
+                }
+                default -> throw new IllegalArgumentException("Unknown property: " + name);
+            }
+        }
+        expect(p.currentToken(), JsonToken.END_OBJECT);
+        if (p.nextToken() != null) {
+            throw new IllegalArgumentException("Only one task is allowed per line");
+        }
+        if (isNull(method) || isNull(url) || isNull(statusCode)) {
+            throw new IllegalArgumentException("Properties " + REQ_METHOD_ATTR + ", " + URL_TAG + " and " + RES_SC_ATTR + " are required");
+        }
+
+        RegexAssertion bodyRegex = null;
+        if (RES_MODE_REGEX.equals(mode)) {
+            bodyRegex = new RegexAssertion(resBody);
+            resBody = "";
+        }
+        return new ValidationTask(method, url, headers, reqBody, statusCode, resBody, new ResponseAssertions(jsonPaths,
+            isNull(jsonBody) ? null : new JsonDocumentAssertion(jsonBody, ignoreOrder), resHeaders, latency, bodyRegex));
+    }
+
+    /**
+     * Builds a JSON path assertion from its JSON definition, with the same defaults as the jsonpath element.
+     *
+     * @param node The definition.
+     * @return The new assertion.
+     * @throws IllegalArgumentException if the path or the size range are not valid.
+     */
+    private JsonPathAssertion createJsonPathAssertion(JsonNode node) {
+        return new JsonPathAssertion(
+            requireNonNull(node.path(JSON_PATH_ATTR).stringValue(null), "JSON path is required"),
+            JsonPathAssertion.Kind.valueOf(node.path(JSON_PATH_OP_ATTR).asString(JsonPathAssertion.Kind.EQUALS.name()).toUpperCase()),
+            node.path(JSON_PATH_VALUE_KEY).asString(""),
+            node.path(JSON_PATH_MIN_ATTR).asInt(0),
+            node.path(JSON_PATH_MAX_ATTR).asInt(Integer.MAX_VALUE)
+        );
+    }
+
+    private List<String> readStrings(JsonParser p) {
+        expect(p.currentToken(), JsonToken.START_ARRAY);
+        List<String> res = new ArrayList<>();
+        while (p.nextToken() == JsonToken.VALUE_STRING) {
+            res.add(p.getString());
+        }
+        expect(p.currentToken(), JsonToken.END_ARRAY);
+
+        return res;
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) {
+        if (actual != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " but found " + actual);
+        }
+    }
+
+    /**
+     * Sets the environment; for testing purposes.
+     *
+     * @param env The environment to set.
+     */
+    void setEnv(Environment env) { this.env = env; }
+
+    /**
+     * Sets the object mapper; for testing purposes.
+     *
+     * @param mapper The ObjectMapper to set.
+     */
+    void setObjectMapper(ObjectMapper mapper) { this.mapper = mapper; }
+}
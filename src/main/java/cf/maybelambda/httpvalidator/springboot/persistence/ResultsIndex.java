@@ -0,0 +1,397 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_RETENTION_HOURS;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.RETENTION_HOURS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.RETENTION_INTERVAL_PROPERTY;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * In-memory index of the outcomes of the task runs, to query them by task, host, status and time range without going
+ * through all of them.
+ * <p>
+ * Outcomes are numbered in the order they are added, which is also time order, and kept in columns split in chunks
+ * of {@value #CHUNK_SIZE}. The numbers of the outcomes of each task and of each host are kept in ascending lists,
+ * and the number of the first outcome of each hour in a sorted map, so a query finds the range of outcomes of its
+ * time range with two binary searches and then only goes through the outcomes of its task or host in that range.
+ * <p>
+ * The index is updated as outcomes are recorded and filled from the results log, when enabled, the first time it is
+ * used. Outcomes are dropped a chunk at a time: the oldest ones when the index holds more than
+ * {@value #MAX_OUTCOMES_PROPERTY} outcomes, rounded up to whole chunks, and those older than the retention period of
+ * the results log, both when a chunk is started and periodically in the background. The chunk being filled is always
+ * kept.
+ */
+@Component
+public class ResultsIndex {
+    static final String MAX_OUTCOMES_PROPERTY = "results.index.max.outcomes";
+    static final int CHUNK_SIZE = 1 << 16;
+    static final int DEFAULT_MAX_OUTCOMES = 16 * CHUNK_SIZE;
+    static final long BUCKET_MILLIS = Duration.ofHours(1).toMillis();
+    private static Logger logger = LoggerFactory.getLogger(ResultsIndex.class);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Map<Long, IdList> byTask = new HashMap<>();
+    private final Map<Integer, IdList> byHost = new HashMap<>();
+    // Number of the first outcome of each hour, by the start of the hour
+    private final TreeMap<Long, Long> buckets = new TreeMap<>();
+    // Number of the first outcome kept, always the first one of a chunk
+    private long firstId;
+    private long nextId;
+    private long lastTimestamp;
+    // Start of the bucket of the last outcome added
+    private long lastBucket = Long.MIN_VALUE;
+    private volatile boolean loaded;
+
+    @Autowired
+    private ResultsLog resultsLog;
+    @Autowired
+    private Environment env;
+
+    /**
+     * Criteria of a query. Null criteria match every outcome.
+     *
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param host The host of the task URL, case-insensitive.
+     * @param statusCode The status code of the response.
+     * @param failed Whether the task failed.
+     * @param fromMillis The time of the oldest outcome, in milliseconds since the epoch.
+     * @param toMillis The time after the newest outcome, in milliseconds since the epoch.
+     */
+    public record Query(Long taskKey, String host, Integer statusCode, Boolean failed, long fromMillis, long toMillis) {}
+
+    /**
+     * An outcome found by a query.
+     *
+     * @param time The time when the outcome was recorded.
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param statusCode The status code of the response, or {@link HttpSendOutcomeWrapper#NET_ERR_CODE} on network errors.
+     * @param latencyMillis The time until the whole response was received, or 0 if it was not measured.
+     * @param failureClass The category of the failure, or null if the task was successful.
+     */
+    public record Result(Instant time, long taskKey, int statusCode, long latencyMillis, FailureClass failureClass) {}
+
+    /**
+     * A page of the outcomes found by a query.
+     *
+     * @param total The number of outcomes that match the query.
+     * @param results The outcomes of the page, from the most recent one.
+     */
+    public record ResultPage(long total, List<Result> results) {}
+
+    /**
+     * The columns of {@value #CHUNK_SIZE} consecutive outcomes.
+     */
+    private static final class Chunk {
+        final long[] timestamps = new long[CHUNK_SIZE];
+        final long[] latencies = new long[CHUNK_SIZE];
+        final long[] taskKeys = new long[CHUNK_SIZE];
+        final int[] hostHashes = new int[CHUNK_SIZE];
+        final short[] statusCodes = new short[CHUNK_SIZE];
+        // 0 for successful tasks, the ordinal of the failure class plus one otherwise
+        final byte[] failureClasses = new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * Ascending list of outcome numbers.
+     */
+    private static final class IdList {
+        private long[] ids = new long[8];
+        private int size;
+
+        void add(long id) {
+            if (this.size == this.ids.length) {
+                this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            }
+            this.ids[this.size++] = id;
+        }
+
+        long get(int i) { return this.ids[i]; }
+
+        int size() { return this.size; }
+
+        /**
+         * Finds the position of the first number not lower than the given one.
+         */
+        int lowerBound(long id) {
+            int lo = 0;
+            int hi = this.size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (this.ids[mid] < id) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Removes the numbers lower than the given one.
+         */
+        void dropBelow(long id) {
+            int n = this.lowerBound(id);
+            System.arraycopy(this.ids, n, this.ids, 0, this.size - n);
+            this.size -= n;
+        }
+    }
+
+    /**
+     * Adds the outcome of a task run.
+     *
+     * @param timestampMillis The time when the outcome was recorded, in milliseconds since the epoch.
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param hostHash The hash of the host of the task URL, as returned by {@link ResultsLog#hostHash}.
+     * @param res The response or network error received.
+     * @param failure The failure found by the validation, or null if the task was successful.
+     */
+    public void add(long timestampMillis, long taskKey, int hostHash, HttpSendOutcomeWrapper res, ValidationFailure failure) {
+        this.ensureLoaded();
+        this.lock.writeLock().lock();
+        try {
+            this.add(timestampMillis, taskKey, hostHash, res.getStatusCode(), res.getTotalNanos(),
+                (byte) (isNull(failure) ? 0 : failure.failureClass().ordinal() + 1));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an outcome. Must be called with the write lock held.
+     */
+    private void add(long timestampMillis, long taskKey, int hostHash, int statusCode, long latencyNanos, byte failureClass) {
+        // Keep outcomes in time order even if the clock goes back
+        long ts = Math.max(timestampMillis, this.lastTimestamp);
+        int i = (int) (this.nextId % CHUNK_SIZE);
+        if (i == 0) {
+            this.chunks.add(new Chunk());
+            this.dropOldChunks(ts);
+        }
+        Chunk c = this.chunks.getLast();
+        c.timestamps[i] = ts;
+        c.latencies[i] = latencyNanos;
+        c.taskKeys[i] = taskKey;
+        c.hostHashes[i] = hostHash;
+        c.statusCodes[i] = (short) statusCode;
+        c.failureClasses[i] = failureClass;
+        this.byTask.computeIfAbsent(taskKey, k -> new IdList()).add(this.nextId);
+        this.byHost.computeIfAbsent(hostHash, k -> new IdList()).add(this.nextId);
+        long bucket = ts - Math.floorMod(ts, BUCKET_MILLIS);
+        // Outcomes come in time order, so only the first one of each bucket needs the map
+        if (bucket != this.lastBucket) {
+            this.buckets.putIfAbsent(bucket, this.nextId);
+            this.lastBucket = bucket;
+        }
+        this.lastTimestamp = ts;
+        this.nextId++;
+    }
+
+    /**
+     * Drops the outcomes older than the retention period, a chunk at a time.
+     * <p>
+     * Runs periodically in the background, so that outcomes expire even when no new chunk is started.
+     */
+    @Scheduled(fixedDelayString = "${" + RETENTION_INTERVAL_PROPERTY + ":600000}")
+    public void dropExpired() {
+        if (!this.loaded) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.dropOldChunks(System.currentTimeMillis());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the chunks whose outcomes are all older than the retention period and the oldest chunks beyond the maximum
+     * number of outcomes, keeping the last one, which is being filled. Must be called with the write lock held.
+     *
+     * @param nowMillis The current time, in milliseconds since the epoch.
+     */
+    private void dropOldChunks(long nowMillis) {
+        long cutoff = nowMillis - Duration.ofHours(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).toMillis();
+        int maxChunks = Math.max(1, Math.ceilDiv(this.env.getProperty(MAX_OUTCOMES_PROPERTY, Integer.class, DEFAULT_MAX_OUTCOMES), CHUNK_SIZE));
+        int n = Math.max(0, this.chunks.size() - maxChunks);
+        while (n + 1 < this.chunks.size() && this.chunks.get(n).timestamps[CHUNK_SIZE - 1] < cutoff) {
+            n++;
+        }
+        if (n > 0) {
+            this.chunks.subList(0, n).clear();
+            this.firstId += (long) n * CHUNK_SIZE;
+            this.byTask.values().removeIf(l -> { l.dropBelow(this.firstId); return l.size() == 0; });
+            this.byHost.values().removeIf(l -> { l.dropBelow(this.firstId); return l.size() == 0; });
+            if (this.firstId == this.nextId) {
+                this.buckets.clear();
+                this.lastBucket = Long.MIN_VALUE;
+            } else {
+                // Keep the bucket of the first outcome kept, now starting at that outcome
+                Long first = this.buckets.floorKey(this.timestamp(this.firstId));
+                this.buckets.headMap(first).clear();
+                this.buckets.put(first, this.firstId);
+            }
+        }
+    }
+
+    /**
+     * Finds a page of the outcomes that match a query, from the most recent one.
+     *
+     * @param q The criteria of the query.
+     * @param offset The number of matching outcomes to skip.
+     * @param limit The maximum number of outcomes to return.
+     * @return The number of matching outcomes and the outcomes of the page.
+     */
+    public ResultPage query(Query q, int offset, int limit) {
+        this.ensureLoaded();
+        this.lock.readLock().lock();
+        try {
+            long lo = this.firstIdAtOrAfter(q.fromMillis());
+            long hi = this.firstIdAtOrAfter(q.toMillis());
+            Integer hostHash = nonNull(q.host()) ? ResultsLog.hostHash(q.host().toLowerCase(Locale.ROOT)) : null;
+            // Go through the outcomes of the task or host when given, or through all of them otherwise
+            IdList ids = nonNull(q.taskKey()) ? this.byTask.get(q.taskKey()) : nonNull(hostHash) ? this.byHost.get(hostHash) : null;
+            long[] total = new long[1];
+            List<Result> results = new ArrayList<>();
+            if (isNull(q.taskKey()) && isNull(hostHash)) {
+                for (long id = hi - 1; id >= lo; id--) {
+                    this.collect(id, q, hostHash, offset, limit, total, results);
+                }
+            } else if (nonNull(ids)) {
+                for (int k = ids.lowerBound(hi) - 1, from = ids.lowerBound(lo); k >= from; k--) {
+                    this.collect(ids.get(k), q, hostHash, offset, limit, total, results);
+                }
+            }
+
+            return new ResultPage(total[0], results);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts an outcome if it matches a query, adding it to the page when it falls within it.
+     *
+     * @param id The number of the outcome.
+     * @param q The criteria of the query.
+     * @param hostHash The hash of the host of the query, or null.
+     * @param offset The number of matching outcomes to skip.
+     * @param limit The maximum number of outcomes of the page.
+     * @param total The number of matching outcomes found so far.
+     * @param results The outcomes of the page.
+     */
+    private void collect(long id, Query q, Integer hostHash, int offset, int limit, long[] total, List<Result> results) {
+        if (this.matches(id, q, hostHash) && total[0]++ >= offset && results.size() < limit) {
+            results.add(this.result(id));
+        }
+    }
+
+    private boolean matches(long id, Query q, Integer hostHash) {
+        Chunk c = this.chunkOf(id);
+        int i = (int) (id % CHUNK_SIZE);
+        return (isNull(q.taskKey()) || c.taskKeys[i] == q.taskKey())
+            && (isNull(hostHash) || c.hostHashes[i] == hostHash)
+            && (isNull(q.statusCode()) || c.statusCodes[i] == q.statusCode())
+            && (isNull(q.failed()) || (c.failureClasses[i] != 0) == q.failed());
+    }
+
+    private Result result(long id) {
+        Chunk c = this.chunkOf(id);
+        int i = (int) (id % CHUNK_SIZE);
+        int fc = c.failureClasses[i];
+        return new Result(Instant.ofEpochMilli(c.timestamps[i]), c.taskKeys[i], c.statusCodes[i],
+            Duration.ofNanos(c.latencies[i]).toMillis(), fc == 0 ? null : FailureClass.values()[fc - 1]);
+    }
+
+    private Chunk chunkOf(long id) {
+        return this.chunks.get((int) ((id - this.firstId) / CHUNK_SIZE));
+    }
+
+    private long timestamp(long id) {
+        return this.chunkOf(id).timestamps[(int) (id % CHUNK_SIZE)];
+    }
+
+    /**
+     * Finds the number of the first outcome recorded at or after the given time, searching only the hour it is in.
+     *
+     * @param millis The time, in milliseconds since the epoch.
+     * @return The number of the outcome, or the number of the next outcome to be added if there is none.
+     */
+    private long firstIdAtOrAfter(long millis) {
+        long bucket = millis - Math.floorMod(millis, BUCKET_MILLIS);
+        Map.Entry<Long, Long> start = this.buckets.floorEntry(bucket);
+        Map.Entry<Long, Long> end = this.buckets.higherEntry(bucket);
+        long lo = isNull(start) ? this.firstId : start.getValue();
+        long hi = isNull(end) ? this.nextId : end.getValue();
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (this.timestamp(mid) < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+
+        return lo;
+    }
+
+    /**
+     * Fills the index from the results log the first time it is used, with the outcomes within the retention period.
+     */
+    private void ensureLoaded() {
+        if (this.loaded) {
+            return;
+        }
+        this.lock.writeLock().lock();
+        try {
+            if (!this.loaded) {
+                long from = System.currentTimeMillis() - Duration.ofHours(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).toMillis();
+                this.resultsLog.read(from, e -> this.add(e.timestampMillis(), e.taskKey(), e.hostHash(), e.statusCode(),
+                    e.latencyNanos(), (byte) (e.isOk() ? 0 : e.failureClass().ordinal() + 1)));
+                logger.debug("Loaded {} outcomes from results log", this.nextId - this.firstId);
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read results log", e);
+        } finally {
+            this.loaded = true;
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the results log. Used for testing purposes.
+     *
+     * @param resultsLog ResultsLog
+     */
+    void setResultsLog(ResultsLog resultsLog) { this.resultsLog = resultsLog; }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+}
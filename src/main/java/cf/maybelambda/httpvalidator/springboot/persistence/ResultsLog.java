@@ -0,0 +1,472 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Append-only binary log of the outcome of every validation task run, kept across restarts.
+ * <p>
+ * Outcomes are written as fixed-size records into segment files of a fixed size mapped into memory, so appending one
+ * is a handful of writes to memory, left to the operating system to flush to disk. A new segment is started when the
+ * current one is full or was started {@value #SEGMENT_HOURS_PROPERTY} hours ago, so that old outcomes can be deleted
+ * with their segment even when few outcomes are written. Segments whose outcomes are all older than the retention
+ * period are deleted when a segment is started and periodically in the background. Readers go through the mapped
+ * segments in place, without copying or decoding records they do not use.
+ * <p>
+ * Only enabled when the {@value #DIR_PROPERTY} property is set to the directory where segments are kept, which is
+ * read once. Failing to write the log is logged but never stops a run.
+ */
+@Component
+public class ResultsLog {
+    static final String DIR_PROPERTY = "results.log.dir";
+    static final String SEGMENT_SIZE_PROPERTY = "results.log.segment.size";
+    static final String SEGMENT_HOURS_PROPERTY = "results.log.segment.hours";
+    static final String RETENTION_HOURS_PROPERTY = "results.log.retention.hours";
+    static final String RETENTION_INTERVAL_PROPERTY = "results.log.retention.interval";
+    static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    static final int DEFAULT_SEGMENT_HOURS = 1;
+    static final int DEFAULT_RETENTION_HOURS = 7 * 24;
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final int MAGIC = 0x4856524C; // "HVRL"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 40;
+    // Offsets of the fields of a record. The timestamp is written last, so a record is complete once it is non-zero.
+    private static final int TIMESTAMP = 0;
+    private static final int LATENCY = 8;
+    private static final int BODY_HASH = 16;
+    private static final int TASK_KEY = 24;
+    private static final int HOST_HASH = 32;
+    private static final int STATUS = 36;
+    private static final int FAILURE_CLASS = 38;
+    private static final FailureClass[] FAILURE_CLASSES = FailureClass.values();
+    private static Logger logger = LoggerFactory.getLogger(ResultsLog.class);
+    private final Object writeLock = new Object();
+    private MappedByteBuffer active;
+    private Path activePath;
+    // Time from which outcomes go to a new segment
+    private long activeRollAtMillis;
+    // Position after the last complete record of the active segment, published after writing each record
+    private volatile int activeEnd;
+    // Directory of the segments, or null if the log is not enabled, once read from the environment
+    private volatile Path dir;
+    private volatile boolean dirRead;
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * Read-only view of a record of the log. A single view is moved over the records while they are read, so the
+     * values must be copied if they are needed once the action that received it returns.
+     */
+    public static final class Entry {
+        private ByteBuffer buf;
+        private int pos;
+
+        /**
+         * Moves the view to a record.
+         *
+         * @param buf The segment holding the record.
+         * @param pos The position of the record in the segment.
+         * @return This view.
+         */
+        Entry at(ByteBuffer buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+            return this;
+        }
+
+        /**
+         * Gets the time when the outcome was recorded.
+         *
+         * @return The time when the outcome was recorded, in milliseconds since the epoch.
+         */
+        public long timestampMillis() { return this.buf.getLong(this.pos + TIMESTAMP); }
+
+        /**
+         * Gets the task whose outcome was recorded.
+         *
+         * @return The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+         */
+        public long taskKey() { return this.buf.getLong(this.pos + TASK_KEY); }
+
+        /**
+         * Gets the host of the task URL.
+         *
+         * @return The hash of the lower-case host of the task URL, as returned by {@link ResultsLog#hostHash}.
+         */
+        public int hostHash() { return this.buf.getInt(this.pos + HOST_HASH); }
+
+        /**
+         * Gets the status code of the response received.
+         *
+         * @return The status code of the response, or {@link HttpSendOutcomeWrapper#NET_ERR_CODE} on network errors.
+         */
+        public int statusCode() { return this.buf.getShort(this.pos + STATUS); }
+
+        /**
+         * Gets the time taken by the request.
+         *
+         * @return The time until the whole response was received in nanoseconds, or 0 if it was not measured.
+         */
+        public long latencyNanos() { return this.buf.getLong(this.pos + LATENCY); }
+
+        /**
+         * Gets the hash of the response body received.
+         *
+         * @return The hash of the response body, as returned by {@link ResultsLog#bodyHash}.
+         */
+        public long bodyHash() { return this.buf.getLong(this.pos + BODY_HASH); }
+
+        /**
+         * Gets the kind of failure found by the validation.
+         *
+         * @return The category of the failure, or null if the task was successful.
+         */
+        public FailureClass failureClass() {
+            int c = this.buf.get(this.pos + FAILURE_CLASS);
+            return c == 0 ? null : FAILURE_CLASSES[c - 1];
+        }
+
+        /**
+         * Checks whether the validation succeeded.
+         *
+         * @return True if the task was successful.
+         */
+        public boolean isOk() { return this.buf.get(this.pos + FAILURE_CLASS) == 0; }
+    }
+
+    /**
+     * Checks whether outcomes are written to the log.
+     *
+     * @return True if the {@value #DIR_PROPERTY} property is set.
+     */
+    public boolean isEnabled() {
+        return nonNull(this.getDirPath());
+    }
+
+    /**
+     * Retrieves the directory of the segments from the environment properties the first time it is needed.
+     *
+     * @return The path of the directory, or null if the log is not enabled.
+     */
+    Path getDirPath() {
+        if (!this.dirRead) {
+            String path = this.env.getProperty(DIR_PROPERTY);
+            this.dir = isNull(path) ? null : Path.of(path);
+            this.dirRead = true;
+        }
+
+        return this.dir;
+    }
+
+    /**
+     * Appends the outcome of a task run. Does nothing if the log is not enabled.
+     *
+     * @param timestampMillis The time when the outcome was recorded, in milliseconds since the epoch.
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param hostHash The hash of the host of the task URL, as returned by {@link #hostHash}.
+     * @param bodyHash The hash of the response body, as returned by {@link #bodyHash}, or 0 for network errors.
+     * @param res The response or network error received.
+     * @param failure The failure found by the validation, or null if the task was successful.
+     */
+    public void append(long timestampMillis, long taskKey, int hostHash, long bodyHash, HttpSendOutcomeWrapper res,
+                       ValidationFailure failure) {
+        if (!this.isEnabled()) {
+            return;
+        }
+        synchronized (this.writeLock) {
+            try {
+                if (isNull(this.active) || this.activeEnd + RECORD_SIZE > this.active.capacity()
+                    || timestampMillis >= this.activeRollAtMillis) {
+                    this.roll(timestampMillis);
+                }
+                int pos = this.activeEnd;
+                MappedByteBuffer buf = this.active;
+                buf.putLong(pos + LATENCY, res.getTotalNanos());
+                buf.putLong(pos + BODY_HASH, bodyHash);
+                buf.putLong(pos + TASK_KEY, taskKey);
+                buf.putInt(pos + HOST_HASH, hostHash);
+                buf.putShort(pos + STATUS, (short) res.getStatusCode());
+                buf.put(pos + FAILURE_CLASS, (byte) (isNull(failure) ? 0 : failure.failureClass().ordinal() + 1));
+                buf.putLong(pos + TIMESTAMP, timestampMillis);
+                this.activeEnd = pos + RECORD_SIZE;
+            } catch (IOException e) {
+                logger.error("Failed to write results log", e);
+                this.active = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the outcomes recorded from the given time on, in the order they were appended.
+     * Segments whose outcomes are all older are skipped without being read.
+     *
+     * @param fromMillis The time of the oldest outcome to read, in milliseconds since the epoch.
+     * @param action The action applied to each outcome.
+     * @throws IOException if a segment cannot be read.
+     */
+    public void read(long fromMillis, Consumer<Entry> action) throws IOException {
+        if (!this.isEnabled()) {
+            return;
+        }
+        List<Path> segments = this.listSegments();
+        Entry entry = new Entry();
+        for (int i = 0; i < segments.size(); i++) {
+            // The next segment was started after every outcome of this one
+            if (i + 1 < segments.size() && startOf(segments.get(i + 1)) <= fromMillis) {
+                continue;
+            }
+            ByteBuffer buf;
+            int end;
+            synchronized (this.writeLock) {
+                if (segments.get(i).equals(this.activePath) && nonNull(this.active)) {
+                    buf = this.active.duplicate();
+                    end = this.activeEnd;
+                } else {
+                    buf = null;
+                    end = 0;
+                }
+            }
+            if (isNull(buf)) {
+                buf = this.mapReadOnly(segments.get(i));
+                end = isNull(buf) ? 0 : endOf(buf);
+            }
+            for (int pos = HEADER_SIZE; pos < end; pos += RECORD_SIZE) {
+                entry.at(buf, pos);
+                if (entry.timestampMillis() >= fromMillis) {
+                    action.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new segment, first reopening the last one if it has room left and is not due to be rolled after a
+     * restart, and deletes the segments past the retention period.
+     *
+     * @param nowMillis The current time, in milliseconds since the epoch.
+     * @throws IOException if the segment cannot be created or mapped.
+     */
+    private void roll(long nowMillis) throws IOException {
+        Path dir = this.getDirPath();
+        Files.createDirectories(dir);
+        int size = this.env.getProperty(SEGMENT_SIZE_PROPERTY, Integer.class, DEFAULT_SEGMENT_SIZE);
+        long segmentMillis = Duration.ofHours(this.env.getProperty(SEGMENT_HOURS_PROPERTY, Integer.class, DEFAULT_SEGMENT_HOURS)).toMillis();
+        List<Path> segments = this.listSegments();
+        if (isNull(this.active) && !segments.isEmpty()) {
+            Path last = segments.getLast();
+            try (FileChannel ch = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, ch.size());
+                if (isValidSegment(buf) && endOf(buf) + RECORD_SIZE <= buf.capacity() && nowMillis < startOf(last) + segmentMillis) {
+                    this.open(last, buf, endOf(buf), startOf(last) + segmentMillis);
+                    return;
+                }
+            }
+        }
+        if (nonNull(this.active)) {
+            this.active.force();
+        }
+
+        // Segments are named after the time they were started, so they are listed in the order they were written
+        long start = segments.isEmpty() ? nowMillis : Math.max(nowMillis, startOf(segments.getLast()) + 1);
+        Path path = dir.resolve(String.format("%019d", start) + SEGMENT_SUFFIX);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) Math.max(1, (size - HEADER_SIZE) / RECORD_SIZE) * RECORD_SIZE);
+            buf.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, start);
+            this.open(path, buf, HEADER_SIZE, start + segmentMillis);
+        }
+        this.deleteExpired(nowMillis);
+    }
+
+    /**
+     * Makes a mapped segment the one where outcomes are appended.
+     *
+     * @param path The segment.
+     * @param buf The mapped segment.
+     * @param end The position after the last record of the segment.
+     * @param rollAtMillis The time from which outcomes are appended to a new segment, in milliseconds since the epoch.
+     */
+    private void open(Path path, MappedByteBuffer buf, int end, long rollAtMillis) {
+        this.active = buf;
+        this.activePath = path;
+        this.activeEnd = end;
+        this.activeRollAtMillis = rollAtMillis;
+    }
+
+    /**
+     * Deletes the segments whose outcomes are all older than the retention period, when the log is enabled.
+     * <p>
+     * Runs periodically in the background, so that outcomes expire even when no segment is started.
+     */
+    @Scheduled(fixedDelayString = "${" + RETENTION_INTERVAL_PROPERTY + ":600000}")
+    public void deleteExpired() {
+        if (!this.isEnabled()) {
+            return;
+        }
+        synchronized (this.writeLock) {
+            try {
+                this.deleteExpired(System.currentTimeMillis());
+            } catch (IOException e) {
+                logger.error("Failed to delete expired results log segments", e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the segments whose outcomes are all older than the retention period, that is, the ones followed by a
+     * segment started before the period.
+     *
+     * @param nowMillis The current time, in milliseconds since the epoch.
+     * @throws IOException if a segment cannot be deleted.
+     */
+    private void deleteExpired(long nowMillis) throws IOException {
+        long cutoff = nowMillis - Duration.ofHours(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).toMillis();
+        List<Path> segments = this.listSegments();
+        for (int i = 0; i + 1 < segments.size() && startOf(segments.get(i + 1)) < cutoff; i++) {
+            Files.deleteIfExists(segments.get(i));
+            logger.debug("Deleted expired results log segment {}", segments.get(i));
+        }
+    }
+
+    /**
+     * Lists the segments of the log.
+     *
+     * @return The segments, from the oldest to the newest one.
+     * @throws IOException if the directory cannot be read.
+     */
+    private List<Path> listSegments() throws IOException {
+        Path dir = this.getDirPath();
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+    }
+
+    /**
+     * Maps a segment that is no longer written.
+     *
+     * @param path The segment.
+     * @return The mapped segment, or null if it is damaged or was deleted meanwhile.
+     * @throws IOException if the segment cannot be read.
+     */
+    private ByteBuffer mapReadOnly(Path path) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return isValidSegment(buf) ? buf : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether a mapped file is a segment in the format of this version.
+     *
+     * @param buf The mapped file.
+     * @return True if the file is long enough for the header and the header matches.
+     */
+    private static boolean isValidSegment(ByteBuffer buf) {
+        return buf.capacity() >= HEADER_SIZE && buf.getInt(0) == MAGIC && buf.getInt(4) == VERSION;
+    }
+
+    /**
+     * Finds the position after the last complete record of a segment.
+     *
+     * @param buf The segment.
+     * @return The position, which is the header size for an empty segment.
+     */
+    private static int endOf(ByteBuffer buf) {
+        int pos = HEADER_SIZE;
+        while (pos + RECORD_SIZE <= buf.capacity() && buf.getLong(pos + TIMESTAMP) != 0) {
+            pos += RECORD_SIZE;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Gets the time when a segment was started, which is its name.
+     *
+     * @param segment The segment.
+     * @return The time, in milliseconds since the epoch.
+     */
+    private static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Hashes a host for the log. Used to find the outcomes of the tasks of a host.
+     *
+     * @param host The lower-case host.
+     * @return The hash.
+     */
+    public static int hostHash(String host) {
+        return host.hashCode();
+    }
+
+    /**
+     * Hashes a response body for the log with 64-bit FNV-1a, so changes in the responses of a task can be told apart
+     * without keeping the bodies.
+     *
+     * @param body The response body.
+     * @return The hash, or 0 if there is no body.
+     */
+    public static long bodyHash(CharSequence body) {
+        if (isNull(body)) {
+            return 0;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < body.length(); i++) {
+            h = (h ^ body.charAt(i)) * 0x100000001b3L;
+        }
+
+        return h;
+    }
+
+    /**
+     * Flushes the active segment to disk when the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (this.writeLock) {
+            if (nonNull(this.active)) {
+                this.active.force();
+                this.active = null;
+            }
+        }
+    }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+}
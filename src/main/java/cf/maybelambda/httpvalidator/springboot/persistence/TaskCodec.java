@@ -0,0 +1,169 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.swing.text.html.FormSubmitEvent.MethodType;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Binary encoding of validation tasks, shared by the files that store parsed tasks.
+ * <p>
+ * Strings are written as their length in UTF-8 bytes followed by the bytes, with a negative length for null, and
+ * enums as their ordinal, so any change to the task model requires a new version of the files that use it.
+ */
+class TaskCodec {
+    private static final int NULL_LENGTH = -1;
+    private final ObjectMapper mapper;
+    private final TaskInterner interner;
+
+    /**
+     * Constructs a codec whose read tasks share their equal parts.
+     *
+     * @param mapper The object mapper used to write and read request bodies.
+     */
+    TaskCodec(ObjectMapper mapper) {
+        this(mapper, new TaskInterner());
+    }
+
+    /**
+     * Constructs a codec whose read tasks share their equal parts with the other tasks of an interner.
+     *
+     * @param mapper The object mapper used to write and read request bodies.
+     * @param interner The interner of the read tasks.
+     */
+    TaskCodec(ObjectMapper mapper, TaskInterner interner) {
+        this.mapper = mapper;
+        this.interner = interner;
+    }
+
+    /**
+     * Writes a task.
+     *
+     * @param out The output.
+     * @param task The task.
+     * @throws IOException if the task cannot be written.
+     */
+    void write(DataOutputStream out, ValidationTask task) throws IOException {
+        ResponseAssertions as = task.assertions();
+        out.writeInt(task.reqMethod().ordinal());
+        writeString(out, task.reqURL());
+        out.writeInt(task.reqHeaders().size());
+        for (String h : task.reqHeaders()) {
+            writeString(out, h);
+        }
+        writeString(out, task.reqBody().isNull() ? null : this.mapper.writeValueAsString(task.reqBody()));
+        out.writeInt(task.validStatusCode());
+        writeString(out, task.validBody());
+
+        out.writeInt(as.jsonPaths().size());
+        for (JsonPathAssertion p : as.jsonPaths()) {
+            writeString(out, p.path());
+            out.writeInt(p.kind().ordinal());
+            writeString(out, p.expected());
+            out.writeInt(p.min());
+            out.writeInt(p.max());
+        }
+        out.writeBoolean(nonNull(as.jsonBody()));
+        if (nonNull(as.jsonBody())) {
+            writeString(out, as.jsonBody().expected());
+            out.writeBoolean(as.jsonBody().ignoreKeyOrder());
+        }
+        out.writeInt(as.headers().size());
+        for (HeaderAssertion h : as.headers()) {
+            writeString(out, h.name());
+            writeString(out, h.value());
+        }
+        out.writeBoolean(nonNull(as.latency()));
+        if (nonNull(as.latency())) {
+            out.writeLong(as.latency().maxFirstByteMillis());
+            out.writeLong(as.latency().maxTotalMillis());
+        }
+        writeString(out, isNull(as.bodyRegex()) ? null : as.bodyRegex().regex());
+    }
+
+    /**
+     * Reads a task written by {@link #write}.
+     *
+     * @param buf The buffer, positioned at the start of the task.
+     * @return The task.
+     * @throws RuntimeException if the content is not a valid task, such as a {@link java.nio.BufferUnderflowException}.
+     */
+    ValidationTask read(ByteBuffer buf) {
+        MethodType method = MethodType.values()[buf.getInt()];
+        String url = readString(buf);
+        List<String> headers = new ArrayList<>();
+        for (int n = buf.getInt(); n > 0; n--) {
+            headers.add(readString(buf));
+        }
+        String body = readString(buf);
+        JsonNode reqBody = isNull(body) ? this.mapper.nullNode() : this.mapper.readTree(body);
+        int statusCode = buf.getInt();
+        String validBody = readString(buf);
+
+        List<JsonPathAssertion> jsonPaths = new ArrayList<>();
+        for (int n = buf.getInt(); n > 0; n--) {
+            jsonPaths.add(new JsonPathAssertion(readString(buf), JsonPathAssertion.Kind.values()[buf.getInt()],
+                readString(buf), buf.getInt(), buf.getInt()));
+        }
+        JsonDocumentAssertion jsonBody = buf.get() != 0 ? new JsonDocumentAssertion(readString(buf), buf.get() != 0) : null;
+        List<HeaderAssertion> resHeaders = new ArrayList<>();
+        for (int n = buf.getInt(); n > 0; n--) {
+            resHeaders.add(new HeaderAssertion(readString(buf), readString(buf)));
+        }
+        LatencySla latency = buf.get() != 0 ? new LatencySla(buf.getLong(), buf.getLong()) : null;
+        String regex = readString(buf);
+
+        return this.interner.intern(new ValidationTask(method, url, headers, reqBody, statusCode, validBody, new ResponseAssertions(
+            jsonPaths, jsonBody, resHeaders, latency, isNull(regex) ? null : new RegexAssertion(regex))));
+    }
+
+    /**
+     * Writes a string that may be null.
+     *
+     * @param out The output.
+     * @param s The string.
+     * @throws IOException if the string cannot be written.
+     */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (isNull(s)) {
+            out.writeInt(NULL_LENGTH);
+        } else {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param buf The buffer, positioned at the start of the string.
+     * @return The string, which may be null.
+     */
+    static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
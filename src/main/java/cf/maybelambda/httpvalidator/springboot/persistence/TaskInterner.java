@@ -0,0 +1,67 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import tools.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replaces the parts of validation tasks that are equal to the ones of previously seen tasks with the same instances,
+ * so that large task sets where many tasks share URLs, headers, request bodies or response checks keep a single copy
+ * of each in memory.
+ * <p>
+ * Each load of a data file uses a new interner, so values only referenced by tasks that no longer exist are released
+ * along with it. All the shared values are immutable or never modified once the tasks are built.
+ */
+class TaskInterner {
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<String>> headerLists = new ConcurrentHashMap<>();
+    private final Map<JsonNode, JsonNode> bodies = new ConcurrentHashMap<>();
+    private final Map<ResponseAssertions, ResponseAssertions> assertions = new ConcurrentHashMap<>();
+
+    /**
+     * Gets a task equal to the given one, whose parts are shared with the tasks interned before.
+     *
+     * @param task The task.
+     * @return The task with shared parts.
+     */
+    ValidationTask intern(ValidationTask task) {
+        return new ValidationTask(
+            task.reqMethod(),
+            this.intern(task.reqURL()),
+            this.internHeaders(task.reqHeaders()),
+            this.bodies.computeIfAbsent(task.reqBody(), b -> b),
+            task.validStatusCode(),
+            this.intern(task.validBody()),
+            this.assertions.computeIfAbsent(task.assertions(), a -> a)
+        );
+    }
+
+    /**
+     * Gets the shared instance of a string.
+     *
+     * @param s The string.
+     * @return The first string equal to the given one seen by this interner.
+     */
+    String intern(String s) {
+        return this.strings.computeIfAbsent(s, v -> v);
+    }
+
+    /**
+     * Gets the shared immutable instance of a list of request headers, whose elements are shared too.
+     *
+     * @param headers The headers.
+     * @return The first list equal to the given one seen by this interner.
+     */
+    List<String> internHeaders(List<String> headers) {
+        List<String> res = this.headerLists.get(headers);
+        if (res == null) {
+            res = this.headerLists.computeIfAbsent(headers.stream().map(this::intern).toList(), h -> h);
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,118 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of the changes made to individual validation tasks since the data file was last written.
+ * <p>
+ * Each line is a JSON object describing one change: {@code {"op":"put","id":3,"xml":"<validation ...>"}} adds or
+ * replaces a task and {@code {"op":"delete","id":3}} removes it. Lines are synced to disk as they are appended,
+ * so a change is durable once it has been acknowledged, without rewriting the whole data file.
+ */
+class TaskJournal {
+    static final String OP_KEY = "op";
+    static final String ID_KEY = "id";
+    static final String XML_KEY = "xml";
+    static final String PUT_OP = "put";
+    static final String DELETE_OP = "delete";
+    private final Path path;
+    private final ObjectMapper mapper;
+
+    /**
+     * A change recorded in the journal.
+     *
+     * @param op The kind of change, {@link #PUT_OP} or {@link #DELETE_OP}.
+     * @param id The id of the task.
+     * @param xml The validation element of the task for put changes, null otherwise.
+     */
+    record Change(String op, int id, String xml) {}
+
+    /**
+     * Constructs a journal stored in the given file, which is created when the first change is appended.
+     *
+     * @param path The journal file.
+     * @param mapper The object mapper used to write and read the changes.
+     */
+    TaskJournal(Path path, ObjectMapper mapper) {
+        this.path = path;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Records that a task was added or replaced.
+     *
+     * @param id The id of the task.
+     * @param xml The validation element of the task.
+     * @throws IOException if the change cannot be written.
+     */
+    void appendPut(int id, String xml) throws IOException {
+        this.append(this.mapper.createObjectNode().put(OP_KEY, PUT_OP).put(ID_KEY, id).put(XML_KEY, xml));
+    }
+
+    /**
+     * Records that a task was removed.
+     *
+     * @param id The id of the task.
+     * @throws IOException if the change cannot be written.
+     */
+    void appendDelete(int id) throws IOException {
+        this.append(this.mapper.createObjectNode().put(OP_KEY, DELETE_OP).put(ID_KEY, id));
+    }
+
+    private void append(ObjectNode change) throws IOException {
+        Files.writeString(this.path, this.mapper.writeValueAsString(change) + "\n", StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+
+    /**
+     * Reads all the changes in the order they were recorded.
+     * A last line without its line terminator, left by an interrupted write, is ignored.
+     *
+     * @return The changes, empty if the journal does not exist.
+     * @throws IOException if the journal cannot be read.
+     */
+    List<Change> readAll() throws IOException {
+        List<Change> res = new ArrayList<>();
+        if (this.exists()) {
+            String content = Files.readString(this.path, StandardCharsets.UTF_8);
+            int end = content.lastIndexOf('\n');
+            for (String line : content.substring(0, end + 1).split("\n")) {
+                if (!line.isBlank()) {
+                    JsonNode node = this.mapper.readTree(line);
+                    JsonNode xml = node.get(XML_KEY);
+                    res.add(new Change(node.get(OP_KEY).asString(), node.get(ID_KEY).asInt(), xml == null ? null : xml.asString()));
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks whether there are changes recorded.
+     *
+     * @return True if the journal file exists.
+     */
+    boolean exists() {
+        return Files.exists(this.path);
+    }
+
+    /**
+     * Removes all the changes, once they have been written to the data file or superseded by a new one.
+     *
+     * @throws IOException if the journal file cannot be deleted.
+     */
+    void clear() throws IOException {
+        Files.deleteIfExists(this.path);
+    }
+}
@@ -0,0 +1,178 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary copy of the tasks built from a data file, so that they can be loaded again without parsing and validating
+ * the XML.
+ * <p>
+ * The file starts with a format version and the size, modification time and SHA-256 hash of the data file it was
+ * built from, and is only used while all of them match the current data file. It is read through a memory mapping.
+ * {@link #VERSION} has to be increased whenever the layout or the task model changes, which makes previous snapshots
+ * be ignored and rebuilt.
+ */
+class TaskSnapshotFile {
+    static final int MAGIC = 0x48565453; // "HVTS"
+    static final int VERSION = 2;
+    static final int HASH_LENGTH = 32;
+    private final Path path;
+    private final TaskCodec codec;
+
+    /**
+     * Identifies the content of a data file.
+     *
+     * @param size The size of the file in bytes.
+     * @param lastModifiedTime The modification time of the file.
+     * @param hash The SHA-256 hash of the content of the file.
+     */
+    record Key(long size, long lastModifiedTime, byte[] hash) {
+        /**
+         * Builds the key of the given data file content.
+         *
+         * @param content The content of the data file.
+         * @param lastModifiedTime The modification time of the data file.
+         * @return The key.
+         */
+        static Key of(byte[] content, long lastModifiedTime) {
+            return new Key(content.length, lastModifiedTime, newDigest().digest(content));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key that && this.size == that.size && this.lastModifiedTime == that.lastModifiedTime
+                && Arrays.equals(this.hash, that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.size) * 31 + Arrays.hashCode(this.hash);
+        }
+    }
+
+    /**
+     * Creates a digest of the kind used to identify data file contents.
+     *
+     * @return A new SHA-256 digest.
+     */
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Constructs a snapshot stored in the given file.
+     *
+     * @param path The snapshot file.
+     * @param mapper The object mapper used to write and read request bodies.
+     */
+    TaskSnapshotFile(Path path, ObjectMapper mapper) {
+        this(path, mapper, new TaskInterner());
+    }
+
+    /**
+     * Constructs a snapshot stored in the given file, whose read tasks share their equal parts with the other tasks
+     * of an interner.
+     *
+     * @param path The snapshot file.
+     * @param mapper The object mapper used to write and read request bodies.
+     * @param interner The interner of the read tasks.
+     */
+    TaskSnapshotFile(Path path, ObjectMapper mapper, TaskInterner interner) {
+        this.path = path;
+        this.codec = new TaskCodec(mapper, interner);
+    }
+
+    /**
+     * Reads the tasks of the snapshot if it was built from a data file with the given key.
+     *
+     * @param key The key of the current data file.
+     * @param implicitIds The set where the ids of the tasks without an id attribute are added.
+     * @return The tasks by id, or null if there is no snapshot or it belongs to a different data file or version.
+     * @throws IOException if the snapshot cannot be read or is corrupt.
+     */
+    Map<Integer, ValidationTask> read(Key key, Set<Integer> implicitIds) throws IOException {
+        if (!Files.isRegularFile(this.path)) {
+            return null;
+        }
+        try (FileChannel ch = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 2 * Integer.BYTES || buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                return null;
+            }
+            long size = buf.getLong();
+            long lastModifiedTime = buf.getLong();
+            byte[] hash = new byte[HASH_LENGTH];
+            buf.get(hash);
+            if (!key.equals(new Key(size, lastModifiedTime, hash))) {
+                return null;
+            }
+
+            int count = buf.getInt();
+            Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+            for (int i = 0; i < count; i++) {
+                int id = buf.getInt();
+                if (buf.get() != 0) {
+                    implicitIds.add(id);
+                }
+                tasks.put(id, this.codec.read(buf));
+            }
+
+            return tasks;
+        } catch (RuntimeException e) {
+            // Underflows, invalid enum ordinals or lengths and invalid content all mean the file is damaged
+            throw new IOException("Corrupt task snapshot: " + this.path, e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given tasks, built from a data file with the given key.
+     * The file is written next to its final location and then moved, so readers never see it partially written.
+     *
+     * @param key The key of the data file.
+     * @param tasks The tasks by id.
+     * @param implicitIds The ids of the tasks without an id attribute.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    void write(Key key, Map<Integer, ValidationTask> tasks, Set<Integer> implicitIds) throws IOException {
+        Path tmp = Files.createTempFile(this.path.toAbsolutePath().getParent(), this.path.getFileName() + ".", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(key.size());
+                out.writeLong(key.lastModifiedTime());
+                out.write(key.hash());
+                out.writeInt(tasks.size());
+                for (Map.Entry<Integer, ValidationTask> e : tasks.entrySet()) {
+                    out.writeInt(e.getKey());
+                    out.writeBoolean(implicitIds.contains(e.getKey()));
+                    this.codec.write(out, e.getValue());
+                }
+            }
+            Files.move(tmp, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
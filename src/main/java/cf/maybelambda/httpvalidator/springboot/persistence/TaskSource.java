@@ -0,0 +1,202 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Provides the validation tasks to run, read from a data file in some format.
+ * <p>
+ * The source used is selected by the {@value #SOURCE_PROPERTY} property, one of {@link #SOURCES}, which defaults to
+ * the XML data file.
+ */
+public interface TaskSource {
+    String SOURCE_PROPERTY = "datafile.source";
+    String XML_SOURCE = "xml";
+    String JSONL_SOURCE = "jsonl";
+    String DIR_SOURCE = "dir";
+    String STORE_SOURCE = "store";
+    List<String> SOURCES = List.of(XML_SOURCE, JSONL_SOURCE, DIR_SOURCE, STORE_SOURCE);
+
+    /**
+     * Retrieves all validation tasks.
+     *
+     * @return A list of validation tasks, in the order they are defined.
+     * @throws XMLParseException if the content of the data file is invalid.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    List<ValidationTask> getAll() throws XMLParseException, FileNotFoundException;
+
+    /**
+     * The tasks of a source at a given moment. Later changes of the data file do not affect it, so that a run pages
+     * over the same tasks from start to end instead of skipping or repeating tasks when they change meanwhile.
+     * <p>
+     * Each task has a key that identifies it across runs, used to keep its outcomes: the id of the task in the data
+     * file when it has one, or a hash of its method, URL and body otherwise, so that the outcomes of a task stay with
+     * it when tasks are added, removed or reordered.
+     */
+    interface TaskSet {
+        // Set in the keys of tasks without an id, which are never in the range of the ids
+        long CONTENT_KEY_BIT = 1L << 62;
+
+        /**
+         * Gets the number of tasks.
+         *
+         * @return The number of tasks.
+         */
+        int size();
+
+        /**
+         * Retrieves part of the tasks, in the same order as {@link TaskSource#getAll()}.
+         *
+         * @param offset The position of the first task to retrieve.
+         * @param limit The maximum number of tasks to retrieve.
+         * @return The tasks, or an empty list if there are no tasks from the given position on.
+         * @throws XMLParseException if the tasks cannot be read.
+         */
+        List<ValidationTask> getPage(int offset, int limit) throws XMLParseException;
+
+        /**
+         * Gets the key of a task, which identifies it across runs.
+         *
+         * @param position The position of the task.
+         * @return The id of the task, or a key with {@link #CONTENT_KEY_BIT} set derived from its content if it has
+         * no id.
+         */
+        long keyOf(int position);
+
+        /**
+         * Builds a task set from tasks without ids already in memory.
+         *
+         * @param tasks The tasks, which are not modified afterwards.
+         * @return The task set.
+         */
+        static TaskSet of(List<ValidationTask> tasks) {
+            return of(tasks, keysOf(tasks, null));
+        }
+
+        /**
+         * Builds a task set from tasks already in memory.
+         *
+         * @param tasks The tasks, which are not modified afterwards.
+         * @param keys The key of each task, as returned by {@link #keysOf}.
+         * @return The task set.
+         */
+        static TaskSet of(List<ValidationTask> tasks, long[] keys) {
+            return new TaskSet() {
+                @Override
+                public int size() { return tasks.size(); }
+
+                @Override
+                public List<ValidationTask> getPage(int offset, int limit) {
+                    int from = Math.min(offset, tasks.size());
+                    return tasks.subList(from, from + Math.min(limit, tasks.size() - from));
+                }
+
+                @Override
+                public long keyOf(int position) { return keys[position]; }
+            };
+        }
+
+        /**
+         * Computes the keys of tasks: their id when they have one, and a 64-bit FNV-1a hash of their method, URL and
+         * body otherwise. Tasks without an id and with the same content are told apart by their order among them.
+         *
+         * @param tasks The tasks.
+         * @param ids The id of each task, null for the tasks without one, or null if no task has an id.
+         * @return The key of each task, in the same order.
+         */
+        static long[] keysOf(List<ValidationTask> tasks, List<Integer> ids) {
+            long[] keys = new long[tasks.size()];
+            Map<Long, Integer> seen = new HashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                Integer id = isNull(ids) ? null : ids.get(i);
+                if (isNull(id)) {
+                    ValidationTask task = tasks.get(i);
+                    long h = hash(hash(hash(0xcbf29ce484222325L, task.reqMethod().toString()), task.reqURL()),
+                        String.valueOf(task.reqBody()));
+                    int occurrence = seen.merge(h, 1, Integer::sum) - 1;
+                    keys[i] = CONTENT_KEY_BIT | (((h ^ occurrence) * 0x100000001b3L) >>> 2);
+                } else {
+                    keys[i] = id;
+                }
+            }
+
+            return keys;
+        }
+
+        /**
+         * Adds the characters of a text and a separator to a 64-bit FNV-1a hash.
+         */
+        private static long hash(long h, CharSequence s) {
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * 0x100000001b3L;
+            }
+
+            return (h ^ '\n') * 0x100000001b3L;
+        }
+    }
+
+    /**
+     * Retrieves the current validation tasks as a set that does not change afterwards.
+     * Sources that can look tasks up without loading all of them override it, so that pages are only decoded when
+     * they are requested.
+     *
+     * @return The task set.
+     * @throws XMLParseException if the content of the data file is invalid.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    default TaskSet getTaskSet() throws XMLParseException, FileNotFoundException {
+        return TaskSet.of(this.getAll());
+    }
+
+    /**
+     * Retrieves a task by its id in the XML data file.
+     *
+     * @param id The id of the task.
+     * @return The task, or empty if there is no task with the given id, which is always the case for sources that do
+     * not read the XML data file.
+     * @throws XMLParseException if the content of the data file is invalid.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    default Optional<ValidationTask> findById(int id) throws XMLParseException, FileNotFoundException {
+        return Optional.empty();
+    }
+
+    /**
+     * Retrieves the tasks whose URL has the given host, along with their ids in the XML data file.
+     *
+     * @param host The host, case-insensitive.
+     * @return The tasks by id, or an empty map if there are none, which is always the case for sources that do not
+     * read the XML data file.
+     * @throws XMLParseException if the content of the data file is invalid.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    default Map<Integer, ValidationTask> findByHost(String host) throws XMLParseException, FileNotFoundException {
+        return Map.of();
+    }
+
+    /**
+     * Checks if the data file exists and is readable.
+     *
+     * @return True if the data file exists and is readable, false otherwise.
+     */
+    boolean isDataFileStatusOk();
+
+    /**
+     * Checks whether the tasks are defined by the XML data file, so that uploads and the task endpoints change the
+     * tasks that are run.
+     *
+     * @return True if the tasks are read from the XML data file or built from it, false otherwise.
+     */
+    default boolean isEditable() {
+        return false;
+    }
+}
@@ -0,0 +1,179 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import tools.jackson.databind.ObjectMapper;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_IGNORE_ORDER_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_MAX_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_MIN_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_OP_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_FIRST_BYTE_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TOTAL_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_BODY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_METHOD_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_REGEX;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_SC_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.TASK_ID_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.URL_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.VALIDATIONS_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.VALIDATION_TAG;
+import static java.util.Objects.nonNull;
+
+/**
+ * Writes validation tasks in the XML format of the data file, the inverse of
+ * {@link XMLValidationTaskDao#createVTaskFromNodes}.
+ * <p>
+ * Reading the output back produces tasks equal to the written ones, so the data file can be regenerated from the
+ * tasks in memory instead of keeping the XML source of every task.
+ */
+class ValidationTaskXmlWriter {
+    private static final String INDENT = "\n    ";
+    private final XMLOutputFactory factory = XMLOutputFactory.newFactory();
+    private final ObjectMapper mapper;
+
+    /**
+     * Constructs a writer.
+     *
+     * @param mapper The object mapper used to write request bodies.
+     */
+    ValidationTaskXmlWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Writes a complete data file with the given tasks, in iteration order.
+     *
+     * @param tasks The tasks by id.
+     * @param out The stream to write to, in UTF-8. It is not closed.
+     * @throws IOException if an I/O error occurs.
+     */
+    void write(Map<Integer, ValidationTask> tasks, OutputStream out) throws IOException {
+        try {
+            XMLStreamWriter w = this.factory.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            w.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            w.writeCharacters("\n");
+            w.writeStartElement(VALIDATIONS_TAG);
+            for (Map.Entry<Integer, ValidationTask> e : tasks.entrySet()) {
+                w.writeCharacters(INDENT);
+                this.writeTask(w, e.getKey(), e.getValue());
+            }
+            w.writeCharacters("\n");
+            w.writeEndElement();
+            w.writeCharacters("\n");
+            w.writeEndDocument();
+            w.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Writes a single task as a validation element.
+     *
+     * @param id The id of the task.
+     * @param task The task.
+     * @return The validation element.
+     * @throws IOException if the task cannot be written.
+     */
+    String toXml(int id, ValidationTask task) throws IOException {
+        StringWriter res = new StringWriter();
+        try {
+            XMLStreamWriter w = this.factory.createXMLStreamWriter(res);
+            this.writeTask(w, id, task);
+            w.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+
+        return res.toString();
+    }
+
+    private void writeTask(XMLStreamWriter w, int id, ValidationTask task) throws XMLStreamException {
+        ResponseAssertions as = task.assertions();
+        w.writeStartElement(VALIDATION_TAG);
+        w.writeAttribute(TASK_ID_ATTR, String.valueOf(id));
+
+        w.writeStartElement(URL_TAG);
+        w.writeAttribute(REQ_METHOD_ATTR, String.valueOf(task.reqMethod().ordinal()));
+        w.writeCharacters(task.reqURL());
+        w.writeEndElement();
+        for (String h : task.reqHeaders()) {
+            this.writeText(w, HEADER_TAG, h);
+        }
+        if (nonNull(task.reqBody()) && !task.reqBody().isNull()) {
+            this.writeText(w, REQ_BODY_TAG, this.mapper.writeValueAsString(task.reqBody()));
+        }
+
+        w.writeStartElement(RES_TAG);
+        w.writeAttribute(RES_SC_ATTR, String.valueOf(task.validStatusCode()));
+        if (nonNull(as.bodyRegex())) {
+            w.writeAttribute(RES_MODE_ATTR, RES_MODE_REGEX);
+            w.writeCharacters(as.bodyRegex().regex());
+        } else {
+            w.writeCharacters(task.validBody());
+        }
+        w.writeEndElement();
+
+        if (nonNull(as.jsonBody())) {
+            w.writeStartElement(JSON_BODY_TAG);
+            if (as.jsonBody().ignoreKeyOrder()) {
+                w.writeAttribute(JSON_BODY_IGNORE_ORDER_ATTR, "true");
+            }
+            w.writeCharacters(as.jsonBody().expected());
+            w.writeEndElement();
+        }
+        for (JsonPathAssertion p : as.jsonPaths()) {
+            w.writeStartElement(JSON_PATH_TAG);
+            w.writeAttribute(JSON_PATH_ATTR, p.path());
+            w.writeAttribute(JSON_PATH_OP_ATTR, p.kind().name().toLowerCase());
+            if (p.min() > 0) {
+                w.writeAttribute(JSON_PATH_MIN_ATTR, String.valueOf(p.min()));
+            }
+            if (p.max() < Integer.MAX_VALUE) {
+                w.writeAttribute(JSON_PATH_MAX_ATTR, String.valueOf(p.max()));
+            }
+            w.writeCharacters(p.expected());
+            w.writeEndElement();
+        }
+        for (HeaderAssertion h : as.headers()) {
+            this.writeText(w, RES_HEADER_TAG, h.toString());
+        }
+        if (nonNull(as.latency())) {
+            w.writeEmptyElement(LATENCY_TAG);
+            if (as.latency().maxFirstByteMillis() > 0) {
+                w.writeAttribute(LATENCY_FIRST_BYTE_ATTR, String.valueOf(as.latency().maxFirstByteMillis()));
+            }
+            if (as.latency().maxTotalMillis() > 0) {
+                w.writeAttribute(LATENCY_TOTAL_ATTR, String.valueOf(as.latency().maxTotalMillis()));
+            }
+        }
+
+        w.writeEndElement();
+    }
+
+    private void writeText(XMLStreamWriter w, String tag, String text) throws XMLStreamException {
+        w.writeStartElement(tag);
+        w.writeCharacters(text);
+        w.writeEndElement();
+    }
+}
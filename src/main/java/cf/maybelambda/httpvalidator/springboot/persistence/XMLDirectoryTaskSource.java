@@ -0,0 +1,209 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLErrorHandler.parseInputOrThrow;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads validation tasks from every XML file in a directory, each one with the format of the XML data file.
+ * <p>
+ * Files are cached independently: only the ones added or modified since the last read are parsed, in parallel, and
+ * the tasks of all of them are then merged in file name order by reference, without parsing or copying the tasks of
+ * the unchanged files again. This lets large task sets be split into files edited separately. The files parsed in a
+ * read share the equal parts of their tasks through an interner of their own, released once they are parsed.
+ * <p>
+ * Used instead of the XML data file when the {@value TaskSource#SOURCE_PROPERTY} property is
+ * {@value TaskSource#DIR_SOURCE}, reading the directory set in the {@value #DATAFILE_DIR_PROPERTY} property. Task ids
+ * only need to be unique within each file.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = TaskSource.SOURCE_PROPERTY, havingValue = TaskSource.DIR_SOURCE)
+public class XMLDirectoryTaskSource implements TaskSource {
+    static final String DATAFILE_DIR_PROPERTY = "datafile.dir";
+    static final String XML_FILE_SUFFIX = ".xml";
+    private static Logger logger = LoggerFactory.getLogger(XMLDirectoryTaskSource.class);
+    private final Object loadLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), null);
+
+    @Autowired
+    private XMLValidationTaskDao xmlDao;
+    @Autowired
+    private Environment env;
+
+    /**
+     * The version of a file that was read, along with its tasks.
+     *
+     * @param lastModifiedTime The modification time of the file.
+     * @param size The size of the file in bytes.
+     * @param tasks The tasks defined in the file, in document order.
+     */
+    record CachedFile(long lastModifiedTime, long size, List<ValidationTask> tasks) {
+        /**
+         * Checks whether the file still has the version that was read.
+         *
+         * @param lastModifiedTime The current modification time of the file.
+         * @param size The current size of the file.
+         * @return True if neither the modification time nor the size changed.
+         */
+        boolean isCurrent(long lastModifiedTime, long size) {
+            return this.lastModifiedTime == lastModifiedTime && this.size == size;
+        }
+    }
+
+    /**
+     * The files last read, by path in file name order, along with the merged tasks of all of them.
+     */
+    private record Snapshot(Map<Path, CachedFile> files, List<ValidationTask> tasks) {}
+
+    /**
+     * The version of a file found in the directory.
+     */
+    private record FileVersion(Path path, long lastModifiedTime, long size) {}
+
+    /**
+     * Retrieves the path of the directory from the environment properties.
+     *
+     * @return The path of the directory.
+     */
+    Path getDirPath() { return Path.of(requireNonNull(this.env.getProperty(DATAFILE_DIR_PROPERTY))); }
+
+    /**
+     * Retrieves all validation tasks, parsing again only the files added or modified since the last read.
+     *
+     * @return A list of validation tasks, in file name and then document order.
+     * @throws XMLParseException if any file or task in it is invalid.
+     * @throws FileNotFoundException if the directory is not found.
+     */
+    @Override
+    public List<ValidationTask> getAll() throws XMLParseException, FileNotFoundException {
+        synchronized (this.loadLock) {
+            Snapshot current = this.snapshot;
+            List<FileVersion> versions = this.listFiles();
+            boolean unchanged = versions.size() == current.files().size() && versions.stream().allMatch(v -> {
+                CachedFile cached = current.files().get(v.path());
+                return cached != null && cached.isCurrent(v.lastModifiedTime(), v.size());
+            });
+            if (!unchanged || current.tasks() == null) {
+                this.snapshot = this.reload(current, versions);
+            }
+
+            return this.snapshot.tasks();
+        }
+    }
+
+    /**
+     * Builds a new snapshot from the files currently in the directory, reusing the cached tasks of unchanged files.
+     *
+     * @param current The current snapshot.
+     * @param versions The files currently in the directory, in file name order.
+     * @return The new snapshot.
+     * @throws XMLParseException if any added or modified file is invalid.
+     */
+    private Snapshot reload(Snapshot current, List<FileVersion> versions) throws XMLParseException {
+        List<FileVersion> changed = versions.stream().filter(v -> {
+            CachedFile cached = current.files().get(v.path());
+            return cached == null || !cached.isCurrent(v.lastModifiedTime(), v.size());
+        }).toList();
+        TaskInterner interner = new TaskInterner();
+        Map<Path, CachedFile> parsed = parseInputOrThrow(vs -> vs.parallelStream()
+            .collect(Collectors.toMap(FileVersion::path, v -> this.parseFile(v, interner))), changed, logger, "Invalid file in data directory");
+
+        Map<Path, CachedFile> files = new TreeMap<>();
+        List<ValidationTask> tasks = new ArrayList<>();
+        for (FileVersion v : versions) {
+            CachedFile f = parsed.getOrDefault(v.path(), current.files().get(v.path()));
+            files.put(v.path(), f);
+            tasks.addAll(f.tasks());
+        }
+        logger.debug("Parsed {} of {} files in data directory", changed.size(), versions.size());
+
+        return new Snapshot(files, List.copyOf(tasks));
+    }
+
+    /**
+     * Parses one of the files of the directory.
+     *
+     * @param v The version of the file.
+     * @param interner The interner shared by the files parsed in the same read.
+     * @return The tasks defined in the file.
+     * @throws IllegalArgumentException if the file cannot be read or is invalid.
+     */
+    private CachedFile parseFile(FileVersion v, TaskInterner interner) {
+        try (InputStream in = Files.newInputStream(v.path())) {
+            return new CachedFile(v.lastModifiedTime(), v.size(), List.copyOf(this.xmlDao.createVTasks(this.xmlDao.parseXMLInput(in), interner)));
+        } catch (IOException | XMLParseException e) {
+            throw new IllegalArgumentException(v.path() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lists the XML files of the directory along with their current versions.
+     *
+     * @return The files, in file name order.
+     * @throws FileNotFoundException if the directory is not found.
+     * @throws XMLParseException if the directory cannot be read.
+     */
+    private List<FileVersion> listFiles() throws FileNotFoundException, XMLParseException {
+        Path dir = this.getDirPath();
+        if (!Files.isDirectory(dir)) {
+            throw new FileNotFoundException("Data directory not found: " + dir);
+        }
+
+        return parseInputOrThrow(d -> {
+            try (Stream<Path> paths = Files.list(d)) {
+                List<FileVersion> res = new ArrayList<>();
+                for (Path p : paths.filter(p -> p.getFileName().toString().endsWith(XML_FILE_SUFFIX) && Files.isRegularFile(p)).sorted().toList()) {
+                    res.add(new FileVersion(p, Files.getLastModifiedTime(p).toMillis(), Files.size(p)));
+                }
+                return res;
+            }
+        }, dir, logger, "Failed to read data directory");
+    }
+
+    /**
+     * Checks if the directory exists and is readable.
+     *
+     * @return True if the directory exists and is readable, false otherwise.
+     */
+    @Override
+    public boolean isDataFileStatusOk() {
+        Path dir = this.getDirPath();
+        return Files.isDirectory(dir) && Files.isReadable(dir);
+    }
+
+    /**
+     * Sets the XML data file DAO, used to parse the files. Used for testing purposes.
+     *
+     * @param xmlDao The XML data file DAO.
+     */
+    void setXmlDao(XMLValidationTaskDao xmlDao) { this.xmlDao = xmlDao; }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+}
@@ -1,17 +1,30 @@
 package cf.maybelambda.httpvalidator.springboot.persistence;
 
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
 import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.util.JfrEvents;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+import cf.maybelambda.httpvalidator.springboot.util.TeeInputStream;
+import cf.maybelambda.httpvalidator.springboot.util.UrlHosts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
@@ -22,19 +35,42 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLErrorHandler.parseInputOrThrow;
+import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -42,32 +78,101 @@ import static java.util.Objects.requireNonNull;
  * <p>
  * This class is responsible for reading and updating the XML data file,
  * parsing its content, and validating its structure against a predefined schema.
+ * It is the source of the tasks unless another one is selected with the {@value TaskSource#SOURCE_PROPERTY} property,
+ * and the only one edited through uploads and the task endpoints.
  */
 @Component
-public class XMLValidationTaskDao {
+public class XMLValidationTaskDao implements TaskSource {
     static final String URL_TAG = "url";
     static final String RES_TAG = "response";
     static final String REQ_BODY_TAG = "reqbody";
     static final String HEADER_TAG = "header";
+    static final String VALIDATIONS_TAG = "validations";
     static final String VALIDATION_TAG = "validation";
+    static final String JSON_PATH_TAG = "jsonpath";
+    static final String JSON_BODY_TAG = "jsonbody";
+    static final String RES_HEADER_TAG = "resheader";
+    static final String LATENCY_TAG = "latency";
+    static final String TASK_ID_ATTR = "id";
     static final String REQ_METHOD_ATTR = "method";
     static final String RES_SC_ATTR = "statuscode";
+    static final String RES_MODE_ATTR = "mode";
+    static final String RES_MODE_REGEX = "regex";
+    static final String JSON_PATH_ATTR = "path";
+    static final String JSON_PATH_OP_ATTR = "op";
+    static final String JSON_PATH_MIN_ATTR = "min";
+    static final String JSON_PATH_MAX_ATTR = "max";
+    static final String JSON_BODY_IGNORE_ORDER_ATTR = "ignoreorder";
+    static final String LATENCY_FIRST_BYTE_ATTR = "firstbyte";
+    static final String LATENCY_TOTAL_ATTR = "total";
     static final String DATAFILE_PROPERTY = "datafile";
+    static final String DATAFILE_MAXSIZE_PROPERTY = "datafile.maxsize";
+    static final long DEFAULT_DATAFILE_MAXSIZE = 10L * 1024 * 1024;
+    static final String COMPACTION_INTERVAL_PROPERTY = "datafile.compaction.interval";
+    static final String JOURNAL_SUFFIX = ".journal";
+    static final String SNAPSHOT_SUFFIX = ".snapshot";
+    // Elements of a validation in the order required by the schema
+    static final List<String> TASK_ELEMENT_ORDER = List.of(
+        URL_TAG, HEADER_TAG, REQ_BODY_TAG, RES_TAG, JSON_BODY_TAG, JSON_PATH_TAG, RES_HEADER_TAG, LATENCY_TAG
+    );
     private static final String SCHEMA_FILENAME = "validations.xsd";
-    private DocumentBuilder xmlParser;
+    // Number of verified data file contents remembered
+    static final int MAX_VERIFIED_CONTENTS = 8;
     private static Logger logger = LoggerFactory.getLogger(XMLValidationTaskDao.class);
-    private List<ValidationTask> tasks;
-    private long lastModifiedTime;
+    private final Schema schema;
+    private final DocumentBuilderFactory dbFactory;
+    // Parses task patches, which are incomplete validations and therefore not checked against the schema
+    private final DocumentBuilderFactory patchFactory;
+    // DocumentBuilders are not thread-safe, so each thread gets its own, all sharing the compiled schema
+    private ThreadLocal<DocumentBuilder> xmlParsers;
+    // Parses data file contents already validated against the schema, which are not validated again
+    private final ThreadLocal<DocumentBuilder> trustedParsers;
+    // Hashes of the data file contents known to be valid: validated uploads and loads, and compacted files
+    private final Set<String> verifiedContents = Collections.synchronizedSet(Collections.newSetFromMap(
+        new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return this.size() > MAX_VERIFIED_CONTENTS;
+            }
+        }));
+    // Serializes the writers of the snapshot, the journal and the data file; readers of the snapshot never wait
+    private final Object mutationLock = new Object();
+    private volatile TaskSnapshot snapshot = new TaskSnapshot(null, Set.of(), Map.of(), 0);
+    // Shares the equal parts of the tasks built since the data file was last loaded
+    private volatile TaskInterner interner = new TaskInterner();
+    private final StageMetrics loadMetrics = new StageMetrics("datafile-load");
 
     @Autowired
     private Environment env;
     @Autowired
     private ObjectMapper mapper;
 
+    /**
+     * The tasks last read from the data file and its journal, along with the modification time of the file at that
+     * moment. Published as a whole so that readers never see tasks and time from different reads, and replaced
+     * instead of modified when a task changes.
+     *
+     * @param entries The tasks by id, in data file order followed by the tasks added later.
+     * @param tasks The tasks, in the same order.
+     * @param implicitIds The ids of the tasks without an id attribute, which are their positions in the data file.
+     * @param changes The tasks changed through the journal since the data file was written, by id, with a null value
+     * for the removed ones.
+     * @param lastModifiedTime The modification time of the data file.
+     */
+    private record TaskSnapshot(Map<Integer, ValidationTask> entries, List<ValidationTask> tasks, Set<Integer> implicitIds,
+                                Map<Integer, ValidationTask> changes, long lastModifiedTime) {
+        TaskSnapshot(Map<Integer, ValidationTask> entries, Set<Integer> implicitIds, Map<Integer, ValidationTask> changes,
+                     long lastModifiedTime) {
+            this(entries, isNull(entries) ? null : List.copyOf(entries.values()), implicitIds, changes, lastModifiedTime);
+        }
+    }
+
     /**
      * Constructs an instance of XMLValidationTaskDao.
      * <p>
-     * Initializes the XML parser with schema validation and security features.
+     * Compiles the schema once and configures the XML parsers with schema validation and security features.
+     * Parsers are created lazily, one per thread using the DAO, so that reloads of the data file and validations
+     * of uploads can run at the same time.
      *
      * @throws ParserConfigurationException if a DocumentBuilder cannot be created.
      * @throws SAXException if an error occurs during schema parsing.
@@ -75,18 +180,72 @@ public class XMLValidationTaskDao {
      */
     public XMLValidationTaskDao() throws ParserConfigurationException, SAXException, IOException {
         SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        Schema schema = schemaFactory.newSchema((new ClassPathResource(SCHEMA_FILENAME)).getURL());
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        dbFactory.setSchema(schema);
-        dbFactory.setIgnoringElementContentWhitespace(true);
-        dbFactory.setNamespaceAware(true);
-        dbFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        dbFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        dbFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        this.xmlParser = dbFactory.newDocumentBuilder();
+        this.schema = schemaFactory.newSchema((new ClassPathResource(SCHEMA_FILENAME)).getURL());
+        this.dbFactory = newSecureFactory();
+        this.dbFactory.setSchema(this.schema);
+        this.dbFactory.setIgnoringElementContentWhitespace(true);
+        this.patchFactory = newSecureFactory();
+        DocumentBuilderFactory trustedFactory = newSecureFactory();
+        // Fail early on an invalid configuration instead of on first use
+        this.newXmlParser();
+        this.xmlParsers = ThreadLocal.withInitial(() -> {
+            try {
+                return this.newXmlParser();
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.trustedParsers = ThreadLocal.withInitial(() -> {
+            try {
+                return newParser(trustedFactory);
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
 
-        XMLErrorHandler xsdErrorHandler = new XMLErrorHandler();
-        this.xmlParser.setErrorHandler(xsdErrorHandler);
+    /**
+     * Creates a namespace aware parser factory that rejects DTDs and external entities.
+     *
+     * @return The new factory.
+     * @throws ParserConfigurationException if a feature is not supported.
+     */
+    private static DocumentBuilderFactory newSecureFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+
+        return factory;
+    }
+
+    /**
+     * Creates a schema-validating XML parser.
+     *
+     * @return The new parser.
+     * @throws ParserConfigurationException if a DocumentBuilder cannot be created.
+     */
+    private DocumentBuilder newXmlParser() throws ParserConfigurationException {
+        return newParser(this.dbFactory);
+    }
+
+    /**
+     * Creates an XML parser from a factory.
+     *
+     * @param factory The factory.
+     * @return The new parser.
+     * @throws ParserConfigurationException if a DocumentBuilder cannot be created.
+     */
+    private static DocumentBuilder newParser(DocumentBuilderFactory factory) throws ParserConfigurationException {
+        DocumentBuilder parser;
+        // The factory is not guaranteed to be thread-safe, and it is only used once per thread
+        synchronized (factory) {
+            parser = factory.newDocumentBuilder();
+        }
+        parser.setErrorHandler(new XMLErrorHandler());
+
+        return parser;
     }
 
     /**
@@ -104,54 +263,263 @@ public class XMLValidationTaskDao {
      * @throws XMLParseException if parsing fails.
      */
     Document parseXMLInput(InputStream inputStream) throws XMLParseException {
-        return parseInputOrThrow(this.xmlParser::parse, inputStream, logger, "Failed to parse target XML content");
+        return parseInputOrThrow(this.xmlParsers.get()::parse, inputStream, logger, "Failed to parse target XML content");
+    }
+
+    /**
+     * Parses XML content known to be valid without validating it against the schema.
+     *
+     * @param inputStream The input stream of the XML content.
+     * @return The parsed Document.
+     * @throws XMLParseException if parsing fails.
+     */
+    Document parseTrustedXMLInput(InputStream inputStream) throws XMLParseException {
+        return parseInputOrThrow(this.trustedParsers.get()::parse, inputStream, logger, "Failed to parse target XML content");
+    }
+
+    /**
+     * Records that a data file content is valid, so that it is not validated again when loaded.
+     *
+     * @param hash The SHA-256 hash of the content.
+     */
+    void addVerifiedContent(byte[] hash) {
+        this.verifiedContents.add(HexFormat.of().formatHex(hash));
+    }
+
+    /**
+     * Checks whether a data file content is known to be valid.
+     *
+     * @param hash The SHA-256 hash of the content.
+     * @return True if the content was validated before.
+     */
+    boolean isVerifiedContent(byte[] hash) {
+        return this.verifiedContents.contains(HexFormat.of().formatHex(hash));
     }
 
     /**
      * Updates the XML data file with the content of the given multipart file.
+     * <p>
+     * The upload is read only once: it is validated while being copied to a temporary file next to the data file,
+     * which then replaces the data file with an atomic move. Readers therefore see either the previous file or the
+     * new one, never a partially written one, and an invalid or oversized upload leaves the data file untouched.
+     * Changes to individual tasks still pending in the journal are discarded along with the previous file.
      *
      * @param file The multipart file containing the new XML content.
      * @throws IOException if an I/O error occurs.
      * @throws NullPointerException if the file is null.
-     * @throws XMLParseException if the XML content is invalid.
+     * @throws XMLParseException if the XML content or any task defined in it is invalid, or if it exceeds the
+     * maximum size of the data file.
      */
-    public synchronized void updateDataFile(MultipartFile file) throws IOException, NullPointerException, XMLParseException {
+    public void updateDataFile(MultipartFile file) throws IOException, NullPointerException, XMLParseException {
+        Path tmp = null;
         try {
-            this.parseXMLInput(file.getInputStream());
-            Files.write(this.getDataFilePath(), file.getBytes());
+            long maxSize = this.getDataFileMaxSize();
+            if (file.getSize() > maxSize) {
+                throw new XMLParseException("Data file exceeds the maximum size of " + maxSize + " bytes");
+            }
+            Path target = this.getDataFilePath().toAbsolutePath();
+            tmp = createTempDataFile(target, ".upload");
+
+            MessageDigest digest = TaskSnapshotFile.newDigest();
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), digest)) {
+                TeeInputStream tee = new TeeInputStream(in, out, maxSize);
+                Document doc = parseInputOrThrow(is -> {
+                    Document d = this.xmlParsers.get().parse(is);
+                    tee.drain();
+                    return d;
+                }, tee, logger, "Failed to parse target XML content");
+                // Builds the tasks so that content the schema cannot check (JSON, regular expressions) is rejected too,
+                // with an interner of their own so that rejected uploads leave nothing behind in the current one
+                this.createVTasks(doc, new TaskInterner());
+            }
+            synchronized (this.mutationLock) {
+                syncAndReplace(tmp, target);
+                this.journal().clear();
+                this.addVerifiedContent(digest.digest());
+                // The new file may have the same modification time as the previous one, so force a reload
+                this.snapshot = new TaskSnapshot(this.snapshot.entries(), this.snapshot.implicitIds(), this.snapshot.changes(),
+                    Long.MIN_VALUE);
+            }
         } catch (NullPointerException | XMLParseException e) {
             logger.warn("Invalid EXTERNAL XML received from API");
             throw e;
         } catch (IOException e) {
             logger.error("Failed writing new datafile to disk", e);
             throw e;
+        } finally {
+            if (tmp != null) {
+                Files.deleteIfExists(tmp);
+            }
         }
     }
 
     /**
-     * Retrieves the XML Document from the data file.
+     * Creates an empty temporary file next to the data file, to be moved over it once complete.
      *
-     * @return The parsed Document.
-     * @throws XMLParseException if parsing fails.
-     * @throws FileNotFoundException if the data file is not found.
+     * @param target The data file.
+     * @param suffix The suffix of the temporary file name.
+     * @return The temporary file.
+     * @throws IOException if the file cannot be created.
+     */
+    private static Path createTempDataFile(Path target, String suffix) throws IOException {
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName() + ".", suffix);
+        if (Files.exists(target) && target.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            // Temporary files are only accessible by their owner, keep the permissions of the current data file
+            Files.setPosixFilePermissions(tmp, Files.getPosixFilePermissions(target));
+        }
+
+        return tmp;
+    }
+
+    /**
+     * Flushes a complete temporary file to disk and atomically moves it over the data file.
+     *
+     * @param tmp The temporary file.
+     * @param target The data file.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void syncAndReplace(Path tmp, Path target) throws IOException {
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Retrieves the maximum size of the XML data file from the environment properties.
+     *
+     * @return The maximum size in bytes.
+     */
+    long getDataFileMaxSize() {
+        return this.env.getProperty(DATAFILE_MAXSIZE_PROPERTY, Long.class, DEFAULT_DATAFILE_MAXSIZE);
+    }
+
+    /**
+     * Builds the Validation Tasks defined in a parsed data file.
+     *
+     * @param doc The parsed data file.
+     * @return The list of validation tasks, in document order.
+     * @throws XMLParseException if the content of any task cannot be parsed or two tasks have the same id.
+     */
+    List<ValidationTask> createVTasks(Document doc) throws XMLParseException {
+        return new ArrayList<>(this.createVTaskEntries(doc).values());
+    }
+
+    /**
+     * Builds the Validation Tasks defined in a parsed file with the format of the data file, like
+     * {@link #createVTasks(Document)}, sharing their equal parts through the given interner instead of the one of the
+     * data file.
+     *
+     * @param doc The parsed file.
+     * @param interner The interner of the tasks.
+     * @return The list of validation tasks, in document order.
+     * @throws XMLParseException if the content of any task cannot be parsed or two tasks have the same id.
+     */
+    List<ValidationTask> createVTasks(Document doc, TaskInterner interner) throws XMLParseException {
+        return new ArrayList<>(this.createVTaskEntries(doc, new HashSet<>(), interner).values());
+    }
+
+    /**
+     * Builds the Validation Tasks defined in a parsed data file, keyed by their ids.
+     * Tasks without an id attribute are identified by their position in the file, starting from 0.
+     *
+     * @param doc The parsed data file.
+     * @return The validation tasks by id, in document order.
+     * @throws XMLParseException if the content of any task cannot be parsed or two tasks have the same id.
+     */
+    Map<Integer, ValidationTask> createVTaskEntries(Document doc) throws XMLParseException {
+        return this.createVTaskEntries(doc, new HashSet<>());
+    }
+
+    /**
+     * Builds the Validation Tasks defined in a parsed data file, keyed by their ids, like
+     * {@link #createVTaskEntries(Document)}, also telling which tasks have no id attribute.
+     *
+     * @param doc The parsed data file.
+     * @param implicitIds The set where the ids given to the tasks without an id attribute are added.
+     * @return The validation tasks by id, in document order.
+     * @throws XMLParseException if the content of any task cannot be parsed or two tasks have the same id.
      */
-    synchronized Document getDocData() throws XMLParseException, FileNotFoundException {
-        return this.parseXMLInput(new FileInputStream(this.getDataFilePath().toFile()));
+    Map<Integer, ValidationTask> createVTaskEntries(Document doc, Set<Integer> implicitIds) throws XMLParseException {
+        return this.createVTaskEntries(doc, implicitIds, this.interner);
+    }
+
+    /**
+     * Builds the Validation Tasks defined in a parsed data file, keyed by their ids, like
+     * {@link #createVTaskEntries(Document, Set)}, sharing their equal parts through the given interner.
+     *
+     * @param doc The parsed data file.
+     * @param implicitIds The set where the ids given to the tasks without an id attribute are added.
+     * @param interner The interner of the tasks.
+     * @return The validation tasks by id, in document order.
+     * @throws XMLParseException if the content of any task cannot be parsed or two tasks have the same id.
+     */
+    private Map<Integer, ValidationTask> createVTaskEntries(Document doc, Set<Integer> implicitIds, TaskInterner interner)
+            throws XMLParseException {
+        Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+        NodeList validations = doc.getElementsByTagName(VALIDATION_TAG);
+        for (int i = 0; i < validations.getLength(); i++) {
+            Node validation = validations.item(i);
+            Integer id = this.getTaskId(validation);
+            if (isNull(id)) {
+                id = i;
+                implicitIds.add(id);
+            }
+            if (tasks.putIfAbsent(id, this.createVTaskFromNodes(validation.getChildNodes(), interner)) != null) {
+                throw new XMLParseException("Duplicated validation task id: " + id);
+            }
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Gets the id of a task from its validation element.
+     *
+     * @param validation The validation element.
+     * @return The id, or null if the element has no id attribute.
+     * @throws XMLParseException if the id is not a valid integer.
+     */
+    Integer getTaskId(Node validation) throws XMLParseException {
+        NamedNodeMap attrs = validation.getAttributes();
+        Node attr = isNull(attrs) ? null : attrs.getNamedItem(TASK_ID_ATTR);
+
+        return isNull(attr) ? null : parseInputOrThrow(Integer::valueOf, attr.getTextContent(), logger, "Invalid validation task id");
     }
 
     /**
      * Builds a Validation Task from the data in the received elements, the child nodes of a validation element.
+     * Its parts that are equal to the ones of the other tasks loaded from the current data file are shared with them.
      *
      * @return The new validation task.
      * @throws XMLParseException if JSON content in the reqbody element cannot be parsed.
      */
     ValidationTask createVTaskFromNodes(NodeList validation) throws XMLParseException {
+        return this.createVTaskFromNodes(validation, this.interner);
+    }
+
+    /**
+     * Builds a Validation Task from the child nodes of a validation element, like {@link #createVTaskFromNodes(NodeList)},
+     * sharing its equal parts through the given interner.
+     *
+     * @param validation The child nodes of the validation element.
+     * @param interner The interner of the task.
+     * @return The new validation task.
+     * @throws XMLParseException if JSON content in the reqbody element cannot be parsed.
+     */
+    private ValidationTask createVTaskFromNodes(NodeList validation, TaskInterner interner) throws XMLParseException {
         MethodType method = null;
         String url = null;
         List<String> headers = new ArrayList<>();
         JsonNode reqBody = this.mapper.nullNode();
         Integer resStatusCode = null;
         String resBody = null;
+        List<JsonPathAssertion> jsonPaths = new ArrayList<>();
+        JsonDocumentAssertion jsonBody = null;
+        List<HeaderAssertion> resHeaders = new ArrayList<>();
+        LatencySla latency = null;
+        RegexAssertion bodyRegex = null;
 
         for (int j = 0; j < validation.getLength(); j++) {
             Node childNode = validation.item(j);
@@ -173,33 +541,649 @@ public class XMLValidationTaskDao {
             if (RES_TAG.equals(name)) {
                 resStatusCode = Integer.parseInt(attrs.getNamedItem(RES_SC_ATTR).getTextContent());
                 resBody = content;
+                if (RES_MODE_REGEX.equals(getAttrOrDefault(attrs, RES_MODE_ATTR, ""))) {
+                    bodyRegex = parseInputOrThrow(RegexAssertion::new, content, logger, "Invalid regular expression encountered in data file");
+                    resBody = "";
+                }
+            }
+            if (JSON_PATH_TAG.equals(name)) {
+                jsonPaths.add(parseInputOrThrow(this::createJsonPathAssertion, childNode, logger, "Invalid JSON path encountered in data file"));
+            }
+            if (JSON_BODY_TAG.equals(name)) {
+                // Both lexical forms of true allowed by xs:boolean
+                String ignoreOrderValue = getAttrOrDefault(attrs, JSON_BODY_IGNORE_ORDER_ATTR, "false").strip();
+                boolean ignoreOrder = "true".equals(ignoreOrderValue) || "1".equals(ignoreOrderValue);
+                jsonBody = parseInputOrThrow(c -> new JsonDocumentAssertion(c, ignoreOrder), content, logger, "Invalid JSON encountered in data file");
+            }
+            if (RES_HEADER_TAG.equals(name)) {
+                resHeaders.add(HeaderAssertion.parse(content));
+            }
+            if (LATENCY_TAG.equals(name)) {
+                latency = new LatencySla(
+                    parseInputOrThrow(Long::valueOf, getAttrOrDefault(attrs, LATENCY_FIRST_BYTE_ATTR, "0"), logger, "Invalid latency encountered in data file"),
+                    parseInputOrThrow(Long::valueOf, getAttrOrDefault(attrs, LATENCY_TOTAL_ATTR, "0"), logger, "Invalid latency encountered in data file")
+                );
             }
         }
 
-        return new ValidationTask(method, url, headers, reqBody, resStatusCode, resBody);
+        return interner.intern(new ValidationTask(method, url, headers, reqBody, resStatusCode, resBody, new ResponseAssertions(jsonPaths, jsonBody, resHeaders, latency, bodyRegex)));
+    }
+
+    /**
+     * Builds a JSON path assertion from the data in a jsonpath element.
+     * Absent optional attributes take their default values: "equals" for the operation, and an unbounded range for sizes.
+     *
+     * @param node The jsonpath element.
+     * @return The new assertion.
+     * @throws IllegalArgumentException if the path or the size range are not valid.
+     */
+    JsonPathAssertion createJsonPathAssertion(Node node) {
+        NamedNodeMap attrs = node.getAttributes();
+        String op = getAttrOrDefault(attrs, JSON_PATH_OP_ATTR, JsonPathAssertion.Kind.EQUALS.name());
+
+        return new JsonPathAssertion(
+            attrs.getNamedItem(JSON_PATH_ATTR).getTextContent(),
+            JsonPathAssertion.Kind.valueOf(op.toUpperCase()),
+            node.getTextContent().trim(),
+            Integer.parseInt(getAttrOrDefault(attrs, JSON_PATH_MIN_ATTR, "0")),
+            Integer.parseInt(getAttrOrDefault(attrs, JSON_PATH_MAX_ATTR, String.valueOf(Integer.MAX_VALUE)))
+        );
+    }
+
+    /**
+     * Gets the value of an optional attribute.
+     *
+     * @param attrs The attributes of the element.
+     * @param name The name of the attribute.
+     * @param def The value to return when the attribute is absent.
+     * @return The value of the attribute or the default one.
+     */
+    static String getAttrOrDefault(NamedNodeMap attrs, String name, String def) {
+        Node attr = attrs.getNamedItem(name);
+        return attr == null ? def : attr.getTextContent();
     }
 
     /**
-     * Retrieves all validation tasks; from the XML data file if it was modified since the last time it was read,
-     * or from memory otherwise.
+     * Retrieves all validation tasks; from the XML data file and the changes in its journal if the file was modified
+     * since the last time it was read, or from memory otherwise.
      *
      * @return A list of validation tasks.
      * @throws XMLParseException if parsing fails.
      * @throws FileNotFoundException if the data file is not found.
      */
+    @Override
     public List<ValidationTask> getAll() throws XMLParseException, FileNotFoundException {
-        long lastModifiedTime = (new File(this.getDataFilePath().toUri())).lastModified();
-        if (lastModifiedTime > this.lastModifiedTime) {
-            List<ValidationTask> tasks = new ArrayList<>();
-            NodeList validations = this.getDocData().getElementsByTagName(VALIDATION_TAG);
-            for (int i = 0; i < validations.getLength(); i++) {
-                tasks.add(this.createVTaskFromNodes(validations.item(i).getChildNodes()));
+        return this.current().tasks();
+    }
+
+    /**
+     * Retrieves all validation tasks along with their ids, like {@link #getAll()}.
+     *
+     * @return The tasks by id, in document order, or an empty map if the data file was never read.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    public Map<Integer, ValidationTask> getAllById() throws XMLParseException, FileNotFoundException {
+        Map<Integer, ValidationTask> entries = this.current().entries();
+        return isNull(entries) ? Map.of() : Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Retrieves the current validation tasks as a set that does not change afterwards, keyed by their ids. Tasks
+     * without an id attribute are keyed by their content instead of their position in the file, which changes when
+     * tasks are added or removed before them.
+     *
+     * @return The task set, in the same order as {@link #getAll()}.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public TaskSet getTaskSet() throws XMLParseException, FileNotFoundException {
+        return this.getTaskSet(new ArrayList<>());
+    }
+
+    /**
+     * Retrieves the current validation tasks as a set, like {@link #getTaskSet()}, along with their ids.
+     *
+     * @param ids The list where the id of each task is added, in the same order as the set.
+     * @return The task set.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    TaskSet getTaskSet(List<Integer> ids) throws XMLParseException, FileNotFoundException {
+        TaskSnapshot current = this.current();
+        if (isNull(current.entries())) {
+            return TaskSet.of(List.of());
+        }
+        List<Integer> explicitIds = new ArrayList<>(current.entries().size());
+        for (Integer id : current.entries().keySet()) {
+            ids.add(id);
+            explicitIds.add(current.implicitIds().contains(id) ? null : id);
+        }
+
+        return TaskSet.of(current.tasks(), TaskSet.keysOf(current.tasks(), explicitIds));
+    }
+
+    /**
+     * Retrieves a validation task by id.
+     *
+     * @param id The id of the task.
+     * @return The task, or empty if there is no task with the given id.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public Optional<ValidationTask> findById(int id) throws XMLParseException, FileNotFoundException {
+        return Optional.ofNullable(this.getAllById().get(id));
+    }
+
+    /**
+     * Retrieves the validation tasks whose URL has the given host, going through every task.
+     *
+     * @param host The host, case-insensitive.
+     * @return The tasks by id, in the same order as {@link #getAll()}.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    @Override
+    public Map<Integer, ValidationTask> findByHost(String host) throws XMLParseException, FileNotFoundException {
+        String h = host.toLowerCase(Locale.ROOT);
+        Map<Integer, ValidationTask> res = new LinkedHashMap<>();
+        for (Map.Entry<Integer, ValidationTask> e : this.getAllById().entrySet()) {
+            if (h.equals(UrlHosts.hostOf(e.getValue().reqURL()))) {
+                res.put(e.getKey(), e.getValue());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Retrieves the tasks changed through the task endpoints since the data file was last written, which the task
+     * store overlays on the tasks it was built from.
+     *
+     * @return The changed tasks by id, with a null value for the removed ones.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    Map<Integer, ValidationTask> getChangedTasks() throws XMLParseException, FileNotFoundException {
+        return Collections.unmodifiableMap(this.current().changes());
+    }
+
+    /**
+     * Writes a task as a validation element, as accepted by {@link #addTask} and {@link #updateTask}.
+     *
+     * @param id The id of the task.
+     * @param task The task.
+     * @return The validation element.
+     * @throws IOException if the task cannot be written.
+     */
+    public String toXml(int id, ValidationTask task) throws IOException {
+        return this.writer().toXml(id, task);
+    }
+
+    /**
+     * Gets the time spent reloading the tasks each time the data file was modified: reading it, or its snapshot, and
+     * replaying its journal.
+     *
+     * @return The metrics of the reloads.
+     */
+    public StageMetrics getLoadMetrics() { return this.loadMetrics; }
+
+    /**
+     * Gets the current snapshot, loading the data file first if it was modified since the last time it was read.
+     * The mutation lock is only taken in that case.
+     *
+     * @return The current snapshot.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    private TaskSnapshot current() throws XMLParseException, FileNotFoundException {
+        TaskSnapshot current = this.snapshot;
+        if (this.getDataFileLastModifiedTime() > current.lastModifiedTime()) {
+            synchronized (this.mutationLock) {
+                current = this.loadIfModified();
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Reads the data file and replays its journal if the file was modified since the last time it was read.
+     * Must be called holding the mutation lock.
+     *
+     * @return The current snapshot.
+     * @throws XMLParseException if parsing fails.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    private TaskSnapshot loadIfModified() throws XMLParseException, FileNotFoundException {
+        TaskSnapshot current = this.snapshot;
+        long lastModifiedTime = this.getDataFileLastModifiedTime();
+        if (lastModifiedTime > current.lastModifiedTime()) {
+            long start = System.nanoTime();
+            JfrEvents.DataFileLoad event = new JfrEvents.DataFileLoad();
+            event.begin();
+            try {
+                Set<Integer> implicitIds = new HashSet<>();
+                Map<Integer, ValidationTask> entries = this.loadDataFile(lastModifiedTime, implicitIds);
+                List<TaskJournal.Change> changes = parseInputOrThrow(TaskJournal::readAll, this.journal(), logger, "Failed to read the task journal");
+                Map<Integer, ValidationTask> changed = new HashMap<>();
+                for (TaskJournal.Change c : changes) {
+                    // Changed tasks are written with their id, so it is no longer implicit
+                    implicitIds.remove(c.id());
+                    ValidationTask task = null;
+                    if (TaskJournal.PUT_OP.equals(c.op())) {
+                        task = this.createVTaskFromNodes(this.parseTaskElement(c.xml()).getChildNodes());
+                        entries.put(c.id(), task);
+                    } else {
+                        entries.remove(c.id());
+                    }
+                    changed.put(c.id(), task);
+                }
+                current = new TaskSnapshot(entries, implicitIds, changed, lastModifiedTime);
+                this.snapshot = current;
+                this.loadMetrics.record(System.nanoTime() - start);
+                event.tasks = entries.size();
+                event.journalChanges = changes.size();
+                event.success = true;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.bytes = this.getDataFilePath().toFile().length();
+                    event.commit();
+                }
             }
-            this.tasks = tasks;
-            this.lastModifiedTime = lastModifiedTime;
         }
 
-        return this.tasks;
+        return current;
+    }
+
+    /**
+     * Builds the tasks defined in the data file, from its binary snapshot when there is one for its current content.
+     * <p>
+     * Otherwise the XML is parsed and validated, and a new snapshot is written for the next load when the data file
+     * is a regular file. Problems with the snapshot are logged and never prevent the data file from being read.
+     *
+     * @param lastModifiedTime The modification time of the data file.
+     * @param implicitIds The set where the ids of the tasks without an id attribute are added.
+     * @return The tasks by id, in document order.
+     * @throws XMLParseException if the data file cannot be read or parsed.
+     * @throws FileNotFoundException if the data file is not found.
+     */
+    private Map<Integer, ValidationTask> loadDataFile(long lastModifiedTime, Set<Integer> implicitIds)
+            throws XMLParseException, FileNotFoundException {
+        byte[] content = parseInputOrThrow(in -> {
+            try (in) {
+                return in.readAllBytes();
+            }
+        }, new FileInputStream(this.getDataFilePath().toFile()), logger, "Failed to read data file");
+        TaskSnapshotFile.Key key = TaskSnapshotFile.Key.of(content, lastModifiedTime);
+        this.interner = new TaskInterner();
+        TaskSnapshotFile snapshotFile = this.snapshotFile();
+
+        Map<Integer, ValidationTask> entries = null;
+        try {
+            entries = snapshotFile.read(key, implicitIds);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable task snapshot", e);
+            implicitIds.clear();
+        }
+        if (isNull(entries)) {
+            // Content that was already validated, such as the last upload, is only parsed
+            Document doc = this.isVerifiedContent(key.hash())
+                ? this.parseTrustedXMLInput(new ByteArrayInputStream(content))
+                : this.parseXMLInput(new ByteArrayInputStream(content));
+            entries = this.createVTaskEntries(doc, implicitIds);
+            this.addVerifiedContent(key.hash());
+            if (Files.isRegularFile(this.getDataFilePath())) {
+                this.writeSnapshotFile(snapshotFile, key, entries, implicitIds);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Writes the binary snapshot of a data file, logging failures instead of throwing.
+     *
+     * @param snapshotFile The snapshot.
+     * @param key The key of the data file.
+     * @param entries The tasks of the data file.
+     * @param implicitIds The ids of the tasks without an id attribute.
+     */
+    private void writeSnapshotFile(TaskSnapshotFile snapshotFile, TaskSnapshotFile.Key key, Map<Integer, ValidationTask> entries,
+                                   Set<Integer> implicitIds) {
+        try {
+            snapshotFile.write(key, entries, implicitIds);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed writing task snapshot", e);
+        }
+    }
+
+    /**
+     * Gets the modification time of the data file.
+     *
+     * @return The time in milliseconds since the epoch, or 0 if the file does not exist.
+     */
+    long getDataFileLastModifiedTime() {
+        return (new File(this.getDataFilePath().toUri())).lastModified();
+    }
+
+    /**
+     * Adds a validation task and records it in the journal.
+     *
+     * @param xml A validation element. Its id attribute is optional; the next free id is assigned when absent.
+     * @return The id of the new task.
+     * @throws XMLParseException if the element or the task defined in it is invalid, or if its id is already in use.
+     * @throws IOException if the data file cannot be read or the change cannot be recorded.
+     */
+    public int addTask(String xml) throws XMLParseException, IOException {
+        synchronized (this.mutationLock) {
+            Map<Integer, ValidationTask> entries = this.loadIfModified().entries();
+            Element validation = this.parseTaskElement(xml);
+            Integer id = this.getTaskId(validation);
+            if (isNull(id)) {
+                id = entries.keySet().stream().max(Integer::compare).map(i -> i + 1).orElse(0);
+            } else if (entries.containsKey(id)) {
+                throw new XMLParseException("Validation task id already in use: " + id);
+            }
+            this.putTask(entries, id, this.createVTaskFromNodes(validation.getChildNodes()));
+
+            return id;
+        }
+    }
+
+    /**
+     * Changes part of a validation task and records the new version in the journal.
+     * <p>
+     * Every element of the patch replaces all the elements with the same name in the task, so that a patch with a
+     * single header element leaves the task with that header only. Elements not present in the patch are kept.
+     *
+     * @param id The id of the task.
+     * @param patchXml A validation element with the elements to replace. Its attributes are ignored.
+     * @return True if the task was updated, false if there is no task with the given id.
+     * @throws XMLParseException if the patch or the resulting task are invalid.
+     * @throws IOException if the data file cannot be read or the change cannot be recorded.
+     */
+    public boolean updateTask(int id, String patchXml) throws XMLParseException, IOException {
+        synchronized (this.mutationLock) {
+            Map<Integer, ValidationTask> entries = this.loadIfModified().entries();
+            ValidationTask current = entries.get(id);
+            if (isNull(current)) {
+                return false;
+            }
+            Element validation = this.parseTaskElement(this.writer().toXml(id, current));
+            this.mergeTaskElements(validation, this.parsePatchElement(patchXml));
+            parseInputOrThrow(this::validateTaskDocument, validation.getOwnerDocument(), logger, "Invalid validation task after applying patch");
+            this.putTask(entries, id, this.createVTaskFromNodes(validation.getChildNodes()));
+
+            return true;
+        }
+    }
+
+    /**
+     * Removes a validation task and records the removal in the journal.
+     *
+     * @param id The id of the task.
+     * @return True if the task was removed, false if there is no task with the given id.
+     * @throws XMLParseException if the data file cannot be parsed.
+     * @throws IOException if the data file cannot be read or the change cannot be recorded.
+     */
+    public boolean deleteTask(int id) throws XMLParseException, IOException {
+        synchronized (this.mutationLock) {
+            Map<Integer, ValidationTask> entries = this.loadIfModified().entries();
+            if (!entries.containsKey(id)) {
+                return false;
+            }
+            this.journal().appendDelete(id);
+            Map<Integer, ValidationTask> updated = new LinkedHashMap<>(entries);
+            updated.remove(id);
+            this.snapshot = new TaskSnapshot(updated, this.withoutImplicitId(id), this.withChange(id, null),
+                this.snapshot.lastModifiedTime());
+
+            return true;
+        }
+    }
+
+    /**
+     * Records a new or changed task in the journal and publishes a snapshot containing it.
+     * Must be called holding the mutation lock.
+     *
+     * @param entries The tasks of the current snapshot.
+     * @param id The id of the task.
+     * @param task The task.
+     * @throws IOException if the change cannot be recorded.
+     */
+    private void putTask(Map<Integer, ValidationTask> entries, int id, ValidationTask task) throws IOException {
+        this.journal().appendPut(id, this.writer().toXml(id, task));
+        Map<Integer, ValidationTask> updated = new LinkedHashMap<>(entries);
+        updated.put(id, task);
+        this.snapshot = new TaskSnapshot(updated, this.withoutImplicitId(id), this.withChange(id, task),
+            this.snapshot.lastModifiedTime());
+    }
+
+    /**
+     * Gets the tasks changed through the journal of the current snapshot, adding the given change.
+     * Must be called holding the mutation lock.
+     *
+     * @param id The id of a task changed or removed.
+     * @param task The new version of the task, or null if it was removed.
+     * @return The changed tasks by id, with a null value for the removed ones.
+     */
+    private Map<Integer, ValidationTask> withChange(int id, ValidationTask task) {
+        Map<Integer, ValidationTask> updated = new HashMap<>(this.snapshot.changes());
+        updated.put(id, task);
+
+        return updated;
+    }
+
+    /**
+     * Gets the ids of the tasks without an id attribute of the current snapshot, leaving out the given one, which
+     * the journal records with its id.
+     * Must be called holding the mutation lock.
+     *
+     * @param id The id of a task changed or removed.
+     * @return The ids of the tasks without an id attribute.
+     */
+    private Set<Integer> withoutImplicitId(int id) {
+        Set<Integer> implicitIds = this.snapshot.implicitIds();
+        if (!implicitIds.contains(id)) {
+            return implicitIds;
+        }
+        Set<Integer> updated = new HashSet<>(implicitIds);
+        updated.remove(id);
+
+        return updated;
+    }
+
+    /**
+     * Parses a single validation element and checks it against the schema.
+     *
+     * @param xml The validation element.
+     * @return The parsed element.
+     * @throws XMLParseException if the content is invalid or does not consist of exactly one validation element.
+     */
+    Element parseTaskElement(String xml) throws XMLParseException {
+        String doc = "<" + VALIDATIONS_TAG + ">" + xml + "</" + VALIDATIONS_TAG + ">";
+        NodeList validations = this.parseXMLInput(new ByteArrayInputStream(doc.getBytes(StandardCharsets.UTF_8)))
+            .getElementsByTagName(VALIDATION_TAG);
+        if (validations.getLength() != 1) {
+            throw new XMLParseException("Exactly one validation element was expected");
+        }
+
+        return (Element) validations.item(0);
+    }
+
+    /**
+     * Parses a task patch, a validation element with any subset of the elements of a task.
+     *
+     * @param xml The patch.
+     * @return The parsed element.
+     * @throws XMLParseException if the content is not well-formed or is not a validation element.
+     */
+    Element parsePatchElement(String xml) throws XMLParseException {
+        Document doc = parseInputOrThrow(x -> {
+            DocumentBuilder parser;
+            synchronized (this.patchFactory) {
+                parser = this.patchFactory.newDocumentBuilder();
+            }
+            parser.setErrorHandler(new XMLErrorHandler());
+            return parser.parse(new InputSource(new StringReader(x)));
+        }, xml, logger, "Failed to parse validation task patch");
+        if (!VALIDATION_TAG.equals(doc.getDocumentElement().getNodeName())) {
+            throw new XMLParseException("A validation element was expected");
+        }
+
+        return doc.getDocumentElement();
+    }
+
+    /**
+     * Replaces the elements of a validation with the elements of the same name in a patch.
+     *
+     * @param validation The validation element to modify.
+     * @param patch The patch.
+     * @throws XMLParseException if the patch contains an element that is not part of a validation.
+     */
+    void mergeTaskElements(Element validation, Element patch) throws XMLParseException {
+        Map<String, List<Node>> elements = childElementsByName(validation);
+        for (Map.Entry<String, List<Node>> e : childElementsByName(patch).entrySet()) {
+            if (!TASK_ELEMENT_ORDER.contains(e.getKey())) {
+                throw new XMLParseException("Unknown validation element: " + e.getKey());
+            }
+            List<Node> imported = new ArrayList<>();
+            for (Node n : e.getValue()) {
+                imported.add(validation.getOwnerDocument().importNode(n, true));
+            }
+            elements.put(e.getKey(), imported);
+        }
+
+        while (validation.hasChildNodes()) {
+            validation.removeChild(validation.getFirstChild());
+        }
+        for (String name : TASK_ELEMENT_ORDER) {
+            for (Node n : elements.getOrDefault(name, List.of())) {
+                validation.appendChild(n);
+            }
+        }
+    }
+
+    /**
+     * Groups the child elements of an element by name, in document order.
+     *
+     * @param parent The element.
+     * @return The child elements by name.
+     */
+    private static Map<String, List<Node>> childElementsByName(Element parent) {
+        Map<String, List<Node>> res = new LinkedHashMap<>();
+        NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node n = children.item(i);
+            if (n.getNodeType() == Node.ELEMENT_NODE) {
+                res.computeIfAbsent(n.getNodeName(), k -> new ArrayList<>()).add(n);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Checks a parsed document against the schema.
+     *
+     * @param doc The document.
+     * @return The same document.
+     * @throws SAXException if the document is not valid.
+     * @throws IOException if an I/O error occurs.
+     */
+    private Document validateTaskDocument(Document doc) throws SAXException, IOException {
+        Validator validator = this.schema.newValidator();
+        validator.setErrorHandler(new XMLErrorHandler());
+        validator.validate(new DOMSource(doc));
+
+        return doc;
+    }
+
+    /**
+     * Writes all the tasks to the data file and clears the journal, when there are changes recorded in it.
+     * <p>
+     * Runs periodically in the background, so that the data file stays close to the tasks in memory without
+     * rewriting it on every change. Like uploads, the new file replaces the previous one with an atomic move.
+     * A failure leaves both the data file and the journal as they were, to be compacted on the next run.
+     */
+    @Scheduled(fixedDelayString = "${" + COMPACTION_INTERVAL_PROPERTY + ":60000}")
+    public void compactJournal() {
+        synchronized (this.mutationLock) {
+            TaskJournal journal = this.journal();
+            if (!journal.exists()) {
+                return;
+            }
+            Path tmp = null;
+            try {
+                TaskSnapshot current = this.loadIfModified();
+                Path target = this.getDataFilePath().toAbsolutePath();
+                tmp = createTempDataFile(target, ".compact");
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                this.writer().write(current.entries(), content);
+                Files.write(tmp, content.toByteArray());
+                syncAndReplace(tmp, target);
+                // If the journal is not cleared, replaying it again on the new file gives the same tasks
+                journal.clear();
+                // The tasks in memory are those of the new file, which therefore does not need to be read
+                long lastModifiedTime = this.getDataFileLastModifiedTime();
+                // The new file has an id attribute for every task, so the tasks are keyed by their ids from now on
+                this.snapshot = new TaskSnapshot(current.entries(), current.tasks(), Set.of(), Map.of(), lastModifiedTime);
+                TaskSnapshotFile.Key key = TaskSnapshotFile.Key.of(content.toByteArray(), lastModifiedTime);
+                // Written from valid tasks, so the file is valid too
+                this.addVerifiedContent(key.hash());
+                this.writeSnapshotFile(this.snapshotFile(), key, current.entries(), Set.of());
+            } catch (IOException | XMLParseException e) {
+                logger.error("Failed compacting the task journal into the data file", e);
+            } finally {
+                this.deleteQuietly(tmp);
+            }
+        }
+    }
+
+    /**
+     * Deletes a temporary file if it still exists, logging failures instead of throwing.
+     *
+     * @param tmp The file, or null.
+     */
+    private void deleteQuietly(Path tmp) {
+        try {
+            if (tmp != null) {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed deleting temporary file " + tmp);
+        }
+    }
+
+    /**
+     * Gets the journal of the data file, stored next to it.
+     *
+     * @return The journal.
+     */
+    TaskJournal journal() {
+        return new TaskJournal(Path.of(this.getDataFilePath() + JOURNAL_SUFFIX), this.mapper);
+    }
+
+    /**
+     * Gets the binary snapshot of the data file, stored next to it.
+     *
+     * @return The snapshot.
+     */
+    TaskSnapshotFile snapshotFile() {
+        return new TaskSnapshotFile(Path.of(this.getDataFilePath() + SNAPSHOT_SUFFIX), this.mapper, this.interner);
+    }
+
+    /**
+     * Gets a writer of tasks in the data file format.
+     *
+     * @return The writer.
+     */
+    private ValidationTaskXmlWriter writer() {
+        return new ValidationTaskXmlWriter(this.mapper);
     }
 
     /**
@@ -207,17 +1191,35 @@ public class XMLValidationTaskDao {
      *
      * @return True if the data file exists and is readable, false otherwise.
      */
+    @Override
     public boolean isDataFileStatusOk() {
         Path path = this.getDataFilePath();
         return Files.isRegularFile(path) && Files.isReadable(path);
     }
 
+    /**
+     * Checks whether the tasks are defined by the XML data file, which is always the case for this source.
+     *
+     * @return True.
+     */
+    @Override
+    public boolean isEditable() {
+        return true;
+    }
+
     /**
      * Sets the XML parser for the XMLValidationTaskDao. Used for testing purposes.
      *
      * @param xmlParser The XML parser to set.
      */
-    void setXmlParser(DocumentBuilder xmlParser) { this.xmlParser = xmlParser; }
+    void setXmlParser(DocumentBuilder xmlParser) { this.xmlParsers = ThreadLocal.withInitial(() -> xmlParser); }
+
+    /**
+     * Gets the XML parser of the calling thread; for testing purposes.
+     *
+     * @return The XML parser.
+     */
+    DocumentBuilder getXmlParser() { return this.xmlParsers.get(); }
 
     /**
      * Sets the logger; for testing purposes.
@@ -247,5 +1249,7 @@ public class XMLValidationTaskDao {
      *
      * @param time The new time to set.
      */
-    void setLastModifiedTime(long time) { this.lastModifiedTime = time; }
+    void setLastModifiedTime(long time) {
+        this.snapshot = new TaskSnapshot(this.snapshot.entries(), this.snapshot.implicitIds(), this.snapshot.changes(), time);
+    }
 }
@@ -1,5 +1,7 @@
 package cf.maybelambda.httpvalidator.springboot.service;
 
+import cf.maybelambda.httpvalidator.springboot.util.JfrEvents;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
 import com.mailgun.api.v3.MailgunMessagesApi;
 import com.mailgun.client.MailgunClient;
 import com.mailgun.model.message.Message;
@@ -28,10 +30,13 @@ public class EmailNotificationService {
     static final String BODY_LINE1 = "Request URL: ";
     static final String BODY_LINE2 = "Response Status Code: ";
     static final String BODY_LINE3 = "Response body: ";
+    static final String BODY_LINE4 = "Failed check: ";
+    static final String BODY_LINE5 = "Consecutive failed runs: ";
     static final String APIKEY_PROPERTY = "mailer.apikey";
     static final String FROM_PROPERTY = "notifications.from";
     static final String TO_PROPERTY = "notifications.to";
     private MailgunMessagesApi client;
+    private final StageMetrics sendMetrics = new StageMetrics("notification");
     private static Logger logger = LoggerFactory.getLogger(EmailNotificationService.class);
 
     @Autowired
@@ -43,6 +48,8 @@ public class EmailNotificationService {
 
     /**
      * Builds the email body content from a list of validation results.
+     * Each result contains the task's URL, the response status code, the response body and, optionally,
+     * a description of the check that failed and the number of runs the task has failed in a row.
      *
      * @param contents A list of string arrays containing validation results.
      * @return The email body as a single string.
@@ -51,10 +58,16 @@ public class EmailNotificationService {
         String res = "";
         for (String[] c : contents) {
             String p0 = BODY_LINE1 + c[0] + "\n";
+            if (c.length > 4 && c[4] != null) {
+                p0 += BODY_LINE5 + c[4] + "\n";
+            }
             if (String.valueOf(NET_ERR_CODE).equals(c[1])) {
                 res += p0 + c[2];
             } else {
                 String p1 = BODY_LINE2 + c[1] + "\n";
+                if (c.length > 3 && c[3] != null) {
+                    p1 += BODY_LINE4 + c[3] + "\n";
+                }
                 String p2 = BODY_LINE3 + (c[2] == null ? "" : truncate(c[2], 800, "..."));
                 res += p0 + p1 + p2;
             }
@@ -81,13 +94,25 @@ public class EmailNotificationService {
             .text(body)
             .build();
 
+        long start = System.nanoTime();
+        JfrEvents.Notification event = new JfrEvents.Notification();
+        event.begin();
         try {
             MessageResponse res = this.client.sendMessage(this.getFrom().split("@")[1], message);
             logger.info("Email delivery result: " + res.getMessage());
+            event.delivered = true;
         } catch (FeignException e) {
             String errmsg = "POST request for delivery of the Notification Email could not be completed.";
             logger.error(errmsg);
             throw new ConnectIOException(errmsg, e);
+        } finally {
+            this.sendMetrics.record(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.subject = subject;
+                event.bodyBytes = EngineMetrics.utf8Length(body);
+                event.commit();
+            }
         }
     }
 
@@ -135,6 +160,13 @@ public class EmailNotificationService {
         return !(isBlank(this.getFrom()) || isBlank(this.getTo()) || isBlank(this.getApiKey()));
     }
 
+    /**
+     * Gets the time spent sending each email, whether it was delivered or not.
+     *
+     * @return The metrics of the sent emails.
+     */
+    public StageMetrics getSendMetrics() { return this.sendMetrics; }
+
     /**
      * Gets the API key of the mailing service from the environment.
      *
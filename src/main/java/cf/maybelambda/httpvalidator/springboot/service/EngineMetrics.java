@@ -0,0 +1,303 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.LatencySketch;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+import cf.maybelambda.httpvalidator.springboot.util.UrlHosts;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Counters of the validation engine, exposed in the Prometheus text exposition format.
+ * <p>
+ * The validation service updates the counters of the runs, the tasks and the requests as they happen; the load times
+ * of the data file and the send times of the notifications are read from the metrics kept by the data file DAO and
+ * the notification service when the counters are scraped. Only the host of each request is used as a tag, and at most
+ * {@value #MAX_HOST_SERIES} hosts get their own series, the requests to any other host being counted under the
+ * {@value #OTHER_HOST} host.
+ */
+@Component
+public class EngineMetrics {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    static final String PREFIX = "httpvalidator_";
+    static final int MAX_HOST_SERIES = 100;
+    static final String OTHER_HOST = "other";
+    static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private final StageMetrics runs = new StageMetrics("run");
+    private final LongAdder tasksOk = new LongAdder();
+    private final LongAdder tasksFailed = new LongAdder();
+    private final LongAdder tasksErrored = new LongAdder();
+    private final LongAdder repeatedFailures = new LongAdder();
+    private final LongAdder bodyChanges = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final Map<String, HostTimer> hosts = new ConcurrentHashMap<>();
+
+    @Autowired
+    private XMLValidationTaskDao dao;
+    @Autowired
+    private EmailNotificationService mailServ;
+
+    /**
+     * Response times of the requests to a host.
+     */
+    private static final class HostTimer {
+        long count;
+        long sumNanos;
+        final LatencySketch latencies = new LatencySketch();
+
+        synchronized void record(long nanos) {
+            this.count++;
+            this.sumNanos += nanos;
+            this.latencies.record(nanos);
+        }
+    }
+
+    /**
+     * Records a completed run of the validation tasks.
+     *
+     * @param elapsed The duration of the run.
+     */
+    public void recordRun(Duration elapsed) {
+        this.runs.record(elapsed.toNanos());
+    }
+
+    /**
+     * Records the outcome of a task: whether it succeeded, failed a check or could not get a response, whether it
+     * also failed its previous run, and the response time and size and whether the body changed when there was a
+     * response.
+     *
+     * @param host The host of the URL of the task, as returned by {@link UrlHosts#hostOf}.
+     * @param res The response or exception of the request.
+     * @param failure The failure of the task, or null if it was successful.
+     * @param consecutiveFailures The number of runs the task has failed in a row, including this one.
+     * @param bodyChanged Whether the response body differs from the previous one received for the task.
+     */
+    public void recordOutcome(String host, HttpSendOutcomeWrapper res, ValidationFailure failure, int consecutiveFailures,
+                              boolean bodyChanged) {
+        if (isNull(failure)) {
+            this.tasksOk.increment();
+        } else if (failure.failureClass() == FailureClass.NETWORK) {
+            this.tasksErrored.increment();
+        } else {
+            this.tasksFailed.increment();
+        }
+        if (consecutiveFailures > 1) {
+            this.repeatedFailures.increment();
+        }
+        if (bodyChanged) {
+            this.bodyChanges.increment();
+        }
+        if (res.getStatusCode() != NET_ERR_CODE) {
+            if (res.getTotalNanos() > 0) {
+                this.hostTimer(host).record(res.getTotalNanos());
+            }
+            this.bytesReceived.add(utf8Length(res.getBody()));
+        }
+    }
+
+    /**
+     * Adds requests waiting to be sent, or removes those that will not be sent when the count is negative.
+     *
+     * @param count The number of requests.
+     */
+    public void requestsQueued(int count) { this.queued.addAndGet(count); }
+
+    /**
+     * Moves a waiting request to the requests in flight.
+     */
+    public void requestDispatched() {
+        this.queued.decrementAndGet();
+        this.inFlight.incrementAndGet();
+    }
+
+    /**
+     * Removes a request from the requests in flight, once its response or exception is received.
+     */
+    public void requestCompleted() { this.inFlight.decrementAndGet(); }
+
+    /**
+     * Gets the number of requests sent and not completed yet.
+     *
+     * @return The number of requests in flight.
+     */
+    int getInFlight() { return this.inFlight.get(); }
+
+    /**
+     * Gets the number of requests waiting for the concurrency limit.
+     *
+     * @return The depth of the dispatch queue.
+     */
+    int getQueued() { return this.queued.get(); }
+
+    private HostTimer hostTimer(String host) {
+        HostTimer t = this.hosts.get(host);
+        if (isNull(t)) {
+            if (this.hosts.size() >= MAX_HOST_SERIES) {
+                host = OTHER_HOST;
+            }
+            t = this.hosts.computeIfAbsent(host, k -> new HostTimer());
+        }
+
+        return t;
+    }
+
+    /**
+     * Counts the bytes of the UTF-8 encoding of a text without encoding it.
+     *
+     * @param s The text.
+     * @return The number of bytes, 0 for null.
+     */
+    static long utf8Length(CharSequence s) {
+        if (isNull(s)) {
+            return 0;
+        }
+        long n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                n++;
+            } else if (c < 0x800) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                n += 4;
+                i++;
+            } else {
+                n += 3;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Writes the current value of every series in the Prometheus text exposition format (version 0.0.4).
+     *
+     * @return The exposition.
+     */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder();
+        timer(sb, "run_duration_seconds", "Duration of the validation runs.", this.runs);
+        family(sb, "tasks_total", "counter", "Outcomes of the validation tasks.");
+        sample(sb, "tasks_total", "outcome", "ok", null, null, this.tasksOk.sum());
+        sample(sb, "tasks_total", "outcome", "failed", null, null, this.tasksFailed.sum());
+        sample(sb, "tasks_total", "outcome", "errored", null, null, this.tasksErrored.sum());
+        family(sb, "task_repeated_failures_total", "counter", "Failures of tasks that also failed their previous run.");
+        sample(sb, "task_repeated_failures_total", null, null, null, null, this.repeatedFailures.sum());
+        family(sb, "response_body_changes_total", "counter",
+            "Responses whose body differs from the previous response to the same task.");
+        sample(sb, "response_body_changes_total", null, null, null, null, this.bodyChanges.sum());
+        family(sb, "requests_in_flight", "gauge", "Requests sent and not completed yet.");
+        sample(sb, "requests_in_flight", null, null, null, null, this.inFlight.get());
+        family(sb, "dispatch_queue_depth", "gauge", "Requests waiting for the concurrency limit.");
+        sample(sb, "dispatch_queue_depth", null, null, null, null, this.queued.get());
+        family(sb, "request_duration_seconds", "summary", "Time until the whole response is received, by host.");
+        Map<String, HostTimer> sorted = new TreeMap<>(this.hosts);
+        sorted.forEach((host, t) -> {
+            synchronized (t) {
+                for (double q : QUANTILES) {
+                    sample(sb, "request_duration_seconds", "host", host, "quantile", Double.toString(q),
+                        seconds(t.latencies.quantileNanos(q)));
+                }
+                sample(sb, "request_duration_seconds_sum", "host", host, null, null, seconds(t.sumNanos));
+                sample(sb, "request_duration_seconds_count", "host", host, null, null, t.count);
+            }
+        });
+        family(sb, "response_bytes_total", "counter", "Bytes of the response bodies received.");
+        sample(sb, "response_bytes_total", null, null, null, null, this.bytesReceived.sum());
+        if (nonNull(this.dao)) {
+            timer(sb, "datafile_load_duration_seconds", "Time spent loading the data file.", this.dao.getLoadMetrics());
+        }
+        if (nonNull(this.mailServ)) {
+            timer(sb, "notification_send_duration_seconds", "Time spent sending notification emails.",
+                this.mailServ.getSendMetrics());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Writes the series of a timer without percentiles: a summary with its count and sum, and a gauge with its maximum.
+     */
+    private static void timer(StringBuilder sb, String name, String help, StageMetrics m) {
+        family(sb, name, "summary", help);
+        sample(sb, name + "_sum", null, null, null, null, seconds(m.getTotalNanos()));
+        sample(sb, name + "_count", null, null, null, null, m.getCount());
+        family(sb, name + "_max", "gauge", "Maximum of " + PREFIX + name + ".");
+        sample(sb, name + "_max", null, null, null, null, seconds(m.getMaxNanos()));
+    }
+
+    private static void family(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String label1, String value1, String label2,
+                               String value2, double value) {
+        sb.append(PREFIX).append(name);
+        if (nonNull(label1)) {
+            sb.append('{').append(label1).append("=\"");
+            escape(sb, value1);
+            sb.append('"');
+            if (nonNull(label2)) {
+                sb.append(',').append(label2).append("=\"");
+                escape(sb, value2);
+                sb.append('"');
+            }
+            sb.append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Appends a label value, escaping backslashes, double quotes and line feeds.
+     */
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '"' -> sb.append("\\\"");
+                case '\n' -> sb.append("\\n");
+                default -> sb.append(c);
+            }
+        }
+    }
+
+    private static double seconds(long nanos) { return nanos / 1e9; }
+
+    /**
+     * Sets the data file DAO. Used for testing purposes.
+     *
+     * @param dao XMLValidationTaskDao
+     */
+    void setDao(XMLValidationTaskDao dao) { this.dao = dao; }
+
+    /**
+     * Sets the notification service. Used for testing purposes.
+     *
+     * @param mailServ EmailNotificationService
+     */
+    void setMailServ(EmailNotificationService mailServ) { this.mailServ = mailServ; }
+}
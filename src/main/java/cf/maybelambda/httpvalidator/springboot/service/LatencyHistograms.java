@@ -0,0 +1,141 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import cf.maybelambda.httpvalidator.springboot.util.LatencySketch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Latency histograms of the requests of each task and of each host.
+ * <p>
+ * The histograms of a task are kept under its key, so they stay with it when tasks are added, removed or reordered,
+ * and those of a host under the hash of its name, so only one name is kept per host. Histograms are created the first
+ * time a task or host is seen and recording a latency into them does not allocate: the histograms of each task and of
+ * its host are then looked up by the position of the task, checked against its key and host hash. The histograms of
+ * tasks no longer in the task set, and of hosts without any of them, are dropped by {@link #retainOnly}.
+ */
+public class LatencyHistograms {
+    private final Map<Long, LatencySketch> byTask = new HashMap<>();
+    private final Map<Integer, LatencySketch> byHost = new HashMap<>();
+    private final Map<Integer, String> hostNames = new HashMap<>();
+    private final Map<Long, Integer> hostOfTask = new HashMap<>();
+    // The histograms of the tasks already recorded and of their hosts, with the keys and host hashes they were looked
+    // up with, by task position, so that recording does not box the key nor the hash
+    private LatencySketch[] taskByPosition = new LatencySketch[0];
+    private LatencySketch[] hostByPosition = new LatencySketch[0];
+    private long[] keysByPosition = new long[0];
+    private int[] hostHashesByPosition = new int[0];
+
+    /**
+     * Percentiles of the latencies of a task or host.
+     *
+     * @param count The number of requests.
+     * @param p50Millis The estimated median latency, in milliseconds.
+     * @param p90Millis The estimated 90th percentile of the latencies, in milliseconds.
+     * @param p99Millis The estimated 99th percentile of the latencies, in milliseconds.
+     * @param maxMillis The largest latency, in milliseconds.
+     */
+    public record Percentiles(long count, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        static Percentiles of(LatencySketch s) {
+            return new Percentiles(s.getCount(), s.quantileNanos(0.5) / 1e6, s.quantileNanos(0.9) / 1e6,
+                s.quantileNanos(0.99) / 1e6, s.getMaxNanos() / 1e6);
+        }
+    }
+
+    /**
+     * Percentiles of the latencies of each task and host.
+     *
+     * @param tasks The percentiles of each task, by task key (see {@link TaskSource.TaskSet#keyOf}).
+     * @param hosts The percentiles of each host, by host name.
+     */
+    public record Report(Map<Long, Percentiles> tasks, Map<String, Percentiles> hosts) {}
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param position The position of the task among all the tasks, used to find its histograms without a lookup by
+     * key when it has not moved.
+     * @param hostHash The hash of the host of the task URL, as returned by {@link ResultsLog#hostHash}.
+     * @param host The host of the task URL, only kept the first time its hash is seen.
+     * @param nanos The latency in nanoseconds.
+     */
+    synchronized void record(long taskKey, int position, int hostHash, String host, long nanos) {
+        boolean cached = position < this.keysByPosition.length && this.keysByPosition[position] == taskKey
+            && this.hostHashesByPosition[position] == hostHash && nonNull(this.taskByPosition[position]);
+        if (!cached) {
+            if (position >= this.keysByPosition.length) {
+                int n = Math.max(position + 1, 2 * this.keysByPosition.length);
+                this.taskByPosition = Arrays.copyOf(this.taskByPosition, n);
+                this.hostByPosition = Arrays.copyOf(this.hostByPosition, n);
+                this.keysByPosition = Arrays.copyOf(this.keysByPosition, n);
+                this.hostHashesByPosition = Arrays.copyOf(this.hostHashesByPosition, n);
+            }
+            this.taskByPosition[position] = this.byTask.computeIfAbsent(taskKey, k -> new LatencySketch());
+            this.hostByPosition[position] = this.byHost.computeIfAbsent(hostHash, k -> new LatencySketch());
+            this.keysByPosition[position] = taskKey;
+            this.hostHashesByPosition[position] = hostHash;
+            this.hostNames.putIfAbsent(hostHash, host);
+            this.hostOfTask.put(taskKey, hostHash);
+        }
+        this.taskByPosition[position].record(nanos);
+        this.hostByPosition[position].record(nanos);
+    }
+
+    /**
+     * Adds the latencies recorded by other histograms to these ones.
+     *
+     * @param other The other histograms, which are not modified meanwhile.
+     */
+    synchronized void merge(LatencyHistograms other) {
+        other.byTask.forEach((k, v) -> this.byTask.computeIfAbsent(k, x -> new LatencySketch()).merge(v));
+        other.byHost.forEach((k, v) -> this.byHost.computeIfAbsent(k, x -> new LatencySketch()).merge(v));
+        other.hostNames.forEach(this.hostNames::putIfAbsent);
+        this.hostOfTask.putAll(other.hostOfTask);
+    }
+
+    /**
+     * Drops the histograms of the tasks that are not in the given task set, and those of the hosts that no task left
+     * was last recorded with, so that the histograms of removed tasks and hosts are not kept.
+     *
+     * @param taskSet The current task set.
+     */
+    synchronized void retainOnly(TaskSource.TaskSet taskSet) {
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < taskSet.size(); i++) {
+            keys.add(taskSet.keyOf(i));
+        }
+        this.byTask.keySet().retainAll(keys);
+        this.hostOfTask.keySet().retainAll(keys);
+        Set<Integer> hosts = new HashSet<>(this.hostOfTask.values());
+        this.byHost.keySet().retainAll(hosts);
+        this.hostNames.keySet().retainAll(hosts);
+        // The histograms cached by position are looked up again, as they may have been dropped
+        this.taskByPosition = new LatencySketch[0];
+        this.hostByPosition = new LatencySketch[0];
+        this.keysByPosition = new long[0];
+        this.hostHashesByPosition = new int[0];
+    }
+
+    /**
+     * Computes the percentiles of every task and host.
+     *
+     * @return The percentiles, sorted by task key and host name.
+     */
+    synchronized Report report() {
+        Map<Long, Percentiles> tasks = new TreeMap<>();
+        this.byTask.forEach((k, v) -> tasks.put(k, Percentiles.of(v)));
+        Map<String, Percentiles> hosts = new TreeMap<>();
+        this.byHost.forEach((k, v) -> hosts.put(this.hostNames.get(k), Percentiles.of(v)));
+
+        return new Report(tasks, hosts);
+    }
+}
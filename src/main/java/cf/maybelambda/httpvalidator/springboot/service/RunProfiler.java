@@ -0,0 +1,115 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Records a Java Flight Recorder profile of the next run of the validation tasks, on demand.
+ * <p>
+ * The recording uses the JDK's {@value #JFR_CONFIGURATION} settings, which also enable the events of the application
+ * ({@link cf.maybelambda.httpvalidator.springboot.util.JfrEvents}), and is dumped to a file in the directory set by the
+ * {@value #PROFILE_DIR_PROPERTY} property (the temporary directory by default) when the run ends. Only the last dump
+ * is kept.
+ */
+@Component
+public class RunProfiler {
+    static final String PROFILE_DIR_PROPERTY = "profile.dir";
+    static final String JFR_CONFIGURATION = "profile";
+    private static Logger logger = LoggerFactory.getLogger(RunProfiler.class);
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private volatile Path lastDump;
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * Requests a profile of the next run. Requesting it again before the run starts has no further effect.
+     */
+    public void requestNextRun() { this.requested.set(true); }
+
+    /**
+     * Tells whether a profile of the next run was requested and the run has not started yet.
+     *
+     * @return True if the next run will be profiled.
+     */
+    public boolean isRequested() { return this.requested.get(); }
+
+    /**
+     * Starts recording when a profile of the next run was requested.
+     *
+     * @return The recording in progress, or null if no profile was requested or recording could not start.
+     */
+    Recording startIfRequested() {
+        if (!this.requested.compareAndSet(true, false)) {
+            return null;
+        }
+        try {
+            Recording rec = new Recording(Configuration.getConfiguration(JFR_CONFIGURATION));
+            rec.setName("httpvalidator-run");
+            rec.start();
+            return rec;
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            logger.error("Failed to start run profile recording", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stops a recording and dumps it to a new file, which replaces the previous dump.
+     *
+     * @param rec The recording started by {@link #startIfRequested()}.
+     */
+    void finish(Recording rec) {
+        try (rec) {
+            rec.stop();
+            Path dump = Files.createTempFile(this.getProfileDir(), "run-", ".jfr");
+            rec.dump(dump);
+            Path previous = this.lastDump;
+            this.lastDump = dump;
+            if (nonNull(previous)) {
+                Files.deleteIfExists(previous);
+            }
+            logger.info("Run profile written to " + dump);
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Failed to write run profile", e);
+        }
+    }
+
+    /**
+     * Gets the file of the last profile recorded.
+     *
+     * @return The path of the dump, or null if no run was profiled yet.
+     */
+    public Path getLastDump() { return this.lastDump; }
+
+    /**
+     * Gets the directory where profiles are written from the environment properties.
+     *
+     * @return The directory.
+     */
+    Path getProfileDir() {
+        String dir = this.env.getProperty(PROFILE_DIR_PROPERTY);
+        return Path.of(isNull(dir) ? System.getProperty("java.io.tmpdir") : dir);
+    }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+}
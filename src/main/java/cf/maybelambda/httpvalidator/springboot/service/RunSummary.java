@@ -0,0 +1,51 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.START_TIME_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_FAILED_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_OK_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_TOTAL_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TIME_ELAPSED_KEY;
+
+/**
+ * Summary of a completed run of the validation tasks. Published as a whole once the run ends, so that its values
+ * always belong to the same run.
+ *
+ * @param startDateTime The date and time when the run started.
+ * @param timeElapsed The duration of the run.
+ * @param tasksTotal The number of tasks run.
+ * @param tasksOk The number of successful tasks.
+ * @param tasksFailed The number of failed tasks.
+ * @param stages The metrics of each stage of the validation pipeline, in pipeline order.
+ */
+public record RunSummary(String startDateTime, Duration timeElapsed, int tasksTotal, int tasksOk, int tasksFailed,
+                         List<StageMetrics> stages) {
+    /**
+     * Constructor for RunSummary. Keeps an immutable copy of the stage metrics.
+     */
+    public RunSummary {
+        stages = List.copyOf(stages);
+    }
+
+    /**
+     * Gets the information about the run shown by the API.
+     *
+     * @return A new map with the start time, time elapsed in seconds, total tasks, successful tasks and failed tasks.
+     */
+    public Map<String, String> toInfoMap() {
+        Map<String, String> res = new HashMap<>();
+        res.put(START_TIME_KEY, this.startDateTime);
+        res.put(TIME_ELAPSED_KEY, String.valueOf(this.timeElapsed.getSeconds()));
+        res.put(TASKS_TOTAL_KEY, String.valueOf(this.tasksTotal));
+        res.put(TASKS_OK_KEY, String.valueOf(this.tasksOk));
+        res.put(TASKS_FAILED_KEY, String.valueOf(this.tasksFailed));
+
+        return res;
+    }
+}
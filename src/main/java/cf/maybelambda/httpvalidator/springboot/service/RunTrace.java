@@ -0,0 +1,196 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import cf.maybelambda.httpvalidator.springboot.util.UrlHosts;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static java.util.Objects.nonNull;
+
+/**
+ * The timeline of a run of the validation tasks: one span per task, split into the phases its request went through.
+ * <p>
+ * The phases of a task are the wait for the concurrency limit ({@value #QUEUE_PHASE}), the time until the response
+ * status and headers were received, which includes connecting and sending the request ({@value #REQUEST_PHASE}), the
+ * reception of the body ({@value #BODY_PHASE}), the wait for a thread of the validation pool
+ * ({@value #VALIDATION_QUEUE_PHASE}) and the validation itself ({@value #VALIDATION_PHASE}).
+ * <p>
+ * The trace can be exported in the Chrome trace event format, to be opened with chrome://tracing or Perfetto, where
+ * the tasks of each host are grouped, or as OpenTelemetry (OTLP) JSON, with the run as the root span, a child span for
+ * each task and a grandchild span for each phase.
+ *
+ * @param startEpochNanos The time when the run started, in nanoseconds since the epoch.
+ * @param startNanos The {@link System#nanoTime()} value when the run started.
+ * @param endNanos The {@link System#nanoTime()} value when the run ended.
+ * @param dropped The number of spans that did not fit in the trace.
+ * @param spans The spans of the tasks, by completion.
+ */
+public record RunTrace(long startEpochNanos, long startNanos, long endNanos, long dropped, List<Span> spans) {
+    static final String QUEUE_PHASE = "queue";
+    static final String REQUEST_PHASE = "request";
+    static final String BODY_PHASE = "body";
+    static final String VALIDATION_QUEUE_PHASE = "validation-queue";
+    static final String VALIDATION_PHASE = "validation";
+    // Each phase goes from the mark at its position to the next one
+    static final List<String> PHASES = List.of(QUEUE_PHASE, REQUEST_PHASE, BODY_PHASE, VALIDATION_QUEUE_PHASE, VALIDATION_PHASE);
+    static final String SERVICE_NAME = "http-validator";
+    private static final int OTLP_KIND_INTERNAL = 1;
+    private static final int OTLP_KIND_CLIENT = 3;
+    private static final int OTLP_STATUS_OK = 1;
+    private static final int OTLP_STATUS_ERROR = 2;
+
+    /**
+     * The span of a task.
+     *
+     * @param taskId The position of the task among all the tasks.
+     * @param url The URL of the request.
+     * @param statusCode The status code of the response.
+     * @param outcome The outcome of the validation.
+     * @param marks The {@link System#nanoTime()} values at which the task went through each phase, as indexed in
+     *              {@link SpanRing}.
+     */
+    public record Span(int taskId, String url, int statusCode, String outcome, long[] marks) {}
+
+    public RunTrace {
+        spans = List.copyOf(spans);
+    }
+
+    /**
+     * Copies the spans of a ring.
+     *
+     * @param ring The spans recorded during the run.
+     * @param startEpochNanos The time when the run started, in nanoseconds since the epoch.
+     * @param startNanos The {@link System#nanoTime()} value when the run started.
+     * @param endNanos The {@link System#nanoTime()} value when the run ended.
+     * @return The trace of the run.
+     */
+    static RunTrace of(SpanRing ring, long startEpochNanos, long startNanos, long endNanos) {
+        List<Span> spans = new ArrayList<>(ring.size());
+        for (int i = 0; i < ring.size(); i++) {
+            long[] marks = new long[SpanRing.MARKS];
+            for (int m = 0; m < SpanRing.MARKS; m++) {
+                marks[m] = ring.getMark(i, m);
+            }
+            spans.add(new Span(ring.getTaskId(i), ring.getUrl(i), ring.getStatusCode(i), ring.getOutcome(i), marks));
+        }
+
+        return new RunTrace(startEpochNanos, startNanos, endNanos, ring.getDropped(), spans);
+    }
+
+    /**
+     * Builds the trace in the Chrome trace event format: a complete event for the run, one for each task and one for
+     * each phase. The tasks of each host are shown as the threads of a process named after the host.
+     *
+     * @return The JSON object of the trace.
+     */
+    public Map<String, Object> toChromeTrace() {
+        List<Map<String, Object>> events = new ArrayList<>();
+        Map<String, Integer> pids = new LinkedHashMap<>();
+        events.add(this.chromeEvent("run", "run", 0, 0, this.startNanos, this.endNanos,
+            Map.of("tasks", this.spans.size(), "dropped", this.dropped)));
+        for (Span s : this.spans) {
+            String host = UrlHosts.hostOf(s.url());
+            int pid = pids.computeIfAbsent(host, k -> pids.size() + 1);
+            long[] m = s.marks();
+            events.add(this.chromeEvent("Task #" + s.taskId(), "task", pid, s.taskId(), m[SpanRing.READY],
+                m[SpanRing.VALIDATION_END], Map.of("url", s.url(), "status", s.statusCode(), "outcome", s.outcome())));
+            for (int p = 0; p < PHASES.size(); p++) {
+                events.add(this.chromeEvent(PHASES.get(p), "phase", pid, s.taskId(), m[p], m[p + 1], Map.of()));
+            }
+        }
+        pids.forEach((host, pid) -> events.add(Map.of("name", "process_name", "ph", "M", "pid", pid,
+            "args", Map.of("name", host))));
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("traceEvents", events);
+        res.put("displayTimeUnit", "ms");
+
+        return res;
+    }
+
+    private Map<String, Object> chromeEvent(String name, String cat, int pid, int tid, long start, long end,
+                                            Map<String, Object> args) {
+        Map<String, Object> e = new LinkedHashMap<>();
+        e.put("name", name);
+        e.put("cat", cat);
+        e.put("ph", "X");
+        e.put("ts", (start - this.startNanos) / 1000.0);
+        e.put("dur", Math.max(0, end - start) / 1000.0);
+        e.put("pid", pid);
+        e.put("tid", tid);
+        e.put("args", args);
+
+        return e;
+    }
+
+    /**
+     * Builds the trace as an OTLP/JSON export request, as accepted by the /v1/traces endpoint of OpenTelemetry
+     * collectors.
+     *
+     * @return The JSON object of the export request.
+     */
+    public Map<String, Object> toOtlpJson() {
+        HexFormat hex = HexFormat.of();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String traceId = hex.toHexDigits(random.nextLong()) + hex.toHexDigits(random.nextLong());
+        // Span ids are consecutive from a random base, the root span first
+        long nextId = random.nextLong();
+        String rootId = hex.toHexDigits(nextId++);
+        List<Map<String, Object>> spans = new ArrayList<>();
+        spans.add(this.otlpSpan(traceId, rootId, null, "run", OTLP_KIND_INTERNAL, this.startNanos, this.endNanos,
+            List.of(otlpAttr("validation.tasks", this.spans.size()), otlpAttr("trace.dropped_spans", this.dropped)),
+            OTLP_STATUS_OK));
+        for (Span s : this.spans) {
+            String taskSpanId = hex.toHexDigits(nextId++);
+            long[] m = s.marks();
+            List<Map<String, Object>> attrs = new ArrayList<>(List.of(otlpAttr("validation.task_id", s.taskId()),
+                otlpAttr("url.full", s.url()), otlpAttr("validation.outcome", s.outcome())));
+            if (s.statusCode() != NET_ERR_CODE) {
+                attrs.add(otlpAttr("http.response.status_code", s.statusCode()));
+            }
+            spans.add(this.otlpSpan(traceId, taskSpanId, rootId, "Task #" + s.taskId(), OTLP_KIND_CLIENT,
+                m[SpanRing.READY], m[SpanRing.VALIDATION_END], attrs,
+                ValidationService.OK_OUTCOME.equals(s.outcome()) ? OTLP_STATUS_OK : OTLP_STATUS_ERROR));
+            for (int p = 0; p < PHASES.size(); p++) {
+                spans.add(this.otlpSpan(traceId, hex.toHexDigits(nextId++), taskSpanId, PHASES.get(p),
+                    OTLP_KIND_INTERNAL, m[p], m[p + 1], List.of(), OTLP_STATUS_OK));
+            }
+        }
+        Map<String, Object> resource = Map.of("attributes", List.of(otlpAttr("service.name", SERVICE_NAME)));
+        Map<String, Object> scopeSpans = Map.of("scope", Map.of("name", SERVICE_NAME), "spans", spans);
+
+        return Map.of("resourceSpans", List.of(Map.of("resource", resource, "scopeSpans", List.of(scopeSpans))));
+    }
+
+    private Map<String, Object> otlpSpan(String traceId, String spanId, String parentId, String name, int kind,
+                                         long start, long end, List<Map<String, Object>> attrs, int status) {
+        Map<String, Object> span = new LinkedHashMap<>();
+        span.put("traceId", traceId);
+        span.put("spanId", spanId);
+        if (nonNull(parentId)) {
+            span.put("parentSpanId", parentId);
+        }
+        span.put("name", name);
+        span.put("kind", kind);
+        // 64-bit integers are written as strings in OTLP/JSON
+        span.put("startTimeUnixNano", String.valueOf(this.startEpochNanos + start - this.startNanos));
+        span.put("endTimeUnixNano", String.valueOf(this.startEpochNanos + Math.max(start, end) - this.startNanos));
+        span.put("attributes", attrs);
+        span.put("status", Map.of("code", status));
+
+        return span;
+    }
+
+    private static Map<String, Object> otlpAttr(String key, Object value) {
+        Map<String, Object> v = value instanceof Number n
+            ? Map.of("intValue", String.valueOf(n.longValue()))
+            : Map.of("stringValue", String.valueOf(value));
+
+        return Map.of("key", key, "value", v);
+    }
+}
@@ -0,0 +1,206 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Records the timeline of each run of the validation tasks when the {@value #TRACE_ENABLED_PROPERTY} property is true.
+ * <p>
+ * The spans of a run are recorded into a {@link SpanRing} of {@value #TRACE_CAPACITY_PROPERTY} spans
+ * ({@value #DEFAULT_TRACE_CAPACITY} by default), allocated once and reused by every run, so tracing does not add
+ * allocations to the run it measures. When the run ends, the spans are copied into a {@link RunTrace}, which is kept
+ * until the next run and exported:
+ * <ul>
+ *   <li>to a new file in the directory set by {@value #TRACE_DIR_PROPERTY}, when set, in the format set by
+ *   {@value #TRACE_FORMAT_PROPERTY}: {@value #CHROME_FORMAT} (the default) or {@value #OTLP_FORMAT}.</li>
+ *   <li>to the OpenTelemetry collector endpoint set by {@value #OTLP_ENDPOINT_PROPERTY} (e.g.
+ *   http://localhost:4318/v1/traces), when set, as OTLP/JSON.</li>
+ * </ul>
+ * Export failures are logged and never affect the run.
+ */
+@Component
+public class RunTracer {
+    static final String TRACE_ENABLED_PROPERTY = "trace.enabled";
+    static final String TRACE_CAPACITY_PROPERTY = "trace.capacity";
+    static final int DEFAULT_TRACE_CAPACITY = 100_000;
+    static final String TRACE_DIR_PROPERTY = "trace.dir";
+    static final String TRACE_FORMAT_PROPERTY = "trace.format";
+    static final String OTLP_ENDPOINT_PROPERTY = "trace.otlp.endpoint";
+    public static final String CHROME_FORMAT = "chrome";
+    public static final String OTLP_FORMAT = "otlp";
+    private static final Duration EXPORT_TIMEOUT = Duration.ofSeconds(30);
+    private static Logger logger = LoggerFactory.getLogger(RunTracer.class);
+    private SpanRing ring;
+    private long startEpochNanos;
+    private long startNanos;
+    private volatile RunTrace lastTrace;
+    private HttpClient client;
+
+    @Autowired
+    private Environment env;
+    @Autowired
+    private ObjectMapper mapper;
+
+    /**
+     * Starts tracing a run, when enabled. Runs must not overlap.
+     *
+     * @return The empty ring where the spans of the run are to be recorded, or null if tracing is disabled.
+     */
+    SpanRing startRun() {
+        if (!this.env.getProperty(TRACE_ENABLED_PROPERTY, Boolean.class, false)) {
+            return null;
+        }
+        int capacity = this.env.getProperty(TRACE_CAPACITY_PROPERTY, Integer.class, DEFAULT_TRACE_CAPACITY);
+        if (isNull(this.ring) || this.ring.getCapacity() != capacity) {
+            this.ring = new SpanRing(capacity);
+        }
+        this.ring.clear();
+        Instant now = Instant.now();
+        this.startEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        this.startNanos = System.nanoTime();
+
+        return this.ring;
+    }
+
+    /**
+     * Ends the trace of a run, once every span has been recorded, and exports it.
+     *
+     * @param ring The ring returned by {@link #startRun()}.
+     */
+    void finishRun(SpanRing ring) {
+        RunTrace trace = RunTrace.of(ring, this.startEpochNanos, this.startNanos, System.nanoTime());
+        this.lastTrace = trace;
+        if (trace.dropped() > 0) {
+            logger.warn("Run trace dropped " + trace.dropped() + " spans; increase " + TRACE_CAPACITY_PROPERTY);
+        }
+        this.writeFile(trace);
+        this.sendToCollector(trace);
+    }
+
+    /**
+     * Gets the trace of the last run traced.
+     *
+     * @return The trace, or null if no run was traced yet.
+     */
+    public RunTrace getLastTrace() { return this.lastTrace; }
+
+    /**
+     * Serializes a trace.
+     *
+     * @param trace The trace.
+     * @param format {@value #CHROME_FORMAT} or {@value #OTLP_FORMAT}.
+     * @return The JSON document.
+     * @throws IllegalArgumentException if the format is unknown.
+     * @throws JacksonException if the trace cannot be serialized.
+     */
+    public String toJson(RunTrace trace, String format) throws JacksonException {
+        Map<String, Object> doc = switch (format.toLowerCase(Locale.ROOT)) {
+            case CHROME_FORMAT -> trace.toChromeTrace();
+            case OTLP_FORMAT -> trace.toOtlpJson();
+            default -> throw new IllegalArgumentException("Unknown trace format: " + format);
+        };
+
+        return this.mapper.writeValueAsString(doc);
+    }
+
+    /**
+     * Writes a trace to a new file in the trace directory, when set. The file is moved into place once complete.
+     */
+    private void writeFile(RunTrace trace) {
+        String dir = this.env.getProperty(TRACE_DIR_PROPERTY);
+        if (isNull(dir)) {
+            return;
+        }
+        String format = this.env.getProperty(TRACE_FORMAT_PROPERTY, CHROME_FORMAT);
+        Instant start = Instant.ofEpochSecond(0, trace.startEpochNanos()).truncatedTo(ChronoUnit.MILLIS);
+        Path path = Path.of(dir, "run-" + start.toEpochMilli() + "." + format.toLowerCase(Locale.ROOT) + ".json");
+        try {
+            Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(tmp, this.toJson(trace, format));
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write run trace " + path, e);
+        }
+    }
+
+    /**
+     * Sends a trace to the OpenTelemetry collector, when set, without waiting for the response.
+     */
+    private void sendToCollector(RunTrace trace) {
+        String endpoint = this.env.getProperty(OTLP_ENDPOINT_PROPERTY);
+        if (isNull(endpoint)) {
+            return;
+        }
+        try {
+            HttpRequest req = HttpRequest.newBuilder(URI.create(endpoint))
+                .timeout(EXPORT_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(this.toJson(trace, OTLP_FORMAT)))
+                .build();
+            this.getClient().sendAsync(req, HttpResponse.BodyHandlers.discarding()).whenComplete((res, ex) -> {
+                if (nonNull(ex) || res.statusCode() / 100 != 2) {
+                    logger.error("Failed to export run trace to " + endpoint + ": "
+                        + (nonNull(ex) ? ex.getMessage() : "status " + res.statusCode()));
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to export run trace to " + endpoint, e);
+        }
+    }
+
+    private HttpClient getClient() {
+        if (isNull(this.client)) {
+            this.client = HttpClient.newBuilder().connectTimeout(EXPORT_TIMEOUT).build();
+        }
+
+        return this.client;
+    }
+
+    /**
+     * Sets the HTTP client used to export traces. Used for testing purposes.
+     *
+     * @param client HttpClient
+     */
+    void setClient(HttpClient client) { this.client = client; }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+
+    /**
+     * Sets the object mapper. Used for testing purposes.
+     *
+     * @param mapper ObjectMapper
+     */
+    void setObjectMapper(ObjectMapper mapper) { this.mapper = mapper; }
+}
@@ -0,0 +1,363 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import cf.maybelambda.httpvalidator.springboot.util.LatencySketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Rolling availability and latency percentiles of each task over the last hour, day, week and month.
+ * <p>
+ * The outcomes of each task are counted in three rings of time slots: 10-minute slots for the last hour, hourly
+ * slots for the last day and daily slots for the last week and month. Each slot keeps the number of outcomes and the
+ * number of successful ones, and the slots of the hourly and daily rings also keep a {@link LatencySketch} of their
+ * response times, so recording an outcome only updates the current slot of each ring, and a window is computed by
+ * merging the slots it covers. Windows end at the current time and start at the beginning of their oldest slot, so they
+ * may be up to one slot longer than their nominal length. The percentiles of the last hour are taken from the last two
+ * hourly slots, which keeps the sketches of a task to one per hour and day.
+ * <p>
+ * Only the tasks of the current task set are kept: the counters of the tasks removed are dropped when a run starts
+ * (see {@link #retainOnly}).
+ * <p>
+ * When the {@value #SNAPSHOT_FILE_PROPERTY} property is set, the counters are periodically written to that file and
+ * read from it the first time they are used, so they survive restarts.
+ */
+@Component
+public class SloTracker {
+    static final String SNAPSHOT_FILE_PROPERTY = "slo.snapshot.file";
+    static final String SNAPSHOT_INTERVAL_PROPERTY = "slo.snapshot.interval";
+    static final int MAGIC = 0x48565354; // "HVST"
+    static final int VERSION = 2;
+    static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+    private static final Ring TEN_MINUTES = new Ring(Duration.ofMinutes(10), 6, false);
+    private static final Ring HOURS = new Ring(Duration.ofHours(1), 24, true);
+    private static final Ring DAYS = new Ring(Duration.ofDays(1), 30, true);
+    private static final List<Ring> RINGS = List.of(TEN_MINUTES, HOURS, DAYS);
+    static final List<Window> WINDOWS = List.of(
+        new Window("1h", TEN_MINUTES, 6, HOURS, 2), new Window("24h", HOURS, 24, HOURS, 24),
+        new Window("7d", DAYS, 7, DAYS, 7), new Window("30d", DAYS, 30, DAYS, 30)
+    );
+    private static Logger logger = LoggerFactory.getLogger(SloTracker.class);
+    private final Map<Long, Slot[][]> tasks = new TreeMap<>();
+    // The rings of the tasks already recorded and their keys, by task position, so that recording does not box the key
+    private Slot[][][] ringsByPosition = new Slot[0][][];
+    private long[] keysByPosition = new long[0];
+    private boolean loaded;
+    private boolean modified;
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * Layout of a ring of time slots.
+     *
+     * @param slotLength The time covered by each slot.
+     * @param size The number of slots.
+     * @param sketched Whether the slots keep a sketch of the response times.
+     */
+    record Ring(Duration slotLength, int size, boolean sketched) {}
+
+    /**
+     * A rolling window, made of the last slots of a ring, and of the last slots of a ring with sketches for the
+     * percentiles of the response times.
+     *
+     * @param name The name of the window.
+     * @param ring The ring counting the outcomes.
+     * @param slots The number of slots of the ring covered.
+     * @param latencyRing The ring whose sketches give the percentiles.
+     * @param latencySlots The number of slots of the latency ring covered.
+     */
+    record Window(String name, Ring ring, int slots, Ring latencyRing, int latencySlots) {}
+
+    /**
+     * The counters of a window of a task.
+     *
+     * @param window The name of the window.
+     * @param total The number of outcomes.
+     * @param ok The number of successful outcomes.
+     * @param availability The ratio of successful outcomes, or null if there are no outcomes.
+     * @param p50Millis The estimated median of the response times, in milliseconds.
+     * @param p90Millis The estimated 90th percentile of the response times, in milliseconds.
+     * @param p99Millis The estimated 99th percentile of the response times, in milliseconds.
+     */
+    public record WindowStats(String window, long total, long ok, Double availability, double p50Millis,
+                              double p90Millis, double p99Millis) {}
+
+    /**
+     * The counters of every window of a task.
+     *
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param windows The counters of each window, from the shortest one.
+     */
+    public record TaskSlo(long taskKey, List<WindowStats> windows) {}
+
+    /**
+     * The counters of a time slot.
+     */
+    private static final class Slot {
+        long epoch = -1;
+        int total;
+        int ok;
+        LatencySketch latencies;
+
+        /**
+         * Empties the slot if it holds the counters of an older period than the given one. Its sketch is kept, empty,
+         * for the new period.
+         */
+        void rollTo(long epoch) {
+            if (this.epoch != epoch) {
+                this.epoch = epoch;
+                this.total = 0;
+                this.ok = 0;
+                if (nonNull(this.latencies)) {
+                    this.latencies.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a task run.
+     *
+     * @param taskKey The key of the task, as returned by {@link TaskSource.TaskSet#keyOf}.
+     * @param position The position of the task among all the tasks, used to find its counters without a lookup by key
+     * when it has not moved.
+     * @param timestampMillis The time when the outcome was recorded, in milliseconds since the epoch.
+     * @param ok Whether the task was successful.
+     * @param latencyNanos The time until the whole response was received, or 0 if it was not measured.
+     */
+    public synchronized void record(long taskKey, int position, long timestampMillis, boolean ok, long latencyNanos) {
+        this.ensureLoaded();
+        Slot[][] rings = position < this.ringsByPosition.length && this.keysByPosition[position] == taskKey
+            ? this.ringsByPosition[position] : null;
+        if (isNull(rings)) {
+            rings = this.tasks.computeIfAbsent(taskKey, k -> newRings());
+            if (position >= this.ringsByPosition.length) {
+                int n = Math.max(position + 1, 2 * this.ringsByPosition.length);
+                this.ringsByPosition = Arrays.copyOf(this.ringsByPosition, n);
+                this.keysByPosition = Arrays.copyOf(this.keysByPosition, n);
+            }
+            this.ringsByPosition[position] = rings;
+            this.keysByPosition[position] = taskKey;
+        }
+        for (int r = 0; r < RINGS.size(); r++) {
+            Ring ring = RINGS.get(r);
+            long epoch = timestampMillis / ring.slotLength().toMillis();
+            Slot s = rings[r][(int) (epoch % ring.size())];
+            s.rollTo(epoch);
+            s.total++;
+            s.ok += ok ? 1 : 0;
+            if (latencyNanos > 0 && ring.sketched()) {
+                if (isNull(s.latencies)) {
+                    s.latencies = new LatencySketch();
+                }
+                s.latencies.record(latencyNanos);
+            }
+        }
+        this.modified = true;
+    }
+
+    /**
+     * Drops the counters of the tasks that are not in the given task set, so that the counters of removed tasks are
+     * not kept nor written to the snapshot.
+     *
+     * @param taskSet The current task set.
+     */
+    public synchronized void retainOnly(TaskSource.TaskSet taskSet) {
+        this.ensureLoaded();
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i < taskSet.size(); i++) {
+            keys.add(taskSet.keyOf(i));
+        }
+        if (this.tasks.keySet().retainAll(keys)) {
+            this.modified = true;
+        }
+        // Positions beyond the task set are no longer used, and those left are checked against the key when used
+        int n = Math.min(this.ringsByPosition.length, taskSet.size());
+        this.ringsByPosition = Arrays.copyOf(this.ringsByPosition, n);
+        this.keysByPosition = Arrays.copyOf(this.keysByPosition, n);
+        for (int i = 0; i < n; i++) {
+            if (!keys.contains(this.keysByPosition[i])) {
+                this.ringsByPosition[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Computes the counters of every window of every task.
+     *
+     * @param nowMillis The current time, in milliseconds since the epoch.
+     * @return The counters of each task, by task key.
+     */
+    public synchronized List<TaskSlo> getAll(long nowMillis) {
+        this.ensureLoaded();
+        List<TaskSlo> res = new ArrayList<>();
+        this.tasks.forEach((id, rings) -> res.add(new TaskSlo(id, WINDOWS.stream().map(w -> stats(w, rings, nowMillis)).toList())));
+
+        return res;
+    }
+
+    /**
+     * Merges the slots of a task covered by a window.
+     */
+    private static WindowStats stats(Window w, Slot[][] rings, long nowMillis) {
+        long current = nowMillis / w.ring().slotLength().toMillis();
+        long total = 0;
+        long ok = 0;
+        for (Slot s : rings[RINGS.indexOf(w.ring())]) {
+            if (s.epoch <= current && s.epoch > current - w.slots()) {
+                total += s.total;
+                ok += s.ok;
+            }
+        }
+        current = nowMillis / w.latencyRing().slotLength().toMillis();
+        LatencySketch latencies = new LatencySketch();
+        for (Slot s : rings[RINGS.indexOf(w.latencyRing())]) {
+            if (s.epoch <= current && s.epoch > current - w.latencySlots() && nonNull(s.latencies)) {
+                latencies.merge(s.latencies);
+            }
+        }
+
+        return new WindowStats(w.name(), total, ok, total == 0 ? null : (double) ok / total,
+            latencies.quantileNanos(PERCENTILES[0]) / 1e6, latencies.quantileNanos(PERCENTILES[1]) / 1e6,
+            latencies.quantileNanos(PERCENTILES[2]) / 1e6);
+    }
+
+    /**
+     * Creates the empty rings of a task.
+     */
+    private static Slot[][] newRings() {
+        Slot[][] rings = new Slot[RINGS.size()][];
+        for (int r = 0; r < RINGS.size(); r++) {
+            rings[r] = new Slot[RINGS.get(r).size()];
+            for (int i = 0; i < rings[r].length; i++) {
+                rings[r][i] = new Slot();
+            }
+        }
+
+        return rings;
+    }
+
+    /**
+     * Gets the snapshot file from the environment properties.
+     *
+     * @return The path of the file, or null if snapshots are not enabled.
+     */
+    Path getSnapshotFilePath() {
+        String path = this.env.getProperty(SNAPSHOT_FILE_PROPERTY);
+        return isNull(path) ? null : Path.of(path);
+    }
+
+    /**
+     * Writes the counters to the snapshot file, when enabled and modified since they were last written.
+     * <p>
+     * Runs periodically in the background. The new file replaces the previous one with an atomic move, so a failure
+     * leaves the previous snapshot in place.
+     */
+    @Scheduled(fixedDelayString = "${" + SNAPSHOT_INTERVAL_PROPERTY + ":300000}")
+    public synchronized void writeSnapshot() {
+        Path path = this.getSnapshotFilePath();
+        if (isNull(path) || !this.modified) {
+            return;
+        }
+        try {
+            Path tmp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(this.tasks.size());
+                    for (Map.Entry<Long, Slot[][]> e : this.tasks.entrySet()) {
+                        out.writeLong(e.getKey());
+                        for (Slot[] ring : e.getValue()) {
+                            for (Slot s : ring) {
+                                out.writeLong(s.epoch);
+                                out.writeInt(s.total);
+                                out.writeInt(s.ok);
+                                out.writeBoolean(nonNull(s.latencies));
+                                if (nonNull(s.latencies)) {
+                                    s.latencies.writeTo(out);
+                                }
+                            }
+                        }
+                    }
+                }
+                Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            this.modified = false;
+        } catch (IOException e) {
+            logger.error("Failed to write SLO snapshot", e);
+        }
+    }
+
+    /**
+     * Reads the counters from the snapshot file the first time they are used, when enabled and present.
+     * An invalid snapshot is logged and ignored.
+     */
+    private void ensureLoaded() {
+        if (this.loaded) {
+            return;
+        }
+        this.loaded = true;
+        Path path = this.getSnapshotFilePath();
+        if (isNull(path) || !Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unknown SLO snapshot format");
+            }
+            Map<Long, Slot[][]> read = new TreeMap<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                Slot[][] rings = newRings();
+                read.put(in.readLong(), rings);
+                for (int r = 0; r < rings.length; r++) {
+                    for (Slot s : rings[r]) {
+                        s.epoch = in.readLong();
+                        s.total = in.readInt();
+                        s.ok = in.readInt();
+                        LatencySketch latencies = in.readBoolean() ? LatencySketch.readFrom(in) : null;
+                        // Sketches of the rings without them, written by earlier versions, are dropped
+                        s.latencies = RINGS.get(r).sketched() ? latencies : null;
+                    }
+                }
+            }
+            this.tasks.putAll(read);
+        } catch (IOException e) {
+            logger.error("Failed to read SLO snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Sets the environment object. Used for testing purposes.
+     *
+     * @param env Environment
+     */
+    void setEnv(Environment env) { this.env = env; }
+}
@@ -0,0 +1,32 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+
+/**
+ * The result of running one validation task: the outcome of its HTTP request and of the validation of the response.
+ *
+ * @param response The response or exception produced by the HTTP request.
+ * @param failure The failure found when validating the response, or {@code null} if it is valid.
+ * @param queuedNanos The time the request waited for the concurrency limit before being sent, in nanoseconds.
+ */
+record TaskOutcome(HttpSendOutcomeWrapper response, ValidationFailure failure, long queuedNanos) {
+    /**
+     * Constructor for TaskOutcome, for a request sent without waiting.
+     */
+    TaskOutcome(HttpSendOutcomeWrapper response, ValidationFailure failure) {
+        this(response, failure, 0);
+    }
+
+    /**
+     * Gets the latency of the request as seen by the run: from the moment it was ready to be sent, including the
+     * time it waited for the concurrency limit, until the whole response was received. Measuring from the actual
+     * send alone would leave out the delay that slow responses cause to the requests queued behind them.
+     *
+     * @return The latency in nanoseconds, or 0 if the response time was not measured (e.g. network errors).
+     */
+    long latencyNanos() {
+        long total = this.response.getTotalNanos();
+        return total == 0 ? 0 : this.queuedNanos + total;
+    }
+}
@@ -0,0 +1,214 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.UrlHosts;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.isNull;
+
+/**
+ * State of each task across runs, kept in arrays indexed by the position of the task among all the tasks.
+ * <p>
+ * What the recording of an outcome needs from a task is computed once, when the task is first seen or its URL changes:
+ * the label that identifies it in the log and in notifications, and the hash of its host. The number of runs it has
+ * failed in a row and the hash of its last response body are kept in primitive arrays, and the record of a failure
+ * handed over to the notification is reused from run to run, so recording the outcomes of tasks already seen allocates
+ * nothing; the response body it refers to is released once the notification was sent (see {@link #releaseBodies}).
+ * <p>
+ * Not thread-safe: it is only used by the thread running the validations, and the failure records of a run are
+ * overwritten by the next one.
+ */
+class TaskStates {
+    private static final Pattern URL_PATH = Pattern.compile("(?<=[^:/])/.+");
+    private static final int MIN_STATUS_TEXT = 100;
+    private static final String[] STATUS_TEXTS = new String[500];
+    private static final String NET_ERR_TEXT = String.valueOf(HttpSendOutcomeWrapper.NET_ERR_CODE);
+    private static final String[] COUNT_TEXTS = new String[100];
+
+    static {
+        for (int i = 0; i < STATUS_TEXTS.length; i++) {
+            STATUS_TEXTS[i] = String.valueOf(MIN_STATUS_TEXT + i);
+        }
+        for (int i = 0; i < COUNT_TEXTS.length; i++) {
+            COUNT_TEXTS[i] = String.valueOf(i);
+        }
+    }
+
+    private String[] urls = new String[0];
+    private String[] labels = new String[0];
+    private String[] hosts = new String[0];
+    private int[] hostHashes = new int[0];
+    private int[] consecutiveFailures = new int[0];
+    private long[] bodyHashes = new long[0];
+    private ValidationFailure[] lastFailures = new ValidationFailure[0];
+    private String[] checks = new String[0];
+    private String[][] failureRecords = new String[0][];
+
+    /**
+     * Computes the label, host and host hash of the given tasks, unless they were computed for the same URL already.
+     * The state of a task whose URL changed is reset.
+     *
+     * @param tasks The tasks.
+     * @param offset The position of the first task among all the tasks.
+     */
+    void prepare(List<ValidationTask> tasks, int offset) {
+        this.ensureCapacity(offset + tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            int id = offset + i;
+            String url = tasks.get(i).reqURL();
+            if (!url.equals(this.urls[id])) {
+                this.urls[id] = url;
+                this.labels[id] = URL_PATH.matcher(url).replaceAll("") + " [Task #" + id + "]";
+                this.hosts[id] = UrlHosts.hostOf(url);
+                this.hostHashes[id] = ResultsLog.hostHash(this.hosts[id]);
+                this.consecutiveFailures[id] = 0;
+                this.bodyHashes[id] = 0;
+                this.lastFailures[id] = null;
+                this.checks[id] = null;
+            }
+        }
+    }
+
+    /**
+     * Grows the arrays by doubling their length until they fit the given number of tasks.
+     */
+    private void ensureCapacity(int size) {
+        if (size <= this.urls.length) {
+            return;
+        }
+        int n = Math.max(16, this.urls.length);
+        while (n < size) {
+            n *= 2;
+        }
+        this.urls = Arrays.copyOf(this.urls, n);
+        this.labels = Arrays.copyOf(this.labels, n);
+        this.hosts = Arrays.copyOf(this.hosts, n);
+        this.hostHashes = Arrays.copyOf(this.hostHashes, n);
+        this.consecutiveFailures = Arrays.copyOf(this.consecutiveFailures, n);
+        this.bodyHashes = Arrays.copyOf(this.bodyHashes, n);
+        this.lastFailures = Arrays.copyOf(this.lastFailures, n);
+        this.checks = Arrays.copyOf(this.checks, n);
+        this.failureRecords = Arrays.copyOf(this.failureRecords, n);
+    }
+
+    /**
+     * Records the outcome of a run of a task that was prepared: counts the runs it has failed in a row and keeps the
+     * hash of its response body.
+     *
+     * @param id The position of the task among all the tasks.
+     * @param failed Whether the task failed.
+     * @param bodyHash The hash of the response body, as returned by {@link ResultsLog#bodyHash}, or 0 if there was
+     * no response.
+     * @return Whether the response body differs from the last one received for the task.
+     */
+    boolean record(int id, boolean failed, long bodyHash) {
+        this.consecutiveFailures[id] = failed ? this.consecutiveFailures[id] + 1 : 0;
+        if (bodyHash == 0) {
+            return false;
+        }
+        long last = this.bodyHashes[id];
+        this.bodyHashes[id] = bodyHash;
+
+        return last != 0 && last != bodyHash;
+    }
+
+    /**
+     * Fills the record of a failure of a task that was prepared and recorded, in the form expected by
+     * {@link EmailNotificationService#sendVTaskErrorsNotification}: the label of the task, the status code, the
+     * response body, the check that failed, or null for network errors, and the number of runs the task has failed
+     * in a row. The same array is returned for the task in every run.
+     *
+     * @param id The position of the task among all the tasks.
+     * @param res The response or network error received.
+     * @param failure The failure found by the validation.
+     * @return The record of the failure.
+     */
+    String[] failureRecord(int id, HttpSendOutcomeWrapper res, ValidationFailure failure) {
+        // The description of a failure is built again only when it differs from the last one of the task
+        if (!failure.equals(this.lastFailures[id])) {
+            this.lastFailures[id] = failure;
+            this.checks[id] = failure.failureClass() == FailureClass.NETWORK ? null : failure.toString();
+        }
+        String[] rec = this.failureRecords[id];
+        if (isNull(rec)) {
+            rec = new String[5];
+            this.failureRecords[id] = rec;
+        }
+        rec[0] = this.labels[id];
+        rec[1] = statusText(res.getStatusCode());
+        rec[2] = res.getBody();
+        rec[3] = this.checks[id];
+        rec[4] = countText(this.consecutiveFailures[id]);
+
+        return rec;
+    }
+
+    /**
+     * Releases the response bodies of failure records once they were handed over to the notification, so that the
+     * records kept for the next run do not hold on to them meanwhile.
+     *
+     * @param records The failure records, as returned by {@link #failureRecord}.
+     */
+    static void releaseBodies(List<String[]> records) {
+        for (String[] rec : records) {
+            rec[2] = null;
+        }
+    }
+
+    /**
+     * Gets the text of a status code, without allocating for the codes in the range of HTTP status codes.
+     */
+    static String statusText(int status) {
+        if (status == HttpSendOutcomeWrapper.NET_ERR_CODE) {
+            return NET_ERR_TEXT;
+        }
+        int i = status - MIN_STATUS_TEXT;
+        return i >= 0 && i < STATUS_TEXTS.length ? STATUS_TEXTS[i] : String.valueOf(status);
+    }
+
+    /**
+     * Gets the text of a count, without allocating for small counts.
+     */
+    static String countText(int n) {
+        return n >= 0 && n < COUNT_TEXTS.length ? COUNT_TEXTS[n] : String.valueOf(n);
+    }
+
+    /**
+     * Gets the number of runs a task that was prepared has failed in a row.
+     *
+     * @param id The position of the task among all the tasks.
+     * @return The number of failed runs since the last successful one, as counted by {@link #record}.
+     */
+    int consecutiveFailures(int id) { return this.consecutiveFailures[id]; }
+
+    /**
+     * Gets the label of a task that was prepared.
+     *
+     * @param id The position of the task among all the tasks.
+     * @return The URL of the task without its path, followed by its position, e.g. {@code http://host [Task #3]}.
+     */
+    String label(int id) { return this.labels[id]; }
+
+    /**
+     * Gets the host of a task that was prepared.
+     *
+     * @param id The position of the task among all the tasks.
+     * @return The lowercase host of the task URL, or an empty string if it has none.
+     */
+    String host(int id) { return this.hosts[id]; }
+
+    /**
+     * Gets the hash of the host of a task that was prepared.
+     *
+     * @param id The position of the task among all the tasks.
+     * @return The hash of the host of the task URL, as returned by {@link ResultsLog#hostHash}.
+     */
+    int hostHash(int id) { return this.hostHashes[id]; }
+}
@@ -1,8 +1,18 @@
 package cf.maybelambda.httpvalidator.springboot.service;
 
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
 import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
-import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
 import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.JfrEvents;
+import cf.maybelambda.httpvalidator.springboot.util.RingBuffer;
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Recording;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,21 +33,23 @@ import java.rmi.ConnectIOException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
-import java.util.stream.IntStream;
 
 import static cf.maybelambda.httpvalidator.springboot.HTTPValidatorWebApp.RUN_SCHEDULE_PROPERTY;
-import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.START_TIME_KEY;
-import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_FAILED_KEY;
-import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_OK_KEY;
-import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_TOTAL_KEY;
-import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TIME_ELAPSED_KEY;
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
 import static java.net.http.HttpRequest.BodyPublishers.ofString;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
 
@@ -50,28 +62,72 @@ public class ValidationService {
     public static final String HEADER_KEY_VALUE_DELIMITER = "|";
     private static final Duration CONNECT_TIMEOUT_SECONDS = Duration.ofSeconds(10);
     private static final Duration REQUEST_TIMEOUT_SECONDS = Duration.ofSeconds(30);
-    private Duration lrTimeElapsed;
-    private String lrStartDateTime;
-    private int[] lrTaskCounts;
+    static final String NETWORK_STAGE = "network";
+    static final String QUEUE_STAGE = "validation-queue";
+    static final String VALIDATION_STAGE = "validation";
+    static final String OK_OUTCOME = "OK";
+    private static final String[] FAILURE_OUTCOMES = Arrays.stream(FailureClass.values())
+            .map(c -> "FAILURE (" + c + ")").toArray(String[]::new);
+    static final String PAGE_SIZE_PROPERTY = "validation.page.size";
+    static final int DEFAULT_PAGE_SIZE = 1000;
+    static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "validation.max.concurrent.requests";
+    static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 256;
+    static final int RUN_HISTORY_SIZE = 100;
+    public static final String LAST_RUN_LATENCIES_KEY = "last_run";
+    public static final String CUMULATIVE_LATENCIES_KEY = "cumulative";
+    // Replaced as a whole at the end of each run, so readers never see values of different runs
+    private volatile RunSummary lastRun;
+    private final RingBuffer<RunSummary> runHistory = new RingBuffer<>(RUN_HISTORY_SIZE);
+    private volatile LatencyHistograms lastRunLatencies = new LatencyHistograms();
+    private final LatencyHistograms cumulativeLatencies = new LatencyHistograms();
+    private final TaskStates taskStates = new TaskStates();
     private HttpClient client;
+    private final ForkJoinPool validationPool;
     private static Logger logger = LoggerFactory.getLogger(ValidationService.class);
 
     @Autowired
     private EmailNotificationService notificationService;
     @Autowired
-    private XMLValidationTaskDao taskReader;
+    private TaskSource taskReader;
     @Autowired
     private Environment env;
     @Autowired
     private ObjectMapper mapper;
+    @Autowired
+    private ResultsLog resultsLog;
+    @Autowired
+    private ResultsIndex resultsIndex;
+    @Autowired
+    private SloTracker sloTracker;
+    @Autowired
+    private EngineMetrics metrics;
+    @Autowired
+    private RunProfiler profiler;
+    @Autowired
+    private RunTracer tracer;
 
     /**
-     * Constructor to initialize the HTTP client with default connection-timeout and follow-redirects settings.
+     * Constructor to initialize the HTTP client with default connection-timeout and follow-redirects settings,
+     * and the pool where responses are validated, with one thread per available processor.
      */
     public ValidationService() {
         this.client = HttpClient.newBuilder()
                 .connectTimeout(CONNECT_TIMEOUT_SECONDS)
                 .followRedirects(HttpClient.Redirect.ALWAYS).build();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        this.validationPool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            t.setName("validation-" + t.getPoolIndex());
+            return t;
+        }, null, false, parallelism, parallelism, 1, null, 60, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the validation pool, letting it finish the validations already submitted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.validationPool.shutdown();
     }
 
     /**
@@ -79,6 +135,11 @@ public class ValidationService {
      * Retrieves tasks, sends HTTP requests, and processes responses.
      * Sends email notifications for any validation failures and
      * updates information about the last run of validation tasks.
+     * <p>
+     * The run, the building of the requests, each request and each validation are emitted as flight recorder events
+     * ({@link JfrEvents}), and the whole run is recorded to a file when a profile of it was requested from the
+     * {@link RunProfiler}. When tracing is enabled, the timeline of every task is handed over to the
+     * {@link RunTracer} at the end of the run.
      *
      * @throws FileNotFoundException if the data file is not found
      * @throws XMLParseException if there is an error parsing the XML file
@@ -90,34 +151,181 @@ public class ValidationService {
     @Scheduled(cron = "${" + RUN_SCHEDULE_PROPERTY + "}")
     public void execValidations() throws FileNotFoundException, XMLParseException, JacksonException,
             ConnectIOException, ExecutionException, InterruptedException {
+        // Check the configuration before anything is started, so that a run is not left half-recorded
+        int pageSize = this.getPageSize();
         // Record the start date-time of the validation process
         Instant start = Instant.now();
         String startDT = EventListenerService.getCurrentDateTime();
+        Recording profile = this.profiler.startIfRequested();
+        SpanRing spans = this.tracer.startRun();
+        JfrEvents.Run event = new JfrEvents.Run();
+        event.begin();
 
-        List<ValidationTask> tasks = this.taskReader.getAll();
-        List<HttpSendOutcomeWrapper> results = this.buildAndExecuteRequests(tasks);
-        // Process the results and get the task counts
-        int[] taskCounts = this.processRequestResultsAndNotify(tasks, results);
+        // Run the tasks one page at a time, so that only one page of requests and responses is held at once. The
+        // pages are all taken from the same task set, so changes to the tasks made meanwhile apply from the next run
+        int[] taskCounts = new int[3];
+        List<String[]> failures = new ArrayList<>();
+        List<StageMetrics> stages = newStageMetrics();
+        LatencyHistograms latencies = new LatencyHistograms();
+        try {
+            TaskSource.TaskSet taskSet = this.taskReader.getTaskSet();
+            this.sloTracker.retainOnly(taskSet);
+            this.cumulativeLatencies.retainOnly(taskSet);
+            for (int offset = 0; offset < taskSet.size(); offset += pageSize) {
+                List<ValidationTask> page = taskSet.getPage(offset, pageSize);
+                List<TaskOutcome> results = this.buildAndExecuteRequests(page, offset, stages, spans);
+                this.recordResults(taskSet, page, results, offset, taskCounts, failures, latencies);
+                event.pages++;
+            }
+            stages.forEach(m -> logger.debug("STAGE " + m));
+            // Send a single notification for all the pages
+            if (!failures.isEmpty()) {
+                this.notificationService.sendVTaskErrorsNotification(failures);
+            }
+        } finally {
+            // The failure records are kept for the next run, which must not find the response bodies of this one
+            TaskStates.releaseBodies(failures);
+            event.tasksTotal = taskCounts[0];
+            event.tasksOk = taskCounts[1];
+            event.tasksFailed = taskCounts[2];
+            event.commit();
+            if (nonNull(profile)) {
+                this.profiler.finish(profile);
+            }
+        }
+        if (nonNull(spans)) {
+            this.tracer.finishRun(spans);
+        }
 
-        // Update task counts and timing information of the last run
-        this.lrTaskCounts = taskCounts;
-        this.lrStartDateTime = startDT;
-        this.lrTimeElapsed = Duration.between(start, Instant.now());
+        // Publish task counts and timing information of the run
+        RunSummary run = new RunSummary(startDT, Duration.between(start, Instant.now()), taskCounts[0], taskCounts[1],
+                taskCounts[2], stages);
+        this.runHistory.add(run);
+        this.lastRun = run;
+        this.lastRunLatencies = latencies;
+        this.cumulativeLatencies.merge(latencies);
+        this.metrics.recordRun(run.timeElapsed());
     }
 
     /**
-     * Executes HTTP requests asynchronously and stores the resulting responses or exceptions.
+     * Executes HTTP requests asynchronously and validates the resulting responses or exceptions.
      * Builds the requests from the information in the provided tasks.
+     * <p>
+     * Each response is handed over to the validation pool as soon as it is complete, so the threads of the HTTP
+     * client only deal with network I/O and a slow validation does not delay the reception of other responses.
+     * At most {@link #getMaxConcurrentRequests()} requests are in flight at once; the time each request waits for
+     * that limit is kept in its outcome, so that it counts towards its latency.
      *
      * @param tasks the list of validation tasks
-     * @return a list of HttpSendOutcomeWrapper objects containing the responses or exceptions
+     * @param stages the metrics where the time spent in each stage is recorded, as created by {@link #newStageMetrics()}
+     * @return a list with the outcome of each task, in the same order as the tasks
      * @throws ExecutionException when an unhandled error occurs while processing the HTTP requests
      * @throws InterruptedException when interrupted before completing all the requests
      * @throws JacksonException when a validation task contains invalid JSON content
      */
-    List<HttpSendOutcomeWrapper> buildAndExecuteRequests(List<ValidationTask> tasks) throws ExecutionException, InterruptedException, JacksonException {
-        // Build HTTP requests from the validation tasks
-        List<HttpRequest> reqs = new ArrayList<>();
+    List<TaskOutcome> buildAndExecuteRequests(List<ValidationTask> tasks, List<StageMetrics> stages)
+            throws ExecutionException, InterruptedException, JacksonException {
+        return this.buildAndExecuteRequests(tasks, 0, stages, null);
+    }
+
+    /**
+     * Executes HTTP requests like {@link #buildAndExecuteRequests(List, List)}, recording the timeline of each task in
+     * a span ring when one is given.
+     *
+     * @param tasks the list of validation tasks
+     * @param offset the position of the first task among all the tasks
+     * @param stages the metrics where the time spent in each stage is recorded, as created by {@link #newStageMetrics()}
+     * @param spans the ring where the span of each task is recorded, or null if the run is not traced
+     * @return a list with the outcome of each task, in the same order as the tasks
+     * @throws ExecutionException when an unhandled error occurs while processing the HTTP requests
+     * @throws InterruptedException when interrupted before completing all the requests
+     * @throws JacksonException when a validation task contains invalid JSON content
+     */
+    List<TaskOutcome> buildAndExecuteRequests(List<ValidationTask> tasks, int offset, List<StageMetrics> stages,
+                                              SpanRing spans) throws ExecutionException, InterruptedException, JacksonException {
+        List<HttpRequest> reqs = this.buildRequests(tasks);
+        StageMetrics network = stages.get(0);
+        StageMetrics queue = stages.get(1);
+        StageMetrics validation = stages.get(2);
+        TaskOutcome[] results = new TaskOutcome[reqs.size()];
+        // Send the requests asynchronously, then validate each response in the validation pool
+        // Use the index of each request to store the corresponding outcome
+        Semaphore limiter = new Semaphore(this.getMaxConcurrentRequests());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        this.metrics.requestsQueued(reqs.size());
+        // Every request of the page is ready to be sent at once, so each one waits from this moment on, not from
+        // when the previous one got its permit; otherwise the delay caused by slow responses would go unrecorded
+        long readyAt = System.nanoTime();
+        int n = 0;
+        try {
+            for (; n < reqs.size(); n++) {
+                int i = n;
+                limiter.acquire();
+                this.metrics.requestDispatched();
+                long dispatchedAt = System.nanoTime();
+                long queued = dispatchedAt - readyAt;
+                JfrEvents.TaskRequest reqEvent = new JfrEvents.TaskRequest();
+                reqEvent.begin();
+                futures.add(this.sendTimed(reqs.get(i))
+                        .whenComplete((res, ex) -> {
+                            limiter.release();
+                            this.metrics.requestCompleted();
+                        })
+                        .exceptionally(HttpSendOutcomeWrapper::new)
+                        .thenApply(res -> {
+                            if (res.getStatusCode() != NET_ERR_CODE) {
+                                network.record(res.getTotalNanos());
+                            }
+                            commitRequestEvent(reqEvent, reqs.get(i), res, queued);
+                            return new TimedOutcome(res, System.nanoTime());
+                        })
+                        .thenAcceptAsync(r -> {
+                            long start = System.nanoTime();
+                            queue.record(start - r.completedAt());
+                            JfrEvents.TaskValidation valEvent = new JfrEvents.TaskValidation();
+                            valEvent.begin();
+                            ValidationFailure failure = tasks.get(i).validate(r.res());
+                            valEvent.end();
+                            if (valEvent.shouldCommit()) {
+                                valEvent.url = tasks.get(i).reqURL();
+                                valEvent.outcome = isNull(failure) ? OK_OUTCOME : failure.failureClass().name();
+                                valEvent.commit();
+                            }
+                            results[i] = new TaskOutcome(r.res(), failure, queued);
+                            long end = System.nanoTime();
+                            validation.record(end - start);
+                            if (nonNull(spans)) {
+                                HttpSendOutcomeWrapper res = r.res();
+                                // Responses without timings, such as network errors, end when they are completed
+                                long receivedAt = res.getTotalNanos() > 0 ? dispatchedAt + res.getTotalNanos() : r.completedAt();
+                                long firstByteAt = res.getTotalNanos() > 0 ? dispatchedAt + res.getFirstByteNanos() : receivedAt;
+                                spans.add(offset + i, tasks.get(i).reqURL(), res.getStatusCode(),
+                                    isNull(failure) ? OK_OUTCOME : failure.failureClass().name(),
+                                    readyAt, dispatchedAt, firstByteAt, receivedAt, start, end);
+                            }
+                        }, this.validationPool));
+            }
+        } finally {
+            // Requests left waiting when interrupted are never sent
+            this.metrics.requestsQueued(n - reqs.size());
+        }
+        // Wait for all requests to complete
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Builds the HTTP requests of validation tasks.
+     *
+     * @param tasks the list of validation tasks
+     * @return a list with the request of each task, in the same order as the tasks
+     * @throws JacksonException when a validation task contains invalid JSON content
+     */
+    List<HttpRequest> buildRequests(List<ValidationTask> tasks) throws JacksonException {
+        JfrEvents.RequestBuild event = new JfrEvents.RequestBuild();
+        event.begin();
+        List<HttpRequest> reqs = new ArrayList<>(tasks.size());
         for (ValidationTask task : tasks) {
             HttpRequest.Builder req = HttpRequest.newBuilder();
             req.uri(URI.create(task.reqURL()));
@@ -128,63 +336,159 @@ public class ValidationService {
             }
             reqs.add(req.build());
         }
+        event.requests = reqs.size();
+        event.commit();
 
-        List<HttpSendOutcomeWrapper> results = new ArrayList<>(reqs.size());
-        IntStream.range(0, reqs.size()).forEach(i -> results.add(null));
-        // Send the requests asynchronously and store the responses or exceptions in the results list
-        // Use the index of each request to store the corresponding response or exception
-        List<CompletableFuture<Void>> futures = IntStream.range(0, reqs.size())
-                .mapToObj(i -> client.sendAsync(reqs.get(i), HttpResponse.BodyHandlers.ofString())
-                        .thenAccept(res -> results.set(i, new HttpSendOutcomeWrapper(res)))
-                        .exceptionally(e -> {
-                            results.set(i, new HttpSendOutcomeWrapper(e));
-                            return null;
-                        }))
-                .toList();
-        // Wait for all requests to complete
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        return reqs;
+    }
 
-        return results;
+    /**
+     * Ends the flight recorder event of a request and fills it in, when it is being recorded.
+     *
+     * @param event the event, begun when the request was sent
+     * @param req the request
+     * @param res the response or exception of the request
+     * @param queuedNanos the time the request waited for the concurrency limit
+     */
+    private static void commitRequestEvent(JfrEvents.TaskRequest event, HttpRequest req, HttpSendOutcomeWrapper res,
+                                           long queuedNanos) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = req.uri().toString();
+            event.method = req.method();
+            event.statusCode = res.getStatusCode();
+            event.responseBytes = res.getStatusCode() == NET_ERR_CODE ? 0 : EngineMetrics.utf8Length(res.getBody());
+            event.queued = queuedNanos;
+            event.firstByte = res.getFirstByteNanos();
+            event.commit();
+        }
     }
 
     /**
-     * Processes the results of the HTTP requests, logging the outcomes.
-     * Sends notifications if there are any failures.
+     * Creates empty metrics for each stage of the validation pipeline.
      *
-     * @param tasks the list of validation tasks
-     * @param results the list of HttpSendOutcomeWrapper objects containing the responses or exceptions
-     * @return an array of task counts, where index 0 is the total tasks, 1 is successful tasks, and 2 is failed tasks
-     * @throws ConnectIOException if there is an error sending notification email
+     * @return the metrics of the network, validation queue and validation stages, in pipeline order
      */
-    int[] processRequestResultsAndNotify(List<ValidationTask> tasks, List<HttpSendOutcomeWrapper> results) throws ConnectIOException {
-        // Initialize task counts: [total tasks, successful tasks, failed tasks]
-        int[] taskCounts = new int[3];
-        // Set the total number of tasks
-        taskCounts[0] = tasks.size();
+    static List<StageMetrics> newStageMetrics() {
+        return List.of(new StageMetrics(NETWORK_STAGE), new StageMetrics(QUEUE_STAGE), new StageMetrics(VALIDATION_STAGE));
+    }
+
+    /**
+     * Gets the number of tasks run at once.
+     *
+     * @return the page size
+     * @throws IllegalStateException if the configured page size is not positive
+     */
+    int getPageSize() {
+        return this.getPositiveProperty(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Gets the maximum number of requests in flight at once.
+     *
+     * @return the concurrency limit
+     * @throws IllegalStateException if the configured limit is not positive
+     */
+    int getMaxConcurrentRequests() {
+        return this.getPositiveProperty(MAX_CONCURRENT_REQUESTS_PROPERTY, DEFAULT_MAX_CONCURRENT_REQUESTS);
+    }
+
+    /**
+     * Gets an integer property that must be greater than zero.
+     *
+     * @param name the name of the property
+     * @param defaultValue the value used when the property is not set
+     * @return the value of the property
+     * @throws IllegalStateException if the value is not positive
+     */
+    private int getPositiveProperty(String name, int defaultValue) {
+        int value = this.env.getProperty(name, Integer.class, defaultValue);
+        if (value <= 0) {
+            throw new IllegalStateException(name + " must be greater than 0, but is " + value);
+        }
+        return value;
+    }
+
+    /**
+     * A response along with the moment it became available for validation.
+     */
+    private record TimedOutcome(HttpSendOutcomeWrapper res, long completedAt) {}
+
+    /**
+     * Sends an HTTP request asynchronously, measuring the time until the response status and headers are received
+     * (time to first byte) and until the whole body is received.
+     *
+     * @param req the HTTP request
+     * @return a future completed with the response and its timings
+     */
+    CompletableFuture<HttpSendOutcomeWrapper> sendTimed(HttpRequest req) {
+        long start = System.nanoTime();
+        AtomicLong firstByte = new AtomicLong();
+        HttpResponse.BodyHandler<String> handler = info -> {
+            firstByte.set(System.nanoTime() - start);
+            return HttpResponse.BodyHandlers.ofString().apply(info);
+        };
+
+        return this.client.sendAsync(req, handler).thenApply(res -> {
+            long total = System.nanoTime() - start;
+            // The handler is not invoked when the response does not come from the network
+            long ttfb = firstByte.get() > 0 ? firstByte.get() : total;
+            return new HttpSendOutcomeWrapper(res, ttfb, total);
+        });
+    }
+
+    /**
+     * Logs the outcomes of a page of tasks, adding them to the task counts and the failures of the run and appending
+     * them to the rolling SLO counters, the engine metrics and the results index and log.
+     * <p>
+     * The label, host and failure record of each task are kept in its {@link TaskStates} from run to run, so once
+     * the tasks were seen recording their outcomes does not allocate per task beyond what the stores need. The
+     * outcomes kept across runs are recorded under the key of each task, so they stay with it when tasks are added,
+     * removed or reordered; its position is only used in its label.
+     *
+     * @param taskSet the task set of the run, which gives the key of each task
+     * @param tasks the tasks of the page
+     * @param results the outcome of each task of the page
+     * @param offset the position of the first task of the page among all the tasks
+     * @param taskCounts the task counts of the run: total tasks, successful tasks and failed tasks
+     * @param failures the failures of the run, as expected by the notification service
+     * @param latencies the latency histograms of the run
+     */
+    void recordResults(TaskSource.TaskSet taskSet, List<ValidationTask> tasks, List<TaskOutcome> results, int offset,
+                       int[] taskCounts, List<String[]> failures, LatencyHistograms latencies) {
+        taskCounts[0] += tasks.size();
+        long now = System.currentTimeMillis();
+        this.taskStates.prepare(tasks, offset);
 
         // Iterate over the results and register the outcomes in the taskCounts and the log
-        List<String[]> failures = new ArrayList<>();
         for (int i = 0; i < results.size(); i++) {
-            ValidationTask task = tasks.get(i);
-            HttpSendOutcomeWrapper res = results.get(i);
-            String logMsg = "VALIDATION ";
-            String taskUrlAndId = task.reqURL().replaceAll("(?<=[^:/])/.+", "") + " [Task #" + i + "]";
-            if (res.isWholeResponse() && task.isValid(res.getStatusCode(), res.getBody())) {
-                logMsg += "OK";
+            int id = offset + i;
+            long key = taskSet.keyOf(id);
+            HttpSendOutcomeWrapper res = results.get(i).response();
+            ValidationFailure failure = results.get(i).failure();
+            long latency = results.get(i).latencyNanos();
+            long bodyHash = ResultsLog.bodyHash(res.getStatusCode() == HttpSendOutcomeWrapper.NET_ERR_CODE ? null : res.getBody());
+            boolean bodyChanged = this.taskStates.record(id, failure != null, bodyHash);
+            if (failure == null) {
                 taskCounts[1]++;
             } else {
-                failures.add(new String[]{taskUrlAndId, String.valueOf(res.getStatusCode()), res.getBody()});
-                logMsg += "FAILURE";
+                failures.add(this.taskStates.failureRecord(id, res, failure));
                 taskCounts[2]++;
             }
-            logger.info(logMsg + " " + taskUrlAndId);
-        }
-        // Send notification if there are any failures
-        if (!failures.isEmpty()) {
-            this.notificationService.sendVTaskErrorsNotification(failures);
+            logger.info("VALIDATION {} {}", isNull(failure) ? OK_OUTCOME : FAILURE_OUTCOMES[failure.failureClass().ordinal()],
+                this.taskStates.label(id));
+            if (latency > 0) {
+                latencies.record(key, id, this.taskStates.hostHash(id), this.taskStates.host(id), latency);
+            }
+            this.sloTracker.record(key, id, now, failure == null, latency);
+            this.metrics.recordOutcome(this.taskStates.host(id), res, failure, this.taskStates.consecutiveFailures(id),
+                bodyChanged);
+            // Index before appending, so an index filled from the log meanwhile does not get the outcome twice
+            this.resultsIndex.add(now, key, this.taskStates.hostHash(id), res, failure);
+            if (this.resultsLog.isEnabled()) {
+                this.resultsLog.append(now, key, this.taskStates.hostHash(id), bodyHash, res, failure);
+            }
         }
-
-        return taskCounts;
     }
 
     /**
@@ -193,25 +497,67 @@ public class ValidationService {
      * @return A map containing start time, time elapsed, total tasks, successful tasks and failed tasks.
      */
     public Map<String, String> getLastRunInfo() {
-        Map<String, String> res = new HashMap<>();
-        if (nonNull(this.lrTimeElapsed)) {
-            res.put(START_TIME_KEY, this.lrStartDateTime);
-            res.put(TIME_ELAPSED_KEY, String.valueOf(this.lrTimeElapsed.getSeconds()));
-            res.put(TASKS_TOTAL_KEY, String.valueOf(this.lrTaskCounts[0]));
-            res.put(TASKS_OK_KEY, String.valueOf(this.lrTaskCounts[1]));
-            res.put(TASKS_FAILED_KEY, String.valueOf(this.lrTaskCounts[2]));
-        }
+        RunSummary run = this.lastRun;
+        return nonNull(run) ? run.toInfoMap() : new HashMap<>();
+    }
+
+    /**
+     * Retrieves the metrics of each stage of the last run of validation tasks: the network stage (time until the
+     * whole response is received), the wait for a thread of the validation pool and the validation itself.
+     *
+     * @return The metrics of each stage, in pipeline order, or an empty list if there has been no run yet.
+     */
+    public List<StageMetrics> getLastRunStageMetrics() {
+        RunSummary run = this.lastRun;
+        return nonNull(run) ? run.stages() : List.of();
+    }
+
+    /**
+     * Retrieves the summaries of the last runs of validation tasks, up to {@value #RUN_HISTORY_SIZE}.
+     *
+     * @return The summaries, from the most recent run to the oldest one.
+     */
+    public List<RunSummary> getRunHistory() {
+        return this.runHistory.getAll();
+    }
+
+    /**
+     * Retrieves the percentiles of the latencies of the requests of each task and host, in the last run and since
+     * the application started. Latencies include the time requests waited for the concurrency limit.
+     *
+     * @return The percentiles of the last run and the cumulative ones, by {@link #LAST_RUN_LATENCIES_KEY} and
+     * {@link #CUMULATIVE_LATENCIES_KEY}.
+     */
+    public Map<String, LatencyHistograms.Report> getLatencyReport() {
+        return Map.of(LAST_RUN_LATENCIES_KEY, this.lastRunLatencies.report(), CUMULATIVE_LATENCIES_KEY, this.cumulativeLatencies.report());
+    }
 
-        return res;
+    /**
+     * Retrieves the rolling availability and latency percentiles of each task over the last hour, day, week and month.
+     *
+     * @return The counters of each task, by task key.
+     */
+    public List<SloTracker.TaskSlo> getTaskSlos() {
+        return this.sloTracker.getAll(System.currentTimeMillis());
     }
 
     /**
-     * Checks if the configuration is valid by validating the cron expression currently in use.
+     * Checks if the configuration is valid by validating the cron expression currently in use, the page size and the
+     * concurrency limit.
      *
      * @return true if the configuration is valid, false otherwise
      */
     public boolean isValidConfig() {
-        return this.isValidCronExpression(this.env.getProperty(RUN_SCHEDULE_PROPERTY));
+        String source = this.env.getProperty(TaskSource.SOURCE_PROPERTY);
+        boolean ans = this.isValidCronExpression(this.env.getProperty(RUN_SCHEDULE_PROPERTY))
+            && (isNull(source) || TaskSource.SOURCES.contains(source));
+        try {
+            this.getPageSize();
+            this.getMaxConcurrentRequests();
+        } catch (IllegalStateException e) {
+            ans = false;
+        }
+        return ans;
     }
 
     /**
@@ -250,9 +596,9 @@ public class ValidationService {
     /**
      * Sets the validation task reader service. Used for testing purposes.
      *
-     * @param taskReader XML validation task DAO
+     * @param taskReader Source of the validation tasks
      */
-    void setTaskReader(XMLValidationTaskDao taskReader) { this.taskReader = taskReader; }
+    void setTaskReader(TaskSource taskReader) { this.taskReader = taskReader; }
 
     /**
      * Sets the logger. Used for testing purposes.
@@ -274,4 +620,46 @@ public class ValidationService {
      * @param mapper The ObjectMapper to set.
      */
     void setObjectMapper(ObjectMapper mapper) { this.mapper = mapper; }
+
+    /**
+     * Sets the results log. Used for testing purposes.
+     *
+     * @param resultsLog ResultsLog
+     */
+    void setResultsLog(ResultsLog resultsLog) { this.resultsLog = resultsLog; }
+
+    /**
+     * Sets the results index. Used for testing purposes.
+     *
+     * @param resultsIndex ResultsIndex
+     */
+    void setResultsIndex(ResultsIndex resultsIndex) { this.resultsIndex = resultsIndex; }
+
+    /**
+     * Sets the SLO tracker. Used for testing purposes.
+     *
+     * @param sloTracker SloTracker
+     */
+    void setSloTracker(SloTracker sloTracker) { this.sloTracker = sloTracker; }
+
+    /**
+     * Sets the engine metrics. Used for testing purposes.
+     *
+     * @param metrics EngineMetrics
+     */
+    void setEngineMetrics(EngineMetrics metrics) { this.metrics = metrics; }
+
+    /**
+     * Sets the run profiler. Used for testing purposes.
+     *
+     * @param profiler RunProfiler
+     */
+    void setProfiler(RunProfiler profiler) { this.profiler = profiler; }
+
+    /**
+     * Sets the run tracer. Used for testing purposes.
+     *
+     * @param tracer RunTracer
+     */
+    void setTracer(RunTracer tracer) { this.tracer = tracer; }
 }
@@ -0,0 +1,80 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A read-only view of the first characters of a string that limits how many times its characters can be read.
+ * <p>
+ * Regular expression matchers read their input exclusively through {@link #charAt(int)}, so the number of reads is
+ * a deterministic measure of the work done by a match. A pattern prone to catastrophic backtracking reads the same
+ * characters an exponential number of times and is aborted with a {@link BudgetExceededException} once the budget
+ * is spent, instead of keeping a thread busy indefinitely.
+ */
+public class BoundedCharSequence implements CharSequence {
+    private final String text;
+    private final int length;
+    private final long budget;
+    private long steps;
+
+    /**
+     * Thrown when the character reads allowed by the budget are exhausted.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException(long budget) {
+            super("Exceeded the budget of " + budget + " steps");
+        }
+    }
+
+    /**
+     * Constructs a view of a string.
+     *
+     * @param text the string
+     * @param maxLength the maximum number of characters visible through the view
+     * @param budget the maximum number of character reads
+     */
+    public BoundedCharSequence(String text, int maxLength, long budget) {
+        this.text = requireNonNull(text);
+        this.length = Math.min(text.length(), maxLength);
+        this.budget = budget;
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (++this.steps > this.budget) {
+            throw new BudgetExceededException(this.budget);
+        }
+        if (index >= this.length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return this.text.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (end > this.length) {
+            throw new IndexOutOfBoundsException(end);
+        }
+        return this.text.subSequence(start, end);
+    }
+
+    /**
+     * Gets the number of character reads so far.
+     *
+     * @return the number of steps spent
+     */
+    public long getSteps() {
+        return this.steps;
+    }
+
+    @Override
+    public String toString() {
+        return this.text.substring(0, this.length);
+    }
+}
@@ -1,6 +1,8 @@
 package cf.maybelambda.httpvalidator.springboot.util;
 
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.util.Map;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -23,9 +25,12 @@ public class HttpSendOutcomeWrapper {
      */
     public static final String NET_ERR_MSG = "Request was not completed: Network Error. A connection to the server "
         + "could not be established (unreachable / refused) or it timed out.";
+    private static final HttpHeaders NO_HEADERS = HttpHeaders.of(Map.of(), (k, v) -> true);
 
     private HttpResponse<String> res;
     private Throwable ex;
+    private long firstByteNanos;
+    private long totalNanos;
 
     /**
      * Constructs an instance wrapping a successful HTTP response.
@@ -36,6 +41,19 @@ public class HttpSendOutcomeWrapper {
         this.res = res;
     }
 
+    /**
+     * Constructs an instance wrapping a successful HTTP response and the time it took to receive it.
+     *
+     * @param res the HTTP response
+     * @param firstByteNanos time elapsed from sending the request until the status and headers were received
+     * @param totalNanos time elapsed from sending the request until the whole response was received
+     */
+    public HttpSendOutcomeWrapper(HttpResponse<String> res, long firstByteNanos, long totalNanos) {
+        this.res = res;
+        this.firstByteNanos = firstByteNanos;
+        this.totalNanos = totalNanos;
+    }
+
     /**
      * Constructs an instance wrapping an exception encountered during the request.
      *
@@ -76,6 +94,35 @@ public class HttpSendOutcomeWrapper {
         return isNull(this.ex) ? this.res.body() : NET_ERR_MSG;
     }
 
+    /**
+     * Gets the headers of the HTTP response.
+     * <p>
+     * If an exception was encountered during the request, this method returns an empty set of headers.
+     *
+     * @return the headers of the HTTP response or no headers if an exception occurred
+     */
+    public HttpHeaders getHeaders() {
+        return isNull(this.ex) && nonNull(this.res) && nonNull(this.res.headers()) ? this.res.headers() : NO_HEADERS;
+    }
+
+    /**
+     * Gets the time elapsed from sending the request until the response status and headers were received.
+     *
+     * @return the time to first byte in nanoseconds, or 0 if it was not measured
+     */
+    public long getFirstByteNanos() {
+        return this.firstByteNanos;
+    }
+
+    /**
+     * Gets the time elapsed from sending the request until the whole response was received.
+     *
+     * @return the total response time in nanoseconds, or 0 if it was not measured
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
     /**
      * Sets the HTTP response for this wrapper. Used for tests.
      *
@@ -0,0 +1,121 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events of the application, to find out where the time of a slow run goes.
+ * <p>
+ * Events are only written while a recording is in progress. Otherwise {@code begin}, {@code end} and {@code commit}
+ * do nothing, so callers only need to check {@code shouldCommit()} before computing costly fields. Stack traces are
+ * not recorded, since the events are always emitted from the same places.
+ */
+public final class JfrEvents {
+    static final String CATEGORY = "HTTP Validator";
+
+    private JfrEvents() {}
+
+    @Name("httpvalidator.Run")
+    @Label("Validation Run")
+    @Description("A run of all the validation tasks")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Run extends Event {
+        @Label("Pages")
+        public int pages;
+        @Label("Tasks")
+        public int tasksTotal;
+        @Label("Successful Tasks")
+        public int tasksOk;
+        @Label("Failed Tasks")
+        public int tasksFailed;
+    }
+
+    @Name("httpvalidator.RequestBuild")
+    @Label("Request Build")
+    @Description("Building the HTTP requests of a page of tasks")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class RequestBuild extends Event {
+        @Label("Requests")
+        public int requests;
+    }
+
+    @Name("httpvalidator.TaskRequest")
+    @Label("Task Request")
+    @Description("An HTTP request of a task, from the moment it is sent until the whole response is received")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class TaskRequest extends Event {
+        @Label("URL")
+        public String url;
+        @Label("Method")
+        public String method;
+        @Label("Status Code")
+        @Description("The status code of the response, or -1 if no response was received")
+        public int statusCode;
+        @Label("Response Size")
+        @Description("The size of the response body, encoded as UTF-8")
+        @DataAmount
+        public long responseBytes;
+        @Label("Time Queued")
+        @Description("Time spent waiting for the concurrency limit before the request was sent")
+        @Timespan
+        public long queued;
+        @Label("Time to First Byte")
+        @Timespan
+        public long firstByte;
+    }
+
+    @Name("httpvalidator.TaskValidation")
+    @Label("Task Validation")
+    @Description("The validation of the response of a task")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class TaskValidation extends Event {
+        @Label("URL")
+        public String url;
+        @Label("Outcome")
+        @Description("OK, or the class of the failure")
+        public String outcome;
+    }
+
+    @Name("httpvalidator.DataFileLoad")
+    @Label("Data File Load")
+    @Description("A reload of the tasks after the data file was modified")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class DataFileLoad extends Event {
+        @Label("Data File Size")
+        @DataAmount
+        public long bytes;
+        @Label("Tasks")
+        public int tasks;
+        @Label("Journal Changes")
+        public int journalChanges;
+        @Label("Successful")
+        public boolean success;
+    }
+
+    @Name("httpvalidator.Notification")
+    @Label("Notification")
+    @Description("The sending of a notification email")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static class Notification extends Event {
+        @Label("Subject")
+        public String subject;
+        @Label("Body Size")
+        @Description("The size of the body, encoded as UTF-8")
+        @DataAmount
+        public long bodyBytes;
+        @Label("Delivered")
+        public boolean delivered;
+    }
+}
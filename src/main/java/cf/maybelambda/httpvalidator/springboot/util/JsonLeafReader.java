@@ -0,0 +1,147 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.util.Arrays;
+
+/**
+ * Reads a JSON document as a flat sequence of leaves, each one being a location (path) and a canonical value.
+ * <p>
+ * Leaves are scalar values and empty containers, visited in document order. Values are canonicalized so that
+ * documents that differ only in formatting produce the same sequence: strings are prefixed with a quote character
+ * to set them apart from other types, numbers are normalized ({@code 1.50} and {@code 1.5} are the same value) and
+ * empty containers are represented as {@code {}} and {@code []}.
+ * Paths use the syntax of {@link cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion}, with property
+ * names that contain path delimiters written as {@code ['name']}.
+ * <p>
+ * The document is never materialized as a tree: a streaming parser is advanced one leaf at a time.
+ */
+public final class JsonLeafReader implements AutoCloseable {
+    /** Path of the document root. */
+    public static final String ROOT = "$";
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final JsonParser parser;
+    private final StringBuilder path = new StringBuilder(ROOT);
+    // Per enclosing container: length of its own path, last element index (arrays), whether it has no children yet
+    private int[] marks = new int[8];
+    private int[] indexes = new int[8];
+    private boolean[] arrays = new boolean[8];
+    private boolean[] empty = new boolean[8];
+    private int depth;
+    private String value;
+
+    /**
+     * Constructor for JsonLeafReader.
+     *
+     * @param json The JSON document to read.
+     * @throws JacksonException if the parser cannot be created.
+     */
+    public JsonLeafReader(String json) throws JacksonException {
+        this.parser = factory.createParser(ObjectReadContext.empty(), json);
+    }
+
+    /**
+     * Advances to the next leaf of the document.
+     *
+     * @return {@code true} if a leaf was found, {@code false} at the end of the document.
+     * @throws JacksonException if the document is not well-formed JSON.
+     */
+    public boolean next() throws JacksonException {
+        JsonToken token;
+        while ((token = this.parser.nextToken()) != null) {
+            switch (token) {
+                case PROPERTY_NAME -> {
+                    this.empty[this.depth - 1] = false;
+                    this.path.setLength(this.marks[this.depth - 1]);
+                    appendName(this.path, this.parser.currentName());
+                }
+                case START_OBJECT, START_ARRAY -> {
+                    this.beforeValue();
+                    this.push(token == JsonToken.START_ARRAY);
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    this.depth--;
+                    this.path.setLength(this.marks[this.depth]);
+                    if (this.empty[this.depth]) {
+                        this.value = token == JsonToken.END_ARRAY ? "[]" : "{}";
+                        return true;
+                    }
+                }
+                default -> {
+                    this.beforeValue();
+                    this.value = canonicalScalar(this.parser, token);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the location of the current leaf.
+     *
+     * @return The path of the current leaf.
+     */
+    public String path() { return this.path.toString(); }
+
+    /**
+     * Gets the canonical value of the current leaf.
+     *
+     * @return The value of the current leaf.
+     */
+    public String value() { return this.value; }
+
+    @Override
+    public void close() { this.parser.close(); }
+
+    /**
+     * Appends a property step to a path.
+     *
+     * @param path The path to extend.
+     * @param name The name of the property.
+     */
+    static void appendName(StringBuilder path, String name) {
+        if (name.isEmpty() || name.chars().anyMatch(c -> c == '.' || c == '[' || c == ']' || c == '\'')) {
+            path.append("['").append(name.replace("'", "\\'")).append("']");
+        } else {
+            path.append('.').append(name);
+        }
+    }
+
+    private static String canonicalScalar(JsonParser parser, JsonToken token) {
+        return switch (token) {
+            case VALUE_STRING -> '"' + parser.getString();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getDecimalValue().stripTrailingZeros().toString();
+            default -> token.asString();
+        };
+    }
+
+    private void beforeValue() {
+        if (this.depth > 0 && this.arrays[this.depth - 1]) {
+            this.empty[this.depth - 1] = false;
+            this.path.setLength(this.marks[this.depth - 1]);
+            this.path.append('[').append(++this.indexes[this.depth - 1]).append(']');
+        }
+    }
+
+    private void push(boolean isArray) {
+        if (this.depth == this.marks.length) {
+            int len = this.depth * 2;
+            this.marks = Arrays.copyOf(this.marks, len);
+            this.indexes = Arrays.copyOf(this.indexes, len);
+            this.arrays = Arrays.copyOf(this.arrays, len);
+            this.empty = Arrays.copyOf(this.empty, len);
+        }
+        this.marks[this.depth] = this.path.length();
+        this.indexes[this.depth] = -1;
+        this.arrays[this.depth] = isArray;
+        this.empty[this.depth] = true;
+        this.depth++;
+    }
+}
@@ -0,0 +1,161 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EXISTS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
+
+/**
+ * Evaluates {@link JsonPathAssertion}s over a JSON document in a single forward pass of a streaming parser.
+ * <p>
+ * No tree representation of the document is built: only the chain of containers enclosing the current token
+ * is tracked, so memory usage depends on the nesting depth of the document and not on its size. Containers that
+ * cannot hold any of the pending locations are skipped entirely, and parsing stops as soon as every assertion
+ * has been decided.
+ */
+public final class JsonPathStreamEvaluator {
+    private static final JsonFactory factory = new JsonFactory();
+    private static final byte PENDING = 0;
+    private static final byte COUNTING = 1;
+    private static final byte PASSED = 2;
+    private static final byte FAILED = 3;
+
+    private final List<JsonPathAssertion> assertions;
+    private final byte[] states;
+    private int undecided;
+    private boolean failed;
+    // Enclosing containers of the current token: property name (objects) or element index (arrays)
+    private String[] names = new String[8];
+    private int[] indexes = new int[8];
+    private boolean[] arrays = new boolean[8];
+    private int depth;
+
+    private JsonPathStreamEvaluator(List<JsonPathAssertion> assertions) {
+        this.assertions = assertions;
+        this.states = new byte[assertions.size()];
+        this.undecided = assertions.size();
+    }
+
+    /**
+     * Evaluates the given assertions against a JSON document.
+     *
+     * @param body The JSON document.
+     * @param assertions The assertions to evaluate.
+     * @return The first assertion that does not hold, or {@code null} if all of them hold.
+     */
+    public static JsonPathAssertion findFailure(String body, List<JsonPathAssertion> assertions) {
+        if (assertions.isEmpty()) return null;
+
+        JsonPathStreamEvaluator ev = new JsonPathStreamEvaluator(assertions);
+        try (JsonParser parser = factory.createParser(ObjectReadContext.empty(), body)) {
+            ev.run(parser);
+        } catch (JacksonException e) {
+            // Not (well-formed) JSON: every assertion still pending is considered failed
+        }
+
+        return ev.firstFailure();
+    }
+
+    private void run(JsonParser parser) {
+        JsonToken token;
+        while (this.undecided > 0 && !this.failed && (token = parser.nextToken()) != null) {
+            switch (token) {
+                case PROPERTY_NAME -> this.names[this.depth - 1] = parser.currentName();
+                case END_OBJECT, END_ARRAY -> this.closeContainer();
+                default -> this.onValue(parser, token);
+            }
+        }
+    }
+
+    private void onValue(JsonParser parser, JsonToken token) {
+        if (this.depth > 0 && this.arrays[this.depth - 1]) this.indexes[this.depth - 1]++;
+
+        boolean descend = false;
+        for (int i = 0; i < this.states.length; i++) {
+            if (this.states[i] != PENDING) continue;
+            JsonPathAssertion a = this.assertions.get(i);
+            if (!this.isPrefixOfPath(a)) continue;
+
+            if (a.depth() > this.depth) {
+                descend = true;
+            } else if (token.isScalarValue()) {
+                this.decide(i, a.acceptsScalar(parser.getString()));
+            } else if (a.kind() == SIZE && token == JsonToken.START_ARRAY) {
+                this.states[i] = COUNTING;
+                descend = true;
+            } else {
+                this.decide(i, a.kind() == EXISTS);
+            }
+        }
+
+        if (token.isStructStart()) {
+            if (descend) {
+                this.openContainer(token == JsonToken.START_ARRAY);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void openContainer(boolean isArray) {
+        if (this.depth == this.names.length) {
+            int len = this.depth * 2;
+            this.names = Arrays.copyOf(this.names, len);
+            this.indexes = Arrays.copyOf(this.indexes, len);
+            this.arrays = Arrays.copyOf(this.arrays, len);
+        }
+        this.names[this.depth] = null;
+        this.indexes[this.depth] = -1;
+        this.arrays[this.depth] = isArray;
+        this.depth++;
+    }
+
+    private void closeContainer() {
+        this.depth--;
+        int size = this.indexes[this.depth] + 1;
+        for (int i = 0; i < this.states.length; i++) {
+            if (this.states[i] == COUNTING && this.assertions.get(i).depth() == this.depth) {
+                this.decide(i, this.assertions.get(i).acceptsSize(size));
+            }
+        }
+    }
+
+    /**
+     * Checks if the location of the current token is the one targeted by the assertion or an ancestor of it.
+     */
+    private boolean isPrefixOfPath(JsonPathAssertion a) {
+        if (a.depth() < this.depth) return false;
+        for (int step = 0; step < this.depth; step++) {
+            String name = this.arrays[step] ? null : this.names[step];
+            int index = this.arrays[step] ? this.indexes[step] : -1;
+            if (!a.stepMatches(step, name, index)) return false;
+        }
+        return true;
+    }
+
+    private void decide(int i, boolean passed) {
+        this.states[i] = passed ? PASSED : FAILED;
+        this.failed |= !passed;
+        this.undecided--;
+    }
+
+    /**
+     * Gets the assertion that failed or, if evaluation ended without failures, the first one left undecided.
+     */
+    private JsonPathAssertion firstFailure() {
+        JsonPathAssertion res = null;
+        for (int i = 0; i < this.states.length; i++) {
+            if (this.states[i] == FAILED) return this.assertions.get(i);
+            if (this.states[i] != PASSED && res == null) res = this.assertions.get(i);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,203 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable summary of a distribution of latencies, to estimate its percentiles without keeping every value.
+ * <p>
+ * Values are counted in buckets whose bounds grow by a constant factor, so every percentile is estimated with the
+ * same relative error (about {@value #RELATIVE_ACCURACY_PERCENT}%) whatever the magnitude of the latencies, recording
+ * a value takes constant time and two sketches are merged by adding their counts. Values below
+ * {@value #MIN_NANOS} ns are counted together, as are values above {@value #MAX_NANOS} ns.
+ * <p>
+ * Only the range of buckets between the lowest and the highest one with values is kept, grown as values fall outside
+ * it, so a sketch of latencies of similar magnitude takes a few dozen counters instead of one per possible bucket.
+ * An empty sketch keeps no counters at all.
+ * <p>
+ * Not thread-safe.
+ */
+public class LatencySketch {
+    static final long MIN_NANOS = 100_000;
+    static final long MAX_NANOS = 100_000_000_000L;
+    static final int RELATIVE_ACCURACY_PERCENT = 5;
+    private static final double GAMMA = 1.1;
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // One bucket for values up to the minimum, then buckets up to the maximum, the last one also holding larger values
+    static final int BUCKETS = 2 + (int) Math.ceil(Math.log((double) MAX_NANOS / MIN_NANOS) / LOG_GAMMA);
+    // Buckets added at least when the range grows, so that values spreading one bucket at a time do not copy it each time
+    private static final int MIN_GROWTH = 16;
+    private static final int[] NO_COUNTS = new int[0];
+    // Counts of the buckets from the first one kept on
+    private int[] counts = NO_COUNTS;
+    private int first;
+    private long count;
+    private long maxNanos;
+
+    /**
+     * Records a value.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        int i = bucketOf(nanos);
+        this.ensureRange(i, i);
+        this.counts[i - this.first]++;
+        this.count++;
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+    }
+
+    /**
+     * Adds the values recorded by another sketch to this one.
+     *
+     * @param other the other sketch
+     */
+    public void merge(LatencySketch other) {
+        if (other.counts.length > 0) {
+            this.ensureRange(other.first, other.first + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                this.counts[other.first + i - this.first] += other.counts[i];
+            }
+        }
+        this.count += other.count;
+        this.maxNanos = Math.max(this.maxNanos, other.maxNanos);
+    }
+
+    /**
+     * Empties the sketch, keeping its counters for the next values.
+     */
+    public void clear() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.maxNanos = 0;
+    }
+
+    /**
+     * Grows the range of buckets kept so that it includes the given ones, by at least {@value #MIN_GROWTH} buckets
+     * towards the side where it grows.
+     *
+     * @param from the lowest bucket to include
+     * @param to the highest bucket to include
+     */
+    private void ensureRange(int from, int to) {
+        int last = this.first + this.counts.length - 1;
+        if (this.counts.length > 0 && from >= this.first && to <= last) {
+            return;
+        }
+        int newFirst;
+        int newLast;
+        if (this.counts.length == 0) {
+            newFirst = Math.max(0, from - MIN_GROWTH / 2);
+            newLast = Math.min(BUCKETS - 1, to + MIN_GROWTH / 2);
+        } else {
+            newFirst = from < this.first ? Math.max(0, Math.min(from, this.first - MIN_GROWTH)) : this.first;
+            newLast = to > last ? Math.min(BUCKETS - 1, Math.max(to, last + MIN_GROWTH)) : last;
+        }
+        int[] grown = new int[newLast - newFirst + 1];
+        if (this.counts.length > 0) {
+            System.arraycopy(this.counts, 0, grown, this.first - newFirst, this.counts.length);
+        }
+        this.counts = grown;
+        this.first = newFirst;
+    }
+
+    /**
+     * Gets the number of values recorded.
+     *
+     * @return the number of values
+     */
+    public long getCount() { return this.count; }
+
+    /**
+     * Gets the largest value recorded. Exact for the values recorded by this sketch or the sketches merged into it,
+     * estimated like the percentiles for sketches read with {@link #readFrom}.
+     *
+     * @return the largest value in nanoseconds, or 0 if no value was recorded
+     */
+    public long getMaxNanos() { return this.maxNanos; }
+
+    /**
+     * Estimates a percentile of the values recorded.
+     *
+     * @param q the percentile, between 0 and 1 (e.g. 0.99)
+     * @return the estimated value in nanoseconds, or 0 if no value was recorded
+     */
+    public long quantileNanos(double q) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * this.count));
+        long seen = 0;
+        int i = 0;
+        while (i < this.counts.length - 1 && (seen += this.counts[i]) < rank) {
+            i++;
+        }
+
+        return valueOf(this.first + i);
+    }
+
+    private static int bucketOf(long nanos) {
+        if (nanos <= MIN_NANOS) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 1 + (int) (Math.log((double) nanos / MIN_NANOS) / LOG_GAMMA));
+    }
+
+    /**
+     * Gets the value that represents a bucket, whose relative distance to both bounds of the bucket is the same.
+     */
+    private static long valueOf(int bucket) {
+        if (bucket == 0) {
+            return MIN_NANOS;
+        }
+        double lower = MIN_NANOS * Math.pow(GAMMA, bucket - 1);
+        return Math.round(2 * lower * GAMMA / (1 + GAMMA));
+    }
+
+    /**
+     * Writes the sketch, including only the buckets with values.
+     *
+     * @param out the output
+     * @throws IOException if the sketch cannot be written
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        int used = 0;
+        for (int c : this.counts) {
+            used += c > 0 ? 1 : 0;
+        }
+        out.writeShort(used);
+        for (int i = 0; i < this.counts.length; i++) {
+            if (this.counts[i] > 0) {
+                out.writeShort(this.first + i);
+                out.writeInt(this.counts[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a sketch written by {@link #writeTo}.
+     *
+     * @param in the input
+     * @return the sketch
+     * @throws IOException if the sketch cannot be read or is invalid
+     */
+    public static LatencySketch readFrom(DataInputStream in) throws IOException {
+        LatencySketch res = new LatencySketch();
+        int used = in.readShort();
+        for (int k = 0; k < used; k++) {
+            int i = in.readShort();
+            int c = in.readInt();
+            if (i < 0 || i >= BUCKETS || c < 0) {
+                throw new IOException("Invalid latency sketch bucket: " + i);
+            }
+            res.ensureRange(i, i);
+            res.counts[i - res.first] += c;
+            res.count += c;
+            res.maxNanos = Math.max(res.maxNanos, valueOf(i));
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,75 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size history of the last items added, which replace the oldest ones once it is full.
+ * <p>
+ * Neither writers nor readers take locks: every item is stored along with its sequence number, so readers skip the
+ * slots being written or already overwritten instead of waiting for them. Items should be immutable.
+ *
+ * @param <T> The type of the items.
+ */
+public class RingBuffer<T> {
+    private final AtomicReferenceArray<Entry<T>> slots;
+    private final AtomicLong added = new AtomicLong();
+
+    /**
+     * An item along with the number of items added before it.
+     */
+    private record Entry<T>(long seq, T item) {}
+
+    /**
+     * Constructs an empty history.
+     *
+     * @param capacity The number of items kept.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Adds an item, replacing the oldest one if the history is full.
+     *
+     * @param item The item.
+     */
+    public void add(T item) {
+        long seq = this.added.getAndIncrement();
+        this.slots.set((int) (seq % this.slots.length()), new Entry<>(seq, item));
+    }
+
+    /**
+     * Gets the items currently kept.
+     *
+     * @return The items, from the most recently added to the oldest one.
+     */
+    public List<T> getAll() {
+        long end = this.added.get();
+        List<T> res = new ArrayList<>();
+        for (long seq = end - 1; seq >= Math.max(0, end - this.slots.length()); seq--) {
+            Entry<T> e = this.slots.get((int) (seq % this.slots.length()));
+            // Not written yet, or already replaced by a newer item
+            if (e != null && e.seq() == seq) {
+                res.add(e.item());
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Gets the maximum number of items kept.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.slots.length();
+    }
+}
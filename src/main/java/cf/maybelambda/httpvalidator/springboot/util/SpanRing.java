@@ -0,0 +1,158 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated ring of task spans: the moments at which the request of a task went through each phase, from being
+ * ready to be sent until its response was validated.
+ * <p>
+ * All the storage is allocated up front and reused, so recording a span only reserves a slot with an atomic counter
+ * and writes primitives and references already held by the caller, without allocating. When more spans than the
+ * capacity are recorded, the oldest ones are overwritten and counted as dropped.
+ * <p>
+ * Spans may be added concurrently, but must only be read once every writer is done, e.g. after waiting for the
+ * futures that add them.
+ */
+public class SpanRing {
+    public static final int READY = 0;
+    public static final int DISPATCHED = 1;
+    public static final int FIRST_BYTE = 2;
+    public static final int RECEIVED = 3;
+    public static final int VALIDATION_START = 4;
+    public static final int VALIDATION_END = 5;
+    public static final int MARKS = 6;
+    private final int capacity;
+    private final int[] taskIds;
+    private final String[] urls;
+    private final int[] statusCodes;
+    private final String[] outcomes;
+    private final long[] marks;
+    private final AtomicLong next = new AtomicLong();
+
+    /**
+     * Constructs an empty ring.
+     *
+     * @param capacity The maximum number of spans kept.
+     * @throws IllegalArgumentException If the capacity is not positive.
+     */
+    public SpanRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.taskIds = new int[capacity];
+        this.urls = new String[capacity];
+        this.statusCodes = new int[capacity];
+        this.outcomes = new String[capacity];
+        this.marks = new long[capacity * MARKS];
+    }
+
+    /**
+     * Records the span of a task. Times are {@link System#nanoTime()} values.
+     *
+     * @param taskId The position of the task among all the tasks.
+     * @param url The URL of the request.
+     * @param statusCode The status code of the response.
+     * @param outcome The outcome of the validation.
+     * @param readyAt When the request was ready to be sent.
+     * @param dispatchedAt When the request was sent, after waiting for the concurrency limit.
+     * @param firstByteAt When the response status and headers were received.
+     * @param receivedAt When the whole response was received.
+     * @param validationStartAt When the validation of the response started.
+     * @param validationEndAt When the validation of the response ended.
+     */
+    public void add(int taskId, String url, int statusCode, String outcome, long readyAt, long dispatchedAt,
+                    long firstByteAt, long receivedAt, long validationStartAt, long validationEndAt) {
+        int slot = (int) (this.next.getAndIncrement() % this.capacity);
+        this.taskIds[slot] = taskId;
+        this.urls[slot] = url;
+        this.statusCodes[slot] = statusCode;
+        this.outcomes[slot] = outcome;
+        int base = slot * MARKS;
+        this.marks[base + READY] = readyAt;
+        this.marks[base + DISPATCHED] = dispatchedAt;
+        this.marks[base + FIRST_BYTE] = firstByteAt;
+        this.marks[base + RECEIVED] = receivedAt;
+        this.marks[base + VALIDATION_START] = validationStartAt;
+        this.marks[base + VALIDATION_END] = validationEndAt;
+    }
+
+    /**
+     * Forgets every span, keeping the storage.
+     */
+    public void clear() {
+        this.next.set(0);
+        Arrays.fill(this.urls, null);
+        Arrays.fill(this.outcomes, null);
+    }
+
+    /**
+     * Gets the number of spans kept.
+     *
+     * @return The number of spans, at most the capacity.
+     */
+    public int size() { return (int) Math.min(this.next.get(), this.capacity); }
+
+    /**
+     * Gets the number of spans overwritten by newer ones since the ring was cleared.
+     *
+     * @return The number of spans dropped.
+     */
+    public long getDropped() { return Math.max(0, this.next.get() - this.capacity); }
+
+    /**
+     * Gets the maximum number of spans kept.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() { return this.capacity; }
+
+    /**
+     * Gets the slot of a span kept, from the oldest one.
+     */
+    private int slot(int i) {
+        return (int) ((this.next.get() - this.size() + i) % this.capacity);
+    }
+
+    /**
+     * Gets the task of a span.
+     *
+     * @param i The position of the span among the spans kept, from the oldest one.
+     * @return The position of the task among all the tasks.
+     */
+    public int getTaskId(int i) { return this.taskIds[this.slot(i)]; }
+
+    /**
+     * Gets the URL of the request of a span.
+     *
+     * @param i The position of the span among the spans kept, from the oldest one.
+     * @return The URL.
+     */
+    public String getUrl(int i) { return this.urls[this.slot(i)]; }
+
+    /**
+     * Gets the status code of the response of a span.
+     *
+     * @param i The position of the span among the spans kept, from the oldest one.
+     * @return The status code.
+     */
+    public int getStatusCode(int i) { return this.statusCodes[this.slot(i)]; }
+
+    /**
+     * Gets the outcome of the validation of a span.
+     *
+     * @param i The position of the span among the spans kept, from the oldest one.
+     * @return The outcome.
+     */
+    public String getOutcome(int i) { return this.outcomes[this.slot(i)]; }
+
+    /**
+     * Gets the moment at which a span went through a phase.
+     *
+     * @param i The position of the span among the spans kept, from the oldest one.
+     * @param mark The phase boundary, from {@link #READY} to {@link #VALIDATION_END}.
+     * @return The {@link System#nanoTime()} value.
+     */
+    public long getMark(int i, int mark) { return this.marks[this.slot(i) * MARKS + mark]; }
+}
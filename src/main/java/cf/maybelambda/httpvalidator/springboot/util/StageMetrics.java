@@ -0,0 +1,84 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe counters of the time spent by the items that went through one stage of a processing pipeline.
+ * <p>
+ * Items are recorded concurrently from the threads that run the stage, so the counters are striped
+ * ({@link LongAdder}) instead of being guarded by a lock.
+ */
+public class StageMetrics {
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs an empty set of counters.
+     *
+     * @param name the name of the stage
+     */
+    public StageMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records an item that went through the stage.
+     *
+     * @param nanos time spent by the item in the stage, in nanoseconds
+     */
+    public void record(long nanos) {
+        this.count.increment();
+        this.totalNanos.add(nanos);
+        this.maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Gets the name of the stage.
+     *
+     * @return the name of the stage
+     */
+    public String getName() { return this.name; }
+
+    /**
+     * Gets the number of items recorded.
+     *
+     * @return the number of items
+     */
+    public long getCount() { return this.count.sum(); }
+
+    /**
+     * Gets the sum of the times spent by all items.
+     *
+     * @return the total time in nanoseconds
+     */
+    public long getTotalNanos() { return this.totalNanos.sum(); }
+
+    /**
+     * Gets the longest time spent by a single item.
+     *
+     * @return the maximum time in nanoseconds
+     */
+    public long getMaxNanos() { return this.maxNanos.get(); }
+
+    /**
+     * Gets the average time spent by an item.
+     *
+     * @return the mean time in nanoseconds, or 0 if no item was recorded
+     */
+    public long getMeanNanos() {
+        long n = this.getCount();
+        return n == 0 ? 0 : this.getTotalNanos() / n;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: count=%d, mean=%.3f ms, max=%.3f ms", this.name, this.getCount(),
+            this.getMeanNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1),
+            this.getMaxNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
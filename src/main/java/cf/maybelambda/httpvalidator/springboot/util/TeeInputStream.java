@@ -0,0 +1,128 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An input stream that copies every byte read from it to an output stream, up to a maximum number of bytes.
+ * <p>
+ * It allows a consumer, such as an XML parser, to read a stream while it is being saved, so the data is read only
+ * once and never held entirely in memory. Closing this stream closes neither the wrapped stream nor the copy;
+ * both remain owned by the caller, which can call {@link #drain()} to copy whatever the consumer did not read.
+ */
+public class TeeInputStream extends FilterInputStream {
+    private final OutputStream copy;
+    private final long limit;
+    private long count;
+
+    /**
+     * Thrown when more bytes than allowed are read.
+     */
+    public static class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(long limit) {
+            super("Input exceeds the maximum size of " + limit + " bytes");
+        }
+    }
+
+    /**
+     * Constructs a stream that copies the data of another one.
+     *
+     * @param in the stream to read from
+     * @param copy the stream every byte read is written to
+     * @param limit the maximum number of bytes that can be read
+     */
+    public TeeInputStream(InputStream in, OutputStream copy, long limit) {
+        super(requireNonNull(in));
+        this.copy = requireNonNull(copy);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            this.count(1);
+            this.copy.write(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            this.count(n);
+            this.copy.write(b, off, n);
+        }
+        return n;
+    }
+
+    /**
+     * Skips bytes by reading them, so that they are copied too.
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buf = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        int r;
+        while (skipped < n && (r = this.read(buf, 0, (int) Math.min(buf.length, n - skipped))) > 0) {
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Does not close the wrapped stream, see {@link #drain()}.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Reads the rest of the wrapped stream, copying it.
+     *
+     * @throws IOException if an I/O error occurs or the limit is exceeded
+     */
+    public void drain() throws IOException {
+        byte[] buf = new byte[8192];
+        while (this.read(buf, 0, buf.length) >= 0) {
+            // Copying is done by read
+        }
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     *
+     * @return the number of bytes
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    private void count(int n) throws LimitExceededException {
+        this.count += n;
+        if (this.count > this.limit) {
+            throw new LimitExceededException(this.limit);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import java.net.URI;
+import java.util.Locale;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Extracts the hosts of task URLs, used to group tasks and their outcomes by the server they target.
+ */
+public final class UrlHosts {
+    private UrlHosts() {}
+
+    /**
+     * Gets the host of a URL.
+     *
+     * @param url the URL
+     * @return the host of the URL in lower case, or an empty string if it has none
+     */
+    public static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return isNull(host) ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
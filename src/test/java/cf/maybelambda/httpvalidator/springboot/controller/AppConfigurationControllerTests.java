@@ -22,15 +22,19 @@ import java.util.Map;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.CRON_EXPRESSION_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.INVALID_CRON_EXPRESSION_ERROR_MSG;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.INVALID_DATA_FILE_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.NOT_EDITABLE_ERROR_MSG;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.UPD_DATA_FILE_ENDPOINT;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.UPD_DATA_FILE_ERROR_MSG;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.UPD_RUN_SCHEDULE_ENDPOINT;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.ERROR_VALUE;
 import static cf.maybelambda.httpvalidator.springboot.filter.JwtRequestFilter.AUTHORIZATION_HEADER_KEY;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -53,6 +57,7 @@ public class AppConfigurationControllerTests {
     public void setUp() {
         reqBody.put(CRON_EXPRESSION_KEY, "?");
         given(this.authServ.isValidToken(anyString())).willReturn(true);
+        given(this.dao.isEditable()).willReturn(true);
     }
 
     @Test
@@ -117,6 +122,20 @@ public class AppConfigurationControllerTests {
         );
     }
 
+    @Test
+    void updateValidatorDataFileReturns409ConflictWhenTasksAreNotReadFromDataFile() throws Exception {
+        given(this.dao.isEditable()).willReturn(false);
+
+        this.mockMvc.perform(
+            put(UPD_DATA_FILE_ENDPOINT)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(NOT_EDITABLE_ERROR_MSG)
+        );
+        verify(this.dao, never()).updateDataFile(any());
+    }
+
     @Test
     void updateValidatorDataFileReturns200WhenDataFileIsUpdated() throws Exception {
         this.mockMvc.perform(
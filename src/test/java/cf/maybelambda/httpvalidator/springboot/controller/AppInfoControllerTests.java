@@ -1,32 +1,57 @@
 package cf.maybelambda.httpvalidator.springboot.controller;
 
-import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
 import cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService;
+import cf.maybelambda.httpvalidator.springboot.service.EngineMetrics;
 import cf.maybelambda.httpvalidator.springboot.service.EventListenerService;
 import cf.maybelambda.httpvalidator.springboot.service.JwtAuthenticationService;
+import cf.maybelambda.httpvalidator.springboot.service.LatencyHistograms;
+import cf.maybelambda.httpvalidator.springboot.service.RunProfiler;
+import cf.maybelambda.httpvalidator.springboot.service.RunSummary;
+import cf.maybelambda.httpvalidator.springboot.service.RunTrace;
+import cf.maybelambda.httpvalidator.springboot.service.RunTracer;
+import cf.maybelambda.httpvalidator.springboot.service.SloTracker;
 import cf.maybelambda.httpvalidator.springboot.service.ValidationService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.CONFIG_STATUS_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.DATAFILE_STATUS_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.ERROR_VALUE;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.INVALID_QUERY_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.INVALID_TRACE_FORMAT_ERROR_MSG;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.NO_LASTRUN_DATA_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.NO_PROFILE_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.NO_TRACE_ERROR_MSG;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.OK_VALUE;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.START_TIME_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_FAILED_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_TOTAL_KEY;
 import static cf.maybelambda.httpvalidator.springboot.filter.JwtRequestFilter.AUTHORIZATION_HEADER_KEY;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -35,7 +60,7 @@ public class AppInfoControllerTests {
     @Autowired
     private MockMvc mockMvc;
     @MockitoBean
-    private XMLValidationTaskDao dao;
+    private TaskSource taskSource;
     @MockitoBean
     private EmailNotificationService mailServ;
     @MockitoBean
@@ -44,6 +69,16 @@ public class AppInfoControllerTests {
     private EventListenerService eventServ;
     @MockitoBean
     private JwtAuthenticationService authServ;
+    @MockitoBean
+    private ResultsIndex resultsIndex;
+    @MockitoBean
+    private EngineMetrics metrics;
+    @MockitoBean
+    private RunProfiler profiler;
+    @MockitoBean
+    private RunTracer tracer;
+    @TempDir
+    private Path dir;
 
     @Test
     void informWebAppStatusReturns200AndJSONStatusDataWhenNoInitErrors() throws Exception {
@@ -61,7 +96,7 @@ public class AppInfoControllerTests {
 
     @Test
     void informWebAppStatusReturnsDataFileStatusOkWhenParserInformsStatustOk() throws Exception {
-        given(this.dao.isDataFileStatusOk()).willReturn(true);
+        given(this.taskSource.isDataFileStatusOk()).willReturn(true);
         given(this.authServ.isValidToken(anyString())).willReturn(true);
 
         this.mockMvc.perform(get(AppInfoController.STATUS_ENDPOINT)
@@ -73,7 +108,7 @@ public class AppInfoControllerTests {
 
     @Test
     void informWebAppStatusReturnsDataFileErrorStatusWhenParserInformsStatusNotOk() throws Exception {
-        given(this.dao.isDataFileStatusOk()).willReturn(false);
+        given(this.taskSource.isDataFileStatusOk()).willReturn(false);
         given(this.authServ.isValidToken(anyString())).willReturn(true);
 
         this.mockMvc.perform(get(AppInfoController.STATUS_ENDPOINT)
@@ -125,7 +160,7 @@ public class AppInfoControllerTests {
 
     @Test
     void informWebAppStatusReturns401UnauthorizedWhenInvalidJWTInRequestHeader() throws Exception {
-        given(this.dao.isDataFileStatusOk()).willReturn(true);
+        given(this.taskSource.isDataFileStatusOk()).willReturn(true);
         given(this.authServ.isValidToken(anyString())).willReturn(false);
 
         this.mockMvc.perform(get(AppInfoController.STATUS_ENDPOINT)
@@ -149,4 +184,211 @@ public class AppInfoControllerTests {
             .andExpect(jsonPath("$." + TASKS_TOTAL_KEY).value("3")
         );
     }
+
+    @Test
+    void informRunHistoryReturns200AndRunsFromMostRecent() throws Exception {
+        given(this.valServ.getRunHistory()).willReturn(List.of(
+            new RunSummary("2002", Duration.ofSeconds(2), 3, 2, 1, List.of()),
+            new RunSummary("2001", Duration.ofSeconds(1), 1, 1, 0, List.of())
+        ));
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.RUNS_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0]." + START_TIME_KEY).value("2002"))
+            .andExpect(jsonPath("$[0]." + TASKS_FAILED_KEY).value("1"))
+            .andExpect(jsonPath("$[1]." + TASKS_TOTAL_KEY).value("1")
+        );
+    }
+
+    @Test
+    void informRunHistoryReturns200AndEmptyListWhenNoRunCompleted() throws Exception {
+        given(this.valServ.getRunHistory()).willReturn(List.of());
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.RUNS_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty()
+        );
+    }
+
+    @Test
+    void queryResultsReturns200AndPageOfMatchingOutcomes() throws Exception {
+        ResultsIndex.Query q = new ResultsIndex.Query(3L, null, null, true, Instant.parse("2026-01-01T00:00:00Z").toEpochMilli(), Long.MAX_VALUE);
+        given(this.resultsIndex.query(q, 10, 5)).willReturn(new ResultsIndex.ResultPage(11,
+            List.of(new ResultsIndex.Result(Instant.parse("2026-01-02T00:00:00Z"), 3, 503, 12, FailureClass.STATUS_CODE))));
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.RESULTS_ENDPOINT)
+            .param("task", "3").param("failed", "true").param("from", "2026-01-01T00:00:00Z")
+            .param("offset", "10").param("limit", "5")
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(11))
+            .andExpect(jsonPath("$.results[0].taskKey").value(3))
+            .andExpect(jsonPath("$.results[0].statusCode").value(503))
+            .andExpect(jsonPath("$.results[0].failureClass").value("STATUS_CODE")
+        );
+        verify(this.resultsIndex).query(eq(q), eq(10), eq(5));
+    }
+
+    @Test
+    void queryResultsReturns400BadRequestWhenTimeOrPagingIsInvalid() throws Exception {
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.RESULTS_ENDPOINT)
+            .param("from", "yesterday")
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(INVALID_QUERY_ERROR_MSG));
+
+        this.mockMvc.perform(get(AppInfoController.RESULTS_ENDPOINT)
+            .param("limit", "100000")
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isBadRequest()
+        );
+    }
+
+    @Test
+    void informTaskSlosReturns200AndCountersOfEachTask() throws Exception {
+        given(this.valServ.getTaskSlos()).willReturn(List.of(new SloTracker.TaskSlo(2, List.of(
+            new SloTracker.WindowStats("1h", 4, 3, 0.75, 10, 20, 30),
+            new SloTracker.WindowStats("24h", 0, 0, null, 0, 0, 0)
+        ))));
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.SLO_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].taskKey").value(2))
+            .andExpect(jsonPath("$[0].windows[0].window").value("1h"))
+            .andExpect(jsonPath("$[0].windows[0].availability").value(0.75))
+            .andExpect(jsonPath("$[0].windows[0].p99Millis").value(30.0))
+            .andExpect(jsonPath("$[0].windows[1].availability").isEmpty()
+        );
+    }
+
+    @Test
+    void informLatenciesReturns200AndPercentilesByTaskAndHost() throws Exception {
+        LatencyHistograms.Percentiles p = new LatencyHistograms.Percentiles(3, 10, 20, 30, 31);
+        LatencyHistograms.Report r = new LatencyHistograms.Report(Map.of(4L, p), Map.of("example.com", p));
+        given(this.valServ.getLatencyReport()).willReturn(Map.of("last_run", r, "cumulative", r));
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.LATENCY_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.last_run.tasks.4.p90Millis").value(20.0))
+            .andExpect(jsonPath("$.cumulative.hosts['example.com'].maxMillis").value(31.0)
+        );
+    }
+
+    @Test
+    void informMetricsReturnsPrometheusTextExposition() throws Exception {
+        String exposition = "# TYPE httpvalidator_requests_in_flight gauge\nhttpvalidator_requests_in_flight 3\n";
+        given(this.metrics.scrape()).willReturn(exposition);
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.METRICS_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(EngineMetrics.CONTENT_TYPE))
+            .andExpect(content().string(exposition)
+        );
+    }
+
+    @Test
+    void requestProfileRequestsRecordingOfNextRun() throws Exception {
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(post(AppInfoController.PROFILE_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isAccepted());
+        verify(this.profiler).requestNextRun();
+    }
+
+    @Test
+    void informProfileReturnsLastRecordingFile() throws Exception {
+        Path dump = Files.write(this.dir.resolve("run-1.jfr"), new byte[]{1, 2, 3});
+        given(this.profiler.getLastDump()).willReturn(dump);
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.PROFILE_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"run-1.jfr\""))
+            .andExpect(content().bytes(new byte[]{1, 2, 3})
+        );
+    }
+
+    @Test
+    void whenNoRunWasProfiledInformProfileReturnsNotFound() throws Exception {
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.PROFILE_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(NO_PROFILE_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void informTraceReturnsLastTraceInRequestedFormat() throws Exception {
+        RunTrace trace = new RunTrace(0, 0, 0, 0, List.of());
+        given(this.tracer.getLastTrace()).willReturn(trace);
+        given(this.tracer.toJson(trace, "otlp")).willReturn("{\"resourceSpans\":[]}");
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.TRACE_ENDPOINT)
+            .param("format", "otlp")
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$.resourceSpans").isArray()
+        );
+    }
+
+    @Test
+    void whenNoRunWasTracedInformTraceReturnsNotFound() throws Exception {
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.TRACE_ENDPOINT)
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(NO_TRACE_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void whenTraceFormatIsUnknownInformTraceReturnsBadRequest() throws Exception {
+        RunTrace trace = new RunTrace(0, 0, 0, 0, List.of());
+        given(this.tracer.getLastTrace()).willReturn(trace);
+        given(this.tracer.toJson(eq(trace), anyString())).willThrow(IllegalArgumentException.class);
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+
+        this.mockMvc.perform(get(AppInfoController.TRACE_ENDPOINT)
+            .param("format", "xml")
+            .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(INVALID_TRACE_FORMAT_ERROR_MSG)
+        );
+    }
 }
@@ -0,0 +1,291 @@
+package cf.maybelambda.httpvalidator.springboot.controller;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.service.JwtAuthenticationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static cf.maybelambda.httpvalidator.springboot.controller.AppConfigurationController.NOT_EDITABLE_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.ERROR_VALUE;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.INVALID_TASK_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.READ_TASK_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.TASKS_ENDPOINT;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.TASK_ENDPOINT;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.TASK_HOST_PARAM;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.TASK_ID_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.TASK_NOT_FOUND_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.controller.ValidationTaskController.UPD_TASK_ERROR_MSG;
+import static cf.maybelambda.httpvalidator.springboot.filter.JwtRequestFilter.AUTHORIZATION_HEADER_KEY;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ValidationTaskController.class)
+public class ValidationTaskControllerTests {
+    private static final String TASK = "<validation><url method=\"0\">http://localhost</url><response statuscode=\"200\"/></validation>";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockitoBean
+    private XMLValidationTaskDao dao;
+    @MockitoBean
+    private JwtAuthenticationService authServ;
+
+    @BeforeEach
+    public void setUp() {
+        given(this.authServ.isValidToken(anyString())).willReturn(true);
+        given(this.dao.isEditable()).willReturn(true);
+    }
+
+    @Test
+    void addTaskReturns201AndIdOfNewTask() throws Exception {
+        given(this.dao.addTask(TASK)).willReturn(8);
+
+        this.mockMvc.perform(
+            post(TASKS_ENDPOINT)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$." + TASK_ID_KEY).value("8")
+        );
+    }
+
+    @Test
+    void addTaskReturns400BadRequestWhenTaskIsInvalid() throws Exception {
+        given(this.dao.addTask(anyString())).willThrow(XMLParseException.class);
+
+        this.mockMvc.perform(
+            post(TASKS_ENDPOINT)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content("<validation/>")
+                .contentType(MediaType.TEXT_XML))
+
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(INVALID_TASK_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void addTaskReturns500InternalServerErrorWhenTaskCannotBeStored() throws Exception {
+        given(this.dao.addTask(anyString())).willThrow(IOException.class);
+
+        this.mockMvc.perform(
+            post(TASKS_ENDPOINT)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(UPD_TASK_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void getTaskReturnsValidationElementOfTaskById() throws Exception {
+        ValidationTask task = mock(ValidationTask.class);
+        given(this.dao.findById(3)).willReturn(Optional.of(task));
+        given(this.dao.toXml(3, task)).willReturn(TASK);
+
+        this.mockMvc.perform(
+            get(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.3").value(TASK)
+        );
+    }
+
+    @Test
+    void getTaskReturns404NotFoundWhenTaskDoesNotExist() throws Exception {
+        this.mockMvc.perform(
+            get(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(TASK_NOT_FOUND_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void getTasksByHostReturnsValidationElementsOfTasksOfHost() throws Exception {
+        ValidationTask task = mock(ValidationTask.class);
+        Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+        tasks.put(7, task);
+        tasks.put(2, task);
+        given(this.dao.findByHost("example.com")).willReturn(tasks);
+        given(this.dao.toXml(anyInt(), eq(task))).willReturn(TASK);
+
+        this.mockMvc.perform(
+            get(TASKS_ENDPOINT)
+                .param(TASK_HOST_PARAM, "example.com")
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.7").value(TASK))
+            .andExpect(jsonPath("$.2").value(TASK)
+        );
+    }
+
+    @Test
+    void getTasksByHostReturns500InternalServerErrorWhenTasksCannotBeRead() throws Exception {
+        given(this.dao.findByHost(anyString())).willThrow(XMLParseException.class);
+
+        this.mockMvc.perform(
+            get(TASKS_ENDPOINT)
+                .param(TASK_HOST_PARAM, "example.com")
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(READ_TASK_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void updateTaskReturns200WhenTaskIsUpdated() throws Exception {
+        given(this.dao.findById(3)).willReturn(Optional.of(mock(ValidationTask.class)));
+        given(this.dao.updateTask(3, TASK)).willReturn(true);
+
+        this.mockMvc.perform(
+            patch(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isOk()
+        );
+        verify(this.dao).updateTask(3, TASK);
+    }
+
+    @Test
+    void updateTaskReturns404NotFoundWhenTaskDoesNotExist() throws Exception {
+
+        this.mockMvc.perform(
+            patch(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(TASK_NOT_FOUND_ERROR_MSG)
+        );
+        verify(this.dao, never()).updateTask(anyInt(), anyString());
+    }
+
+    @Test
+    void updateTaskReturns400BadRequestWhenPatchIsInvalid() throws Exception {
+        given(this.dao.findById(3)).willReturn(Optional.of(mock(ValidationTask.class)));
+        given(this.dao.updateTask(anyInt(), anyString())).willThrow(XMLParseException.class);
+
+        this.mockMvc.perform(
+            patch(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content("<validation><body/></validation>")
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(INVALID_TASK_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void deleteTaskReturns204WhenTaskIsRemoved() throws Exception {
+        given(this.dao.findById(3)).willReturn(Optional.of(mock(ValidationTask.class)));
+        given(this.dao.deleteTask(3)).willReturn(true);
+
+        this.mockMvc.perform(
+            delete(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isNoContent()
+        );
+    }
+
+    @Test
+    void deleteTaskReturns404NotFoundWhenTaskDoesNotExist() throws Exception {
+        this.mockMvc.perform(
+            delete(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(TASK_NOT_FOUND_ERROR_MSG)
+        );
+        verify(this.dao, never()).deleteTask(anyInt());
+    }
+
+    @Test
+    void deleteTaskReturns500InternalServerErrorWhenRemovalCannotBeStored() throws Exception {
+        given(this.dao.findById(3)).willReturn(Optional.of(mock(ValidationTask.class)));
+        given(this.dao.deleteTask(3)).willThrow(IOException.class);
+
+        this.mockMvc.perform(
+            delete(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(UPD_TASK_ERROR_MSG)
+        );
+    }
+
+    @Test
+    void taskEndpointsReturn409ConflictWhenTasksAreNotReadFromDataFile() throws Exception {
+        given(this.dao.isEditable()).willReturn(false);
+
+        this.mockMvc.perform(
+            post(TASKS_ENDPOINT)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$." + ERROR_VALUE.toLowerCase()).value(NOT_EDITABLE_ERROR_MSG)
+        );
+        this.mockMvc.perform(
+            patch(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken")
+                .content(TASK)
+                .contentType(MediaType.APPLICATION_XML))
+
+            .andExpect(status().isConflict()
+        );
+        this.mockMvc.perform(
+            delete(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isConflict()
+        );
+        this.mockMvc.perform(
+            get(TASK_ENDPOINT, 3)
+                .header(AUTHORIZATION_HEADER_KEY, "testToken"))
+
+            .andExpect(status().isConflict()
+        );
+        verify(this.dao, never()).findById(anyInt());
+        verify(this.dao, never()).addTask(anyString());
+        verify(this.dao, never()).updateTask(anyInt(), anyString());
+        verify(this.dao, never()).deleteTask(anyInt());
+    }
+}
@@ -0,0 +1,193 @@
+package cf.maybelambda.httpvalidator.springboot.itest;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService;
+import cf.maybelambda.httpvalidator.springboot.service.ValidationService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_FAILED_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_OK_KEY;
+import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_TOTAL_KEY;
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atMostOnce;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the validation tasks end to end against a {@link SimulatedFleet} and reports the run time, the memory used and
+ * the accuracy of the failures notified.
+ * <p>
+ * The large fleet test only runs when the number of endpoints is given, e.g.
+ * {@code ./mvnw test -Dtest=FleetLoadIntegrationTests -Dloadtest.endpoints=20000}. Application properties such as
+ * {@code validation.max.concurrent.requests} and {@code validation.page.size} can be set the same way to compare
+ * settings.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class FleetLoadIntegrationTests {
+    static final String ENDPOINTS_PROPERTY = "loadtest.endpoints";
+    private static final Pattern TASK_ID = Pattern.compile("\\[Task #(\\d+)]$");
+    private static final Logger logger = LoggerFactory.getLogger(FleetLoadIntegrationTests.class);
+    private static Path dir;
+
+    @Autowired
+    private XMLValidationTaskDao dao;
+    @Autowired
+    private ValidationService valServ;
+    @MockitoBean
+    private EmailNotificationService notificationService;
+
+    /**
+     * The outcome of a run against a fleet.
+     *
+     * @param tasks the number of tasks run
+     * @param runTime the time the run took
+     * @param peakHeapBytes the peak heap usage during the run
+     * @param expected the failures the run should have reported, by task
+     * @param reported the failures the run reported, by task
+     */
+    record LoadReport(int tasks, Duration runTime, long peakHeapBytes, Map<Integer, FailureClass> expected,
+                      Map<Integer, FailureClass> reported) {
+        /**
+         * Gets the failures that were not reported, or were reported with the wrong class.
+         *
+         * @return the tasks of the failures missed
+         */
+        Set<Integer> missed() {
+            Set<Integer> res = new HashSet<>(this.expected.keySet());
+            res.removeIf(id -> this.expected.get(id) == this.reported.get(id));
+            return res;
+        }
+
+        /**
+         * Gets the failures reported for tasks that should have passed.
+         *
+         * @return the tasks of the failures reported in excess
+         */
+        Set<Integer> unexpected() {
+            Set<Integer> res = new HashSet<>(this.reported.keySet());
+            res.removeAll(this.expected.keySet());
+            return res;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d tasks in %d ms (%.0f tasks/s), peak heap %d MiB, %d failures expected, "
+                    + "%d missed, %d unexpected", this.tasks, this.runTime.toMillis(),
+                this.tasks * 1000.0 / Math.max(1, this.runTime.toMillis()), this.peakHeapBytes >> 20,
+                this.expected.size(), this.missed().size(), this.unexpected().size());
+        }
+    }
+
+    @DynamicPropertySource
+    static void dataFileProperties(DynamicPropertyRegistry registry) throws IOException {
+        dir = Files.createTempDirectory("fleet");
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations><validation><url method=\"0\">http://127.0.0.1/</url>"
+            + "<response statuscode=\"200\"/></validation></validations>");
+        registry.add("datafile", datafile::toString);
+        registry.add("datafile.maxsize", () -> Long.MAX_VALUE);
+    }
+
+    @AfterAll
+    static void deleteDataFile() throws IOException {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Test
+    void execValidationsReportsExactlyTheFailuresOfTheFleet() throws Exception {
+        try (SimulatedFleet fleet = new SimulatedFleet(SimulatedFleet.Profile.of(500))) {
+            LoadReport report = this.run(fleet);
+            logger.info("Load test: " + report);
+
+            assertThat(report.expected()).isNotEmpty();
+            assertThat(report.missed()).isEmpty();
+            assertThat(report.unexpected()).isEmpty();
+            Map<String, String> info = this.valServ.getLastRunInfo();
+            assertThat(info).containsEntry(TASKS_TOTAL_KEY, "500")
+                .containsEntry(TASKS_FAILED_KEY, String.valueOf(report.expected().size()))
+                .containsEntry(TASKS_OK_KEY, String.valueOf(500 - report.expected().size()));
+            long refused = report.expected().values().stream().filter(c -> c == FailureClass.NETWORK).count();
+            assertThat(fleet.getRequestCount()).isEqualTo(500 - refused);
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = ENDPOINTS_PROPERTY, matches = "\\d+")
+    void largeFleetRunReportsEveryFailure() throws Exception {
+        SimulatedFleet.Profile profile = SimulatedFleet.Profile.of(Integer.getInteger(ENDPOINTS_PROPERTY))
+            .withLatency(SimulatedFleet.LatencyDistribution.logNormal(50, 1));
+        try (SimulatedFleet fleet = new SimulatedFleet(profile)) {
+            LoadReport report = this.run(fleet);
+            logger.info("Load test: " + report);
+
+            assertThat(report.missed()).isEmpty();
+            assertThat(report.unexpected()).isEmpty();
+        }
+    }
+
+    /**
+     * Uploads the data file of a fleet and runs its tasks, measuring the run.
+     *
+     * @param fleet the fleet
+     * @return the report of the run
+     */
+    private LoadReport run(SimulatedFleet fleet) throws Exception {
+        byte[] xml = fleet.validationsXml();
+        this.dao.updateDataFile(new MockMultipartFile("file", "validations.xml", "text/xml", xml));
+        int tasks = this.dao.getAll().size();
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(p -> p.getType() == MemoryType.HEAP).toList();
+        System.gc();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        this.valServ.execValidations();
+        Duration runTime = Duration.ofNanos(System.nanoTime() - start);
+        long peak = heap.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum();
+
+        ArgumentCaptor<List<String[]>> captor = ArgumentCaptor.captor();
+        verify(this.notificationService, atMostOnce()).sendVTaskErrorsNotification(captor.capture());
+        Map<Integer, FailureClass> reported = new HashMap<>();
+        captor.getAllValues().stream().flatMap(List::stream).forEach(f -> {
+            Matcher m = TASK_ID.matcher(f[0]);
+            assertThat(m.find()).isTrue();
+            reported.put(Integer.parseInt(m.group(1)), String.valueOf(NET_ERR_CODE).equals(f[1])
+                ? FailureClass.NETWORK : FailureClass.valueOf(f[3].substring(0, f[3].indexOf(':'))));
+        });
+
+        return new LoadReport(tasks, runTime, peak, fleet.expectedFailures(), reported);
+    }
+}
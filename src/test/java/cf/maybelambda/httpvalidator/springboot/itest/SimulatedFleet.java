@@ -0,0 +1,251 @@
+package cf.maybelambda.httpvalidator.springboot.itest;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP server simulating a fleet of endpoints, to load test the validation runs without network access.
+ * <p>
+ * Endpoint i is served at /ep/i by a server bound to the loopback address. When the fleet is created, each endpoint is
+ * given one behavior, at random with the rates of its {@link Profile}:
+ * <ul>
+ *   <li>{@link Behavior#OK}: the expected content, after a delay drawn from the latency distribution.</li>
+ *   <li>{@link Behavior#ERROR}: status 500, after a delay drawn from the latency distribution.</li>
+ *   <li>{@link Behavior#TRICKLE}: the expected content, sent in small chunks spread over the trickle duration.</li>
+ *   <li>{@link Behavior#REFUSED}: the URL of the endpoint points to a port where no one listens.</li>
+ * </ul>
+ * The fleet generates the data file with one validation task per endpoint, and knows which tasks should fail.
+ */
+public class SimulatedFleet implements AutoCloseable {
+    static final String OK_CONTENT = "\"status\": \"ok\"";
+    static final String PATH_PREFIX = "/ep/";
+    private static final int TRICKLE_CHUNKS = 10;
+    private static final byte[] ERROR_BODY = "{\"status\": \"error\"}".getBytes(StandardCharsets.UTF_8);
+    private final Profile profile;
+    private final Behavior[] behaviors;
+    private final byte[] okBody;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+    private final int refusedPort;
+    private final AtomicLong requests = new AtomicLong();
+
+    /**
+     * The behavior of an endpoint.
+     */
+    enum Behavior { OK, ERROR, TRICKLE, REFUSED }
+
+    /**
+     * Distribution of the time endpoints take to respond.
+     */
+    @FunctionalInterface
+    interface LatencyDistribution {
+        /**
+         * Draws a response time.
+         *
+         * @param random the source of randomness
+         * @return the time in milliseconds
+         */
+        long sampleMillis(Random random);
+
+        static LatencyDistribution fixed(long millis) { return r -> millis; }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return r -> minMillis + r.nextLong(maxMillis - minMillis + 1);
+        }
+
+        static LatencyDistribution exponential(double meanMillis) {
+            return r -> Math.round(-meanMillis * Math.log(1 - r.nextDouble()));
+        }
+
+        /**
+         * A long-tailed distribution, as usually seen in the response times of real services.
+         *
+         * @param medianMillis the median time
+         * @param sigma the standard deviation of the logarithm of the time; 1 gives a 99th percentile about 10 times
+         *              the median
+         * @return the distribution
+         */
+        static LatencyDistribution logNormal(double medianMillis, double sigma) {
+            return r -> Math.round(medianMillis * Math.exp(sigma * r.nextGaussian()));
+        }
+    }
+
+    /**
+     * The make-up of a fleet.
+     *
+     * @param endpoints the number of endpoints
+     * @param latency the distribution of the response times
+     * @param errorRate the fraction of endpoints that respond with status 500
+     * @param trickleRate the fraction of endpoints that send their body slowly
+     * @param refusalRate the fraction of endpoints that refuse connections
+     * @param bodySize the size of the successful responses, in bytes
+     * @param trickleDuration the time taken to send a body slowly
+     * @param seed the seed of the assignment of behaviors to endpoints
+     */
+    record Profile(int endpoints, LatencyDistribution latency, double errorRate, double trickleRate,
+                   double refusalRate, int bodySize, Duration trickleDuration, long seed) {
+        /**
+         * A fleet of endpoints that respond within 20 ms with a 4 KiB body, where 5% of them fail with status 500,
+         * 2% send their body over 200 ms and 2% refuse connections.
+         *
+         * @param endpoints the number of endpoints
+         * @return the profile
+         */
+        static Profile of(int endpoints) {
+            return new Profile(endpoints, LatencyDistribution.uniform(0, 20), 0.05, 0.02, 0.02, 4096,
+                Duration.ofMillis(200), 42);
+        }
+
+        Profile withLatency(LatencyDistribution latency) {
+            return new Profile(this.endpoints, latency, this.errorRate, this.trickleRate, this.refusalRate,
+                this.bodySize, this.trickleDuration, this.seed);
+        }
+
+        Profile withBodySize(int bodySize) {
+            return new Profile(this.endpoints, this.latency, this.errorRate, this.trickleRate, this.refusalRate,
+                bodySize, this.trickleDuration, this.seed);
+        }
+    }
+
+    /**
+     * Starts the server of a fleet.
+     *
+     * @param profile the make-up of the fleet
+     * @throws IOException if the server cannot be started
+     */
+    SimulatedFleet(Profile profile) throws IOException {
+        this.profile = profile;
+        this.behaviors = new Behavior[profile.endpoints()];
+        Random random = new Random(profile.seed());
+        for (int i = 0; i < this.behaviors.length; i++) {
+            double p = random.nextDouble();
+            this.behaviors[i] = p < profile.refusalRate() ? Behavior.REFUSED
+                : p < profile.refusalRate() + profile.errorRate() ? Behavior.ERROR
+                : p < profile.refusalRate() + profile.errorRate() + profile.trickleRate() ? Behavior.TRICKLE
+                : Behavior.OK;
+        }
+        String prefix = "{" + OK_CONTENT + ", \"padding\": \"";
+        this.okBody = (prefix + "x".repeat(Math.max(0, profile.bodySize() - prefix.length() - 2)) + "\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        // A port that was free a moment ago, so that connections to it are refused
+        try (ServerSocket s = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            this.refusedPort = s.getLocalPort();
+        }
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        this.server.setExecutor(this.executor);
+        this.server.createContext(PATH_PREFIX, this::handle);
+        this.server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        try (exchange) {
+            int id = Integer.parseInt(exchange.getRequestURI().getPath().substring(PATH_PREFIX.length()));
+            exchange.getRequestBody().readAllBytes();
+            Behavior behavior = this.behaviors[id];
+            if (behavior != Behavior.TRICKLE) {
+                Thread.sleep(this.profile.latency().sampleMillis(ThreadLocalRandom.current()));
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (behavior == Behavior.ERROR) {
+                exchange.sendResponseHeaders(500, ERROR_BODY.length);
+                exchange.getResponseBody().write(ERROR_BODY);
+            } else if (behavior == Behavior.TRICKLE) {
+                // Chunked, so that the client sees the body arrive a piece at a time
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                long pause = this.profile.trickleDuration().toMillis() / TRICKLE_CHUNKS;
+                int chunk = (this.okBody.length + TRICKLE_CHUNKS - 1) / TRICKLE_CHUNKS;
+                for (int off = 0; off < this.okBody.length; off += chunk) {
+                    out.write(this.okBody, off, Math.min(chunk, this.okBody.length - off));
+                    out.flush();
+                    Thread.sleep(pause);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, this.okBody.length);
+                exchange.getResponseBody().write(this.okBody);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the URL of an endpoint.
+     *
+     * @param id the position of the endpoint
+     * @return the URL
+     */
+    URI uri(int id) {
+        int port = this.behaviors[id] == Behavior.REFUSED ? this.refusedPort : this.server.getAddress().getPort();
+        return URI.create("http://127.0.0.1:" + port + PATH_PREFIX + id);
+    }
+
+    /**
+     * Gets the failures that a run of the tasks of the fleet should report.
+     *
+     * @return the class of each failure, by position of the task
+     */
+    Map<Integer, FailureClass> expectedFailures() {
+        Map<Integer, FailureClass> res = new HashMap<>();
+        for (int i = 0; i < this.behaviors.length; i++) {
+            if (this.behaviors[i] == Behavior.ERROR) {
+                res.put(i, FailureClass.STATUS_CODE);
+            } else if (this.behaviors[i] == Behavior.REFUSED) {
+                res.put(i, FailureClass.NETWORK);
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Builds a data file with one task per endpoint, in order, which expects status 200 and the content of the
+     * successful responses.
+     *
+     * @return the content of the data file
+     */
+    byte[] validationsXml() {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<validations>\n");
+        for (int i = 0; i < this.behaviors.length; i++) {
+            xml.append("    <validation><url method=\"0\">").append(this.uri(i)).append("</url>")
+                .append("<response statuscode=\"200\">").append(OK_CONTENT).append("</response></validation>\n");
+        }
+        xml.append("</validations>\n");
+
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of requests received by the server.
+     *
+     * @return the number of requests
+     */
+    long getRequestCount() { return this.requests.get(); }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeaderAssertionTests {
+    private final HttpHeaders headers = HttpHeaders.of(
+        Map.of("Cache-Control", List.of("no-cache", "max-age=0"), "ETag", List.of("\"abc\"")), (k, v) -> true
+    );
+
+    @Test
+    void parseReadsNameAndOptionalValue() {
+        assertThat(HeaderAssertion.parse("ETag")).isEqualTo(new HeaderAssertion("ETag", null));
+        assertThat(HeaderAssertion.parse("Cache-Control|max-age")).isEqualTo(new HeaderAssertion("Cache-Control", "max-age"));
+        assertThat(HeaderAssertion.parse("Cache-Control|max-age").toString()).isEqualTo("Cache-Control|max-age");
+    }
+
+    @Test
+    void isSatisfiedByChecksPresenceWhenNoValueIsExpected() {
+        assertThat(new HeaderAssertion("etag", null).isSatisfiedBy(this.headers)).isTrue();
+        assertThat(new HeaderAssertion("Location", null).isSatisfiedBy(this.headers)).isFalse();
+    }
+
+    @Test
+    void isSatisfiedByLooksForExpectedValueInEveryValueOfHeader() {
+        assertThat(new HeaderAssertion("Cache-Control", "max-age").isSatisfiedBy(this.headers)).isTrue();
+        assertThat(new HeaderAssertion("Cache-Control", "private").isSatisfiedBy(this.headers)).isFalse();
+    }
+}
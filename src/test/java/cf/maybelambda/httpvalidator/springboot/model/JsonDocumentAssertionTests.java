@@ -0,0 +1,76 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JacksonException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonDocumentAssertionTests {
+    private static final String expected = "{\"id\": 7, \"tags\": [\"a\", \"b\"], \"meta\": {\"ok\": true, \"n\": null}}";
+
+    @Test
+    void constructorThrowsJacksonExceptionWhenExpectedDocumentIsNotJSON() {
+        assertThrows(JacksonException.class, () -> new JsonDocumentAssertion("{\"a\":", false));
+    }
+
+    @Test
+    void findMismatchReturnsNullWhenDocumentsDifferOnlyInFormatting() {
+        JsonDocumentAssertion a = new JsonDocumentAssertion(expected, false);
+
+        assertThat(a.findMismatch("{\n \"id\":7.0,\"tags\":[ \"a\",\"b\" ],\n \"meta\":{\"ok\":true,\"n\":null}}")).isNull();
+    }
+
+    @Test
+    void findMismatchReportsPathOfFirstDifferentValue() {
+        JsonDocumentAssertion a = new JsonDocumentAssertion(expected, false);
+
+        assertThat(a.findMismatch("{\"id\": 7, \"tags\": [\"a\", \"c\"], \"meta\": {\"ok\": false, \"n\": null}}"))
+            .isEqualTo("Different value at $.tags[1]");
+        assertThat(a.findMismatch("{\"id\": \"7\", \"tags\": [\"a\", \"b\"], \"meta\": {\"ok\": true, \"n\": null}}"))
+            .isEqualTo("Different value at $.id");
+    }
+
+    @Test
+    void findMismatchReportsUnexpectedAndMissingValues() {
+        JsonDocumentAssertion a = new JsonDocumentAssertion(expected, false);
+
+        assertThat(a.findMismatch("{\"id\": 7, \"tags\": [\"a\", \"b\", \"c\"], \"meta\": {\"ok\": true, \"n\": null}}"))
+            .isEqualTo("Unexpected value at $.tags[2]");
+        assertThat(a.findMismatch("{\"id\": 7, \"tags\": [\"a\", \"b\"], \"meta\": {\"ok\": true}}"))
+            .isEqualTo("Missing value at $.meta.n");
+    }
+
+    @Test
+    void keyOrderIsSignificantUnlessConfiguredOtherwise() {
+        String reordered = "{\"meta\": {\"n\": null, \"ok\": true}, \"tags\": [\"a\", \"b\"], \"id\": 7}";
+
+        assertThat(new JsonDocumentAssertion(expected, false).findMismatch(reordered)).isEqualTo("Unexpected value at $.meta.n");
+        assertThat(new JsonDocumentAssertion(expected, true).findMismatch(reordered)).isNull();
+    }
+
+    @Test
+    void arrayOrderIsAlwaysSignificant() {
+        String reordered = "{\"id\": 7, \"tags\": [\"b\", \"a\"], \"meta\": {\"ok\": true, \"n\": null}}";
+
+        assertThat(new JsonDocumentAssertion(expected, true).findMismatch(reordered)).isEqualTo("Different value at $.tags[0]");
+    }
+
+    @Test
+    void findMismatchReportsDuplicatedAndMalformedContent() {
+        JsonDocumentAssertion a = new JsonDocumentAssertion("{\"a\": 1}", true);
+
+        assertThat(a.findMismatch("{\"a\": 1, \"a\": 1}")).isEqualTo("Unexpected value at $.a");
+        assertThat(a.findMismatch("<html>")).isEqualTo("Response body is not valid JSON");
+    }
+
+    @Test
+    void equalsAndHashCodeUseSourceDefinition() {
+        JsonDocumentAssertion a = new JsonDocumentAssertion(expected, true);
+        JsonDocumentAssertion b = new JsonDocumentAssertion(expected, true);
+
+        assertThat(a).isEqualTo(b);
+        assertThat(a.hashCode()).isEqualTo(b.hashCode());
+        assertThat(a).isNotEqualTo(new JsonDocumentAssertion(expected, false));
+    }
+}
@@ -0,0 +1,64 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EXISTS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonPathAssertionTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "data", "$.", "$..a", "$[x]", "$[-1]", "$[1", "$a"})
+    void constructorThrowsIllegalArgumentExceptionWhenPathIsInvalid(String path) {
+        assertThrows(IllegalArgumentException.class, () -> new JsonPathAssertion(path, EXISTS, "", 0, 1));
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionWhenSizeRangeIsInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonPathAssertion("$", SIZE, "", 2, 1));
+        assertThrows(IllegalArgumentException.class, () -> new JsonPathAssertion("$", SIZE, "", -1, 1));
+    }
+
+    @Test
+    void pathIsCompiledIntoNameAndIndexSteps() {
+        JsonPathAssertion a = new JsonPathAssertion("$.data[2].id", EXISTS, "", 0, 1);
+
+        assertThat(a.depth()).isEqualTo(3);
+        assertThat(a.stepMatches(0, "data", -1)).isTrue();
+        assertThat(a.stepMatches(1, null, 2)).isTrue();
+        assertThat(a.stepMatches(1, null, 1)).isFalse();
+        assertThat(a.stepMatches(2, "id", -1)).isTrue();
+        assertThat(a.stepMatches(2, null, 0)).isFalse();
+    }
+
+    @Test
+    void acceptsScalarAndSizeDependOnKind() {
+        JsonPathAssertion eq = new JsonPathAssertion("$", EQUALS, "ok", 0, 1);
+        JsonPathAssertion ex = new JsonPathAssertion("$", EXISTS, "", 0, 1);
+        JsonPathAssertion sz = new JsonPathAssertion("$", SIZE, "", 1, 2);
+
+        assertThat(eq.acceptsScalar("ok")).isTrue();
+        assertThat(eq.acceptsScalar("ko")).isFalse();
+        assertThat(ex.acceptsScalar("anything")).isTrue();
+        assertThat(sz.acceptsScalar("1")).isFalse();
+        assertThat(sz.acceptsSize(0)).isFalse();
+        assertThat(sz.acceptsSize(2)).isTrue();
+    }
+
+    @Test
+    void equalsAndHashCodeUseSourceDefinition() {
+        JsonPathAssertion a = new JsonPathAssertion("$.a", EQUALS, "1", 0, 1);
+        JsonPathAssertion b = new JsonPathAssertion("$.a", EQUALS, "1", 0, 1);
+        JsonPathAssertion c = new JsonPathAssertion("$.a", EQUALS, "2", 0, 1);
+
+        assertThat(a).isEqualTo(b);
+        assertThat(a.hashCode()).isEqualTo(b.hashCode());
+        assertThat(a).isNotEqualTo(c);
+        assertThat(a.toString()).isEqualTo("$.a == 1");
+    }
+}
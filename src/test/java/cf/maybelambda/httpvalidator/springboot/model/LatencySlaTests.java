@@ -0,0 +1,29 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LatencySlaTests {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionWhenLimitIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> new LatencySla(-1, 0));
+    }
+
+    @Test
+    void findBreachReportsTimeToFirstByteBeforeTotalTime() {
+        LatencySla sla = new LatencySla(100, 300);
+
+        assertThat(sla.findBreach(120 * MS, 400 * MS)).isEqualTo("Time to first byte of 120 ms exceeds the limit of 100 ms");
+        assertThat(sla.findBreach(80 * MS, 400 * MS)).isEqualTo("Total response time of 400 ms exceeds the limit of 300 ms");
+        assertThat(sla.findBreach(100 * MS, 300 * MS)).isNull();
+    }
+
+    @Test
+    void zeroLimitsAreNotEnforced() {
+        assertThat(new LatencySla(0, 0).findBreach(10_000 * MS, 20_000 * MS)).isNull();
+    }
+}
@@ -0,0 +1,47 @@
+package cf.maybelambda.httpvalidator.springboot.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.PatternSyntaxException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RegexAssertionTests {
+
+    @Test
+    void constructorThrowsPatternSyntaxExceptionWhenExpressionIsInvalid() {
+        assertThrows(PatternSyntaxException.class, () -> new RegexAssertion("(unclosed"));
+    }
+
+    @Test
+    void findMismatchReturnsNullWhenExpressionMatchesAnyPartOfBody() {
+        RegexAssertion a = new RegexAssertion("id=\\d{3}\\b");
+
+        assertThat(a.findMismatch("user id=123 active")).isNull();
+        assertThat(a.findMismatch("user id=1234 active")).isEqualTo("Pattern not found in response body: id=\\d{3}\\b");
+    }
+
+    @Test
+    void findMismatchAbortsCatastrophicBacktracking() {
+        RegexAssertion a = new RegexAssertion("(.*,){12}x");
+        String body = "a,".repeat(25);
+
+        assertThat(a.findMismatch(body)).startsWith("Pattern matching aborted for exceeding its budget");
+    }
+
+    @Test
+    void findMismatchOnlyLooksAtBeginningOfLargeBodies() {
+        RegexAssertion a = new RegexAssertion("END");
+        String body = "x".repeat(RegexAssertion.MAX_INPUT_CHARS) + "END";
+
+        assertThat(a.findMismatch(body)).startsWith("Pattern not found");
+    }
+
+    @Test
+    void equalsAndHashCodeUseExpression() {
+        assertThat(new RegexAssertion("a+")).isEqualTo(new RegexAssertion("a+"));
+        assertThat(new RegexAssertion("a+").hashCode()).isEqualTo(new RegexAssertion("a+").hashCode());
+        assertThat(new RegexAssertion("a+")).isNotEqualTo(new RegexAssertion("a*"));
+    }
+}
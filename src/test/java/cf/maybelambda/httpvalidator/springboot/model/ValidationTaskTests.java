@@ -1,15 +1,24 @@
 package cf.maybelambda.httpvalidator.springboot.model;
 
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
 import org.junit.jupiter.api.Test;
 import tools.jackson.databind.JsonNode;
 
+import java.net.ConnectException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
 import java.util.List;
+import java.util.Map;
 
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EXISTS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
 import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.HEADER_KEY_VALUE_DELIMITER;
 import static java.util.Collections.emptyList;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 
 public class ValidationTaskTests {
@@ -31,6 +40,88 @@ public class ValidationTaskTests {
         assertThat(vt.isValid(200, "a longer test body string")).isTrue();
     }
 
+    @Test
+    void isValidReturnsFalseWhenAnyJsonPathAssertionDoesNotHold() {
+        ResponseAssertions as = new ResponseAssertions(List.of(
+            new JsonPathAssertion("$.status", EQUALS, "ok", 0, Integer.MAX_VALUE),
+            new JsonPathAssertion("$.items", SIZE, "", 1, 2)
+        ), null, List.of(), null, null);
+        ValidationTask vt = new ValidationTask(
+            GET, "http://localhost", emptyList(), this.reqBody, 200, "", as
+        );
+
+        assertThat(vt.isValid(200, "{ \"status\" : \"ok\", \"items\": [1] }")).isTrue();
+        assertThat(vt.isValid(200, "{\"status\":\"ok\",\"items\":[]}")).isFalse();
+        assertThat(vt.isValid(200, "{\"status\":\"ko\",\"items\":[1]}")).isFalse();
+        assertThat(vt.isValid(200, "status ok")).isFalse();
+    }
+
+    @Test
+    void findFailureDescribesFirstUnmetCriteria() {
+        ResponseAssertions as = new ResponseAssertions(List.of(), new JsonDocumentAssertion("{\"a\": [1, 2]}", false), List.of(), null, null);
+        ValidationTask vt = new ValidationTask(
+            GET, "http://localhost", emptyList(), this.reqBody, 200, "\"a\"", as
+        );
+
+        assertThat(vt.findFailure(200, null)).isEqualTo(ValidationTask.NO_BODY_MSG);
+        assertThat(vt.findFailure(500, "{\"a\": [1, 2]}")).isEqualTo(ValidationTask.STATUS_CODE_MISMATCH_MSG);
+        assertThat(vt.findFailure(200, "{\"b\": 1}")).isEqualTo(ValidationTask.BODY_MISMATCH_MSG);
+        assertThat(vt.findFailure(200, "{\"a\": [1, 3]}")).isEqualTo("Different value at $.a[1]");
+        assertThat(vt.findFailure(200, "{ \"a\" : [ 1 , 2 ] }")).isNull();
+    }
+
+    @Test
+    void findFailureReportsBodyNotMatchingRegex() {
+        ResponseAssertions as = new ResponseAssertions(List.of(), null, List.of(), null, new RegexAssertion("\"version\":\\s*\"\\d+\\.\\d+\""));
+        ValidationTask vt = new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, "", as);
+
+        assertThat(vt.findFailure(200, "{\"version\": \"2.14\"}")).isNull();
+        assertThat(vt.findFailure(200, "{\"version\": \"beta\"}")).startsWith("Pattern not found in response body");
+    }
+
+    @Test
+    void validateClassifiesFailuresInOrderOfSeverity() {
+        ResponseAssertions as = new ResponseAssertions(
+            List.of(), null, List.of(HeaderAssertion.parse("Content-Type|json")), new LatencySla(0, 100), null
+        );
+        ValidationTask vt = new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, "ok", as);
+        HttpHeaders json = HttpHeaders.of(Map.of("content-type", List.of("application/json")), (k, v) -> true);
+        long slow = 150_000_000L;
+
+        assertThat(vt.validate(new HttpSendOutcomeWrapper(new ConnectException())).failureClass()).isEqualTo(FailureClass.NETWORK);
+        assertThat(vt.validate(this.outcome(200, null, json, slow)).failureClass()).isEqualTo(FailureClass.CONTENT);
+        assertThat(vt.validate(this.outcome(503, "ok", json, slow)).failureClass()).isEqualTo(FailureClass.STATUS_CODE);
+        assertThat(vt.validate(this.outcome(200, "ko", json, slow)).failureClass()).isEqualTo(FailureClass.CONTENT);
+        assertThat(vt.validate(this.outcome(200, "ok", HttpHeaders.of(Map.of(), (k, v) -> true), slow)).failureClass())
+            .isEqualTo(FailureClass.HEADER);
+        assertThat(vt.validate(this.outcome(200, "ok", json, slow)))
+            .isEqualTo(new ValidationFailure(FailureClass.LATENCY, "Total response time of 150 ms exceeds the limit of 100 ms"));
+        assertThat(vt.validate(this.outcome(200, "ok", json, 50_000_000L))).isNull();
+    }
+
+    private HttpSendOutcomeWrapper outcome(int statusCode, String body, HttpHeaders headers, long nanos) {
+        HttpResponse<String> res = mock(HttpResponse.class);
+        given(res.statusCode()).willReturn(statusCode);
+        given(res.body()).willReturn(body);
+        given(res.headers()).willReturn(headers);
+        return new HttpSendOutcomeWrapper(res, nanos, nanos);
+    }
+
+    @Test
+    void equalsReturnsFalseWhenDifferentAssertions() {
+        ResponseAssertions as = new ResponseAssertions(List.of(
+            new JsonPathAssertion("$", EXISTS, "", 0, Integer.MAX_VALUE)
+        ), null, List.of(), null, null);
+        ValidationTask task1 = new ValidationTask(
+            POST, "http://ex.com", List.of(header), this.reqBody,200, "X"
+        );
+        ValidationTask task2 = new ValidationTask(
+            POST, "http://ex.com", List.of(header), this.reqBody,200, "X", as
+        );
+
+        assertThat(task1.equals(task2)).isFalse();
+    }
+
     @Test
     void equalsReturnsTrueWhenSameObject() {
         ValidationTask task = new ValidationTask(
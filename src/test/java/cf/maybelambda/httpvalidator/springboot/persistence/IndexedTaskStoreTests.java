@@ -0,0 +1,153 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.IndexedTaskStore.STORE_FILE_PROPERTY;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class IndexedTaskStoreTests {
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final Environment env = mock(Environment.class);
+    private final XMLValidationTaskDao xmlDao = mock(XMLValidationTaskDao.class);
+    private final Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+    @TempDir
+    private Path dir;
+    private Path storeFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.storeFile = this.dir.resolve("validations.store");
+        given(this.env.getProperty(STORE_FILE_PROPERTY)).willReturn(this.storeFile.toString());
+        this.tasks.put(7, this.task("http://Example.com/a"));
+        this.tasks.put(2, this.task("http://localhost:8080/b"));
+        this.tasks.put(5, this.task("https://example.com/c?d"));
+        given(this.xmlDao.getDataFileLastModifiedTime()).willReturn(10L);
+        this.givenDataFileTasks(this.tasks);
+    }
+
+    private void givenDataFileTasks(Map<Integer, ValidationTask> tasks) throws Exception {
+        given(this.xmlDao.getTaskSet(anyList())).willAnswer(inv -> {
+            inv.<List<Integer>>getArgument(0).addAll(tasks.keySet());
+            return TaskSource.TaskSet.of(List.copyOf(tasks.values()), tasks.keySet().stream().mapToLong(id -> id).toArray());
+        });
+    }
+
+    private ValidationTask task(String url) {
+        return new ValidationTask(GET, url, List.of(), this.mapper.nullNode(), 200, "");
+    }
+
+    private IndexedTaskStore newStore() {
+        IndexedTaskStore store = new IndexedTaskStore();
+        store.setXmlDao(this.xmlDao);
+        store.setEnv(this.env);
+        store.setObjectMapper(this.mapper);
+
+        return store;
+    }
+
+    @Test
+    void getAllAndTaskSetPagesReturnTasksInDataFileOrder() throws Exception {
+        IndexedTaskStore store = this.newStore();
+        TaskSource.TaskSet set = store.getTaskSet();
+
+        assertThat(store.getAll()).containsExactlyElementsOf(this.tasks.values());
+        assertThat(set.size()).isEqualTo(3);
+        assertThat(set.getPage(1, 5)).containsExactly(this.tasks.get(2), this.tasks.get(5));
+        assertThat(set.getPage(0, 1)).containsExactly(this.tasks.get(7));
+        assertThat(set.getPage(3, 5)).isEmpty();
+        assertThat(set.keyOf(0)).isEqualTo(7);
+        assertThat(set.keyOf(2)).isEqualTo(5);
+        assertThat(this.storeFile).exists();
+    }
+
+    @Test
+    void findByIdAndFindByHostUseIndexes() throws Exception {
+        IndexedTaskStore store = this.newStore();
+
+        assertThat(store.findById(2)).contains(this.tasks.get(2));
+        assertThat(store.findById(3)).isEmpty();
+        assertThat(store.findByHost("EXAMPLE.com")).containsExactly(Map.entry(7, this.tasks.get(7)), Map.entry(5, this.tasks.get(5)));
+        assertThat(store.findByHost("other")).isEmpty();
+    }
+
+    @Test
+    void findByIdAndFindByHostSeeTasksChangedSinceStoreWasBuilt() throws Exception {
+        IndexedTaskStore store = this.newStore();
+        store.getAll();
+        Map<Integer, ValidationTask> changes = new HashMap<>();
+        changes.put(7, null);
+        changes.put(2, this.task("https://example.com/moved"));
+        changes.put(9, this.task("http://localhost/added"));
+        given(this.xmlDao.getChangedTasks()).willReturn(changes);
+
+        assertThat(store.findById(7)).isEmpty();
+        assertThat(store.findById(9)).contains(changes.get(9));
+        assertThat(store.findByHost("example.com")).containsExactly(Map.entry(5, this.tasks.get(5)), Map.entry(2, changes.get(2)));
+        assertThat(store.getAll()).containsExactlyElementsOf(this.tasks.values());
+    }
+
+    @Test
+    void taskSetKeepsReadingTheTasksItWasTakenFromAfterRebuild() throws Exception {
+        IndexedTaskStore store = this.newStore();
+        TaskSource.TaskSet set = store.getTaskSet();
+        given(this.xmlDao.getDataFileLastModifiedTime()).willReturn(20L);
+        this.givenDataFileTasks(Map.of(1, this.task("http://localhost/new")));
+
+        assertThat(store.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/new");
+        assertThat(set.size()).isEqualTo(3);
+        assertThat(set.getPage(0, 10)).containsExactlyElementsOf(this.tasks.values());
+    }
+
+    @Test
+    void existingStoreIsReusedWhenDataFileNotModified() throws Exception {
+        this.newStore().getAll();
+
+        assertThat(this.newStore().getTaskSet().getPage(0, 10)).containsExactlyElementsOf(this.tasks.values());
+        verify(this.xmlDao, times(1)).getTaskSet(anyList());
+    }
+
+    @Test
+    void storeIsRebuiltWhenDataFileModified() throws Exception {
+        IndexedTaskStore store = this.newStore();
+        store.getAll();
+        given(this.xmlDao.getDataFileLastModifiedTime()).willReturn(20L);
+        this.givenDataFileTasks(Map.of(1, this.task("http://localhost/new")));
+
+        assertThat(store.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/new");
+    }
+
+    @Test
+    void damagedStoreIsRebuilt() throws Exception {
+        Files.write(this.storeFile, new byte[]{0x48, 0x56, 0x49, 0x53, 0, 0, 0, 1, 0});
+
+        assertThat(this.newStore().getAll()).containsExactlyElementsOf(this.tasks.values());
+    }
+
+    @Test
+    void getTaskSetThrowsFileNotFoundExceptionWhenDataFileDoesNotExist() {
+        given(this.xmlDao.getDataFileLastModifiedTime()).willReturn(0L);
+
+        assertThrows(FileNotFoundException.class, () -> this.newStore().getTaskSet());
+    }
+}
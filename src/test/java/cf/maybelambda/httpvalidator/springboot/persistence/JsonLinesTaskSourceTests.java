@@ -0,0 +1,128 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.FileNotFoundException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.JsonLinesTaskSource.JSONL_DATAFILE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.JsonLinesTaskSource.MIN_CHUNK_BYTES;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class JsonLinesTaskSourceTests {
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final Environment env = mock(Environment.class);
+    private final JsonLinesTaskSource source = new JsonLinesTaskSource();
+    @TempDir
+    private Path dir;
+    private Path datafile;
+
+    @BeforeEach
+    void setUp() {
+        this.datafile = this.dir.resolve("validations.jsonl");
+        given(this.env.getProperty(JSONL_DATAFILE_PROPERTY)).willReturn(this.datafile.toString());
+        this.source.setEnv(this.env);
+        this.source.setObjectMapper(this.mapper);
+    }
+
+    @Test
+    void getAllBuildsTasksFromEveryNonBlankLine() throws Exception {
+        Files.writeString(this.datafile, """
+            {"method": 1, "url": "http://localhost/a", "header": ["Accept|application/json"], "reqbody": {"a": [1, null]}, \
+            "statuscode": 201, "response": "created", "jsonbody": {"id": 1}, "ignoreorder": true, \
+            "jsonpath": [{"path": "$.items", "op": "size", "min": 1, "max": 5}, {"path": "$.s", "value": "ok"}], \
+            "resheader": ["ETag", "Content-Type|text/plain"], "latency": {"total": 500}}
+
+              \s
+            {"url": "http://localhost/b", "method": 0, "statuscode": 200, "response": "v\\\\d+", "mode": "regex"}""");
+
+        assertThat(this.source.getAll()).containsExactly(
+            new ValidationTask(POST, "http://localhost/a", List.of("Accept|application/json"),
+                this.mapper.readTree("{\"a\": [1, null]}"), 201, "created", new ResponseAssertions(
+                    List.of(new JsonPathAssertion("$.items", SIZE, "", 1, 5), new JsonPathAssertion("$.s", EQUALS, "ok", 0, Integer.MAX_VALUE)),
+                    new JsonDocumentAssertion("{\"id\":1}", true),
+                    List.of(new HeaderAssertion("ETag", null), new HeaderAssertion("Content-Type", "text/plain")),
+                    new LatencySla(0, 500), null)),
+            new ValidationTask(GET, "http://localhost/b", List.of(), this.mapper.nullNode(), 200, "",
+                new ResponseAssertions(List.of(), null, List.of(), null, new RegexAssertion("v\\d+")))
+        );
+    }
+
+    @Test
+    void getAllReturnsTasksFromMemoryWhenFileNotModifiedSinceLastRead() throws Exception {
+        Files.writeString(this.datafile, "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200}\n");
+        List<ValidationTask> tasks = this.source.getAll();
+
+        assertThat(this.source.getAll()).isSameAs(tasks).hasSize(1);
+    }
+
+    @Test
+    void getAllThrowsXMLParseExceptionWhenAnyLineIsNotValidTask() throws Exception {
+        String valid = "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200}\n";
+        List<String> invalid = List.of(
+            "{\"method\": 0, \"url\": \"http://localhost\"}",
+            "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200, \"body\": \"\"}",
+            "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200} {}",
+            "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200, \"header\": [\"Accept\"]}",
+            "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200, \"jsonpath\": [{\"path\": \"a\"}]}",
+            "{\"method\": 0, \"url\": \"http://localhost\", \"statuscode\": 200, \"response\": \"(\", \"mode\": \"regex\"}",
+            "{\"method\": 0, \"url\": \"http://localhost\","
+        );
+
+        for (String line : invalid) {
+            assertThrows(XMLParseException.class, () -> this.source.parse((valid + line).getBytes(StandardCharsets.UTF_8)), line);
+        }
+    }
+
+    @Test
+    void getAllThrowsFileNotFoundExceptionWhenFileDoesNotExist() {
+        assertThrows(FileNotFoundException.class, this.source::getAll);
+        assertThat(this.source.isDataFileStatusOk()).isFalse();
+    }
+
+    @Test
+    void largeFilesAreParsedInPartsKeepingLineOrder() throws Exception {
+        String content = IntStream.range(0, 5000)
+            .mapToObj(i -> "{\"method\": 0, \"url\": \"http://localhost/" + i + "\", \"statuscode\": 200}")
+            .collect(Collectors.joining("\n"));
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        assertThat(JsonLinesTaskSource.splitAtLines(bytes, 4)).hasSizeGreaterThan(2);
+        assertThat(this.source.parse(bytes)).extracting(ValidationTask::reqURL)
+            .containsExactlyElementsOf(IntStream.range(0, 5000).mapToObj(i -> "http://localhost/" + i).toList());
+    }
+
+    @Test
+    void splitAtLinesStartsEveryPartAfterLineBreak() {
+        byte[] bytes = ("a".repeat(MIN_CHUNK_BYTES) + "\n" + "b".repeat(MIN_CHUNK_BYTES) + "\n" + "c".repeat(10)).getBytes(StandardCharsets.UTF_8);
+
+        assertThat(JsonLinesTaskSource.splitAtLines(bytes, 8)).containsExactly(0, 2 * MIN_CHUNK_BYTES + 2, bytes.length);
+        assertThat(JsonLinesTaskSource.splitAtLines(bytes, 1)).containsExactly(0, bytes.length);
+        assertThat(JsonLinesTaskSource.splitAtLines(new byte[0], 8)).containsExactly(0, 0);
+    }
+}
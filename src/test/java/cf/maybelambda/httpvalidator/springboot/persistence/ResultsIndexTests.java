@@ -0,0 +1,177 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex.CHUNK_SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex.DEFAULT_MAX_OUTCOMES;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex.MAX_OUTCOMES_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_RETENTION_HOURS;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_SEGMENT_HOURS;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_SEGMENT_SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DIR_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.RETENTION_HOURS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.SEGMENT_HOURS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.SEGMENT_SIZE_PROPERTY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ResultsIndexTests {
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private final Environment env = mock(Environment.class);
+    private final HttpResponse<String> ok = mock(HttpResponse.class);
+    private final HttpResponse<String> down = mock(HttpResponse.class);
+    private static final int HOST_A = ResultsLog.hostHash("a.example.com");
+    private static final int HOST_B = ResultsLog.hostHash("b.example.com");
+    private final ValidationFailure failure = new ValidationFailure(FailureClass.STATUS_CODE, "503");
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        given(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).willReturn(DEFAULT_RETENTION_HOURS);
+        given(this.env.getProperty(SEGMENT_SIZE_PROPERTY, Integer.class, DEFAULT_SEGMENT_SIZE)).willReturn(DEFAULT_SEGMENT_SIZE);
+        given(this.env.getProperty(SEGMENT_HOURS_PROPERTY, Integer.class, DEFAULT_SEGMENT_HOURS)).willReturn(DEFAULT_SEGMENT_HOURS);
+        given(this.env.getProperty(MAX_OUTCOMES_PROPERTY, Integer.class, DEFAULT_MAX_OUTCOMES)).willReturn(DEFAULT_MAX_OUTCOMES);
+        given(this.ok.statusCode()).willReturn(200);
+        given(this.down.statusCode()).willReturn(503);
+    }
+
+    private ResultsIndex newIndex() {
+        ResultsLog log = new ResultsLog();
+        log.setEnv(this.env);
+        ResultsIndex index = new ResultsIndex();
+        index.setResultsLog(log);
+        index.setEnv(this.env);
+
+        return index;
+    }
+
+    private ResultsIndex.Query query(Long task, String host, Integer status, Boolean failed) {
+        return new ResultsIndex.Query(task, host, status, failed, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Adds outcomes of tasks 0 (a) and 1 (b) every half hour, where task 1 fails every other time.
+     */
+    private ResultsIndex indexWithOutcomes(int runs) {
+        ResultsIndex index = this.newIndex();
+        for (int r = 0; r < runs; r++) {
+            long ts = HOUR + r * HOUR / 2;
+            index.add(ts, 0, HOST_A, new HttpSendOutcomeWrapper(this.ok, 1, 2_000_000), null);
+            boolean fails = r % 2 == 1;
+            index.add(ts, 1, HOST_B, new HttpSendOutcomeWrapper(fails ? this.down : this.ok, 1, 1), fails ? this.failure : null);
+        }
+
+        return index;
+    }
+
+    @Test
+    void queryFiltersByTaskHostStatusAndFailureFromMostRecent() {
+        ResultsIndex index = this.indexWithOutcomes(6);
+
+        ResultsIndex.ResultPage failures = index.query(this.query(1L, null, null, true), 0, 10);
+        assertThat(failures.total()).isEqualTo(3);
+        assertThat(failures.results()).extracting(ResultsIndex.Result::time).containsExactly(
+            Instant.ofEpochMilli(HOUR + 5 * HOUR / 2), Instant.ofEpochMilli(HOUR + 3 * HOUR / 2), Instant.ofEpochMilli(HOUR + HOUR / 2));
+        assertThat(failures.results().getFirst()).isEqualTo(
+            new ResultsIndex.Result(Instant.ofEpochMilli(HOUR + 5 * HOUR / 2), 1, 503, 0, FailureClass.STATUS_CODE));
+        assertThat(index.query(this.query(null, "b.EXAMPLE.com", 200, null), 0, 10).total()).isEqualTo(3);
+        assertThat(index.query(this.query(0L, null, null, null), 0, 1).results()).singleElement()
+            .extracting(ResultsIndex.Result::latencyMillis).isEqualTo(2L);
+        assertThat(index.query(this.query(null, null, 503, null), 0, 10).total()).isEqualTo(3);
+        assertThat(index.query(this.query(null, null, null, null), 0, 10).total()).isEqualTo(12);
+        assertThat(index.query(this.query(7L, null, null, null), 0, 10).total()).isZero();
+        assertThat(index.query(this.query(null, "other", null, null), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void queryReturnsOutcomesOfTimeRangeByPages() {
+        ResultsIndex index = this.indexWithOutcomes(10);
+        // Runs 2 to 5, from the start of the second hour to the end of the third one
+        ResultsIndex.Query q = new ResultsIndex.Query(0L, null, null, null, 2 * HOUR, 4 * HOUR);
+
+        ResultsIndex.ResultPage first = index.query(q, 0, 3);
+        ResultsIndex.ResultPage second = index.query(q, 3, 3);
+
+        assertThat(first.total()).isEqualTo(4);
+        assertThat(first.results()).extracting(r -> r.time().toEpochMilli())
+            .containsExactly(HOUR + 5 * HOUR / 2, HOUR + 4 * HOUR / 2, HOUR + 3 * HOUR / 2);
+        assertThat(second.total()).isEqualTo(4);
+        assertThat(second.results()).extracting(r -> r.time().toEpochMilli()).containsExactly(2 * HOUR);
+        assertThat(index.query(new ResultsIndex.Query(null, null, null, null, 100 * HOUR, 200 * HOUR), 0, 3).total()).isZero();
+    }
+
+    @Test
+    void indexIsFilledFromResultsLogOnFirstUse() {
+        given(this.env.getProperty(DIR_PROPERTY)).willReturn(this.dir.toString());
+        ResultsLog log = new ResultsLog();
+        log.setEnv(this.env);
+        long now = System.currentTimeMillis();
+        log.append(now - 2000, 4, HOST_A, 0, new HttpSendOutcomeWrapper(this.down, 1, 1), this.failure);
+        log.append(now - 1000, 5, HOST_B, 0, new HttpSendOutcomeWrapper(this.ok, 1, 1), null);
+
+        ResultsIndex index = this.newIndex();
+        index.add(now, 4, HOST_A, new HttpSendOutcomeWrapper(this.ok, 1, 1), null);
+
+        assertThat(index.query(this.query(4L, null, null, null), 0, 10).results())
+            .extracting(ResultsIndex.Result::failureClass).containsExactly(null, FailureClass.STATUS_CODE);
+        assertThat(index.query(this.query(null, "b.example.com", null, null), 0, 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void outcomesOlderThanRetentionAreDroppedByChunks() {
+        given(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).willReturn(1);
+        ResultsIndex index = this.newIndex();
+        HttpSendOutcomeWrapper res = new HttpSendOutcomeWrapper(this.ok, 1, 1);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            index.add(HOUR + i, i % 2, i % 2 == 0 ? HOST_A : HOST_B, res, null);
+        }
+        index.add(10 * HOUR, 0, HOST_A, res, null);
+
+        assertThat(index.query(this.query(null, null, null, null), 0, 10).total()).isEqualTo(1);
+        assertThat(index.query(this.query(1L, null, null, null), 0, 10).total()).isZero();
+        assertThat(index.query(new ResultsIndex.Query(0L, null, null, null, 0, 11 * HOUR), 0, 10).results())
+            .extracting(r -> r.time().toEpochMilli()).containsExactly(10 * HOUR);
+    }
+
+    @Test
+    void oldestOutcomesAreDroppedByChunksBeyondMaximum() {
+        given(this.env.getProperty(MAX_OUTCOMES_PROPERTY, Integer.class, DEFAULT_MAX_OUTCOMES)).willReturn(CHUNK_SIZE + 1);
+        long now = System.currentTimeMillis();
+        ResultsIndex index = this.newIndex();
+        HttpSendOutcomeWrapper res = new HttpSendOutcomeWrapper(this.ok, 1, 1);
+        for (int i = 0; i < 2 * CHUNK_SIZE; i++) {
+            index.add(now, 0, HOST_A, res, null);
+        }
+        index.add(now, 1, HOST_B, res, null);
+
+        assertThat(index.query(this.query(null, null, null, null), 0, 10).total()).isEqualTo(CHUNK_SIZE + 1);
+        assertThat(index.query(this.query(1L, null, null, null), 0, 10).total()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredOutcomesAreDroppedPeriodicallyWithoutNewChunks() {
+        ResultsIndex index = this.newIndex();
+        HttpSendOutcomeWrapper res = new HttpSendOutcomeWrapper(this.ok, 1, 1);
+        for (int i = 0; i <= CHUNK_SIZE; i++) {
+            index.add(HOUR + i, 0, HOST_A, res, null);
+        }
+
+        index.dropExpired();
+
+        // The chunk being filled is kept
+        assertThat(index.query(this.query(0L, null, null, null), 0, 10).total()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,200 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.ConnectException;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_RETENTION_HOURS;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_SEGMENT_HOURS;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DEFAULT_SEGMENT_SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.DIR_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.HEADER_SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.RECORD_SIZE;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.RETENTION_HOURS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.SEGMENT_HOURS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog.SEGMENT_SIZE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ResultsLogTests {
+    private final Environment env = mock(Environment.class);
+    private final HttpResponse<String> res = mock(HttpResponse.class);
+    private static final int HOST = ResultsLog.hostHash("example.com");
+    private static final long BODY = ResultsLog.bodyHash("down");
+    private final ValidationTask task = new ValidationTask(GET, "http://Example.com/a", List.of(), JsonMapper.builder().build().nullNode(), 200, "");
+    @TempDir
+    private Path dir;
+
+    /**
+     * Copy of a record read from the log.
+     */
+    private record Read(long timestamp, long taskKey, int hostHash, int status, long latency, FailureClass failureClass, long bodyHash) {}
+
+    @BeforeEach
+    void setUp() {
+        given(this.env.getProperty(DIR_PROPERTY)).willReturn(this.dir.toString());
+        given(this.env.getProperty(SEGMENT_SIZE_PROPERTY, Integer.class, DEFAULT_SEGMENT_SIZE)).willReturn(DEFAULT_SEGMENT_SIZE);
+        given(this.env.getProperty(SEGMENT_HOURS_PROPERTY, Integer.class, DEFAULT_SEGMENT_HOURS)).willReturn(DEFAULT_SEGMENT_HOURS);
+        given(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).willReturn(DEFAULT_RETENTION_HOURS);
+        given(this.res.statusCode()).willReturn(503);
+        given(this.res.body()).willReturn("down");
+    }
+
+    private ResultsLog newLog() {
+        ResultsLog log = new ResultsLog();
+        log.setEnv(this.env);
+
+        return log;
+    }
+
+    private List<Read> readAll(ResultsLog log, long from) throws Exception {
+        List<Read> res = new ArrayList<>();
+        log.read(from, e -> res.add(new Read(e.timestampMillis(), e.taskKey(), e.hostHash(), e.statusCode(), e.latencyNanos(), e.failureClass(), e.bodyHash())));
+
+        return res;
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> paths = Files.list(this.dir)) {
+            return paths.sorted().toList();
+        }
+    }
+
+    @Test
+    void appendedOutcomesAreReadWithAllTheirFields() throws Exception {
+        ResultsLog log = this.newLog();
+        log.append(1000, 3, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 2_000_000),
+            new ValidationFailure(FailureClass.STATUS_CODE, "503"));
+        log.append(2000, 4, HOST, 0, new HttpSendOutcomeWrapper(new ConnectException()), new ValidationFailure(FailureClass.NETWORK, "down"));
+        given(this.res.statusCode()).willReturn(200);
+        long contentKey = TaskSource.TaskSet.keysOf(List.of(this.task), null)[0];
+        log.append(3000, contentKey, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 5), null);
+
+        assertThat(this.readAll(log, 0)).containsExactly(
+            new Read(1000, 3, HOST, 503, 2_000_000, FailureClass.STATUS_CODE, BODY),
+            new Read(2000, 4, HOST, NET_ERR_CODE, 0, FailureClass.NETWORK, 0),
+            new Read(3000, contentKey, HOST, 200, 5, null, BODY)
+        );
+        assertThat(this.readAll(log, 2000)).extracting(Read::taskKey).containsExactly(4L, contentKey);
+    }
+
+    @Test
+    void fullSegmentsAreRolledAndOutcomesReadInOrder() throws Exception {
+        given(this.env.getProperty(SEGMENT_SIZE_PROPERTY, Integer.class, DEFAULT_SEGMENT_SIZE)).willReturn(HEADER_SIZE + 2 * RECORD_SIZE);
+        ResultsLog log = this.newLog();
+        for (int i = 1; i <= 5; i++) {
+            log.append(i * 1000L, i, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        }
+
+        assertThat(this.segments()).hasSize(3);
+        assertThat(this.readAll(log, 0)).extracting(Read::taskKey).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(this.readAll(log, 4000)).extracting(Read::taskKey).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void outcomesAreKeptAcrossRestartsAndLastSegmentIsReused() throws Exception {
+        ResultsLog log = this.newLog();
+        log.append(1000, 1, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.close();
+
+        ResultsLog reopened = this.newLog();
+        assertThat(this.readAll(reopened, 0)).extracting(Read::taskKey).containsExactly(1L);
+        reopened.append(2000, 2, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+
+        assertThat(this.readAll(reopened, 0)).extracting(Read::taskKey).containsExactly(1L, 2L);
+        assertThat(this.segments()).hasSize(1);
+    }
+
+    @Test
+    void segmentsOlderThanRetentionAreDeletedWhenRolling() throws Exception {
+        given(this.env.getProperty(SEGMENT_SIZE_PROPERTY, Integer.class, DEFAULT_SEGMENT_SIZE)).willReturn(HEADER_SIZE + RECORD_SIZE);
+        given(this.env.getProperty(RETENTION_HOURS_PROPERTY, Integer.class, DEFAULT_RETENTION_HOURS)).willReturn(1);
+        ResultsLog log = this.newLog();
+        long hour = Duration.ofHours(1).toMillis();
+        log.append(1000, 1, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.append(2000, 2, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.append(3 * hour, 3, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+
+        assertThat(this.readAll(log, 0)).extracting(Read::taskKey).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void segmentsAreRolledOnceTheirPeriodEndsEvenIfNotFull() throws Exception {
+        ResultsLog log = this.newLog();
+        long hour = Duration.ofHours(1).toMillis();
+        log.append(1000, 1, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.append(hour, 2, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.append(hour + 1000, 3, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        log.close();
+        // A segment whose period ended is not reused after a restart
+        this.newLog().append(3 * hour, 4, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+
+        assertThat(this.segments()).hasSize(3);
+        assertThat(this.readAll(log, 0)).extracting(Read::taskKey).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void expiredSegmentsAreDeletedPeriodically() throws Exception {
+        ResultsLog log = this.newLog();
+        long hour = Duration.ofHours(1).toMillis();
+        long cutoff = System.currentTimeMillis() - Duration.ofHours(DEFAULT_RETENTION_HOURS).toMillis();
+        log.append(cutoff - 2 * hour, 1, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        // Within the retention period when this segment is started, past it by now
+        log.append(cutoff - hour, 2, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        assertThat(this.segments()).hasSize(2);
+
+        log.deleteExpired();
+
+        assertThat(this.segments()).hasSize(1);
+        assertThat(this.readAll(log, 0)).extracting(Read::taskKey).containsExactly(2L);
+    }
+
+    @Test
+    void directoryIsReadFromEnvironmentOnce() throws Exception {
+        ResultsLog log = this.newLog();
+        for (int i = 1; i <= 3; i++) {
+            log.append(i * 1000L, i, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+        }
+
+        assertThat(log.isEnabled()).isTrue();
+        verify(this.env, times(1)).getProperty(DIR_PROPERTY);
+    }
+
+    @Test
+    void nothingIsWrittenWhenLogIsNotEnabled() throws Exception {
+        given(this.env.getProperty(DIR_PROPERTY)).willReturn(null);
+        ResultsLog log = this.newLog();
+        log.append(1000, 1, HOST, BODY, new HttpSendOutcomeWrapper(this.res, 1, 1), null);
+
+        assertThat(log.isEnabled()).isFalse();
+        assertThat(this.segments()).isEmpty();
+        assertThat(this.readAll(log, 0)).isEmpty();
+    }
+
+    @Test
+    void bodyHashIsStableAndTellsBodiesApart() {
+        assertThat(ResultsLog.bodyHash("abc")).isEqualTo(ResultsLog.bodyHash(new StringBuilder("abc")));
+        assertThat(ResultsLog.bodyHash("abc")).isNotEqualTo(ResultsLog.bodyHash("abd"));
+        assertThat(ResultsLog.bodyHash(null)).isZero();
+    }
+}
@@ -0,0 +1,71 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskInternerTests {
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final TaskInterner interner = new TaskInterner();
+
+    private ValidationTask task(int n) {
+        // Every part is a new instance, as when parsed from a data file
+        List<String> headers = new ArrayList<>(List.of(new String("Authorization|Bearer abc"), new String("Accept|application/json")));
+        ResponseAssertions as = new ResponseAssertions(List.of(), null, List.of(new HeaderAssertion("ETag", null)), null, null);
+        return new ValidationTask(POST, new String("http://localhost/api"), headers, this.mapper.readTree("{\"a\": [" + n % 2 + "]}"),
+            200, new String("ok"), as);
+    }
+
+    private static long distinct(List<ValidationTask> tasks, Function<ValidationTask, Object> part) {
+        Set<Object> res = Collections.newSetFromMap(new IdentityHashMap<>());
+        tasks.forEach(t -> res.add(part.apply(t)));
+
+        return res.size();
+    }
+
+    @Test
+    void internReturnsEqualTaskSharingPartsWithPreviousTasks() {
+        ValidationTask first = this.interner.intern(this.task(0));
+        ValidationTask task = this.task(2);
+
+        ValidationTask ans = this.interner.intern(task);
+
+        assertThat(ans).isEqualTo(task);
+        assertThat(ans.reqURL()).isSameAs(first.reqURL());
+        assertThat(ans.reqHeaders()).isSameAs(first.reqHeaders()).isUnmodifiable();
+        assertThat(ans.reqBody()).isSameAs(first.reqBody());
+        assertThat(ans.validBody()).isSameAs(first.validBody());
+        assertThat(ans.assertions()).isSameAs(first.assertions());
+    }
+
+    @Test
+    void largeTaskSetKeepsSingleCopyOfEachDistinctPart() {
+        List<ValidationTask> raw = new ArrayList<>();
+        List<ValidationTask> interned = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            raw.add(this.task(i));
+            interned.add(this.interner.intern(raw.getLast()));
+        }
+
+        assertThat(interned).containsExactlyElementsOf(raw);
+        assertThat(distinct(raw, ValidationTask::reqHeaders)).isEqualTo(10_000);
+        assertThat(distinct(interned, ValidationTask::reqHeaders)).isEqualTo(1);
+        assertThat(distinct(interned, t -> t.reqHeaders().getFirst())).isEqualTo(1);
+        assertThat(distinct(interned, ValidationTask::reqURL)).isEqualTo(1);
+        assertThat(distinct(interned, ValidationTask::reqBody)).isEqualTo(2);
+        assertThat(distinct(interned, ValidationTask::assertions)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,65 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.TaskJournal.DELETE_OP;
+import static cf.maybelambda.httpvalidator.springboot.persistence.TaskJournal.PUT_OP;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TaskJournalTests {
+    @TempDir
+    private Path dir;
+    private Path path;
+    private TaskJournal journal;
+
+    @BeforeEach
+    void setUp() {
+        this.path = this.dir.resolve("validations.xml.journal");
+        this.journal = new TaskJournal(this.path, JsonMapper.builder().build());
+    }
+
+    @Test
+    void readAllReturnsNoChangesWhenJournalDoesNotExist() throws Exception {
+        assertThat(this.journal.exists()).isFalse();
+        assertThat(this.journal.readAll()).isEmpty();
+    }
+
+    @Test
+    void readAllReturnsAppendedChangesInOrder() throws Exception {
+        this.journal.appendPut(1, "<validation id=\"1\">\n\"a\"</validation>");
+        this.journal.appendDelete(0);
+        this.journal.appendPut(1, "<validation id=\"1\"/>");
+
+        assertThat(this.journal.exists()).isTrue();
+        assertThat(this.journal.readAll()).containsExactly(
+            new TaskJournal.Change(PUT_OP, 1, "<validation id=\"1\">\n\"a\"</validation>"),
+            new TaskJournal.Change(DELETE_OP, 0, null),
+            new TaskJournal.Change(PUT_OP, 1, "<validation id=\"1\"/>")
+        );
+    }
+
+    @Test
+    void readAllIgnoresIncompleteLastLine() throws Exception {
+        this.journal.appendDelete(2);
+        Files.writeString(this.path, "{\"op\":\"put\",\"id\":3,\"xm", StandardOpenOption.APPEND);
+
+        assertThat(this.journal.readAll()).containsExactly(new TaskJournal.Change(DELETE_OP, 2, null));
+    }
+
+    @Test
+    void clearRemovesAllChanges() throws Exception {
+        this.journal.appendDelete(2);
+
+        this.journal.clear();
+
+        assertThat(this.journal.exists()).isFalse();
+        assertThat(this.journal.readAll()).isEmpty();
+    }
+}
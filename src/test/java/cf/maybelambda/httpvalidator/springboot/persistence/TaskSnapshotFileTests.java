@@ -0,0 +1,96 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskSnapshotFileTests {
+    private static final byte[] CONTENT = "<validations/>".getBytes(StandardCharsets.UTF_8);
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+    @TempDir
+    private Path dir;
+    private TaskSnapshotFile snapshot;
+
+    @BeforeEach
+    void setUp() {
+        this.snapshot = new TaskSnapshotFile(this.dir.resolve("validations.xml.snapshot"), this.mapper);
+        this.tasks.put(7, new ValidationTask(POST, "http://localhost/á", List.of("Accept|application/json"),
+            this.mapper.readTree("{\"a\": [1, null]}"), 201, "created", new ResponseAssertions(
+                List.of(new JsonPathAssertion("$.items", SIZE, "", 1, 5), new JsonPathAssertion("$.s", EQUALS, "ok", 0, Integer.MAX_VALUE)),
+                new JsonDocumentAssertion("{\"id\": 1}", true),
+                List.of(new HeaderAssertion("ETag", null), new HeaderAssertion("Content-Type", "text/plain")),
+                new LatencySla(0, 500), null)));
+        this.tasks.put(2, new ValidationTask(GET, "http://localhost", List.of(), this.mapper.nullNode(), 200, "",
+            new ResponseAssertions(List.of(), null, List.of(), null, new RegexAssertion("v\\d+"))));
+    }
+
+    @Test
+    void readReturnsWrittenTasksWhenKeyMatches() throws Exception {
+        this.snapshot.write(TaskSnapshotFile.Key.of(CONTENT, 10), this.tasks, Set.of(2));
+
+        Set<Integer> implicitIds = new HashSet<>();
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of(CONTENT, 10), implicitIds)).containsExactlyEntriesOf(this.tasks);
+        assertThat(implicitIds).containsExactly(2);
+        assertThat(this.dir.toFile().list()).containsExactly("validations.xml.snapshot");
+    }
+
+    @Test
+    void readReturnsNullWhenSnapshotBelongsToOtherDataFile() throws Exception {
+        this.snapshot.write(TaskSnapshotFile.Key.of(CONTENT, 10), this.tasks, Set.of());
+
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of(CONTENT, 11), new HashSet<>())).isNull();
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of("<validations />".getBytes(StandardCharsets.UTF_8), 10), new HashSet<>())).isNull();
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of("<validations/>\n".getBytes(StandardCharsets.UTF_8), 10), new HashSet<>())).isNull();
+    }
+
+    @Test
+    void readReturnsNullWhenSnapshotDoesNotExistOrHasOtherVersion() throws Exception {
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of(CONTENT, 10), new HashSet<>())).isNull();
+
+        this.snapshot.write(TaskSnapshotFile.Key.of(CONTENT, 10), this.tasks, Set.of());
+        Path path = this.dir.resolve("validations.xml.snapshot");
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[7]++;
+        Files.write(path, bytes);
+
+        assertThat(this.snapshot.read(TaskSnapshotFile.Key.of(CONTENT, 10), new HashSet<>())).isNull();
+    }
+
+    @Test
+    void readThrowsIOExceptionWhenSnapshotIsTruncated() throws Exception {
+        this.snapshot.write(TaskSnapshotFile.Key.of(CONTENT, 10), this.tasks, Set.of());
+        Path path = this.dir.resolve("validations.xml.snapshot");
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> this.snapshot.read(TaskSnapshotFile.Key.of(CONTENT, 10), new HashSet<>()));
+    }
+}
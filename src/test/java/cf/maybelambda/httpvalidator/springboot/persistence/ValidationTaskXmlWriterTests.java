@@ -0,0 +1,66 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValidationTaskXmlWriterTests {
+    private static final String TASK = "<validation id=\"7\"><url method=\"1\">http://localhost:8080/api?a=1&amp;b=2</url>"
+        + "<header>Accept|application/json</header><reqbody>{\"a\": [1, \"&lt;b&gt;\"]}</reqbody>"
+        + "<response statuscode=\"201\">created</response><jsonbody ignoreorder=\"true\">{\"id\": 1}</jsonbody>"
+        + "<jsonpath path=\"$.items\" op=\"size\" min=\"1\" max=\"5\"></jsonpath><jsonpath path=\"$.status\">ok</jsonpath>"
+        + "<resheader>ETag</resheader><resheader>Content-Type|application/json</resheader><latency total=\"500\"/></validation>";
+    private static final String REGEX_TASK = "<validation><url method=\"0\">http://localhost</url>"
+        + "<response statuscode=\"200\" mode=\"regex\">v\\d+</response></validation>";
+    private final ObjectMapper mapper = JsonMapper.builder().build();
+    private final ValidationTaskXmlWriter writer = new ValidationTaskXmlWriter(this.mapper);
+    private XMLValidationTaskDao dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.dao = new XMLValidationTaskDao();
+        this.dao.setObjectMapper(this.mapper);
+    }
+
+    @Test
+    void toXmlOutputIsReadBackAsEqualTask() throws Exception {
+        ValidationTask task = this.parse(TASK);
+        ValidationTask regexTask = this.parse(REGEX_TASK);
+
+        assertThat(this.parse(this.writer.toXml(7, task))).isEqualTo(task);
+        assertThat(this.parse(this.writer.toXml(0, regexTask))).isEqualTo(regexTask);
+    }
+
+    @Test
+    void toXmlWritesTaskId() throws Exception {
+        String xml = this.writer.toXml(42, this.parse(REGEX_TASK));
+
+        assertThat(this.dao.getTaskId(this.dao.parseTaskElement(xml))).isEqualTo(42);
+    }
+
+    @Test
+    void writeOutputIsValidDataFileWithSameTasksAndIds() throws Exception {
+        Map<Integer, ValidationTask> tasks = new LinkedHashMap<>();
+        tasks.put(3, this.parse(TASK));
+        tasks.put(1, this.parse(REGEX_TASK));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        this.writer.write(tasks, out);
+
+        assertThat(this.dao.createVTaskEntries(this.dao.parseXMLInput(new ByteArrayInputStream(out.toByteArray()))))
+            .containsExactlyEntriesOf(tasks);
+    }
+
+    private ValidationTask parse(String xml) throws Exception {
+        return this.dao.createVTaskFromNodes(this.dao.parseTaskElement(xml).getChildNodes());
+    }
+}
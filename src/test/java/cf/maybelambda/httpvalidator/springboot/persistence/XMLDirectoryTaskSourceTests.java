@@ -0,0 +1,115 @@
+package cf.maybelambda.httpvalidator.springboot.persistence;
+
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.management.modelmbean.XMLParseException;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLDirectoryTaskSource.DATAFILE_DIR_PROPERTY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class XMLDirectoryTaskSourceTests {
+    private final Environment env = mock(Environment.class);
+    private final XMLDirectoryTaskSource source = new XMLDirectoryTaskSource();
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        XMLValidationTaskDao dao = new XMLValidationTaskDao();
+        dao.setObjectMapper(JsonMapper.builder().build());
+        given(this.env.getProperty(DATAFILE_DIR_PROPERTY)).willReturn(this.dir.toString());
+        this.source.setXmlDao(dao);
+        this.source.setEnv(this.env);
+    }
+
+    private void writeFile(String name, long lastModifiedTime, String... urls) throws Exception {
+        StringBuilder content = new StringBuilder("<validations>");
+        for (String url : urls) {
+            content.append("<validation><url method=\"0\">").append(url).append("</url><response statuscode=\"200\"/></validation>");
+        }
+        Path file = this.dir.resolve(name);
+        Files.writeString(file, content.append("</validations>"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModifiedTime));
+    }
+
+    @Test
+    void getAllMergesTasksOfXmlFilesInFileNameOrder() throws Exception {
+        this.writeFile("b.xml", 1000, "http://localhost/b1", "http://localhost/b2");
+        this.writeFile("a.xml", 1000, "http://localhost/a");
+        Files.writeString(this.dir.resolve("notes.txt"), "not a data file");
+
+        assertThat(this.source.getAll()).extracting(ValidationTask::reqURL)
+            .containsExactly("http://localhost/a", "http://localhost/b1", "http://localhost/b2");
+        assertThat(this.source.isDataFileStatusOk()).isTrue();
+    }
+
+    @Test
+    void getAllParsesOnlyAddedOrModifiedFiles() throws Exception {
+        this.writeFile("a.xml", 1000, "http://localhost/a");
+        this.writeFile("b.xml", 1000, "http://localhost/b");
+        List<ValidationTask> first = this.source.getAll();
+        assertThat(this.source.getAll()).isSameAs(first);
+
+        this.writeFile("b.xml", 2000, "http://localhost/x");
+        this.writeFile("c.xml", 1000, "http://localhost/c");
+        List<ValidationTask> second = this.source.getAll();
+
+        assertThat(second).extracting(ValidationTask::reqURL)
+            .containsExactly("http://localhost/a", "http://localhost/x", "http://localhost/c");
+        assertThat(second.getFirst()).isSameAs(first.getFirst());
+    }
+
+    @Test
+    void filesParsedInTheSameReadShareEqualPartsOfTheirTasks() throws Exception {
+        this.writeFile("a.xml", 1000, "http://localhost/same");
+        this.writeFile("b.xml", 1000, "http://localhost/same");
+        List<ValidationTask> first = this.source.getAll();
+
+        this.writeFile("c.xml", 1000, "http://localhost/same");
+        List<ValidationTask> second = this.source.getAll();
+
+        assertThat(first.get(1).reqURL()).isSameAs(first.get(0).reqURL());
+        // Each read uses an interner of its own, so the values of earlier reads are not kept for later ones
+        assertThat(second.get(2).reqURL()).isEqualTo(first.get(0).reqURL()).isNotSameAs(first.get(0).reqURL());
+    }
+
+    @Test
+    void getAllDropsTasksOfRemovedFiles() throws Exception {
+        this.writeFile("a.xml", 1000, "http://localhost/a");
+        this.writeFile("b.xml", 1000, "http://localhost/b");
+        this.source.getAll();
+
+        Files.delete(this.dir.resolve("a.xml"));
+
+        assertThat(this.source.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/b");
+    }
+
+    @Test
+    void getAllThrowsXMLParseExceptionWhenAnyFileIsInvalid() throws Exception {
+        this.writeFile("a.xml", 1000, "http://localhost/a");
+        Files.writeString(this.dir.resolve("b.xml"), "<validations><validation/></validations>");
+
+        assertThrows(XMLParseException.class, this.source::getAll);
+    }
+
+    @Test
+    void getAllThrowsFileNotFoundExceptionWhenDirectoryDoesNotExist() {
+        given(this.env.getProperty(DATAFILE_DIR_PROPERTY)).willReturn(this.dir.resolve("missing").toString());
+
+        assertThrows(FileNotFoundException.class, this.source::getAll);
+        assertThat(this.source.isDataFileStatusOk()).isFalse();
+    }
+}
@@ -1,8 +1,17 @@
 package cf.maybelambda.httpvalidator.springboot.persistence;
 
+import cf.maybelambda.httpvalidator.springboot.model.HeaderAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonDocumentAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.RegexAssertion;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
 import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.MockedStatic;
 import org.slf4j.Logger;
 import org.springframework.core.env.Environment;
@@ -15,25 +24,46 @@ import org.xml.sax.SAXException;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
 import javax.management.modelmbean.XMLParseException;
 import javax.xml.parsers.DocumentBuilder;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.IntStream;
 
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.DATAFILE_MAXSIZE_PROPERTY;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.DATAFILE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.DEFAULT_DATAFILE_MAXSIZE;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_IGNORE_ORDER_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_BODY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_OP_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JOURNAL_SUFFIX;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.JSON_PATH_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.LATENCY_TOTAL_ATTR;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_BODY_TAG;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.REQ_METHOD_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_HEADER_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_ATTR;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_MODE_REGEX;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_SC_ATTR;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.RES_TAG;
+import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.SNAPSHOT_SUFFIX;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.URL_TAG;
 import static cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao.VALIDATION_TAG;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -43,6 +73,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class XMLValidationTaskDaoTests {
@@ -75,6 +106,7 @@ public class XMLValidationTaskDaoTests {
         this.taskDao.setObjectMapper(this.mapper);
 
         given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn("/dev/null");
+        given(this.env.getProperty(DATAFILE_MAXSIZE_PROPERTY, Long.class, DEFAULT_DATAFILE_MAXSIZE)).willReturn(DEFAULT_DATAFILE_MAXSIZE);
         this.taskDao.setEnv(this.env);
 
         // Get Document from XML
@@ -106,6 +138,17 @@ public class XMLValidationTaskDaoTests {
         assertThat(this.taskDao.getAll().isEmpty()).isTrue();
     }
 
+    @Test
+    void getLoadMetricsCountsOnlyReloadsOfModifiedDataFile() throws Exception {
+        given(this.nodes.getLength()).willReturn(0);
+
+        this.taskDao.getAll();
+        this.taskDao.getAll();
+
+        assertThat(this.taskDao.getLoadMetrics().getCount()).isEqualTo(1);
+        assertThat(this.taskDao.getLoadMetrics().getMaxNanos()).isPositive();
+    }
+
     @Test
     void taskDataIsReadWhenWellFormedXMLParsedWithoutErrors() throws Exception {
         // Number of <validation> elements
@@ -135,6 +178,163 @@ public class XMLValidationTaskDaoTests {
         assertEquals(this.response.getTextContent(), ans.getFirst().validBody());
     }
 
+    @Test
+    void jsonPathElementsAreReadIntoTaskAssertions() throws Exception {
+        Node jsonPath = mock(Node.class);
+        NamedNodeMap jsonPathAttrs = mock(NamedNodeMap.class);
+        Node pathAttr = mock(Node.class);
+        Node opAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url>, <response> and <jsonpath>
+        given(this.childNodes.getLength()).willReturn(3);
+        given(this.response.getTextContent()).willReturn("");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.childNodes.item(2)).willReturn(jsonPath);
+        given(jsonPath.getNodeName()).willReturn(JSON_PATH_TAG);
+        given(jsonPath.getTextContent()).willReturn(" ok ");
+        given(jsonPath.getAttributes()).willReturn(jsonPathAttrs);
+        given(jsonPathAttrs.getNamedItem(JSON_PATH_ATTR)).willReturn(pathAttr);
+        given(pathAttr.getTextContent()).willReturn("$.status");
+        given(jsonPathAttrs.getNamedItem(JSON_PATH_OP_ATTR)).willReturn(opAttr);
+        given(opAttr.getTextContent()).willReturn("equals");
+
+        List<ValidationTask> ans = this.taskDao.getAll();
+
+        assertThat(ans.getFirst().assertions().jsonPaths()).containsExactly(
+            new JsonPathAssertion("$.status", EQUALS, "ok", 0, Integer.MAX_VALUE)
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"true", "1"})
+    void jsonBodyElementIsReadIntoTaskAssertions(String ignoreOrder) throws Exception {
+        Node jsonBody = mock(Node.class);
+        NamedNodeMap jsonBodyAttrs = mock(NamedNodeMap.class);
+        Node ignoreOrderAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url>, <response> and <jsonbody>
+        given(this.childNodes.getLength()).willReturn(3);
+        given(this.response.getTextContent()).willReturn("");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.childNodes.item(2)).willReturn(jsonBody);
+        given(jsonBody.getNodeName()).willReturn(JSON_BODY_TAG);
+        given(jsonBody.getTextContent()).willReturn("{ \"a\": 1 }");
+        given(jsonBody.getAttributes()).willReturn(jsonBodyAttrs);
+        given(jsonBodyAttrs.getNamedItem(JSON_BODY_IGNORE_ORDER_ATTR)).willReturn(ignoreOrderAttr);
+        given(ignoreOrderAttr.getTextContent()).willReturn(ignoreOrder);
+
+        List<ValidationTask> ans = this.taskDao.getAll();
+
+        assertEquals(new JsonDocumentAssertion("{ \"a\": 1 }", true), ans.getFirst().assertions().jsonBody());
+    }
+
+    @Test
+    void resHeaderAndLatencyElementsAreReadIntoTaskAssertions() throws Exception {
+        Node resHeader = mock(Node.class);
+        Node latency = mock(Node.class);
+        NamedNodeMap latencyAttrs = mock(NamedNodeMap.class);
+        Node totalAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url>, <response>, <resheader> and <latency>
+        given(this.childNodes.getLength()).willReturn(4);
+        given(this.response.getTextContent()).willReturn("");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.childNodes.item(2)).willReturn(resHeader);
+        given(this.childNodes.item(3)).willReturn(latency);
+        given(resHeader.getNodeName()).willReturn(RES_HEADER_TAG);
+        given(resHeader.getTextContent()).willReturn(" ETag ");
+        given(latency.getNodeName()).willReturn(LATENCY_TAG);
+        given(latency.getTextContent()).willReturn("");
+        given(latency.getAttributes()).willReturn(latencyAttrs);
+        given(latencyAttrs.getNamedItem(LATENCY_TOTAL_ATTR)).willReturn(totalAttr);
+        given(totalAttr.getTextContent()).willReturn("500");
+
+        ResponseAssertions ans = this.taskDao.getAll().getFirst().assertions();
+
+        assertEquals(List.of(new HeaderAssertion("ETag", null)), ans.headers());
+        assertEquals(new LatencySla(0, 500), ans.latency());
+    }
+
+    @Test
+    void latencyElementWithValueOutOfRangeThrowsXMLParseException() throws Exception {
+        Node latency = mock(Node.class);
+        NamedNodeMap latencyAttrs = mock(NamedNodeMap.class);
+        Node totalAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url>, <response> and <latency>
+        given(this.childNodes.getLength()).willReturn(3);
+        given(this.response.getTextContent()).willReturn("");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.childNodes.item(2)).willReturn(latency);
+        given(latency.getNodeName()).willReturn(LATENCY_TAG);
+        given(latency.getTextContent()).willReturn("");
+        given(latency.getAttributes()).willReturn(latencyAttrs);
+        given(latencyAttrs.getNamedItem(LATENCY_TOTAL_ATTR)).willReturn(totalAttr);
+        // Valid xs:nonNegativeInteger, but larger than a long
+        given(totalAttr.getTextContent()).willReturn("9223372036854775808");
+
+        assertThrows(XMLParseException.class, () -> this.taskDao.getAll());
+        verify(logger).error(anyString(), any(Throwable.class));
+    }
+
+    @Test
+    void regexResponseIsReadIntoTaskAssertions() throws Exception {
+        Node modeAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url> and <response>
+        given(this.childNodes.getLength()).willReturn(2);
+        given(this.response.getTextContent()).willReturn("v\\d+");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.resBodyAttrs.getNamedItem(RES_MODE_ATTR)).willReturn(modeAttr);
+        given(modeAttr.getTextContent()).willReturn(RES_MODE_REGEX);
+
+        ValidationTask ans = this.taskDao.getAll().getFirst();
+
+        assertEquals(new RegexAssertion("v\\d+"), ans.assertions().bodyRegex());
+        assertThat(ans.validBody()).isEmpty();
+    }
+
+    @Test
+    void updateDataFileThrowsXMLParseExceptionWhenRegexIsInvalid(@TempDir Path dir) throws Exception {
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(dir.resolve("validations.xml").toString());
+        Node modeAttr = mock(Node.class);
+        given(this.nodes.getLength()).willReturn(1);
+        given(this.childNodes.getLength()).willReturn(2);
+        given(this.response.getTextContent()).willReturn("[a-");
+        given(this.childNodes.item(1)).willReturn(this.response);
+        given(this.resBodyAttrs.getNamedItem(RES_MODE_ATTR)).willReturn(modeAttr);
+        given(modeAttr.getTextContent()).willReturn(RES_MODE_REGEX);
+        MultipartFile file = this.multipartFile("<validations/>");
+
+        assertThrows(XMLParseException.class, () -> this.taskDao.updateDataFile(file));
+        assertThat(dir.toFile().list()).isEmpty();
+    }
+
+    @Test
+    void whenJsonPathIsInvalidInGetAllThenErrorIsLogged() {
+        Node jsonPath = mock(Node.class);
+        NamedNodeMap jsonPathAttrs = mock(NamedNodeMap.class);
+        Node pathAttr = mock(Node.class);
+        // Number of <validation> elements
+        given(this.nodes.getLength()).willReturn(1);
+        // <url> and <jsonpath>
+        given(this.childNodes.getLength()).willReturn(2);
+        given(this.childNodes.item(1)).willReturn(jsonPath);
+        given(jsonPath.getNodeName()).willReturn(JSON_PATH_TAG);
+        given(jsonPath.getTextContent()).willReturn("");
+        given(jsonPath.getAttributes()).willReturn(jsonPathAttrs);
+        given(jsonPathAttrs.getNamedItem(JSON_PATH_ATTR)).willReturn(pathAttr);
+        given(pathAttr.getTextContent()).willReturn("data");
+
+        assertThrows(XMLParseException.class, () -> this.taskDao.getAll());
+        verify(logger).error(anyString(), any(Throwable.class));
+    }
+
     @Test
     void xmlAttributesThatCanBeEmptyInDatafileAreParsedOk() throws Exception {
         // Number of <validation> elements
@@ -216,31 +416,354 @@ public class XMLValidationTaskDaoTests {
     }
 
     @Test
-    void updateDataFileThrowsIOExceptionWhenDataCannotBeWrittenToDestinationFile() throws Exception {
-        try (MockedStatic<Files> classMock = mockStatic(Files.class);
-             InputStream is = InputStream.nullInputStream()) {
-            MultipartFile file = mock(MultipartFile.class);
+    void updateDataFileThrowsIOExceptionWhenDataCannotBeWrittenToDestinationFile(@TempDir Path dir) throws Exception {
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(dir.resolve("missing/validations.xml").toString());
+        MultipartFile file = this.multipartFile("<validations/>");
 
-            given(file.getInputStream()).willReturn(is);
-            given(file.getBytes()).willReturn(is.readAllBytes());
-            classMock.when(() -> Files.write(any(Path.class), any(byte[].class))).thenThrow(IOException.class);
+        assertThrows(IOException.class, () -> this.taskDao.updateDataFile(file));
+        verify(logger).error(anyString(), any(Throwable.class));
+    }
 
-            assertThrows(IOException.class, () -> this.taskDao.updateDataFile(file));
-            verify(logger).error(anyString(), any(Throwable.class));
-        }
+    @Test
+    void updateDataFileWritesReceivedFileDataToDestinationFile(@TempDir Path dir) throws Exception {
+        Path target = dir.resolve("validations.xml");
+        Files.writeString(target, "old");
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(target.toString());
+        MultipartFile file = this.multipartFile("<validations/>");
+
+        this.taskDao.updateDataFile(file);
+
+        assertThat(Files.readString(target)).isEqualTo("<validations/>");
+        assertThat(dir.toFile().list()).containsExactly("validations.xml");
+        verify(file).getInputStream();
+        verify(file, never()).getBytes();
     }
 
     @Test
-    void updateDataFileWritesReceivedFileDataToDestinationFile() throws Exception {
-        try (InputStream is = InputStream.nullInputStream()) {
-            MultipartFile file = mock(MultipartFile.class);
-            given(file.getInputStream()).willReturn(is);
-            given(file.getBytes()).willReturn(is.readAllBytes());
+    void updateDataFileLeavesDestinationFileUntouchedWhenUploadIsInvalid(@TempDir Path dir) throws Exception {
+        Path target = dir.resolve("validations.xml");
+        Files.writeString(target, "old");
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(target.toString());
+        given(this.xmlParser.parse(any(InputStream.class))).willThrow(SAXException.class);
 
-            this.taskDao.updateDataFile(file);
+        assertThrows(XMLParseException.class, () -> this.taskDao.updateDataFile(this.multipartFile("<x>")));
+        assertThat(Files.readString(target)).isEqualTo("old");
+        assertThat(dir.toFile().list()).containsExactly("validations.xml");
+    }
+
+    @Test
+    void updateDataFileRejectsUploadsLargerThanMaximumSize(@TempDir Path dir) throws Exception {
+        Path target = dir.resolve("validations.xml");
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(target.toString());
+        given(this.env.getProperty(DATAFILE_MAXSIZE_PROPERTY, Long.class, DEFAULT_DATAFILE_MAXSIZE)).willReturn(10L);
+        MultipartFile declared = this.multipartFile("<validations/>");
+        MultipartFile undeclared = this.multipartFile("<validations/>");
+        // Size not known in advance, the limit is enforced while streaming
+        given(undeclared.getSize()).willReturn(-1L);
+
+        assertThrows(XMLParseException.class, () -> this.taskDao.updateDataFile(declared));
+        verify(declared, never()).getInputStream();
+        assertThrows(XMLParseException.class, () -> this.taskDao.updateDataFile(undeclared));
+        assertThat(Files.exists(target)).isFalse();
+        assertThat(dir.toFile().list()).isEmpty();
+    }
+
+    private MultipartFile multipartFile(String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        MultipartFile file = mock(MultipartFile.class);
+        given(file.getSize()).willReturn((long) bytes.length);
+        given(file.getInputStream()).willReturn(new ByteArrayInputStream(bytes));
+        return file;
+    }
+
+    @Test
+    void eachThreadGetsItsOwnXmlParser() throws Exception {
+        XMLValidationTaskDao dao = new XMLValidationTaskDao();
+        DocumentBuilder[] other = new DocumentBuilder[1];
+        Thread t = new Thread(() -> other[0] = dao.getXmlParser());
+        t.start();
+        t.join();
+
+        assertThat(dao.getXmlParser()).isSameAs(dao.getXmlParser());
+        assertThat(other[0]).isNotNull().isNotSameAs(dao.getXmlParser());
+    }
+
+    @Test
+    void concurrentParsesOfDataFileSucceed() throws Exception {
+        XMLValidationTaskDao dao = new XMLValidationTaskDao();
+        String xml = "<validations><validation><url method=\"0\">http://localhost</url>"
+            + "<response statuscode=\"200\"/></validation></validations>";
+
+        List<Document> docs = IntStream.range(0, 32).parallel()
+            .mapToObj(i -> {
+                try {
+                    return dao.parseXMLInput(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+                } catch (XMLParseException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).toList();
+
+        assertThat(docs).allSatisfy(d -> assertThat(d.getElementsByTagName(VALIDATION_TAG).getLength()).isEqualTo(1));
+    }
+
+    @Test
+    void tasksWithoutIdAreIdentifiedByPositionAndDuplicatedIdsAreRejected(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/a") + task(5, "http://localhost/b") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+
+        assertThat(dao.deleteTask(0)).isTrue();
+        assertThat(dao.deleteTask(1)).isFalse();
+        assertThat(dao.deleteTask(5)).isTrue();
+
+        Files.writeString(datafile, "<validations>" + task(1, "http://localhost/a") + task(null, "http://localhost/b") + "</validations>");
+        dao.setLastModifiedTime(0);
+        assertThrows(XMLParseException.class, dao::getAll);
+    }
+
+    @Test
+    void taskSetKeysTasksByIdOrByContentWhenTheyHaveNoId(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/a") + task(7, "http://localhost/b") + "</validations>");
+        TaskSource.TaskSet first = this.realDao(datafile).getTaskSet();
+        // Another task without id moves the first one; the last load reads the snapshot written by the previous one
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/c") + task(null, "http://localhost/a")
+            + task(7, "http://localhost/b") + "</validations>");
+        TaskSource.TaskSet second = this.realDao(datafile).getTaskSet();
+        TaskSource.TaskSet reloaded = this.realDao(datafile).getTaskSet();
+
+        assertThat(first.keyOf(0)).isGreaterThanOrEqualTo(TaskSource.TaskSet.CONTENT_KEY_BIT);
+        assertThat(first.keyOf(1)).isEqualTo(7);
+        assertThat(second.keyOf(1)).isEqualTo(first.keyOf(0));
+        assertThat(second.keyOf(0)).isNotEqualTo(first.keyOf(0)).isGreaterThanOrEqualTo(TaskSource.TaskSet.CONTENT_KEY_BIT);
+        assertThat(second.keyOf(2)).isEqualTo(7);
+        assertThat(reloaded.keyOf(1)).isEqualTo(first.keyOf(0));
+    }
+
+    @Test
+    void addTaskAssignsNextFreeIdAndRecordsTaskInJournalOnly(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        String content = "<validations>" + task(4, "http://localhost/a") + "</validations>";
+        Files.writeString(datafile, content);
+        XMLValidationTaskDao dao = this.realDao(datafile);
+
+        assertThat(dao.addTask(task(null, "http://localhost/b"))).isEqualTo(5);
+        assertThat(dao.addTask(task(2, "http://localhost/c"))).isEqualTo(2);
+
+        assertThat(dao.getAll()).extracting(ValidationTask::reqURL)
+            .containsExactly("http://localhost/a", "http://localhost/b", "http://localhost/c");
+        assertThat(Files.readString(datafile)).isEqualTo(content);
+        assertThat(dao.journal().readAll()).hasSize(2);
+    }
+
+    @Test
+    void addTaskRejectsIdsInUseAndInvalidTasks(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(4, "http://localhost/a") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+
+        assertThrows(XMLParseException.class, () -> dao.addTask(task(4, "http://localhost/b")));
+        assertThrows(XMLParseException.class, () -> dao.addTask("<validation><url method=\"0\">http://localhost</url></validation>"));
+        assertThrows(XMLParseException.class, () -> dao.addTask(task(null, "http://localhost/b") + task(null, "http://localhost/c")));
+        assertThat(dao.getAll()).hasSize(1);
+        assertThat(dao.journal().exists()).isFalse();
+    }
+
+    @Test
+    void updateTaskReplacesOnlyElementsPresentInPatch(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations><validation id=\"3\"><url method=\"0\">http://localhost/a</url>"
+            + "<header>Accept|text/plain</header><header>X-Id|1</header><response statuscode=\"200\">ok</response>"
+            + "<latency total=\"100\"/></validation></validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+
+        assertThat(dao.updateTask(3, "<validation id=\"9\">\n  <header>Accept|application/json</header>\n"
+            + "  <url method=\"1\">http://localhost/b</url>\n</validation>")).isTrue();
+
+        ValidationTask ans = dao.getAll().getFirst();
+        assertEquals(POST, ans.reqMethod());
+        assertEquals("http://localhost/b", ans.reqURL());
+        assertEquals(List.of("Accept|application/json"), ans.reqHeaders());
+        assertEquals("ok", ans.validBody());
+        assertEquals(new LatencySla(0, 100), ans.assertions().latency());
+        assertThat(dao.updateTask(4, "<validation/>")).isFalse();
+    }
+
+    @Test
+    void updateTaskRejectsUnknownElementsAndInvalidResults(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(3, "http://localhost/a") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+
+        assertThrows(XMLParseException.class, () -> dao.updateTask(3, "<validation><body>x</body></validation>"));
+        assertThrows(XMLParseException.class, () -> dao.updateTask(3, "<task><url method=\"0\">http://localhost/b</url></task>"));
+        assertThrows(XMLParseException.class, () -> dao.updateTask(3, "<validation><url method=\"0\">localhost</url></validation>"));
+        assertThrows(XMLParseException.class, () -> dao.updateTask(3, "<validation><url method=\"0\">"));
+        assertThat(dao.getAll().getFirst().reqURL()).isEqualTo("http://localhost/a");
+        assertThat(dao.journal().exists()).isFalse();
+    }
+
+    @Test
+    void journalIsReplayedWhenDataFileIsRead(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/a") + task(null, "http://localhost/b") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.deleteTask(0);
+        dao.updateTask(1, "<validation><url method=\"1\">http://localhost/c</url></validation>");
+        dao.addTask(task(null, "http://localhost/d"));
+        XMLValidationTaskDao reloaded = this.realDao(datafile);
+
+        assertThat(reloaded.getAll()).containsExactlyElementsOf(dao.getAll());
+        assertThat(reloaded.getChangedTasks()).isEqualTo(dao.getChangedTasks()).containsKeys(0, 1, 2).containsEntry(0, null);
+    }
+
+    @Test
+    void findByIdAndFindByHostSeeChangesInJournal(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://Example.com/a") + task(null, "http://localhost/b")
+            + task(null, "https://example.com/c") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.deleteTask(2);
+
+        assertThat(dao.findById(1)).hasValueSatisfying(t -> assertEquals("http://localhost/b", t.reqURL()));
+        assertThat(dao.findById(2)).isEmpty();
+        assertThat(dao.findByHost("EXAMPLE.COM")).containsOnlyKeys(0);
+    }
 
-            verify(file).getInputStream();
-            verify(file).getBytes();
+    @Test
+    void compactJournalWritesTasksToDataFileAndClearsJournal(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/a") + task(null, "http://localhost/b") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.deleteTask(0);
+        dao.addTask(task(7, "http://localhost/c"));
+        List<ValidationTask> tasks = dao.getAll();
+
+        dao.compactJournal();
+
+        assertThat(dir.toFile().list()).containsExactlyInAnyOrder("validations.xml", "validations.xml" + SNAPSHOT_SUFFIX);
+        assertThat(dao.getAll()).isSameAs(tasks);
+        assertThat(dao.getChangedTasks()).isEmpty();
+        XMLValidationTaskDao other = this.realDao(datafile);
+        assertThat(other.getAll()).containsExactlyElementsOf(tasks);
+        assertThat(other.deleteTask(7)).isTrue();
+    }
+
+    @Test
+    void compactJournalDoesNothingWhenThereAreNoChanges(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        String content = "<validations>" + task(null, "http://localhost/a") + "</validations>";
+        Files.writeString(datafile, content);
+
+        this.realDao(datafile).compactJournal();
+
+        assertThat(Files.readString(datafile)).isEqualTo(content);
+        assertThat(dir.toFile().list()).containsExactly("validations.xml");
+    }
+
+    @Test
+    void updateDataFileDiscardsChangesInJournal(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(null, "http://localhost/a") + "</validations>");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.addTask(task(null, "http://localhost/b"));
+
+        dao.updateDataFile(this.multipartFile("<validations>" + task(null, "http://localhost/c") + "</validations>"));
+
+        assertThat(Path.of(datafile + JOURNAL_SUFFIX)).doesNotExist();
+        assertThat(dao.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/c");
+    }
+
+    @Test
+    void tasksAreLoadedFromSnapshotWhileDataFileIsUnchanged(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Files.writeString(datafile, "<validations>" + task(3, "http://localhost/a") + "</validations>");
+        List<ValidationTask> tasks = this.realDao(datafile).getAll();
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.setXmlParser(this.xmlParser);
+        given(this.xmlParser.parse(any(InputStream.class))).willThrow(SAXException.class);
+
+        assertThat(Path.of(datafile + SNAPSHOT_SUFFIX)).exists();
+        assertThat(dao.getAll()).containsExactlyElementsOf(tasks);
+        assertThat(dao.deleteTask(3)).isTrue();
+    }
+
+    @Test
+    void snapshotIsIgnoredWhenDataFileChangesOrSnapshotIsCorrupt(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        Path snapshot = Path.of(datafile + SNAPSHOT_SUFFIX);
+        Files.writeString(datafile, "<validations>" + task(3, "http://localhost/a") + "</validations>");
+        this.realDao(datafile).getAll();
+
+        Files.writeString(datafile, "<validations>" + task(3, "http://localhost/b") + "</validations>");
+        assertThat(this.realDao(datafile).getAll().getFirst().reqURL()).isEqualTo("http://localhost/b");
+
+        Files.write(snapshot, Arrays.copyOf(Files.readAllBytes(snapshot), 80));
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.setLogger(logger);
+        assertThat(dao.getAll().getFirst().reqURL()).isEqualTo("http://localhost/b");
+        verify(logger).warn(anyString(), any(Throwable.class));
+        assertThat(this.realDao(datafile).getAll().getFirst().reqURL()).isEqualTo("http://localhost/b");
+    }
+
+    @Test
+    void equalPartsOfTasksAreSharedWhenLoadedFromDataFileOrSnapshot(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        String task = "<validation><url method=\"1\">http://localhost/a</url><header>Accept|text/plain</header>"
+            + "<reqbody>{\"a\": 1}</reqbody><response statuscode=\"200\"/></validation>";
+        Files.writeString(datafile, "<validations>" + task + task + "</validations>");
+
+        for (List<ValidationTask> tasks : List.of(this.realDao(datafile).getAll(), this.realDao(datafile).getAll())) {
+            assertThat(tasks.get(1).reqHeaders()).isSameAs(tasks.get(0).reqHeaders());
+            assertThat(tasks.get(1).reqBody()).isSameAs(tasks.get(0).reqBody());
+            assertThat(tasks.get(1).reqURL()).isSameAs(tasks.get(0).reqURL());
         }
+        assertThat(Path.of(datafile + SNAPSHOT_SUFFIX)).exists();
+    }
+
+    @Test
+    void uploadedContentIsLoadedWithoutValidatingItAgain(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.updateDataFile(this.multipartFile("<validations>" + task(1, "http://localhost/a") + "</validations>"));
+        dao.setXmlParser(this.xmlParser);
+        given(this.xmlParser.parse(any(InputStream.class))).willThrow(SAXException.class);
+
+        assertThat(dao.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/a");
+    }
+
+    @Test
+    void unknownContentIsValidatedWhileKnownContentIsNot(@TempDir Path dir) throws Exception {
+        Path datafile = dir.resolve("validations.xml");
+        String valid = "<validations>" + task(1, "http://localhost/a") + "</validations>";
+        Files.writeString(datafile, valid);
+        XMLValidationTaskDao dao = this.realDao(datafile);
+        dao.getAll();
+
+        // Not allowed by the schema, but ignored when building the task
+        Files.writeString(datafile, valid.replace("<response", "<unknown/><response"));
+        dao.setLastModifiedTime(0);
+        assertThrows(XMLParseException.class, dao::getAll);
+
+        Files.writeString(datafile, valid);
+        Files.delete(Path.of(datafile + SNAPSHOT_SUFFIX));
+        dao.setLastModifiedTime(0);
+        dao.setXmlParser(this.xmlParser);
+        given(this.xmlParser.parse(any(InputStream.class))).willThrow(SAXException.class);
+        assertThat(dao.getAll()).extracting(ValidationTask::reqURL).containsExactly("http://localhost/a");
+    }
+
+    private XMLValidationTaskDao realDao(Path datafile) throws Exception {
+        XMLValidationTaskDao dao = new XMLValidationTaskDao();
+        dao.setObjectMapper(JsonMapper.builder().build());
+        dao.setEnv(this.env);
+        given(this.env.getProperty(DATAFILE_PROPERTY)).willReturn(datafile.toString());
+
+        return dao;
+    }
+
+    private static String task(Integer id, String url) {
+        return "<validation" + (id == null ? "" : " id=\"" + id + "\"") + "><url method=\"0\">" + url + "</url>"
+            + "<response statuscode=\"200\"/></validation>";
     }
 }
@@ -17,6 +17,8 @@ import java.util.List;
 import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.APIKEY_PROPERTY;
 import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.BODY_LINE1;
 import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.BODY_LINE2;
+import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.BODY_LINE4;
+import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.BODY_LINE5;
 import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.FROM_PROPERTY;
 import static cf.maybelambda.httpvalidator.springboot.service.EmailNotificationService.TO_PROPERTY;
 import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_CODE;
@@ -60,6 +62,34 @@ public class EmailNotificationServiceTests {
         assertThat(ans.contains(BODY_LINE2 + ss1[1])).isTrue();
     }
 
+    @Test
+    void buildMailBodyIncludesFailedCheckDescriptionWhenPresent() {
+        String[] ss0 = { "http://localhost", "200", "{}", "Missing value at $.data" };
+        String[] ss1 = { "https://site.com", "200", "{}", null };
+        List<String[]> res = new ArrayList<>();
+        res.add(ss0);
+        res.add(ss1);
+
+        String ans = this.mailServ.buildMailBody(res);
+
+        assertThat(ans.contains(BODY_LINE4 + ss0[3])).isTrue();
+        assertThat(ans.indexOf(BODY_LINE4)).isEqualTo(ans.lastIndexOf(BODY_LINE4));
+    }
+
+    @Test
+    void buildMailBodyIncludesConsecutiveFailedRunsWhenPresent() {
+        String[] ss0 = { "http://localhost", "500", "{}", null, "3" };
+        String[] ss1 = { "https://site.com", String.valueOf(NET_ERR_CODE), NET_ERR_MSG, null, "1" };
+        List<String[]> res = new ArrayList<>();
+        res.add(ss0);
+        res.add(ss1);
+
+        String ans = this.mailServ.buildMailBody(res);
+
+        assertThat(ans.contains(BODY_LINE1 + ss0[0] + "\n" + BODY_LINE5 + "3\n")).isTrue();
+        assertThat(ans.contains(BODY_LINE1 + ss1[0] + "\n" + BODY_LINE5 + "1\n" + NET_ERR_MSG)).isTrue();
+    }
+
     @Test
     void buildMailBodyTruncatesReceivedResponseBodyLongerThan800Characters() {
         String[] ss = { "", "", "" };
@@ -117,6 +147,7 @@ public class EmailNotificationServiceTests {
         this.mailServ.sendAppTerminatedNotification("");
 
         verify(this.cl).sendMessage(any(String.class), any(Message.class));
+        assertThat(this.mailServ.getSendMetrics().getCount()).isEqualTo(1);
     }
 
     @Test
@@ -130,6 +161,7 @@ public class EmailNotificationServiceTests {
 
         assertThrows(ConnectIOException.class, () -> this.mailServ.sendVTaskErrorsNotification(Collections.emptyList()));
         verify(this.logger).error(anyString());
+        assertThat(this.mailServ.getSendMetrics().getCount()).isEqualTo(1);
     }
 
     @Test
@@ -0,0 +1,139 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import static cf.maybelambda.httpvalidator.springboot.service.EngineMetrics.MAX_HOST_SERIES;
+import static cf.maybelambda.httpvalidator.springboot.service.EngineMetrics.OTHER_HOST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class EngineMetricsTests {
+    private final XMLValidationTaskDao dao = mock(XMLValidationTaskDao.class);
+    private final EmailNotificationService mailServ = mock(EmailNotificationService.class);
+    private final HttpResponse<String> res = mock(HttpResponse.class);
+    private final StageMetrics loads = new StageMetrics("datafile-load");
+    private final StageMetrics sends = new StageMetrics("notification");
+    private EngineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        this.metrics = new EngineMetrics();
+        this.metrics.setDao(this.dao);
+        this.metrics.setMailServ(this.mailServ);
+        given(this.dao.getLoadMetrics()).willReturn(this.loads);
+        given(this.mailServ.getSendMetrics()).willReturn(this.sends);
+        given(this.res.statusCode()).willReturn(200);
+    }
+
+    @Test
+    void scrapeExposesTaskOutcomesByClass() {
+        HttpSendOutcomeWrapper ok = new HttpSendOutcomeWrapper(this.res, 1_000_000L, 2_000_000L);
+        this.metrics.recordOutcome("a.com", ok, null, 0, false);
+        this.metrics.recordOutcome("a.com", ok, new ValidationFailure(FailureClass.STATUS_CODE, "s"), 1, false);
+        this.metrics.recordOutcome("a.com", new HttpSendOutcomeWrapper(new IOException()),
+            new ValidationFailure(FailureClass.NETWORK, "n"), 2, false);
+
+        assertThat(this.metrics.scrape()).contains(
+            "# TYPE httpvalidator_tasks_total counter\n",
+            "httpvalidator_tasks_total{outcome=\"ok\"} 1\n",
+            "httpvalidator_tasks_total{outcome=\"failed\"} 1\n",
+            "httpvalidator_tasks_total{outcome=\"errored\"} 1\n"
+        );
+    }
+
+    @Test
+    void scrapeExposesRepeatedFailuresAndResponseBodyChanges() {
+        HttpSendOutcomeWrapper ok = new HttpSendOutcomeWrapper(this.res, 0, 1_000_000L);
+        ValidationFailure failure = new ValidationFailure(FailureClass.STATUS_CODE, "s");
+        this.metrics.recordOutcome("a.com", ok, failure, 1, false);
+        this.metrics.recordOutcome("a.com", ok, failure, 2, true);
+        this.metrics.recordOutcome("a.com", ok, failure, 3, false);
+
+        assertThat(this.metrics.scrape()).contains(
+            "# TYPE httpvalidator_task_repeated_failures_total counter\n",
+            "httpvalidator_task_repeated_failures_total 2\n",
+            "httpvalidator_response_body_changes_total 1\n"
+        );
+    }
+
+    @Test
+    void scrapeExposesResponseTimesByHostAndBytesReceived() {
+        given(this.res.body()).willReturn("añ€");
+        this.metrics.recordOutcome("a.com", new HttpSendOutcomeWrapper(this.res, 0, 500_000_000L), null, 0, false);
+        this.metrics.recordOutcome("a.com", new HttpSendOutcomeWrapper(this.res, 0, 1_500_000_000L), null, 0, false);
+
+        assertThat(this.metrics.scrape()).contains(
+            "# TYPE httpvalidator_request_duration_seconds summary\n",
+            "httpvalidator_request_duration_seconds_count{host=\"a.com\"} 2\n",
+            "httpvalidator_request_duration_seconds_sum{host=\"a.com\"} 2\n",
+            "httpvalidator_request_duration_seconds{host=\"a.com\",quantile=\"0.99\"} 1.4",
+            "httpvalidator_response_bytes_total 12\n"
+        );
+    }
+
+    @Test
+    void hostsBeyondMaxSeriesAreCountedTogether() {
+        HttpSendOutcomeWrapper ok = new HttpSendOutcomeWrapper(this.res, 0, 1_000_000L);
+        for (int i = 0; i <= MAX_HOST_SERIES; i++) {
+            this.metrics.recordOutcome("h" + i + ".com", ok, null, 0, false);
+        }
+        this.metrics.recordOutcome("h0.com", ok, null, 0, false);
+
+        String ans = this.metrics.scrape();
+
+        assertThat(ans).contains("httpvalidator_request_duration_seconds_count{host=\"h0.com\"} 2\n");
+        assertThat(ans).contains("httpvalidator_request_duration_seconds_count{host=\"" + OTHER_HOST + "\"} 1\n");
+        assertThat(ans).doesNotContain("host=\"h" + MAX_HOST_SERIES + ".com\"");
+    }
+
+    @Test
+    void dispatchQueueAndInFlightGaugesFollowRequests() {
+        this.metrics.requestsQueued(3);
+        this.metrics.requestDispatched();
+        this.metrics.requestDispatched();
+        this.metrics.requestCompleted();
+
+        assertThat(this.metrics.getQueued()).isEqualTo(1);
+        assertThat(this.metrics.getInFlight()).isEqualTo(1);
+        assertThat(this.metrics.scrape()).contains(
+            "httpvalidator_dispatch_queue_depth 1\n", "httpvalidator_requests_in_flight 1\n"
+        );
+    }
+
+    @Test
+    void scrapeExposesRunReloadAndNotificationTimers() {
+        this.metrics.recordRun(Duration.ofSeconds(3));
+        this.metrics.recordRun(Duration.ofSeconds(5));
+        this.loads.record(250_000_000L);
+        this.sends.record(100_000_000L);
+
+        assertThat(this.metrics.scrape()).contains(
+            "httpvalidator_run_duration_seconds_count 2\n",
+            "httpvalidator_run_duration_seconds_sum 8\n",
+            "# TYPE httpvalidator_run_duration_seconds_max gauge\n",
+            "httpvalidator_run_duration_seconds_max 5\n",
+            "httpvalidator_datafile_load_duration_seconds_sum 0.25\n",
+            "httpvalidator_notification_send_duration_seconds_count 1\n"
+        );
+    }
+
+    @Test
+    void utf8LengthCountsEncodedBytesOfEachCharacter() {
+        assertThat(EngineMetrics.utf8Length(null)).isZero();
+        assertThat(EngineMetrics.utf8Length("a")).isEqualTo(1);
+        assertThat(EngineMetrics.utf8Length("ñ")).isEqualTo(2);
+        assertThat(EngineMetrics.utf8Length("€")).isEqualTo(3);
+        assertThat(EngineMetrics.utf8Length("😀")).isEqualTo(4);
+    }
+}
@@ -0,0 +1,81 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramsTests {
+
+    @Test
+    void latenciesAreReportedByTaskAndHost() {
+        LatencyHistograms h = new LatencyHistograms();
+        h.record(10, 0, 1, "a.example.com", 10_000_000);
+        h.record(11, 1, 1, "a.example.com", 30_000_000);
+        h.record(11, 1, 1, "a.example.com", 20_000_000);
+        h.record(12, 2, 0, "", 1_000_000);
+
+        LatencyHistograms.Report r = h.report();
+
+        assertThat(r.tasks()).containsOnlyKeys(10L, 11L, 12L);
+        assertThat(r.tasks().get(11L).count()).isEqualTo(2);
+        assertThat(r.tasks().get(11L).maxMillis()).isEqualTo(30.0);
+        assertThat(r.tasks().get(11L).p50Millis()).isCloseTo(20, within(20 * 0.05));
+        assertThat(r.hosts()).containsOnlyKeys("", "a.example.com");
+        assertThat(r.hosts().get("a.example.com").count()).isEqualTo(3);
+    }
+
+    @Test
+    void latenciesStayWithTaskKeyWhenTaskMoves() {
+        LatencyHistograms h = new LatencyHistograms();
+        h.record(10, 0, 1, "localhost", 10_000_000);
+        h.record(11, 0, 2, "other", 20_000_000);
+        h.record(10, 1, 1, "localhost", 30_000_000);
+
+        LatencyHistograms.Report r = h.report();
+
+        assertThat(r.tasks().get(10L).count()).isEqualTo(2);
+        assertThat(r.tasks().get(11L).count()).isEqualTo(1);
+        assertThat(r.hosts().get("localhost").count()).isEqualTo(2);
+        assertThat(r.hosts().get("other").count()).isEqualTo(1);
+    }
+
+    @Test
+    void mergeAddsLatenciesOfOtherHistograms() {
+        LatencyHistograms total = new LatencyHistograms();
+        LatencyHistograms run = new LatencyHistograms();
+        total.record(10, 0, 1, "localhost", 5_000_000);
+        run.record(10, 0, 1, "localhost", 50_000_000);
+        run.record(13, 3, 2, "other", 1_000_000);
+
+        total.merge(run);
+        total.record(13, 3, 2, "other", 2_000_000);
+        LatencyHistograms.Report r = total.report();
+
+        assertThat(r.tasks().get(10L).count()).isEqualTo(2);
+        assertThat(r.tasks().get(13L).count()).isEqualTo(2);
+        assertThat(r.tasks().get(10L).maxMillis()).isEqualTo(50.0);
+        assertThat(r.hosts()).containsOnlyKeys("localhost", "other");
+        assertThat(run.report().tasks().get(10L).count()).isEqualTo(1);
+    }
+
+    @Test
+    void retainOnlyDropsRemovedTasksAndHostsWithoutTasks() {
+        LatencyHistograms h = new LatencyHistograms();
+        h.record(10, 0, 1, "localhost", 5_000_000);
+        h.record(11, 1, 2, "other", 5_000_000);
+        h.record(12, 2, 1, "localhost", 5_000_000);
+
+        h.retainOnly(TaskSource.TaskSet.of(Collections.nCopies(2, null), new long[]{12, 10}));
+        h.record(12, 0, 1, "localhost", 5_000_000);
+        LatencyHistograms.Report r = h.report();
+
+        assertThat(r.tasks()).containsOnlyKeys(10L, 12L);
+        assertThat(r.tasks().get(12L).count()).isEqualTo(2);
+        assertThat(r.hosts()).containsOnlyKeys("localhost");
+        assertThat(r.hosts().get("localhost").count()).isEqualTo(3);
+    }
+}
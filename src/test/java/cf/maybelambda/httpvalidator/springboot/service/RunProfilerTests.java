@@ -0,0 +1,70 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.JfrEvents;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static cf.maybelambda.httpvalidator.springboot.service.RunProfiler.PROFILE_DIR_PROPERTY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class RunProfilerTests {
+    private final Environment env = mock(Environment.class);
+    private final RunProfiler profiler = new RunProfiler();
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        given(this.env.getProperty(PROFILE_DIR_PROPERTY)).willReturn(this.dir.toString());
+        this.profiler.setEnv(this.env);
+    }
+
+    @Test
+    void startIfRequestedDoesNotRecordUnlessNextRunWasRequested() {
+        assertThat(this.profiler.startIfRequested()).isNull();
+        assertThat(this.profiler.getLastDump()).isNull();
+    }
+
+    @Test
+    void requestedRunIsRecordedWithApplicationEventsAndDumpedToProfileDir() throws Exception {
+        this.profiler.requestNextRun();
+        assertThat(this.profiler.isRequested()).isTrue();
+
+        Recording rec = this.profiler.startIfRequested();
+        JfrEvents.Run event = new JfrEvents.Run();
+        event.begin();
+        event.tasksTotal = 3;
+        event.commit();
+        this.profiler.finish(rec);
+
+        assertThat(this.profiler.isRequested()).isFalse();
+        assertThat(this.profiler.startIfRequested()).isNull();
+        Path dump = this.profiler.getLastDump();
+        assertThat(dump).hasParent(this.dir);
+        List<RecordedEvent> runs = RecordingFile.readAllEvents(dump).stream()
+            .filter(e -> e.getEventType().getName().equals("httpvalidator.Run")).toList();
+        assertThat(runs).singleElement().satisfies(e -> assertThat(e.getInt("tasksTotal")).isEqualTo(3));
+    }
+
+    @Test
+    void onlyTheLastDumpIsKept() {
+        this.profiler.requestNextRun();
+        this.profiler.finish(this.profiler.startIfRequested());
+        Path first = this.profiler.getLastDump();
+        this.profiler.requestNextRun();
+        this.profiler.finish(this.profiler.startIfRequested());
+
+        assertThat(first).doesNotExist();
+        assertThat(this.profiler.getLastDump()).exists().isNotEqualTo(first);
+    }
+}
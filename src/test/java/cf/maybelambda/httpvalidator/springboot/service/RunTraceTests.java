@@ -0,0 +1,79 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.assertj.core.api.ListAssert;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.as;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SuppressWarnings("unchecked")
+public class RunTraceTests {
+    private static final long START = 1_000_000_000L;
+    private static final long EPOCH = 1_700_000_000_000_000_000L;
+
+    private RunTrace newTrace() {
+        SpanRing ring = new SpanRing(4);
+        // Marks every 1000 ns from 1 ms after the start of the run
+        long t = START + 1_000_000;
+        ring.add(3, "http://a.com/x", 200, "OK", t, t + 1000, t + 2000, t + 3000, t + 4000, t + 5000);
+        ring.add(5, "http://b.com/y", 500, "STATUS_CODE", t, t + 1000, t + 2000, t + 3000, t + 4000, t + 5000);
+
+        return RunTrace.of(ring, EPOCH, START, START + 10_000_000);
+    }
+
+    @Test
+    void ofCopiesTheSpansOfTheRing() {
+        RunTrace trace = this.newTrace();
+
+        assertThat(trace.spans()).extracting(RunTrace.Span::taskId).containsExactly(3, 5);
+        assertThat(trace.spans().getFirst().marks()).hasSize(SpanRing.MARKS);
+        assertThat(trace.dropped()).isZero();
+    }
+
+    @Test
+    void chromeTraceHasRunTaskAndPhaseEventsGroupedByHost() {
+        ListAssert<Map> events = assertThat(this.newTrace().toChromeTrace())
+            .extractingByKey("traceEvents", as(InstanceOfAssertFactories.list(Map.class)));
+
+        events.filteredOn(e -> "run".equals(e.get("cat")))
+            .singleElement().satisfies(e -> assertThat(e.get("dur")).isEqualTo(10_000.0));
+        events.filteredOn(e -> "task".equals(e.get("cat")))
+            .extracting(e -> e.get("name"), e -> e.get("pid"), e -> e.get("ts"), e -> e.get("dur"))
+            .containsExactly(
+                tuple("Task #3", 1, 1000.0, 5.0),
+                tuple("Task #5", 2, 1000.0, 5.0));
+        events.filteredOn(e -> "phase".equals(e.get("cat")) && e.get("tid").equals(3))
+            .extracting(e -> e.get("name")).containsExactlyElementsOf(RunTrace.PHASES);
+        events.filteredOn(e -> "M".equals(e.get("ph")))
+            .extracting(e -> e.get("args")).extracting("name").containsExactly("a.com", "b.com");
+    }
+
+    @Test
+    void otlpJsonHasRunRootTaskChildrenAndPhaseGrandchildren() {
+        Map<String, Object> doc = this.newTrace().toOtlpJson();
+        Map<String, Object> resourceSpans = ((List<Map<String, Object>>) doc.get("resourceSpans")).getFirst();
+        Map<String, Object> scopeSpans = ((List<Map<String, Object>>) resourceSpans.get("scopeSpans")).getFirst();
+        List<Map<String, Object>> spans = (List<Map<String, Object>>) scopeSpans.get("spans");
+
+        assertThat(spans).hasSize(1 + 2 * (1 + RunTrace.PHASES.size()));
+        Map<String, Object> root = spans.getFirst();
+        assertThat(root).doesNotContainKey("parentSpanId").containsEntry("name", "run")
+            .containsEntry("startTimeUnixNano", String.valueOf(EPOCH));
+        assertThat(spans).extracting(s -> s.get("traceId")).containsOnly(root.get("traceId"));
+        assertThat(spans).extracting(s -> s.get("spanId")).doesNotHaveDuplicates();
+        Map<String, Object> task = spans.get(1);
+        assertThat(task).containsEntry("name", "Task #3").containsEntry("parentSpanId", root.get("spanId"))
+            .containsEntry("startTimeUnixNano", String.valueOf(EPOCH + 1_000_000))
+            .containsEntry("endTimeUnixNano", String.valueOf(EPOCH + 1_005_000))
+            .containsEntry("status", Map.of("code", 1));
+        assertThat(spans.get(2)).containsEntry("name", RunTrace.QUEUE_PHASE).containsEntry("parentSpanId", task.get("spanId"));
+        assertThat(spans).filteredOn(s -> "Task #5".equals(s.get("name")))
+            .singleElement().satisfies(s -> assertThat(s).containsEntry("status", Map.of("code", 2)));
+    }
+}
@@ -0,0 +1,121 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.CHROME_FORMAT;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.DEFAULT_TRACE_CAPACITY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.OTLP_ENDPOINT_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.OTLP_FORMAT;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.TRACE_CAPACITY_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.TRACE_DIR_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.TRACE_ENABLED_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunTracer.TRACE_FORMAT_PROPERTY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+public class RunTracerTests {
+    private final Environment env = mock(Environment.class);
+    private final HttpClient client = mock(HttpClient.class);
+    private final RunTracer tracer = new RunTracer();
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        this.tracer.setEnv(this.env);
+        this.tracer.setObjectMapper(JsonMapper.builder().build());
+        this.tracer.setClient(this.client);
+        given(this.env.getProperty(TRACE_ENABLED_PROPERTY, Boolean.class, false)).willReturn(true);
+        given(this.env.getProperty(TRACE_CAPACITY_PROPERTY, Integer.class, DEFAULT_TRACE_CAPACITY)).willReturn(16);
+    }
+
+    private void traceRun() {
+        SpanRing ring = this.tracer.startRun();
+        long t = System.nanoTime();
+        ring.add(0, "http://a.com", 200, "OK", t, t + 1, t + 2, t + 3, t + 4, t + 5);
+        this.tracer.finishRun(ring);
+    }
+
+    @Test
+    void startRunReturnsNullWhenTracingIsDisabled() {
+        given(this.env.getProperty(TRACE_ENABLED_PROPERTY, Boolean.class, false)).willReturn(false);
+
+        assertThat(this.tracer.startRun()).isNull();
+    }
+
+    @Test
+    void startRunReusesTheRingOfThePreviousRunEmptied() {
+        SpanRing first = this.tracer.startRun();
+        first.add(0, "http://a.com", 200, "OK", 0, 0, 0, 0, 0, 0);
+        SpanRing second = this.tracer.startRun();
+
+        assertThat(second).isSameAs(first);
+        assertThat(second.size()).isZero();
+        assertThat(second.getCapacity()).isEqualTo(16);
+    }
+
+    @Test
+    void finishRunKeepsTraceWithoutExportingItWhenNoDestinationIsSet() {
+        this.traceRun();
+
+        assertThat(this.tracer.getLastTrace().spans()).singleElement().extracting(RunTrace.Span::url).isEqualTo("http://a.com");
+        verifyNoInteractions(this.client);
+    }
+
+    @Test
+    void finishRunWritesTraceFileInConfiguredFormat() throws Exception {
+        given(this.env.getProperty(TRACE_DIR_PROPERTY)).willReturn(this.dir.toString());
+        given(this.env.getProperty(TRACE_FORMAT_PROPERTY, CHROME_FORMAT)).willReturn(OTLP_FORMAT);
+
+        this.traceRun();
+
+        List<Path> files;
+        try (var s = Files.list(this.dir)) {
+            files = s.toList();
+        }
+        assertThat(files).singleElement().satisfies(f -> {
+            assertThat(f.getFileName().toString()).startsWith("run-").endsWith(".otlp.json");
+            assertThat(Files.readString(f)).contains("\"resourceSpans\"", "\"Task #0\"");
+        });
+    }
+
+    @Test
+    void finishRunSendsOtlpJsonToCollectorEndpoint() {
+        given(this.env.getProperty(OTLP_ENDPOINT_PROPERTY)).willReturn("http://localhost:4318/v1/traces");
+        given(this.client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(new CompletableFuture<>());
+
+        this.traceRun();
+
+        verify(this.client).sendAsync(argThat(r -> r.method().equals("POST")
+            && r.uri().equals(URI.create("http://localhost:4318/v1/traces"))), any(HttpResponse.BodyHandler.class));
+    }
+
+    @Test
+    void toJsonRejectsUnknownFormat() {
+        this.traceRun();
+
+        assertThat(this.tracer.toJson(this.tracer.getLastTrace(), CHROME_FORMAT)).contains("\"traceEvents\"");
+        assertThrows(IllegalArgumentException.class, () -> this.tracer.toJson(this.tracer.getLastTrace(), "xml"));
+    }
+}
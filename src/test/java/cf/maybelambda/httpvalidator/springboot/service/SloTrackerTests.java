@@ -0,0 +1,177 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.Environment;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static cf.maybelambda.httpvalidator.springboot.service.SloTracker.SNAPSHOT_FILE_PROPERTY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class SloTrackerTests {
+    private static final long DAY = Duration.ofDays(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    // Start of a day, an hour and a 10-minute slot
+    private static final long NOW = 20_000 * DAY;
+    private final Environment env = mock(Environment.class);
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        given(this.env.getProperty(SNAPSHOT_FILE_PROPERTY)).willReturn(this.dir.resolve("slo.snapshot").toString());
+    }
+
+    private SloTracker newTracker() {
+        SloTracker t = new SloTracker();
+        t.setEnv(this.env);
+
+        return t;
+    }
+
+    private SloTracker.WindowStats window(List<SloTracker.TaskSlo> slos, long task, String name) {
+        return slos.stream().filter(s -> s.taskKey() == task).findFirst().orElseThrow()
+            .windows().stream().filter(w -> w.window().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void windowsCountOnlyTheOutcomesOfTheirPeriod() {
+        SloTracker t = this.newTracker();
+        t.record(1, 1, NOW - 20 * DAY, false, 0);
+        t.record(1, 1, NOW - 3 * DAY, true, 1_000_000);
+        t.record(1, 1, NOW - 5 * HOUR, false, 1_000_000);
+        t.record(1, 1, NOW + 5 * 60_000, true, 1_000_000);
+        t.record(1, 1, NOW + 6 * 60_000, true, 3_000_000);
+
+        List<SloTracker.TaskSlo> slos = t.getAll(NOW + 7 * 60_000);
+
+        assertThat(this.window(slos, 1, "1h")).extracting(SloTracker.WindowStats::total, SloTracker.WindowStats::ok).containsExactly(2L, 2L);
+        assertThat(this.window(slos, 1, "24h").total()).isEqualTo(3);
+        assertThat(this.window(slos, 1, "24h").availability()).isCloseTo(2.0 / 3, within(1e-9));
+        assertThat(this.window(slos, 1, "7d").total()).isEqualTo(4);
+        assertThat(this.window(slos, 1, "30d").total()).isEqualTo(5);
+        assertThat(this.window(slos, 1, "30d").availability()).isCloseTo(3.0 / 5, within(1e-9));
+        assertThat(this.window(slos, 1, "1h").p99Millis()).isCloseTo(3, within(3 * 0.05));
+        assertThat(this.window(slos, 1, "1h").p50Millis()).isCloseTo(1, within(0.05));
+    }
+
+    @Test
+    void slotsAreReusedOnceTheirPeriodEnds() {
+        SloTracker t = this.newTracker();
+        t.record(0, 0, NOW, true, 1_000_000);
+        t.record(0, 0, NOW + 60 * DAY, false, 0);
+
+        SloTracker.WindowStats month = this.window(t.getAll(NOW + 60 * DAY), 0, "30d");
+
+        assertThat(month.total()).isEqualTo(1);
+        assertThat(month.ok()).isZero();
+        assertThat(month.p50Millis()).isZero();
+        assertThat(this.window(t.getAll(NOW + 200 * DAY), 0, "30d").availability()).isNull();
+    }
+
+    @Test
+    void countersStayWithTheTaskKeyWhenTasksMove() {
+        SloTracker t = this.newTracker();
+        t.record(7, 0, NOW, false, 0);
+        t.record(9, 1, NOW, true, 0);
+        // Task 7 moved to the second position and a new task took the first one
+        t.record(5, 0, NOW, true, 0);
+        t.record(7, 1, NOW, false, 0);
+
+        List<SloTracker.TaskSlo> slos = t.getAll(NOW);
+
+        assertThat(slos).extracting(SloTracker.TaskSlo::taskKey).containsExactly(5L, 7L, 9L);
+        assertThat(this.window(slos, 7, "1h").total()).isEqualTo(2);
+        assertThat(this.window(slos, 7, "1h").ok()).isZero();
+        assertThat(this.window(slos, 5, "1h").total()).isEqualTo(1);
+    }
+
+    @Test
+    void countersOfTasksNotInTheTaskSetAreDropped() {
+        SloTracker t = this.newTracker();
+        t.record(7, 0, NOW, true, 0);
+        t.record(9, 1, NOW, true, 0);
+        t.record(11, 2, NOW, true, 0);
+
+        t.retainOnly(TaskSource.TaskSet.of(Collections.nCopies(2, null), new long[]{9, 5}));
+        t.record(5, 1, NOW, false, 0);
+        t.writeSnapshot();
+
+        assertThat(t.getAll(NOW)).extracting(SloTracker.TaskSlo::taskKey).containsExactly(5L, 9L);
+        assertThat(this.window(t.getAll(NOW), 9, "1h").total()).isEqualTo(1);
+        assertThat(this.newTracker().getAll(NOW)).extracting(SloTracker.TaskSlo::taskKey).containsExactly(5L, 9L);
+    }
+
+    @Test
+    void footprintOfATaskStaysBoundedOverAMonthOfRuns() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        SloTracker t = this.newTracker();
+        Random random = new Random(42);
+        int tasks = 200;
+        long step = Duration.ofMinutes(10).toMillis();
+        // Load the snapshot before measuring
+        t.getAll(NOW);
+
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        for (long ts = NOW; ts < NOW + 31 * DAY; ts += step) {
+            for (int i = 0; i < tasks; i++) {
+                // Log-normal response times with a median of 50 ms
+                t.record(i, i, ts, true, (long) (50_000_000 * Math.exp(0.5 * random.nextGaussian())));
+            }
+        }
+        System.gc();
+        long perTask = (memory.getHeapMemoryUsage().getUsed() - before) / tasks;
+        Reference.reachabilityFence(t);
+
+        // Counters of every slot, with a sketch in each hourly and daily one
+        assertThat(perTask).isLessThan(16 * 1024);
+    }
+
+    @Test
+    void countersSurviveRestartsThroughSnapshots() {
+        SloTracker t = this.newTracker();
+        t.record(3, 3, NOW, true, 2_000_000);
+        t.record(4, 4, NOW, false, 0);
+        t.writeSnapshot();
+
+        List<SloTracker.TaskSlo> slos = this.newTracker().getAll(NOW);
+
+        assertThat(slos).extracting(SloTracker.TaskSlo::taskKey).containsExactly(3L, 4L);
+        assertThat(this.window(slos, 3, "1h").p50Millis()).isCloseTo(2, within(2 * 0.05));
+        assertThat(this.window(slos, 4, "24h").availability()).isZero();
+    }
+
+    @Test
+    void invalidSnapshotIsIgnored() throws Exception {
+        Files.write(this.dir.resolve("slo.snapshot"), new byte[]{1, 2, 3});
+
+        assertThat(this.newTracker().getAll(NOW)).isEmpty();
+    }
+
+    @Test
+    void nothingIsWrittenWhenSnapshotsAreNotEnabled() throws Exception {
+        given(this.env.getProperty(SNAPSHOT_FILE_PROPERTY)).willReturn(null);
+        SloTracker t = this.newTracker();
+        t.record(0, 0, NOW, true, 1);
+        t.writeSnapshot();
+
+        try (var files = Files.list(this.dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package cf.maybelambda.httpvalidator.springboot.service;
+
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.StubHttpResponse;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+
+import java.net.ConnectException;
+import java.util.List;
+
+import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_MSG;
+import static java.util.Collections.emptyList;
+import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class TaskStatesTests {
+    private final TaskStates states = new TaskStates();
+
+    private static ValidationTask task(String url) {
+        return new ValidationTask(GET, url, emptyList(), mock(JsonNode.class), 200, "");
+    }
+
+    private static HttpSendOutcomeWrapper response(int status, String body) {
+        return new HttpSendOutcomeWrapper(new StubHttpResponse(null, status, body));
+    }
+
+    @Test
+    void prepareComputesLabelAndHostHashOfEachTask() {
+        this.states.prepare(List.of(task("https://Example.com/a/b?c=d"), task("http://localhost:8080")), 40);
+
+        assertThat(this.states.label(40)).isEqualTo("https://Example.com [Task #40]");
+        assertThat(this.states.hostHash(40)).isEqualTo(ResultsLog.hostHash("example.com"));
+        assertThat(this.states.label(41)).isEqualTo("http://localhost:8080 [Task #41]");
+    }
+
+    @Test
+    void prepareResetsStateOfTaskWhoseUrlChanged() {
+        ValidationFailure failure = new ValidationFailure(FailureClass.STATUS_CODE, "x");
+        this.states.prepare(List.of(task("http://a.example.com/x")), 0);
+        String check = this.states.failureRecord(0, response(500, "error"), failure)[3];
+
+        this.states.prepare(List.of(task("http://a.example.com/x")), 0);
+        assertThat(this.states.failureRecord(0, response(500, "error"), failure)[3]).isSameAs(check);
+
+        this.states.prepare(List.of(task("http://b.example.com/x")), 0);
+        assertThat(this.states.failureRecord(0, response(500, "error"), failure)[3]).isNotSameAs(check).isEqualTo(check);
+        assertThat(this.states.label(0)).isEqualTo("http://b.example.com [Task #0]");
+        assertThat(this.states.hostHash(0)).isEqualTo(ResultsLog.hostHash("b.example.com"));
+    }
+
+    @Test
+    void failureRecordIsReusedAcrossRuns() {
+        ValidationFailure failure = new ValidationFailure(FailureClass.CONTENT, "Expected content not found");
+        this.states.prepare(List.of(task("http://localhost/health")), 0);
+
+        this.states.record(0, true, ResultsLog.bodyHash("down"));
+        String[] first = this.states.failureRecord(0, response(200, "down"), failure);
+        String check = first[3];
+        this.states.record(0, true, ResultsLog.bodyHash("gone"));
+        String[] second = this.states.failureRecord(0, response(404, "gone"), failure);
+
+        assertThat(second).isSameAs(first).containsExactly("http://localhost [Task #0]", "404", "gone",
+            "CONTENT: Expected content not found", "2");
+        assertThat(second[3]).isSameAs(check);
+
+        this.states.record(0, true, 0);
+        String[] network = this.states.failureRecord(0, new HttpSendOutcomeWrapper(new ConnectException()),
+            new ValidationFailure(FailureClass.NETWORK, NET_ERR_MSG));
+        assertThat(network).containsExactly("http://localhost [Task #0]", "-1", NET_ERR_MSG, null, "3");
+    }
+
+    @Test
+    void releaseBodiesDropsResponseBodiesOfFailureRecords() {
+        this.states.prepare(List.of(task("http://localhost/health")), 0);
+        String[] rec = this.states.failureRecord(0, response(500, "error"),
+            new ValidationFailure(FailureClass.STATUS_CODE, "x"));
+
+        TaskStates.releaseBodies(List.<String[]>of(rec));
+
+        assertThat(rec).containsExactly("http://localhost [Task #0]", "500", null, "STATUS_CODE: x", "0");
+    }
+
+    @Test
+    void recordCountsConsecutiveFailuresAndDetectsBodyChanges() {
+        this.states.prepare(List.of(task("http://localhost/health")), 0);
+
+        assertThat(this.states.record(0, true, ResultsLog.bodyHash("a"))).isFalse();
+        assertThat(this.states.record(0, true, 0)).isFalse();
+        assertThat(this.states.consecutiveFailures(0)).isEqualTo(2);
+        assertThat(this.states.record(0, false, ResultsLog.bodyHash("a"))).isFalse();
+        assertThat(this.states.consecutiveFailures(0)).isZero();
+        assertThat(this.states.record(0, false, ResultsLog.bodyHash("b"))).isTrue();
+
+        this.states.prepare(List.of(task("http://other/health")), 0);
+        assertThat(this.states.record(0, true, ResultsLog.bodyHash("c"))).isFalse();
+        assertThat(this.states.consecutiveFailures(0)).isEqualTo(1);
+    }
+
+    @Test
+    void statusTextIsSharedForHttpStatusCodes() {
+        assertThat(TaskStates.statusText(200)).isSameAs(TaskStates.statusText(200)).isEqualTo("200");
+        assertThat(TaskStates.statusText(-1)).isEqualTo("-1");
+        assertThat(TaskStates.statusText(1000)).isEqualTo("1000");
+        assertThat(TaskStates.countText(7)).isSameAs(TaskStates.countText(7)).isEqualTo("7");
+        assertThat(TaskStates.countText(1000)).isEqualTo("1000");
+    }
+}
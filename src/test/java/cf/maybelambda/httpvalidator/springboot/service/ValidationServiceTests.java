@@ -1,42 +1,91 @@
 package cf.maybelambda.httpvalidator.springboot.service;
 
+import cf.maybelambda.httpvalidator.springboot.model.FailureClass;
+import cf.maybelambda.httpvalidator.springboot.model.LatencySla;
+import cf.maybelambda.httpvalidator.springboot.model.ResponseAssertions;
+import cf.maybelambda.httpvalidator.springboot.model.ValidationFailure;
 import cf.maybelambda.httpvalidator.springboot.model.ValidationTask;
-import cf.maybelambda.httpvalidator.springboot.persistence.XMLValidationTaskDao;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsIndex;
+import cf.maybelambda.httpvalidator.springboot.persistence.ResultsLog;
+import cf.maybelambda.httpvalidator.springboot.persistence.TaskSource;
+import cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper;
+import cf.maybelambda.httpvalidator.springboot.util.SpanRing;
+import cf.maybelambda.httpvalidator.springboot.util.StageMetrics;
+import cf.maybelambda.httpvalidator.springboot.util.StubHttpResponse;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.helpers.NOPAppender;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullAndEmptySource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
 import org.slf4j.Logger;
 import org.springframework.core.env.Environment;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static cf.maybelambda.httpvalidator.springboot.HTTPValidatorWebApp.RUN_SCHEDULE_PROPERTY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.START_TIME_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_FAILED_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_OK_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TASKS_TOTAL_KEY;
 import static cf.maybelambda.httpvalidator.springboot.controller.AppInfoController.TIME_ELAPSED_KEY;
+import static cf.maybelambda.httpvalidator.springboot.service.RunProfiler.PROFILE_DIR_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.CUMULATIVE_LATENCIES_KEY;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.DEFAULT_MAX_CONCURRENT_REQUESTS;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.DEFAULT_PAGE_SIZE;
 import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.HEADER_KEY_VALUE_DELIMITER;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.LAST_RUN_LATENCIES_KEY;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.MAX_CONCURRENT_REQUESTS_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.NETWORK_STAGE;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.OK_OUTCOME;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.PAGE_SIZE_PROPERTY;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.QUEUE_STAGE;
+import static cf.maybelambda.httpvalidator.springboot.service.ValidationService.VALIDATION_STAGE;
 import static java.util.Collections.emptyList;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.GET;
 import static javax.swing.text.html.FormSubmitEvent.MethodType.POST;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class ValidationServiceTests {
@@ -44,11 +93,17 @@ public class ValidationServiceTests {
     private final HttpResponse<String> res = mock(HttpResponse.class);
     private final EmailNotificationService ns = mock(EmailNotificationService.class);
     private final HttpClient cl = mock(HttpClient.class);
-    private final XMLValidationTaskDao dao = mock(XMLValidationTaskDao.class);
+    private final TaskSource dao = mock(TaskSource.class, CALLS_REAL_METHODS);
     private final Logger logger = mock(Logger.class);
     private final List<ValidationTask> tasks = new ArrayList<>();
     private final HttpRequest req = mock(HttpRequest.class);
     private final Environment env = mock(Environment.class);
+    private final ResultsLog resultsLog = mock(ResultsLog.class);
+    private final ResultsIndex resultsIndex = mock(ResultsIndex.class);
+    private final SloTracker sloTracker = mock(SloTracker.class);
+    private final EngineMetrics metrics = new EngineMetrics();
+    private final RunProfiler profiler = mock(RunProfiler.class);
+    private final RunTracer tracer = mock(RunTracer.class);
     private final JsonNode reqBody = mock(JsonNode.class);
     private ValidationService vs;
 
@@ -62,6 +117,15 @@ public class ValidationServiceTests {
         this.tasks.clear();
         this.vs.setEnv(env);
         this.vs.setObjectMapper(this.mapper);
+        this.vs.setResultsLog(this.resultsLog);
+        this.vs.setResultsIndex(this.resultsIndex);
+        this.vs.setSloTracker(this.sloTracker);
+        this.vs.setEngineMetrics(this.metrics);
+        this.vs.setProfiler(this.profiler);
+        this.vs.setTracer(this.tracer);
+        given(this.env.getProperty(PAGE_SIZE_PROPERTY, Integer.class, DEFAULT_PAGE_SIZE)).willReturn(DEFAULT_PAGE_SIZE);
+        given(this.env.getProperty(MAX_CONCURRENT_REQUESTS_PROPERTY, Integer.class, DEFAULT_MAX_CONCURRENT_REQUESTS))
+            .willReturn(DEFAULT_MAX_CONCURRENT_REQUESTS);
 
         given(this.req.uri()).willReturn(URI.create("http://localhost"));
         given(this.res.request()).willReturn(this.req);
@@ -103,6 +167,28 @@ public class ValidationServiceTests {
         verify(this.cl).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
     }
 
+    @Test
+    void execValidationsReleasesResponseBodiesOfFailuresOnceNotificationIsSent() throws Exception {
+        given(this.res.body()).willReturn("down");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 0, ""));
+        given(this.dao.getAll()).willReturn(this.tasks);
+        List<String> sentBodies = new ArrayList<>();
+        willAnswer(inv -> {
+            List<String[]> failures = inv.getArgument(0);
+            sentBodies.add(failures.getFirst()[2]);
+            return null;
+        }).given(this.ns).sendVTaskErrorsNotification(anyList());
+        ArgumentCaptor<List<String[]>> sent = ArgumentCaptor.captor();
+
+        this.vs.execValidations();
+
+        assertThat(sentBodies).containsExactly("down");
+        verify(this.ns).sendVTaskErrorsNotification(sent.capture());
+        assertThat(sent.getValue().getFirst()[2]).isNull();
+    }
+
     @Test
     void whenExceptionOccursDuringExecValidationsRequestNotificationIsSent() throws Exception {
         given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
@@ -135,7 +221,7 @@ public class ValidationServiceTests {
         this.vs.execValidations();
 
         assertThat(this.dao.getAll().getFirst().reqHeaders().isEmpty()).isTrue();
-        verify(this.logger).info(anyString());
+        verify(this.logger).info(anyString(), any(), any());
     }
 
     @Test
@@ -152,17 +238,25 @@ public class ValidationServiceTests {
         this.vs.execValidations();
 
         assertThat(this.dao.getAll()).isNotEmpty();
-        verify(this.logger).info(anyString());
+        verify(this.logger).info(anyString(), any(), any());
     }
 
     @ParameterizedTest
     @ValueSource(strings = {"-", "@daily"})
     void whenDashOrDailyMacroCronExpressionIsValidConfigReturnsTrue(String s) {
-        given(this.env.getProperty(anyString())).willReturn(s);
+        given(this.env.getProperty(RUN_SCHEDULE_PROPERTY)).willReturn(s);
 
         assertThat(this.vs.isValidConfig()).isTrue();
     }
 
+    @Test
+    void whenTaskSourceIsUnknownIsValidConfigReturnsFalse() {
+        given(this.env.getProperty(RUN_SCHEDULE_PROPERTY)).willReturn("-");
+        given(this.env.getProperty(TaskSource.SOURCE_PROPERTY)).willReturn("csv");
+
+        assertThat(this.vs.isValidConfig()).isFalse();
+    }
+
     @ParameterizedTest
     @NullAndEmptySource
     @ValueSource(strings = {"*"})
@@ -175,6 +269,76 @@ public class ValidationServiceTests {
         assertThat(this.vs.getLastRunInfo()).isEmpty();
     }
 
+    @Test
+    void getRunHistoryReturnsSummariesOfEachRunFromMostRecent() throws Exception {
+        given(this.res.body()).willReturn("");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+        given(this.dao.getAll()).willReturn(this.tasks);
+
+        assertThat(this.vs.getRunHistory()).isEmpty();
+        this.vs.execValidations();
+        this.tasks.add(new ValidationTask(GET, "http://localhost/b", emptyList(), this.reqBody, 200, ""));
+        this.vs.execValidations();
+
+        assertThat(this.vs.getRunHistory()).extracting(RunSummary::tasksTotal).containsExactly(2, 1);
+        assertThat(this.vs.getRunHistory().getFirst().toInfoMap()).isEqualTo(this.vs.getLastRunInfo());
+        assertThat(this.metrics.scrape()).contains("httpvalidator_run_duration_seconds_count 2\n");
+    }
+
+    @Test
+    void execValidationsRecordsTimelineOfEachTaskWhenTraced() throws Exception {
+        SpanRing ring = new SpanRing(8);
+        given(this.tracer.startRun()).willReturn(ring);
+        given(this.res.body()).willReturn("");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        this.tasks.add(new ValidationTask(GET, "http://localhost/a", emptyList(), this.reqBody, 200, ""));
+        this.tasks.add(new ValidationTask(GET, "http://localhost/b", emptyList(), this.reqBody, 404, ""));
+        given(this.dao.getAll()).willReturn(this.tasks);
+
+        this.vs.execValidations();
+
+        verify(this.tracer).finishRun(ring);
+        assertThat(ring.size()).isEqualTo(2);
+        assertThat(IntStream.range(0, 2).mapToObj(ring::getOutcome)).containsExactlyInAnyOrder(OK_OUTCOME, "STATUS_CODE");
+        for (int i = 0; i < ring.size(); i++) {
+            for (int m = 1; m < SpanRing.MARKS; m++) {
+                assertThat(ring.getMark(i, m)).isGreaterThanOrEqualTo(ring.getMark(i, m - 1));
+            }
+        }
+    }
+
+    @Test
+    void execValidationsEmitsFlightRecorderEventsIntoRequestedProfile(@TempDir Path dir) throws Exception {
+        RunProfiler runProfiler = new RunProfiler();
+        given(this.env.getProperty(PROFILE_DIR_PROPERTY)).willReturn(dir.toString());
+        runProfiler.setEnv(this.env);
+        runProfiler.requestNextRun();
+        this.vs.setProfiler(runProfiler);
+        given(this.res.body()).willReturn("ok");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        this.tasks.add(new ValidationTask(GET, "http://localhost/a", emptyList(), this.reqBody, 404, ""));
+        given(this.dao.getAll()).willReturn(this.tasks);
+
+        this.vs.execValidations();
+
+        Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(runProfiler.getLastDump()).stream()
+            .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+        assertThat(events.get("httpvalidator.Run")).singleElement()
+            .satisfies(e -> assertThat(e.getInt("tasksFailed")).isEqualTo(1));
+        assertThat(events.get("httpvalidator.RequestBuild")).singleElement()
+            .satisfies(e -> assertThat(e.getInt("requests")).isEqualTo(1));
+        assertThat(events.get("httpvalidator.TaskRequest")).singleElement().satisfies(e -> {
+            assertThat(e.getString("url")).isEqualTo("http://localhost/a");
+            assertThat(e.getLong("responseBytes")).isEqualTo(2);
+        });
+        assertThat(events.get("httpvalidator.TaskValidation")).singleElement()
+            .satisfies(e -> assertThat(e.getString("outcome")).isEqualTo(FailureClass.STATUS_CODE.name()));
+    }
+
     @Test
     void whenLrEndIsNotNullGetLastRunInfoReturnsLastRunData() throws Exception {
         given(this.res.body()).willReturn("");
@@ -197,4 +361,304 @@ public class ValidationServiceTests {
         assertThat(res.containsKey(TASKS_FAILED_KEY)).isTrue();
         assertThat(res.get(TASKS_TOTAL_KEY)).isEqualTo(String.valueOf(1));
     }
+
+    @Test
+    void sendTimedRecordsTimeToFirstByteWhenResponseHeadersArrive() throws Exception {
+        HttpResponse.ResponseInfo info = mock(HttpResponse.ResponseInfo.class);
+        given(info.headers()).willReturn(HttpHeaders.of(Map.of(), (k, v) -> true));
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).willAnswer(inv -> {
+            HttpResponse.BodyHandler<String> handler = inv.getArgument(1);
+            handler.apply(info);
+            return CompletableFuture.completedFuture(this.res);
+        });
+
+        HttpSendOutcomeWrapper outcome = this.vs.sendTimed(this.req).get();
+
+        assertThat(outcome.getFirstByteNanos()).isPositive();
+        assertThat(outcome.getTotalNanos()).isGreaterThanOrEqualTo(outcome.getFirstByteNanos());
+    }
+
+    @Test
+    void recordResultsLogsAndReportsFailureClass() throws Exception {
+        given(this.res.body()).willReturn("ok");
+        given(this.resultsLog.isEnabled()).willReturn(true);
+        ResponseAssertions as = new ResponseAssertions(List.of(), null, List.of(), new LatencySla(0, 100), null);
+        ValidationTask task = new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, "ok", as);
+        TaskSource.TaskSet taskSet = TaskSource.TaskSet.of(Collections.nCopies(6, task), new long[]{10, 11, 12, 13, 14, 42});
+
+        HttpSendOutcomeWrapper outcome = new HttpSendOutcomeWrapper(this.res, 0, 200_000_000L);
+        List<TaskOutcome> results = List.of(new TaskOutcome(outcome, task.validate(outcome), 50_000_000L));
+
+        int[] counts = new int[3];
+        List<String[]> failures = new ArrayList<>();
+        LatencyHistograms latencies = new LatencyHistograms();
+        this.vs.recordResults(taskSet, taskSet.getPage(5, 1), results, 5, counts, failures, latencies);
+
+        assertThat(counts).containsExactly(1, 0, 1);
+        verify(this.logger).info("VALIDATION {} {}", "FAILURE (LATENCY)", "http://localhost [Task #5]");
+        assertThat(failures).singleElement().satisfies(f -> assertThat(f[3]).startsWith("LATENCY: "));
+        verify(this.sloTracker).record(eq(42L), eq(5), anyLong(), eq(false), eq(250_000_000L));
+        assertThat(latencies.report().tasks().get(42L).maxMillis()).isEqualTo(250.0);
+        assertThat(latencies.report().hosts()).containsOnlyKeys("localhost");
+        int hostHash = ResultsLog.hostHash("localhost");
+        verify(this.resultsIndex).add(anyLong(), eq(42L), eq(hostHash), eq(outcome), eq(results.getFirst().failure()));
+        verify(this.resultsLog).append(anyLong(), eq(42L), eq(hostHash), eq(ResultsLog.bodyHash("ok")), eq(outcome),
+            eq(results.getFirst().failure()));
+        assertThat(this.metrics.scrape()).contains("httpvalidator_tasks_total{outcome=\"failed\"} 1\n",
+            "httpvalidator_request_duration_seconds_count{host=\"localhost\"} 1\n", "httpvalidator_response_bytes_total 2\n");
+    }
+
+    @Test
+    void recordResultsDoesNotAppendToResultsLogWhenItIsDisabled() throws Exception {
+        ValidationTask task = new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, "");
+        TaskSource.TaskSet taskSet = TaskSource.TaskSet.of(List.of(task));
+        HttpSendOutcomeWrapper outcome = new HttpSendOutcomeWrapper(new StubHttpResponse(this.req, 200, ""), 0, 0);
+        List<TaskOutcome> results = List.of(new TaskOutcome(outcome, task.validate(outcome)));
+
+        this.vs.recordResults(taskSet, taskSet.getPage(0, 1), results, 0, new int[3], new ArrayList<>(), new LatencyHistograms());
+
+        verify(this.resultsIndex).add(anyLong(), anyLong(), anyInt(), eq(outcome), isNull());
+        verify(this.resultsLog, never()).append(anyLong(), anyLong(), anyInt(), anyLong(), any(), any());
+    }
+
+    @Test
+    void recordResultsAllocatesAlmostNothingPerTaskOnceTasksWereSeen() {
+        int taskCount = 1000;
+        List<TaskOutcome> results = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            ValidationTask task = new ValidationTask(GET, "http://host-" + (i % 20) + ".example.com/items/" + i, emptyList(), this.reqBody, 200, "ok");
+            this.tasks.add(task);
+            HttpSendOutcomeWrapper outcome = new HttpSendOutcomeWrapper(
+                new StubHttpResponse(this.req, i % 10 == 0 ? 500 : 200, "ok"), 1_000_000L, 2_000_000L);
+            results.add(new TaskOutcome(outcome, task.validate(outcome)));
+        }
+        SloTracker sloTracker = new SloTracker();
+        sloTracker.setEnv(this.env);
+        this.vs.setSloTracker(sloTracker);
+        // Stores that do nothing, so that only the recording is measured
+        this.vs.setResultsIndex(new ResultsIndex() {
+            @Override
+            public void add(long timestampMillis, long taskKey, int hostHash, HttpSendOutcomeWrapper res, ValidationFailure failure) {}
+        });
+        this.vs.setResultsLog(new ResultsLog() {
+            @Override
+            public boolean isEnabled() { return true; }
+
+            @Override
+            public void append(long timestampMillis, long taskKey, int hostHash, long bodyHash, HttpSendOutcomeWrapper res,
+                               ValidationFailure failure) {}
+        });
+        // A logger of the logging backend at INFO level, whose events are discarded instead of written out
+        LoggerContext context = new LoggerContext();
+        ch.qos.logback.classic.Logger infoLogger = context.getLogger(ValidationService.class);
+        infoLogger.setLevel(Level.INFO);
+        NOPAppender<ILoggingEvent> appender = new NOPAppender<>();
+        appender.setContext(context);
+        appender.start();
+        infoLogger.addAppender(appender);
+        this.vs.setLogger(infoLogger);
+        LatencyHistograms latencies = new LatencyHistograms();
+        TaskSource.TaskSet taskSet = TaskSource.TaskSet.of(this.tasks);
+        List<String[]> failures = new ArrayList<>(taskCount);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // Warm up, so that the tasks were seen and the code is compiled
+        for (int i = 0; i < 200; i++) {
+            failures.clear();
+            this.vs.recordResults(taskSet, this.tasks, results, 0, new int[3], failures, latencies);
+        }
+
+        int runs = 20;
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            failures.clear();
+            this.vs.recordResults(taskSet, this.tasks, results, 0, new int[3], failures, latencies);
+        }
+        long recorded = threads.getCurrentThreadAllocatedBytes() - before;
+        // What is allocated outside of the recording: the event the logging backend creates for each line, and the
+        // checks the mocking library adds to the classes mocked by other tests (the SLO tracker and the results log)
+        long now = System.currentTimeMillis();
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            for (int id = 0; id < taskCount; id++) {
+                infoLogger.info("VALIDATION {} {}", OK_OUTCOME, this.tasks.get(id).reqURL());
+                sloTracker.record(taskSet.keyOf(id), id, now, true, 2_000_000L);
+                ResultsLog.bodyHash("ok");
+            }
+        }
+        long excluded = threads.getCurrentThreadAllocatedBytes() - before;
+        long perTask = Math.max(0, recorded - excluded) / ((long) runs * taskCount);
+
+        assertThat(failures).hasSize(taskCount / 10);
+        // Only the counts of the tasks that failed more than 99 runs in a row are given a new text
+        assertThat(perTask).isLessThan(8);
+    }
+
+    @Test
+    void buildRequestsBuildsRequestOfEachTaskInOrder() {
+        given(this.mapper.writeValueAsString(this.reqBody)).willReturn("{}");
+        this.tasks.add(new ValidationTask(POST, "http://localhost/a", List.of("Accept" + HEADER_KEY_VALUE_DELIMITER + "text/plain"), this.reqBody, 200, ""));
+        this.tasks.add(new ValidationTask(GET, "http://localhost/b", emptyList(), this.reqBody, 200, ""));
+
+        List<HttpRequest> ans = this.vs.buildRequests(this.tasks);
+
+        assertThat(ans).extracting(HttpRequest::uri)
+            .containsExactly(URI.create("http://localhost/a"), URI.create("http://localhost/b"));
+        assertThat(ans).extracting(HttpRequest::method).containsExactly("POST", "GET");
+        assertThat(ans.getFirst().headers().firstValue("Accept")).hasValue("text/plain");
+        assertThat(ans.getFirst().bodyPublisher()).hasValueSatisfying(p -> assertThat(p.contentLength()).isEqualTo(2));
+    }
+
+    @Test
+    void buildAndExecuteRequestsValidatesResponsesInValidationPoolAndRecordsStageMetrics() throws Exception {
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        ValidationTask task = mock(ValidationTask.class);
+        given(task.reqURL()).willReturn("http://localhost");
+        given(task.reqHeaders()).willReturn(emptyList());
+        List<String> threads = new ArrayList<>();
+        given(task.validate(any(HttpSendOutcomeWrapper.class))).willAnswer(inv -> {
+            threads.add(Thread.currentThread().getName());
+            return null;
+        });
+
+        List<StageMetrics> stages = ValidationService.newStageMetrics();
+        List<TaskOutcome> ans = this.vs.buildAndExecuteRequests(List.of(task), stages);
+
+        assertThat(ans.getFirst().failure()).isNull();
+        assertThat(ans.getFirst().response().getStatusCode()).isEqualTo(200);
+        assertThat(threads).singleElement().asString().startsWith("validation-");
+        assertThat(stages).extracting(StageMetrics::getName)
+            .containsExactly(NETWORK_STAGE, QUEUE_STAGE, VALIDATION_STAGE);
+        assertThat(stages).allSatisfy(m -> assertThat(m.getCount()).isEqualTo(1));
+    }
+
+    @Test
+    void buildAndExecuteRequestsLimitsRequestsInFlightAndKeepsTimeQueued() throws Exception {
+        given(this.env.getProperty(MAX_CONCURRENT_REQUESTS_PROPERTY, Integer.class, DEFAULT_MAX_CONCURRENT_REQUESTS)).willReturn(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class))).willAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                LockSupport.parkNanos(50_000_000L);
+                inFlight.decrementAndGet();
+                return this.res;
+            });
+        });
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+
+        List<TaskOutcome> ans = this.vs.buildAndExecuteRequests(this.tasks, ValidationService.newStageMetrics());
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(ans.getFirst().queuedNanos()).isLessThan(40_000_000L);
+        assertThat(ans.get(1).queuedNanos()).isGreaterThanOrEqualTo(40_000_000L);
+        assertThat(ans.get(1).latencyNanos()).isEqualTo(ans.get(1).queuedNanos() + ans.get(1).response().getTotalNanos());
+        assertThat(this.metrics.getQueued()).isZero();
+        assertThat(this.metrics.getInFlight()).isZero();
+    }
+
+    @Test
+    void buildAndExecuteRequestsCountsTimeQueuedFromWhenThePageWasReady() throws Exception {
+        given(this.env.getProperty(MAX_CONCURRENT_REQUESTS_PROPERTY, Integer.class, DEFAULT_MAX_CONCURRENT_REQUESTS)).willReturn(1);
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willAnswer(inv -> CompletableFuture.supplyAsync(() -> {
+                LockSupport.parkNanos(20_000_000L);
+                return this.res;
+            }));
+        for (int i = 0; i < 5; i++) {
+            this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+        }
+
+        List<TaskOutcome> ans = this.vs.buildAndExecuteRequests(this.tasks, ValidationService.newStageMetrics());
+
+        // Each task waits for all the responses before it, not only for the previous one
+        for (int i = 1; i < ans.size(); i++) {
+            assertThat(ans.get(i).queuedNanos()).isGreaterThanOrEqualTo(i * 20_000_000L);
+            assertThat(ans.get(i).latencyNanos()).isGreaterThan(ans.get(i - 1).latencyNanos());
+        }
+        assertThat(ans.getLast().latencyNanos()).isGreaterThanOrEqualTo(5 * 20_000_000L);
+    }
+
+    @Test
+    void getLatencyReportReturnsPercentilesOfLastRunAndCumulative() throws Exception {
+        given(this.res.body()).willReturn("");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willAnswer(inv -> CompletableFuture.supplyAsync(() -> {
+                LockSupport.parkNanos(1_000_000L);
+                return this.res;
+            }));
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+        given(this.dao.getAll()).willReturn(this.tasks);
+
+        this.vs.execValidations();
+        this.vs.execValidations();
+        Map<String, LatencyHistograms.Report> report = this.vs.getLatencyReport();
+
+        assertThat(report.get(LAST_RUN_LATENCIES_KEY).tasks().values()).singleElement()
+            .extracting(LatencyHistograms.Percentiles::count).isEqualTo(1L);
+        assertThat(report.get(CUMULATIVE_LATENCIES_KEY).tasks().values()).singleElement()
+            .extracting(LatencyHistograms.Percentiles::count).isEqualTo(2L);
+        assertThat(report.get(CUMULATIVE_LATENCIES_KEY).hosts().get("localhost").p99Millis()).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void networkErrorsAreValidatedButNotRecordedInNetworkStage() throws Exception {
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.failedFuture(new ConnectException()));
+        this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 200, ""));
+
+        List<StageMetrics> stages = ValidationService.newStageMetrics();
+        List<TaskOutcome> ans = this.vs.buildAndExecuteRequests(this.tasks, stages);
+
+        assertThat(ans.getFirst().failure().failureClass()).isEqualTo(FailureClass.NETWORK);
+        assertThat(stages.getFirst().getCount()).isZero();
+    }
+
+    @Test
+    void execValidationsRunsTasksPageByPageAndSendsSingleNotification() throws Exception {
+        given(this.res.body()).willReturn("");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        given(this.env.getProperty(PAGE_SIZE_PROPERTY, Integer.class, DEFAULT_PAGE_SIZE)).willReturn(2);
+        for (int i = 0; i < 5; i++) {
+            this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 0, ""));
+        }
+        given(this.dao.getAll()).willReturn(this.tasks);
+
+        this.vs.execValidations();
+
+        verify(this.dao).getTaskSet();
+        verify(this.logger).info("VALIDATION {} {}", "FAILURE (STATUS_CODE)", "http://localhost [Task #4]");
+        verify(this.ns).sendVTaskErrorsNotification(argThat(l -> l.size() == 5));
+        assertThat(this.vs.getLastRunInfo()).containsEntry(TASKS_TOTAL_KEY, "5").containsEntry(TASKS_FAILED_KEY, "5");
+        assertThat(this.vs.getLastRunStageMetrics().getFirst().getCount()).isEqualTo(5);
+    }
+
+    @Test
+    void execValidationsRunsTheTasksTakenAtTheStartOfTheRun() throws Exception {
+        given(this.res.body()).willReturn("");
+        given(this.cl.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .willReturn(CompletableFuture.completedFuture(this.res));
+        given(this.env.getProperty(PAGE_SIZE_PROPERTY, Integer.class, DEFAULT_PAGE_SIZE)).willReturn(2);
+        for (int i = 0; i < 3; i++) {
+            this.tasks.add(new ValidationTask(GET, "http://localhost", emptyList(), this.reqBody, 0, ""));
+        }
+        given(this.dao.getAll()).willReturn(this.tasks, List.of(this.tasks.getFirst()));
+
+        this.vs.execValidations();
+
+        verify(this.dao, times(1)).getAll();
+        assertThat(this.vs.getLastRunInfo()).containsEntry(TASKS_TOTAL_KEY, "3");
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1})
+    void execValidationsRejectsNonPositivePageSize(int size) {
+        given(this.env.getProperty(PAGE_SIZE_PROPERTY, Integer.class, DEFAULT_PAGE_SIZE)).willReturn(size);
+        given(this.env.getProperty(RUN_SCHEDULE_PROPERTY)).willReturn("-");
+
+        assertThrows(IllegalStateException.class, () -> this.vs.execValidations());
+        assertThat(this.vs.isValidConfig()).isFalse();
+    }
 }
@@ -0,0 +1,29 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BoundedCharSequenceTests {
+
+    @Test
+    void viewIsLimitedToMaxLength() {
+        BoundedCharSequence seq = new BoundedCharSequence("abcdef", 3, 10);
+
+        assertThat(seq.length()).isEqualTo(3);
+        assertThat(seq.toString()).isEqualTo("abc");
+        assertThrows(IndexOutOfBoundsException.class, () -> seq.charAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> seq.subSequence(1, 4));
+    }
+
+    @Test
+    void charAtCountsStepsAndThrowsWhenBudgetIsExhausted() {
+        BoundedCharSequence seq = new BoundedCharSequence("ab", 2, 2);
+
+        assertThat(seq.charAt(0)).isEqualTo('a');
+        assertThat(seq.charAt(1)).isEqualTo('b');
+        assertThat(seq.getSteps()).isEqualTo(2);
+        assertThrows(BoundedCharSequence.BudgetExceededException.class, () -> seq.charAt(0));
+    }
+}
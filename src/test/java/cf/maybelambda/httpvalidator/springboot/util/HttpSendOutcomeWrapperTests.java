@@ -2,7 +2,11 @@ package cf.maybelambda.httpvalidator.springboot.util;
 
 import org.junit.jupiter.api.Test;
 
+import java.net.ConnectException;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
 
 import static cf.maybelambda.httpvalidator.springboot.util.HttpSendOutcomeWrapper.NET_ERR_MSG;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -65,4 +69,29 @@ public class HttpSendOutcomeWrapperTests {
 
         assertThat(wrapper.getBody()).isEqualTo(NET_ERR_MSG);
     }
+
+    @Test
+    void getHeadersReturnsNoHeadersWhenExceptionFieldIsNotNull() {
+        HttpSendOutcomeWrapper wrapper = new HttpSendOutcomeWrapper(new ConnectException());
+
+        assertThat(wrapper.getHeaders().map()).isEmpty();
+    }
+
+    @Test
+    void getHeadersReturnsTheHeadersOfTheHttpResponseWhenExceptionFieldIsNull() {
+        HttpHeaders headers = HttpHeaders.of(Map.of("a", List.of("1")), (k, v) -> true);
+        given(this.httpResponse.headers()).willReturn(headers);
+
+        assertThat(new HttpSendOutcomeWrapper(this.httpResponse).getHeaders()).isSameAs(headers);
+    }
+
+    @Test
+    void timingsAreZeroUnlessMeasured() {
+        assertThat(new HttpSendOutcomeWrapper(this.httpResponse).getTotalNanos()).isZero();
+
+        HttpSendOutcomeWrapper wrapper = new HttpSendOutcomeWrapper(this.httpResponse, 5, 9);
+
+        assertThat(wrapper.getFirstByteNanos()).isEqualTo(5);
+        assertThat(wrapper.getTotalNanos()).isEqualTo(9);
+    }
 }
@@ -0,0 +1,64 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.JacksonException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class JsonLeafReaderTests {
+
+    private static List<String> readAll(String json) {
+        List<String> res = new ArrayList<>();
+        try (JsonLeafReader reader = new JsonLeafReader(json)) {
+            while (reader.next()) {
+                res.add(reader.path() + "=" + reader.value());
+            }
+        }
+        return res;
+    }
+
+    @Test
+    void leavesAreReadInDocumentOrderWithTheirPaths() {
+        String json = "{\"a\": 1, \"b\": [true, {\"c\": \"x\"}, null], \"d\": {}, \"e\": []}";
+
+        assertThat(readAll(json)).containsExactly(
+            "$.a=1", "$.b[0]=true", "$.b[1].c=\"x", "$.b[2]=null", "$.d={}", "$.e=[]"
+        );
+    }
+
+    @Test
+    void scalarRootIsReadAsSingleLeaf() {
+        assertThat(readAll("\"text\"")).containsExactly("$=\"text");
+    }
+
+    @Test
+    void numbersAreNormalizedAndStringsSetApartFromThem() {
+        assertThat(readAll("[1.50, 1.5, 100, 1e2, \"1.5\", 0.0]")).containsExactly(
+            "$[0]=1.5", "$[1]=1.5", "$[2]=1E+2", "$[3]=1E+2", "$[4]=\"1.5", "$[5]=0"
+        );
+    }
+
+    @Test
+    void propertyNamesWithDelimitersAreQuoted() {
+        assertThat(readAll("{\"a.b\": 1, \"\": 2, \"x[0]\": 3}")).containsExactly(
+            "$['a.b']=1", "$['']=2", "$['x[0]']=3"
+        );
+    }
+
+    @Test
+    void formattingDoesNotChangeTheLeaves() {
+        String a = "{\"k\":[1,2,{\"z\":\"v\"}]}";
+        String b = "{\n  \"k\" : [ 1,\n 2 , { \"z\" :\t\"v\" } ]\n}";
+
+        assertThat(readAll(a)).isEqualTo(readAll(b));
+    }
+
+    @Test
+    void nextThrowsJacksonExceptionWhenDocumentIsMalformed() {
+        assertThrows(JacksonException.class, () -> readAll("{\"a\": }"));
+    }
+}
@@ -0,0 +1,108 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EQUALS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.EXISTS;
+import static cf.maybelambda.httpvalidator.springboot.model.JsonPathAssertion.Kind.SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonPathStreamEvaluatorTests {
+    private static final String body = """
+        {
+          "status": "ok",
+          "meta": { "count": 3, "tags": ["a", "b"] },
+          "data": [ { "id": 7, "name": "x" }, { "id": 8, "name": null }, { "id": 9, "nested": [[1, 2], [3]] } ]
+        }""";
+
+    private static JsonPathAssertion equalsTo(String path, String expected) {
+        return new JsonPathAssertion(path, EQUALS, expected, 0, Integer.MAX_VALUE);
+    }
+
+    private static JsonPathAssertion exists(String path) {
+        return new JsonPathAssertion(path, EXISTS, "", 0, Integer.MAX_VALUE);
+    }
+
+    private static JsonPathAssertion sizeIn(String path, int min, int max) {
+        return new JsonPathAssertion(path, SIZE, "", min, max);
+    }
+
+    @Test
+    void findFailureReturnsNullWhenNoAssertions() {
+        assertThat(JsonPathStreamEvaluator.findFailure("not json", List.of())).isNull();
+    }
+
+    @Test
+    void findFailureReturnsNullWhenAllAssertionsHold() {
+        List<JsonPathAssertion> as = List.of(
+            equalsTo("$.status", "ok"),
+            equalsTo("$.meta.count", "3"),
+            equalsTo("$.data[1].name", "null"),
+            equalsTo("$.data[2].nested[0][1]", "2"),
+            exists("$.meta.tags"),
+            exists("$.data[2]"),
+            sizeIn("$.data", 3, 3),
+            sizeIn("$.meta.tags", 1, 5),
+            sizeIn("$.data[2].nested[1]", 1, 1)
+        );
+
+        assertThat(JsonPathStreamEvaluator.findFailure(body, as)).isNull();
+    }
+
+    @Test
+    void findFailureIgnoresWhitespaceAndFormatting() {
+        String compact = body.replaceAll("\\s+", "");
+
+        assertThat(JsonPathStreamEvaluator.findFailure(compact, List.of(equalsTo("$.data[0].name", "x")))).isNull();
+    }
+
+    @Test
+    void findFailureReturnsAssertionWithDifferentValue() {
+        JsonPathAssertion a = equalsTo("$.data[0].id", "8");
+
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(exists("$.status"), a))).isEqualTo(a);
+    }
+
+    @Test
+    void findFailureReturnsAssertionWhosePathIsMissing() {
+        JsonPathAssertion a = exists("$.data[3]");
+        JsonPathAssertion b = exists("$.meta.other");
+
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(a))).isEqualTo(a);
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(b))).isEqualTo(b);
+    }
+
+    @Test
+    void findFailureReturnsSizeAssertionOutOfRangeOrNotOnArray() {
+        JsonPathAssertion a = sizeIn("$.data", 4, 10);
+        JsonPathAssertion b = sizeIn("$.meta", 0, 10);
+
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(a))).isEqualTo(a);
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(b))).isEqualTo(b);
+    }
+
+    @Test
+    void findFailureReturnsEqualsAssertionTargetingContainer() {
+        JsonPathAssertion a = equalsTo("$.meta", "{}");
+
+        assertThat(JsonPathStreamEvaluator.findFailure(body, List.of(a))).isEqualTo(a);
+    }
+
+    @Test
+    void findFailureStopsOnceAllAssertionsAreDecided() {
+        // Content after the decided location is malformed but never reached
+        String truncated = "{\"status\":\"ok\",\"data\":[1, 2,";
+
+        assertThat(JsonPathStreamEvaluator.findFailure(truncated, List.of(equalsTo("$.status", "ok")))).isNull();
+    }
+
+    @Test
+    void findFailureReturnsPendingAssertionWhenBodyIsNotJSON() {
+        JsonPathAssertion a = exists("$");
+
+        assertThat(JsonPathStreamEvaluator.findFailure("<html></html>", List.of(a))).isEqualTo(a);
+    }
+}
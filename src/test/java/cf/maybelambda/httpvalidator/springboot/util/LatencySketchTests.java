@@ -0,0 +1,110 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencySketchTests {
+
+    @Test
+    void emptySketchReportsZero() {
+        LatencySketch s = new LatencySketch();
+
+        assertThat(s.getCount()).isZero();
+        assertThat(s.quantileNanos(0.5)).isZero();
+        assertThat(s.getMaxNanos()).isZero();
+    }
+
+    @Test
+    void quantilesAreWithinRelativeAccuracy() {
+        LatencySketch s = new LatencySketch();
+        // 1 ms to 1000 ms
+        LongStream.rangeClosed(1, 1000).forEach(i -> s.record(i * 1_000_000));
+
+        assertThat(s.getCount()).isEqualTo(1000);
+        assertThat(s.quantileNanos(0.5)).isCloseTo(500_000_000L, within(500_000_000L / 20));
+        assertThat(s.quantileNanos(0.99)).isCloseTo(990_000_000L, within(990_000_000L / 20));
+        assertThat(s.quantileNanos(0.001)).isCloseTo(1_000_000L, within(1_000_000L / 20));
+    }
+
+    @Test
+    void valuesOutOfRangeAreCountedInEdgeBuckets() {
+        LatencySketch s = new LatencySketch();
+        s.record(10);
+        s.record(Long.MAX_VALUE);
+
+        assertThat(s.quantileNanos(0.5)).isEqualTo(LatencySketch.MIN_NANOS);
+        assertThat(s.quantileNanos(1)).isGreaterThanOrEqualTo(LatencySketch.MAX_NANOS);
+    }
+
+    @Test
+    void mergedSketchEqualsSketchOfAllValues() {
+        LatencySketch a = new LatencySketch();
+        LatencySketch b = new LatencySketch();
+        LatencySketch all = new LatencySketch();
+        LongStream.rangeClosed(1, 100).forEach(i -> {
+            (i % 3 == 0 ? a : b).record(i * 1_234_567);
+            all.record(i * 1_234_567);
+        });
+        a.merge(b);
+
+        assertThat(a.getCount()).isEqualTo(100);
+        assertThat(a.getMaxNanos()).isEqualTo(100 * 1_234_567L);
+        for (double q : new double[]{0.1, 0.5, 0.9, 0.99}) {
+            assertThat(a.quantileNanos(q)).isEqualTo(all.quantileNanos(q));
+        }
+    }
+
+    @Test
+    void mergeGrowsTheRangeOfBucketsToBothSides() {
+        LatencySketch s = new LatencySketch();
+        LatencySketch low = new LatencySketch();
+        LatencySketch high = new LatencySketch();
+        s.record(50_000_000);
+        low.record(200_000);
+        high.record(20_000_000_000L);
+        s.merge(low);
+        s.merge(high);
+
+        assertThat(s.getCount()).isEqualTo(3);
+        assertThat(s.quantileNanos(0.1)).isEqualTo(low.quantileNanos(0.5));
+        assertThat(s.quantileNanos(0.5)).isCloseTo(50_000_000L, within(50_000_000L / 20));
+        assertThat(s.quantileNanos(1)).isEqualTo(high.quantileNanos(0.5));
+    }
+
+    @Test
+    void clearedSketchIsEmptyAndRecordsAgain() {
+        LatencySketch s = new LatencySketch();
+        LongStream.rangeClosed(1, 20).forEach(i -> s.record(i * 1_000_000));
+        s.clear();
+
+        assertThat(s.getCount()).isZero();
+        assertThat(s.quantileNanos(0.5)).isZero();
+        assertThat(s.getMaxNanos()).isZero();
+
+        s.record(4_000_000);
+
+        assertThat(s.getCount()).isEqualTo(1);
+        assertThat(s.quantileNanos(0.5)).isCloseTo(4_000_000L, within(4_000_000L / 20));
+    }
+
+    @Test
+    void readFromReturnsSketchWrittenByWriteTo() throws Exception {
+        LatencySketch s = new LatencySketch();
+        LongStream.rangeClosed(1, 50).forEach(i -> s.record(i * 3_000_000));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        s.writeTo(new DataOutputStream(bytes));
+
+        LatencySketch read = LatencySketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.getCount()).isEqualTo(50);
+        assertThat(read.quantileNanos(0.9)).isEqualTo(s.quantileNanos(0.9));
+    }
+}
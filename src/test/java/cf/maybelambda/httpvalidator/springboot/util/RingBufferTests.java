@@ -0,0 +1,50 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RingBufferTests {
+
+    @Test
+    void getAllReturnsItemsFromMostRecentlyAdded() {
+        RingBuffer<String> rb = new RingBuffer<>(3);
+
+        assertThat(rb.getAll()).isEmpty();
+        rb.add("a");
+        rb.add("b");
+
+        assertThat(rb.getAll()).containsExactly("b", "a");
+    }
+
+    @Test
+    void oldestItemsAreReplacedWhenFull() {
+        RingBuffer<Integer> rb = new RingBuffer<>(3);
+        IntStream.range(0, 7).forEach(rb::add);
+
+        assertThat(rb.getAll()).containsExactly(6, 5, 4);
+        assertThat(rb.getCapacity()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentWritersKeepTheLastItemsOfEach() {
+        RingBuffer<Integer> rb = new RingBuffer<>(64);
+        IntStream.range(0, 10_000).parallel().forEach(i -> {
+            rb.add(i);
+            assertThat(rb.getAll().size()).isLessThanOrEqualTo(64);
+        });
+
+        List<Integer> items = rb.getAll();
+        assertThat(items).hasSize(64).doesNotHaveDuplicates();
+        assertThat(items).allMatch(i -> i >= 0 && i < 10_000);
+    }
+
+    @Test
+    void constructorThrowsIllegalArgumentExceptionWhenCapacityNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(0));
+    }
+}
@@ -0,0 +1,76 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static cf.maybelambda.httpvalidator.springboot.util.SpanRing.READY;
+import static cf.maybelambda.httpvalidator.springboot.util.SpanRing.VALIDATION_END;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SpanRingTests {
+
+    private static void add(SpanRing ring, int taskId) {
+        ring.add(taskId, "http://h/" + taskId, 200, "OK", taskId, taskId + 1, taskId + 2, taskId + 3, taskId + 4, taskId + 5);
+    }
+
+    @Test
+    void spansAreReadFromOldestWithEveryMark() {
+        SpanRing ring = new SpanRing(4);
+        add(ring, 10);
+        add(ring, 20);
+
+        assertThat(ring.size()).isEqualTo(2);
+        assertThat(ring.getTaskId(0)).isEqualTo(10);
+        assertThat(ring.getUrl(1)).isEqualTo("http://h/20");
+        assertThat(ring.getStatusCode(1)).isEqualTo(200);
+        assertThat(ring.getOutcome(0)).isEqualTo("OK");
+        assertThat(ring.getMark(1, READY)).isEqualTo(20);
+        assertThat(ring.getMark(1, VALIDATION_END)).isEqualTo(25);
+        assertThat(ring.getDropped()).isZero();
+    }
+
+    @Test
+    void oldestSpansAreOverwrittenAndCountedAsDroppedWhenFull() {
+        SpanRing ring = new SpanRing(3);
+        IntStream.range(0, 5).forEach(i -> add(ring, i));
+
+        assertThat(ring.size()).isEqualTo(3);
+        assertThat(IntStream.range(0, 3).map(ring::getTaskId)).containsExactly(2, 3, 4);
+        assertThat(ring.getDropped()).isEqualTo(2);
+    }
+
+    @Test
+    void clearForgetsSpansAndKeepsCapacity() {
+        SpanRing ring = new SpanRing(3);
+        IntStream.range(0, 5).forEach(i -> add(ring, i));
+        ring.clear();
+        add(ring, 7);
+
+        assertThat(ring.size()).isEqualTo(1);
+        assertThat(ring.getTaskId(0)).isEqualTo(7);
+        assertThat(ring.getDropped()).isZero();
+        assertThat(ring.getCapacity()).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentWritersGetSeparateSlots() {
+        SpanRing ring = new SpanRing(10_000);
+        IntStream.range(0, 10_000).parallel().forEach(i -> add(ring, i));
+
+        Set<Integer> ids = new TreeSet<>();
+        IntStream.range(0, ring.size()).forEach(i -> {
+            ids.add(ring.getTaskId(i));
+            assertThat(ring.getMark(i, VALIDATION_END)).isEqualTo(ring.getTaskId(i) + 5);
+        });
+        assertThat(ids).hasSize(10_000);
+    }
+
+    @Test
+    void nonPositiveCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new SpanRing(0));
+    }
+}
@@ -0,0 +1,42 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StageMetricsTests {
+
+    @Test
+    void emptyMetricsReportZeroes() {
+        StageMetrics m = new StageMetrics("network");
+
+        assertThat(m.getCount()).isZero();
+        assertThat(m.getMeanNanos()).isZero();
+        assertThat(m.getMaxNanos()).isZero();
+    }
+
+    @Test
+    void recordAccumulatesCountTotalAndMax() {
+        StageMetrics m = new StageMetrics("validation");
+        m.record(1_000_000);
+        m.record(3_000_000);
+
+        assertThat(m.getCount()).isEqualTo(2);
+        assertThat(m.getTotalNanos()).isEqualTo(4_000_000);
+        assertThat(m.getMeanNanos()).isEqualTo(2_000_000);
+        assertThat(m.getMaxNanos()).isEqualTo(3_000_000);
+        assertThat(m.toString()).isEqualTo("validation: count=2, mean=2.000 ms, max=3.000 ms");
+    }
+
+    @Test
+    void recordIsSafeFromConcurrentThreads() {
+        StageMetrics m = new StageMetrics("validation");
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> m.record(i));
+
+        assertThat(m.getCount()).isEqualTo(10_000);
+        assertThat(m.getMaxNanos()).isEqualTo(9_999);
+    }
+}
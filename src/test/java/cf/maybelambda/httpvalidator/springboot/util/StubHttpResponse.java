@@ -0,0 +1,60 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import javax.net.ssl.SSLSession;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Canned HTTP response, so that benchmarks and allocation tests measure the application code instead of the network
+ * or a mocking library.
+ */
+public class StubHttpResponse implements HttpResponse<String> {
+    private static final HttpHeaders HEADERS = HttpHeaders.of(
+        Map.of("Content-Type", List.of("application/json")), (name, value) -> true);
+    private final HttpRequest request;
+    private final int statusCode;
+    private final String body;
+
+    /**
+     * Constructs a response with a JSON content type.
+     *
+     * @param request the request answered
+     * @param statusCode the status code
+     * @param body the body
+     */
+    public StubHttpResponse(HttpRequest request, int statusCode, String body) {
+        this.request = request;
+        this.statusCode = statusCode;
+        this.body = body;
+    }
+
+    @Override
+    public int statusCode() { return this.statusCode; }
+
+    @Override
+    public HttpRequest request() { return this.request; }
+
+    @Override
+    public Optional<HttpResponse<String>> previousResponse() { return Optional.empty(); }
+
+    @Override
+    public HttpHeaders headers() { return HEADERS; }
+
+    @Override
+    public String body() { return this.body; }
+
+    @Override
+    public Optional<SSLSession> sslSession() { return Optional.empty(); }
+
+    @Override
+    public URI uri() { return this.request.uri(); }
+
+    @Override
+    public HttpClient.Version version() { return HttpClient.Version.HTTP_1_1; }
+}
@@ -0,0 +1,48 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TeeInputStreamTests {
+    private static final byte[] data = "<validations/>".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void everyByteReadIsCopied() throws Exception {
+        ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(data), copy, 100);
+
+        assertThat(tee.read()).isEqualTo('<');
+        assertThat(tee.skip(3)).isEqualTo(3);
+        assertThat(tee.read(new byte[4], 0, 4)).isEqualTo(4);
+        tee.drain();
+
+        assertThat(copy.toByteArray()).isEqualTo(data);
+        assertThat(tee.getCount()).isEqualTo(data.length);
+    }
+
+    @Test
+    void readThrowsLimitExceededExceptionWhenInputIsLargerThanLimit() {
+        TeeInputStream tee = new TeeInputStream(new ByteArrayInputStream(data), new ByteArrayOutputStream(), 5);
+
+        assertThrows(TeeInputStream.LimitExceededException.class, tee::drain);
+    }
+
+    @Test
+    void closeDoesNotCloseWrappedStream() throws Exception {
+        InputStream in = mock(InputStream.class);
+
+        new TeeInputStream(in, new ByteArrayOutputStream(), 5).close();
+
+        verify(in, never()).close();
+    }
+}
@@ -0,0 +1,14 @@
+package cf.maybelambda.httpvalidator.springboot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UrlHostsTests {
+    @Test
+    void hostOfReturnsLowerCaseHostOrEmptyString() {
+        assertThat(UrlHosts.hostOf("http://Example.com:80/a")).isEqualTo("example.com");
+        assertThat(UrlHosts.hostOf("file:///tmp/a")).isEmpty();
+        assertThat(UrlHosts.hostOf("not a url")).isEmpty();
+    }
+}